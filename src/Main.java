@@ -1,4 +1,5 @@
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.nio.file.*;
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -22,18 +23,31 @@ public class Main {
     private static BulkImportService bulkImportService = new BulkImportService(studentManager, gradeManager);
     private static FileIOService fileIOService = new FileIOService();
     private static ConcurrentTaskService taskService = new ConcurrentTaskService(studentManager, gradeManager, fileIOService);
-    private static CacheManager cacheManager = new CacheManager();
+    private static CacheManager cacheManager = CacheManager.getInstance(); // shared by all services' caches
     private static AuditLogger auditLogger = AuditLogger.getInstance();
     private static WatchServiceMonitor watchServiceMonitor;
-    private static GPACalculator gpaCalculator = new GPACalculator(studentManager, gradeManager);
-    private static StatisticsDashboard statisticsDashboard = new StatisticsDashboard(studentManager, gradeManager, CacheManager.getInstance());
-    private static PatternSearchService patternSearchService = new PatternSearchService(studentManager, gradeManager);
-    private static SearchService searchService = new SearchService(studentManager, gradeManager);
+    private static GPACalculator gpaCalculator = new GPACalculator(studentManager, gradeManager, cacheManager);
+    private static StatisticsDashboard statisticsDashboard = new StatisticsDashboard(studentManager, gradeManager, cacheManager);
+    private static PatternSearchService patternSearchService = new PatternSearchService(studentManager, gradeManager, cacheManager);
+    private static SearchService searchService = new SearchService(studentManager, gradeManager, cacheManager);
     private static StatisticsCalculator statisticsCalculator = new StatisticsCalculator(studentManager, gradeManager);
     private static StreamProcessor streamProcessor = new StreamProcessor(studentManager, gradeManager);
     private static ScheduledExecutorService scheduledTasks = Executors.newScheduledThreadPool(4);
 
     private static Scanner scanner = new Scanner(System.in);
+    // Per-instance state: further instances on this machine run with -Dapp.instance=<name>, so
+    // each has its own grade book, ID high-water marks and cache checkpoint
+    private static final String INSTANCE = System.getProperty("app.instance", "").trim();
+    private static final Path INSTANCE_CACHE_DIR = INSTANCE.isEmpty() ? Paths.get("cache") : Paths.get("cache", INSTANCE);
+    private static final Path ID_STATE_FILE = INSTANCE_CACHE_DIR.resolve("id-allocators.properties");
+    private static final Path GRADE_BOOK_DIR = INSTANCE.isEmpty()
+            ? Paths.get("data", "gradebook") : Paths.get("data", INSTANCE, "gradebook");
+    private static GradeBookStore gradeBookStore = new GradeBookStore(GRADE_BOOK_DIR);
+    private static boolean ownsInstanceState = true; // false when another process holds GRADE_BOOK_DIR
+    private static final Path CACHE_CHECKPOINT_FILE = INSTANCE_CACHE_DIR.resolve("cache-checkpoint.dat");
+    private static CacheCheckpoint cacheCheckpoint =
+            new CacheCheckpoint(cacheManager, studentManager, gradeManager, CACHE_CHECKPOINT_FILE);
+    private static InvalidationBus invalidationBus; // only when other instances are configured
 
     static {
         try {
@@ -47,6 +61,10 @@ public class Main {
     public static void main(String[] args) {
         try {
             createDirectories();
+            restoreIdHighWaterMarks();
+            restoreGradeBook();
+            cacheManager.attachTo(studentManager.getChangeFeed());
+            startInvalidationBus();
             initializeSampleData();
             displayMainMenu();
         } catch (Exception e) {
@@ -70,11 +88,60 @@ public class Main {
                 Files.createDirectories(path);
             }
         }
+        Files.createDirectories(INSTANCE_CACHE_DIR);
 
         System.out.println("✓ All directories created successfully.");
         auditLogger.logSimple("SYSTEM", "Directories initialized", null);
     }
 
+    private static void restoreIdHighWaterMarks() {
+        // Persisted students and grades re-observe their own ids on restore; the file also covers
+        // grade ids that only ever reached exports
+        try {
+            IdAllocator.load(ID_STATE_FILE, IdAllocator.GRADES);
+            System.out.println("✓ Grade ID high-water mark restored: " + IdAllocator.GRADES.getHighWaterMark());
+        } catch (IOException e) {
+            System.err.println("⚠ Could not restore ID high-water marks: " + e.getMessage());
+        }
+    }
+
+    private static void restoreGradeBook() {
+        try {
+            GradeBookStore.RecoveryReport report = gradeBookStore.recover(studentManager, gradeManager);
+            report.display();
+            auditLogger.logWithTime("SYSTEM_RESTORE", "Grade book restored: " + report,
+                    (long) report.getTotalMillis(), null);
+        } catch (DataDirectoryLockedException e) {
+            // Sharing it would interleave two logs and reissue the same grade IDs
+            ownsInstanceState = false;
+            throw new IllegalStateException(e.getMessage() + " (give each instance its own -Dapp.instance)", e);
+        } catch (IOException e) {
+            System.err.println("⚠ Could not restore the grade book, running in memory only: " + e.getMessage());
+            auditLogger.logError("SYSTEM_RESTORE", "Grade book restore failed", e.getMessage(), null);
+        }
+    }
+
+    // Other instances on this machine: -Dcache.bus.port=47100 -Dcache.bus.peers=127.0.0.1:47101,...
+    // The bus only drops cached entries when a peer's data changes; it does not replicate grades,
+    // and each instance recomputes from its own grade book (see InvalidationBus).
+    private static void startInvalidationBus() {
+        int port = Integer.getInteger("cache.bus.port", 0);
+        String peers = System.getProperty("cache.bus.peers", "").trim();
+        if (port == 0 || peers.isEmpty()) return;
+        try {
+            invalidationBus = new InvalidationBus(cacheManager, port);
+            for (String peer : peers.split(",")) {
+                String[] hostAndPort = peer.trim().split(":");
+                invalidationBus.addPeer(new InetSocketAddress(hostAndPort[0], Integer.parseInt(hostAndPort[1])));
+            }
+            invalidationBus.attachTo(studentManager.getChangeFeed());
+            System.out.println("✓ Cache invalidation bus on " + invalidationBus.getLocalAddress()
+                    + ", peers " + invalidationBus.getPeers());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠ Could not start the cache invalidation bus: " + e.getMessage());
+        }
+    }
+
     private static void initializeSampleData() {
         System.out.println("\n" + "=".repeat(80));
         System.out.println("           STUDENT GRADE MANAGEMENT SYSTEM v3.0");
@@ -84,13 +151,22 @@ public class Main {
         long startTime = System.currentTimeMillis();
 
         try {
-            // Add sample students with comprehensive data
-            addSampleStudents();
-            addSampleGrades();
+            // Add sample students with comprehensive data (first start only; later starts restore them)
+            if (studentManager.getStudentCount() == 0) {
+                addSampleStudents();
+                addSampleGrades();
+            }
 
-            // Warm caches
-            cacheManager.warmCache(studentManager.getStudents());
-            gpaCalculator.warmCache();
+            // Warm caches: in the background from the last run's hot entries, or all students on a first start
+            if (Files.exists(CACHE_CHECKPOINT_FILE)) {
+                System.out.println("Warming caches in the background from " + CACHE_CHECKPOINT_FILE + "...");
+                cacheCheckpoint.warmStart().thenAccept(report -> auditLogger.logWithTime("CACHE_WARM_START",
+                        report.toString(), (long) report.getTotalMillis(), null));
+            } else {
+                cacheManager.warmCache(studentManager.getStudents());
+                gpaCalculator.warmCache();
+            }
+            cacheCheckpoint.start(CacheCheckpoint.DEFAULT_PERIOD_MILLIS);
 
             long initializationTime = System.currentTimeMillis() - startTime;
 
@@ -193,13 +269,14 @@ public class Main {
     }
 
     private static void addSampleGrades() {
-        // Subjects
+        // Subjects (shared catalog instances)
+        SubjectRegistry catalog = SubjectRegistry.getInstance();
         List<Subject> subjects = new ArrayList<>();
-        subjects.add(new CoreSubject("Mathematics", "MAT101"));
-        subjects.add(new CoreSubject("English", "ENG101"));
-        subjects.add(new CoreSubject("Science", "SCI101"));
-        subjects.add(new ElectiveSubject("Art", "ART101"));
-        subjects.add(new ElectiveSubject("Music", "MUS101"));
+        subjects.add(catalog.core("Mathematics", "MAT101"));
+        subjects.add(catalog.core("English", "ENG101"));
+        subjects.add(catalog.core("Science", "SCI101"));
+        subjects.add(catalog.elective("Art", "ART101"));
+        subjects.add(catalog.elective("Music", "MUS101"));
 
         List<Student> students = (List<Student>) studentManager.getStudents();
 
@@ -221,8 +298,9 @@ public class Main {
             // Each student has 40% chance of failing
             boolean isFailing = random.nextDouble() < 0.40;
 
-            // Add 3-5 grades
+            // Add 3-5 grades (applied as one quiet batch per student)
             int gradeCount = 3 + random.nextInt(3);
+            List<Grade> studentGrades = new ArrayList<>(gradeCount);
 
             for (int j = 0; j < gradeCount; j++) {
                 Subject subject = subjects.get(random.nextInt(subjects.size()));
@@ -230,9 +308,9 @@ public class Main {
                         40 + random.nextInt(45) :  // 40-84 for failing
                         65 + random.nextInt(36);   // 65-100 for passing
 
-                gradeManager.addGrade(new Grade(studentId, subject, grade));
-                totalGrades++;
+                studentGrades.add(new Grade(studentId, subject, grade));
             }
+            totalGrades += gradeManager.addGrades(studentGrades);
 
             double avgGrade = gradeManager.calculateOverallAverage(student.getStudentId());
             boolean failing = avgGrade < student.getPassingGrade();
@@ -540,6 +618,7 @@ public class Main {
             System.out.print("Choice (1-2): ");
             String subjectTypeChoice = scanner.nextLine();
 
+            SubjectRegistry catalog = SubjectRegistry.getInstance();
             Subject subject = null;
             if (subjectTypeChoice.equals("1")) {
                 System.out.println("\nCore Subjects:");
@@ -552,11 +631,11 @@ public class Main {
                 String coreChoice = scanner.nextLine();
 
                 switch (coreChoice) {
-                    case "1": subject = new CoreSubject("Mathematics", "MAT101"); break;
-                    case "2": subject = new CoreSubject("English", "ENG101"); break;
-                    case "3": subject = new CoreSubject("Science", "SCI101"); break;
-                    case "4": subject = new CoreSubject("History", "HIS101"); break;
-                    case "5": subject = new CoreSubject("Computer Science", "CSC101"); break;
+                    case "1": subject = catalog.core("Mathematics", "MAT101"); break;
+                    case "2": subject = catalog.core("English", "ENG101"); break;
+                    case "3": subject = catalog.core("Science", "SCI101"); break;
+                    case "4": subject = catalog.core("History", "HIS101"); break;
+                    case "5": subject = catalog.core("Computer Science", "CSC101"); break;
                     default:
                         System.out.println("Invalid choice!");
                         return;
@@ -572,11 +651,11 @@ public class Main {
                 String electiveChoice = scanner.nextLine();
 
                 switch (electiveChoice) {
-                    case "1": subject = new ElectiveSubject("Music", "MUS101"); break;
-                    case "2": subject = new ElectiveSubject("Art", "ART101"); break;
-                    case "3": subject = new ElectiveSubject("Physical Education", "PED101"); break;
-                    case "4": subject = new ElectiveSubject("Drama", "DRA101"); break;
-                    case "5": subject = new ElectiveSubject("Economics", "ECO101"); break;
+                    case "1": subject = catalog.elective("Music", "MUS101"); break;
+                    case "2": subject = catalog.elective("Art", "ART101"); break;
+                    case "3": subject = catalog.elective("Physical Education", "PED101"); break;
+                    case "4": subject = catalog.elective("Drama", "DRA101"); break;
+                    case "5": subject = catalog.elective("Economics", "ECO101"); break;
                     default:
                         System.out.println("Invalid choice!");
                         return;
@@ -619,7 +698,7 @@ public class Main {
             System.out.println("Student:       " + studentId + " - " + student.getName());
             System.out.println("Subject:       " + subject.getSubjectName() + " (" + subject.getSubjectType() + ")");
             System.out.println("Grade:         " + grade + "%");
-            System.out.println("Letter Grade:  " + newGrade.getLetterGrade());
+            System.out.println("Letter Grade:  " + newGrade.getLetterGrade(student.getGradingScale()));
             System.out.println("Date:          " + newGrade.getDate());
             System.out.println("Processing Time: " + executionTime + "ms");
 
@@ -712,7 +791,7 @@ public class Main {
             System.out.println("\nExport Format:");
             System.out.println("1. CSV (Comma-Separated Values)");
             System.out.println("2. JSON (JavaScript Object Notation)");
-            System.out.println("3. Binary (Serialized Java Object)");
+            System.out.println("3. Binary (Memory-Mapped Grade Book Image)");
             System.out.println("4. All formats");
             System.out.print("Select format (1-4): ");
 
@@ -1342,7 +1421,7 @@ public class Main {
         System.out.println("\nAvailable import formats:");
         System.out.println("1. CSV (Comma-Separated Values)");
         System.out.println("2. JSON (JavaScript Object Notation)");
-        System.out.println("3. Binary (Serialized Java Object)");
+        System.out.println("3. Binary (Memory-Mapped Grade Book Image)");
         System.out.print("Select format (1-3): ");
 
         String formatChoice = scanner.nextLine();
@@ -1411,7 +1490,7 @@ public class Main {
         System.out.println("   GRD001,STU001,Mathematics,Core,85.5");
 
         System.out.println("\n📝 Validation Rules:");
-        System.out.println("  • Student ID: STU### format (STU followed by 3 digits)");
+        System.out.println("  • Student ID: " + IdAllocator.STUDENTS.describeFormat());
         System.out.println("  • Subject Type: 'Core' or 'Elective' (case-insensitive)");
         System.out.println("  • Grade: 0-100 (whole numbers or decimals)");
         System.out.println("  • Student must exist in system before importing grades");
@@ -2188,7 +2267,7 @@ public class Main {
                         student.getName(),
                         grade.getSubject().getSubjectName(),
                         grade.getGrade(),
-                        grade.getLetterGrade(),
+                        grade.getLetterGrade(student.getGradingScale()),
                         grade.getDate());
                 totalGrades++;
             }
@@ -2238,7 +2317,7 @@ public class Main {
                             student.getName(),
                             grade.getSubject().getSubjectName(),
                             grade.getGrade(),
-                            grade.getLetterGrade(),
+                            grade.getLetterGrade(student.getGradingScale()),
                             grade.getDate());
                     excellentCount++;
                 }
@@ -2256,64 +2335,49 @@ public class Main {
         System.out.println("\nGRADE TRENDS ANALYSIS:");
         System.out.println("-".repeat(80));
 
-        Map<String, Double> subjectTotals = new HashMap<>();
-        Map<String, Integer> subjectCounts = new HashMap<>();
-        Map<String, Integer> gradeDistribution = new HashMap<>();
-
-        // Initialize grade distribution categories
-        String[] categories = {"A (90-100)", "B (80-89)", "C (70-79)", "D (60-69)", "F (0-59)"};
-        for (String category : categories) {
-            gradeDistribution.put(category, 0);
-        }
-
-        int overallGradeCount = 0;
-        double overallTotal = 0.0;
-
-        for (Student student : studentManager.getStudents()) {
-            List<Grade> grades = gradeManager.getGradesByStudent(student.getStudentId());
-            for (Grade gradeObj : grades) {
-                double gradeValue = gradeObj.getGrade();
-                String subject = gradeObj.getSubject().getSubjectName();
-
-                // Update subject statistics
-                subjectTotals.put(subject, subjectTotals.getOrDefault(subject, 0.0) + gradeValue);
-                subjectCounts.put(subject, subjectCounts.getOrDefault(subject, 0) + 1);
-
-                // Update overall statistics
-                overallTotal += gradeValue;
-                overallGradeCount++;
-
-                // Update grade distribution
-                if (gradeValue >= 90) gradeDistribution.put("A (90-100)", gradeDistribution.get("A (90-100)") + 1);
-                else if (gradeValue >= 80) gradeDistribution.put("B (80-89)", gradeDistribution.get("B (80-89)") + 1);
-                else if (gradeValue >= 70) gradeDistribution.put("C (70-79)", gradeDistribution.get("C (70-79)") + 1);
-                else if (gradeValue >= 60) gradeDistribution.put("D (60-69)", gradeDistribution.get("D (60-69)") + 1);
-                else gradeDistribution.put("F (0-59)", gradeDistribution.get("F (0-59)") + 1);
-            }
-        }
-
+        // Served from GradeManager's running aggregates and monthly rollups:
+        // cost grows with subjects and months, not with the number of grades
         System.out.println("\nAverage Grades by Subject:");
         System.out.println("-".repeat(50));
-        subjectTotals.forEach((subject, total) -> {
-            int count = subjectCounts.get(subject);
-            double average = total / count;
-            System.out.printf("  %-25s: %6.1f%% (%d grades)%n", subject, average, count);
-        });
+        gradeManager.calculateAverageBySubject().forEach((subject, average) ->
+                System.out.printf("  %-25s: %6.1f%% (%d grades)%n", subject, average,
+                        gradeManager.getSubjectStatistics(subject).getCount()));
 
+        RunningGradeStats classStats = gradeManager.getClassStatistics();
         System.out.println("\nOverall Statistics:");
         System.out.println("-".repeat(50));
-        System.out.printf("  Total Grades Analyzed: %d%n", overallGradeCount);
-        if (overallGradeCount > 0) {
-            System.out.printf("  Overall Average: %.1f%%%n", overallTotal / overallGradeCount);
+        System.out.printf("  Total Grades Analyzed: %d%n", classStats.getCount());
+        if (classStats.getCount() > 0) {
+            System.out.printf("  Overall Average: %.1f%%%n", classStats.getMean());
+        }
+
+        List<GradeTimeIndex.TimeRollup> months = gradeManager.getRollups(GradeTimeIndex.Granularity.MONTH);
+        System.out.println("\nMonthly Trend:");
+        System.out.println("-".repeat(50));
+        double previousMean = Double.NaN;
+        for (GradeTimeIndex.TimeRollup month : months) {
+            String change = Double.isNaN(previousMean) ? "" : String.format("(%+.1f)", month.getMean() - previousMean);
+            System.out.printf("  %-8s: %6.1f%% %-8s %d grades%n", month.getLabel(), month.getMean(), change, month.getCount());
+            previousMean = month.getMean();
+        }
+
+        // The rollup histograms bin by whole percent, which the standard scale's cutoffs line up with
+        GradingScale scale = GradingScale.STANDARD;
+        long[] bandCounts = new long[scale.getBandCount()];
+        for (GradeTimeIndex.TimeRollup month : months) {
+            for (int b = 0; b < bandCounts.length; b++) {
+                int high = b == 0 ? 100 : (int) scale.getMinimum(b - 1) - 1;
+                bandCounts[b] += month.countBetween((int) scale.getMinimum(b), high);
+            }
         }
 
         System.out.println("\nGrade Distribution:");
         System.out.println("-".repeat(50));
-        final int finalOverallGradeCount = overallGradeCount;
-        gradeDistribution.forEach((category, count) -> {
-            double percentage = finalOverallGradeCount > 0 ? (count * 100.0 / finalOverallGradeCount) : 0;
-            System.out.printf("  %-10s: %3d grades (%.1f%%)%n", category, count, percentage);
-        });
+        long overallGradeCount = classStats.getCount();
+        for (int b = 0; b < bandCounts.length; b++) {
+            double percentage = overallGradeCount > 0 ? (bandCounts[b] * 100.0 / overallGradeCount) : 0;
+            System.out.printf("  %-10s: %3d grades (%.1f%%)%n", scale.getLabel(b), bandCounts[b], percentage);
+        }
     }
 
     private static void viewSystemPerformance() {
@@ -2610,6 +2674,39 @@ public class Main {
                 System.out.println("✓ Task service stopped");
             }
 
+            // Final checkpoint so the next start loads one snapshot instead of replaying the log
+            gradeBookStore.close();
+            gradeBookStore.displayStatistics();
+            System.out.println("✓ Grade book checkpointed");
+
+            // Persist ID high-water marks so ids are never reissued after a restart
+            if (ownsInstanceState) {
+                IdAllocator.save(ID_STATE_FILE, IdAllocator.STUDENTS, IdAllocator.GRADES);
+                System.out.println("✓ ID high-water marks saved");
+            }
+
+            // Send the last invalidations to the other instances
+            if (invalidationBus != null) {
+                invalidationBus.close();
+                invalidationBus.displayStatistics();
+                System.out.println("✓ Cache invalidation bus stopped");
+            }
+
+            // Save the hot cache entries for the next start's warm start
+            if (ownsInstanceState) {
+                try {
+                    cacheCheckpoint.close();
+                    System.out.println("✓ Cache checkpoint saved");
+                } catch (IOException e) {
+                    System.err.println("⚠ Could not save the cache checkpoint: " + e.getMessage());
+                }
+            }
+
+            // Stop the change feed once every published change has reached its subscribers
+            gpaCalculator.close();
+            studentManager.getChangeFeed().close();
+            System.out.println("✓ Change feed stopped");
+
             // Shutdown audit logger
             if (auditLogger != null) {
                 auditLogger.shutdown();
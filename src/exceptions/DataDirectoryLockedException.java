@@ -0,0 +1,9 @@
+package exceptions;
+
+import java.io.IOException;
+
+public class DataDirectoryLockedException extends IOException {
+    public DataDirectoryLockedException(String directory) {
+        super("Data directory in use by another instance: " + directory);
+    }
+}
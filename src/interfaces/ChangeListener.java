@@ -0,0 +1,16 @@
+package interfaces;
+
+import models.ChangeEvent;
+
+import java.util.List;
+
+/**
+ * Subscriber to a models.ChangeFeed.
+ *
+ * Called on the feed's dispatcher thread with consecutive events in sequence order. Keep it
+ * quick (invalidate, mark dirty, update a counter): every subscriber of the feed is called
+ * from the same thread, one after another.
+ */
+public interface ChangeListener {
+    void onChanges(List<ChangeEvent> batch);
+}
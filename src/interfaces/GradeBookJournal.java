@@ -0,0 +1,25 @@
+package interfaces;
+
+import models.Grade;
+import models.Student;
+
+/**
+ * Durable record of grade book changes (see services.GradeBookStore).
+ *
+ * The managers call the log methods after a change is applied in memory and
+ * awaitDurable before reporting it as done, outside their locks, so concurrent
+ * writers share one flush (group commit).
+ */
+public interface GradeBookJournal {
+    /** @return log position of the record */
+    long studentAdded(Student student);
+
+    long gradeAdded(Grade grade);
+
+    long gradeCorrected(Grade grade);
+
+    /**
+     * Blocks until every record up to and including position is durable.
+     */
+    void awaitDurable(long position);
+}
@@ -0,0 +1,7 @@
+package interfaces;
+
+import models.Grade;
+
+public interface GradeChangeListener {
+    void onGradeChanged(Grade grade, double previousGrade);
+}
@@ -0,0 +1,18 @@
+package interfaces;
+
+/**
+ * Notified by MemoryPressureMonitor when the old generation is filling up and when it has room
+ * again. Called on the JVM's notification thread, so implementations should be quick.
+ */
+public interface MemoryPressureListener {
+    /**
+     * Old generation usage crossed the high watermark.
+     */
+    void onMemoryPressure(String poolName, long usedBytes, long maxBytes);
+
+    /**
+     * Old generation usage after a collection is below the low watermark. Called after every
+     * such collection once pressure has been reported, so shed state can be restored in steps.
+     */
+    void onMemoryRelief(String poolName, long usedBytes, long maxBytes);
+}
@@ -0,0 +1,138 @@
+package models;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Growable array that is only ever appended to, with lock-free readers.
+ *
+ * Writers serialize on the list; readers never lock. A write stores the element, publishes a
+ * grown array if needed, and only then publishes the new size, so a reader that sees size n
+ * also sees the first n elements.
+ *
+ * view() is a read-only snapshot of the first size() elements backed by the live array: it
+ * copies nothing, stays valid while writers keep appending, and never throws
+ * ConcurrentModificationException.
+ */
+public class AppendOnlyList<T> {
+    private volatile Object[] elements;
+    private volatile int size;
+
+    public AppendOnlyList() {
+        this(8);
+    }
+
+    public AppendOnlyList(int initialCapacity) {
+        elements = new Object[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Time Complexity: O(1) amortized
+     */
+    public synchronized void add(T element) {
+        Object[] current = elements;
+        int n = size;
+        if (n == current.length) {
+            current = Arrays.copyOf(current, n + (n >> 1) + 1);
+            elements = current;
+        }
+        current[n] = element;
+        size = n + 1;
+    }
+
+    public synchronized void addAll(Collection<? extends T> additions) {
+        Object[] current = elements;
+        int n = size;
+        if (n + additions.size() > current.length) {
+            current = Arrays.copyOf(current, Math.max(n + additions.size(), n + (n >> 1) + 1));
+            elements = current;
+        }
+        for (T element : additions) {
+            current[n++] = element;
+        }
+        size = n;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Read-only view of the elements present now (later appends are not included).
+     * Time Complexity: O(1), no copying
+     */
+    public List<T> view() {
+        int n = size; // read size before the array
+        return new Snapshot<>(elements, 0, n);
+    }
+
+    /**
+     * Visits the elements present now, in insertion order, without allocating.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> action) {
+        int n = size;
+        Object[] current = elements;
+        for (int i = 0; i < n; i++) {
+            action.accept((T) current[i]);
+        }
+    }
+
+    /**
+     * Index-range spliterator over the elements present now; splits in halves, so it balances
+     * well for parallel streams.
+     */
+    public Spliterator<T> spliterator() {
+        int n = size;
+        return Spliterators.spliterator(elements, 0, n,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    private static final class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] elements;
+        private final int from;
+        private final int to;
+
+        Snapshot(Object[] elements, int from, int to) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Objects.checkIndex(index, to - from);
+            return (T) elements[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEach(Consumer<? super T> action) {
+            for (int i = from; i < to; i++) {
+                action.accept((T) elements[i]);
+            }
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            return Spliterators.spliterator(elements, from, to,
+                    Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        }
+
+        @Override
+        public List<T> subList(int fromIndex, int toIndex) {
+            Objects.checkFromToIndex(fromIndex, toIndex, size());
+            return new Snapshot<>(elements, from + fromIndex, from + toIndex);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package models;
+
+/**
+ * One change to the student/grade model, published on a ChangeFeed.
+ *
+ * Events are immutable. Values are captured when the change is applied, so a listener sees
+ * the value the event is about even if the grade has been corrected again since.
+ */
+public abstract class ChangeEvent {
+    public enum Type { STUDENT_ADDED, GRADE_ADDED, GRADE_UPDATED, GPA_CHANGED }
+
+    private final String studentId;
+    private long sequence; // assigned once by ChangeFeed.publish, under the feed's monitor
+
+    ChangeEvent(String studentId) {
+        this.studentId = studentId;
+    }
+
+    public abstract Type getType();
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    /**
+     * Position in the feed (1, 2, 3, ...). A student's events are numbered in the order the
+     * changes were applied.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    void assignSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + getType() + " " + studentId;
+    }
+
+    public static final class StudentAdded extends ChangeEvent {
+        private final Student student;
+
+        StudentAdded(Student student) {
+            super(student.getStudentId());
+            this.student = student;
+        }
+
+        @Override
+        public Type getType() { return Type.STUDENT_ADDED; }
+
+        public Student getStudent() { return student; }
+    }
+
+    public static final class GradeAdded extends ChangeEvent {
+        private final Grade grade;
+        private final double value;
+
+        GradeAdded(Grade grade) {
+            super(grade.getStudentId());
+            this.grade = grade;
+            this.value = grade.getGrade();
+        }
+
+        @Override
+        public Type getType() { return Type.GRADE_ADDED; }
+
+        public Grade getGrade() { return grade; }
+        public String getGradeId() { return grade.getGradeId(); }
+        public Subject getSubject() { return grade.getSubject(); }
+        public double getValue() { return value; }
+    }
+
+    public static final class GradeUpdated extends ChangeEvent {
+        private final Grade grade;
+        private final double previousValue;
+        private final double value;
+
+        GradeUpdated(Grade grade, double previousValue) {
+            super(grade.getStudentId());
+            this.grade = grade;
+            this.previousValue = previousValue;
+            this.value = grade.getGrade();
+        }
+
+        @Override
+        public Type getType() { return Type.GRADE_UPDATED; }
+
+        public Grade getGrade() { return grade; }
+        public String getGradeId() { return grade.getGradeId(); }
+        public Subject getSubject() { return grade.getSubject(); }
+        public double getPreviousValue() { return previousValue; }
+        public double getValue() { return value; }
+    }
+
+    /**
+     * A student's GPA or overall average moved (the ranking index orders by both).
+     */
+    public static final class GpaChanged extends ChangeEvent {
+        private final double previousGpa;
+        private final double gpa;
+        private final double previousAverage;
+        private final double average;
+
+        GpaChanged(String studentId, double previousGpa, double gpa, double previousAverage, double average) {
+            super(studentId);
+            this.previousGpa = previousGpa;
+            this.gpa = gpa;
+            this.previousAverage = previousAverage;
+            this.average = average;
+        }
+
+        @Override
+        public Type getType() { return Type.GPA_CHANGED; }
+
+        public double getPreviousGpa() { return previousGpa; }
+        public double getGpa() { return gpa; }
+        public double getPreviousAverage() { return previousAverage; }
+        public double getAverage() { return average; }
+    }
+}
@@ -0,0 +1,258 @@
+package models;
+
+import interfaces.ChangeListener;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process stream of model changes (students added, grades added and corrected, GPA moves)
+ * for caches and derived views that want to update incrementally instead of clearing
+ * everything or recomputing on a timer.
+ *
+ * Ordering / delivery guarantees:
+ * - Events are numbered in publish order. The managers publish while holding the student's
+ *   lock stripe / monitor, so a student's events are numbered in the order the changes were
+ *   applied. Events of different students interleave in publish order.
+ * - One dispatcher thread delivers events in sequence order, in batches of up to maxBatch
+ *   consecutive events. Every subscriber receives every event published after it subscribed,
+ *   exactly once, with no gaps.
+ * - Delivery is asynchronous: publish() only appends to a queue, so writers never run listener
+ *   code under their locks. Use awaitDelivered() when a reader needs every change published
+ *   so far to have been seen by the subscribers.
+ * - With no subscribers, publishers skip building events altogether (isActive()).
+ * - A listener that throws (including an Error) is reported and skipped for that batch; the
+ *   batch still counts as delivered and the other subscribers still receive it.
+ *
+ * Lifecycle: the dispatcher is a daemon thread started by the first subscribe(). It exits once
+ * the queue is empty and nobody is subscribed (the next subscribe() starts a new one), or on
+ * close(), which delivers what was already published and then stops the feed for good.
+ *
+ * The queue is unbounded: a listener that cannot keep up lets it grow.
+ */
+public class ChangeFeed {
+    public static final int DEFAULT_MAX_BATCH = 256;
+
+    private final int maxBatch;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean active;
+
+    // Guarded by this
+    private final ArrayDeque<ChangeEvent> pending = new ArrayDeque<>();
+    private long published;
+    private long delivered;
+    private long batchesDelivered;
+    private volatile Thread dispatcher;
+    private boolean closed;
+
+    public ChangeFeed() {
+        this(DEFAULT_MAX_BATCH);
+    }
+
+    public ChangeFeed(int maxBatch) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be at least 1: " + maxBatch);
+        }
+        this.maxBatch = maxBatch;
+    }
+
+    private static final class Subscription {
+        final ChangeListener listener;
+        final long firstSequence;
+
+        Subscription(ChangeListener listener, long firstSequence) {
+            this.listener = listener;
+            this.firstSequence = firstSequence;
+        }
+    }
+
+    /**
+     * Subscribes to every event published from now on.
+     * @throws IllegalStateException if the feed is closed
+     */
+    public synchronized void subscribe(ChangeListener listener) {
+        Objects.requireNonNull(listener, "listener");
+        if (closed) {
+            throw new IllegalStateException("Change feed is closed");
+        }
+        subscriptions.add(new Subscription(listener, published + 1));
+        active = true;
+        if (dispatcher == null) {
+            dispatcher = new Thread(this::dispatchLoop, "ChangeFeed-Dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+
+    /**
+     * @return false if the listener was not subscribed
+     */
+    public synchronized boolean unsubscribe(ChangeListener listener) {
+        boolean removed = subscriptions.removeIf(s -> s.listener == listener);
+        active = !subscriptions.isEmpty();
+        if (!active) notifyAll(); // an idle dispatcher exits
+        return removed;
+    }
+
+    /**
+     * Delivers every event already published, stops the dispatcher and drops the subscribers.
+     * Later publishes are ignored and subscribe() throws. Called from a listener, it returns
+     * without waiting for the dispatcher (which is the calling thread).
+     */
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            active = false;
+            thread = dispatcher;
+            notifyAll();
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        subscriptions.clear();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * True while anyone is subscribed. Publishers check this before building an event.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Numbers and queues one event.
+     * Time Complexity: O(1) under the feed's monitor
+     */
+    public void publish(ChangeEvent event) {
+        if (!active) return;
+        synchronized (this) {
+            if (closed || dispatcher == null) return; // closed, or the last subscriber just left
+            event.assignSequence(++published);
+            pending.addLast(event);
+            if (pending.size() == 1) notifyAll();
+        }
+    }
+
+    /**
+     * Queues several events with consecutive sequence numbers (one monitor acquisition).
+     */
+    public void publishAll(Collection<? extends ChangeEvent> events) {
+        if (!active || events.isEmpty()) return;
+        synchronized (this) {
+            if (closed || dispatcher == null) return;
+            boolean wasEmpty = pending.isEmpty();
+            for (ChangeEvent event : events) {
+                event.assignSequence(++published);
+                pending.addLast(event);
+            }
+            if (wasEmpty) notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until every event published before the call has been handed to the subscribers.
+     * Returns immediately on the dispatcher thread (a listener waiting on itself).
+     */
+    public void awaitDelivered() {
+        if (Thread.currentThread() == dispatcher) return;
+        boolean interrupted = false;
+        synchronized (this) {
+            long target = published;
+            while (delivered < target) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public synchronized long getPublishedCount() {
+        return published;
+    }
+
+    public synchronized long getDeliveredCount() {
+        return delivered;
+    }
+
+    public synchronized long getBatchCount() {
+        return batchesDelivered;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    private void dispatchLoop() {
+        List<ChangeEvent> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            synchronized (this) {
+                while (pending.isEmpty()) {
+                    if (closed || subscriptions.isEmpty()) {
+                        dispatcher = null; // subscribe() starts a new one unless closed
+                        return;
+                    }
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        dispatcher = null;
+                        return;
+                    }
+                }
+                for (int i = 0; i < maxBatch && !pending.isEmpty(); i++) {
+                    batch.add(pending.pollFirst());
+                }
+            }
+
+            List<ChangeEvent> view = Collections.unmodifiableList(batch);
+            for (Subscription subscription : subscriptions) {
+                deliver(subscription, view);
+            }
+
+            synchronized (this) {
+                delivered = batch.get(batch.size() - 1).getSequence();
+                batchesDelivered++;
+                notifyAll();
+            }
+            batch = new ArrayList<>(maxBatch); // listeners may keep the batch they were given
+        }
+    }
+
+    private static void deliver(Subscription subscription, List<ChangeEvent> batch) {
+        List<ChangeEvent> events = batch;
+        if (batch.get(0).getSequence() < subscription.firstSequence) {
+            // Subscribed part-way through this batch: skip what was published before
+            int from = 0;
+            while (from < batch.size() && batch.get(from).getSequence() < subscription.firstSequence) from++;
+            if (from == batch.size()) return;
+            events = batch.subList(from, batch.size());
+        }
+        try {
+            subscription.listener.onChanges(events);
+        } catch (Throwable e) {
+            // An Error must not end the dispatcher either: awaitDelivered() would wait forever
+            System.err.println("✗ Change listener failed on events " + events.get(0).getSequence() + "-"
+                    + events.get(events.size() - 1).getSequence() + ": " + e);
+        }
+    }
+}
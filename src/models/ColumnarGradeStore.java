@@ -0,0 +1,467 @@
+package models;
+
+import interfaces.GradeChangeListener;
+
+import java.lang.ref.WeakReference;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Columnar (struct-of-arrays) grade storage used by GradeManager's columnar mode.
+ *
+ * Each grade is one row spread across dense primitive columns instead of a heap Grade
+ * object referenced from five collections:
+ *   int[]   studentOrdinals  - index into the student ID dictionary
+ *   short[] subjectOrdinals  - SubjectRegistry id of the (shared) subject
+ *   float[] values           - grade percentage
+ *   long[]  timestamps       - epoch millis the grade was recorded
+ *   int[]   gradeIdSequence  - numeric part of "GRD###" ids (negative = overflow dictionary)
+ *
+ * Grade objects are only created when a caller asks for them (materialize).
+ * Memory per grade: ~22 bytes of columns + 4 bytes in the per-student row index.
+ *
+ * The columns are on the heap by default; offHeap() keeps them in direct memory instead
+ * (OffHeapGradeColumns), leaving only the dictionaries and the per-student row index on the
+ * heap, for histories too large to keep the collector comfortable.
+ *
+ * Thread safety: columns and dictionaries are guarded by the store's monitor. The change
+ * listener is invoked after the monitor is released, so a listener may take its own locks
+ * (GradeManager's student stripes) without inverting the stripe -> store lock order.
+ */
+public class ColumnarGradeStore {
+    private static final int INITIAL_CAPACITY = 1024;
+    public static final int ALL_SUBJECTS = -1;
+
+    // Grade columns (one entry per row)
+    private final GradeColumns columns;
+    private int size;
+    private boolean timestampsSorted = true; // rows appended in time order allow binary search
+
+    // Dictionaries: ordinal <-> key
+    private final List<String> studentIds = new ArrayList<>();
+    private final Map<String, Integer> studentOrdinalMap = new HashMap<>();
+    private final SubjectRegistry subjectRegistry = SubjectRegistry.getInstance();
+    private final boolean[] subjectPresent = new boolean[Short.MAX_VALUE];
+    private final List<String> overflowGradeIds = new ArrayList<>();
+
+    // Per-student row index so student queries touch only that student's rows
+    private int[][] studentRows = new int[16][];
+    private int[] studentRowCounts = new int[16];
+
+    // Receives corrections made through Grade.recordGrade on grades handed out by this store
+    private GradeChangeListener changeListener;
+
+    // Pinned row prefixes not materialized yet; setValue saves a row's pinned value into each
+    private final List<WeakReference<PinnedRows>> openPins = new ArrayList<>();
+
+    public ColumnarGradeStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ColumnarGradeStore(int initialCapacity) {
+        this(initialCapacity, false);
+    }
+
+    /**
+     * @param offHeap keep the columns in direct memory instead of heap arrays
+     */
+    public ColumnarGradeStore(int initialCapacity, boolean offHeap) {
+        int capacity = Math.max(16, initialCapacity);
+        columns = offHeap ? new OffHeapGradeColumns(capacity) : new HeapGradeColumns(capacity);
+    }
+
+    public static ColumnarGradeStore offHeap() {
+        return new ColumnarGradeStore(INITIAL_CAPACITY, true);
+    }
+
+    public void setChangeListener(GradeChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Appends a grade as a new row; later corrections on the grade are written back to the row.
+     * Time Complexity: O(1) amortized
+     */
+    public int append(Grade grade) {
+        long epochMillis = grade.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        int row = append(grade.getGradeId(), grade.getStudentId(), grade.getSubject(), grade.getGrade(), epochMillis);
+        bind(grade, row);
+        return row;
+    }
+
+    public synchronized int append(String gradeId, String studentId, Subject subject, double grade, long epochMillis) {
+        columns.ensureCapacity(size + 1);
+        int row = size;
+        int studentOrdinal = studentOrdinal(studentId);
+
+        if (row > 0 && epochMillis < columns.timestamp(row - 1)) {
+            timestampsSorted = false;
+        }
+        columns.set(row, studentOrdinal, subjectOrdinal(subject), (float) grade, epochMillis, encodeGradeId(gradeId));
+        addStudentRow(studentOrdinal, row);
+
+        size++;
+        return row;
+    }
+
+    /**
+     * Creates a Grade object for a row (only done at the API boundary).
+     */
+    public synchronized Grade materialize(int row) {
+        checkRow(row);
+        LocalDateTime timestamp = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(columns.timestamp(row)), ZoneId.systemDefault());
+        Grade grade = new Grade(decodeGradeId(columns.gradeId(row)),
+                studentIds.get(columns.studentOrdinal(row)),
+                subjectRegistry.get(columns.subjectOrdinal(row)),
+                columns.value(row),
+                timestamp);
+        bind(grade, row);
+        return grade;
+    }
+
+    private void bind(Grade grade, int row) {
+        grade.setChangeListener((changed, previousGrade) -> {
+            setValue(row, changed.getGrade());
+            if (changeListener != null) {
+                changeListener.onGradeChanged(changed, previousGrade);
+            }
+        });
+    }
+
+    public synchronized void setValue(int row, double grade) {
+        checkRow(row);
+        if (!openPins.isEmpty()) {
+            savePinnedValue(row);
+        }
+        columns.setValue(row, (float) grade);
+    }
+
+    // Caller holds the monitor; keeps the value a row had when each open pin was taken
+    private void savePinnedValue(int row) {
+        float value = columns.value(row);
+        for (Iterator<WeakReference<PinnedRows>> it = openPins.iterator(); it.hasNext(); ) {
+            PinnedRows pinned = it.next().get();
+            if (pinned == null) {
+                it.remove(); // snapshot dropped without being read
+            } else if (row < pinned.rowCount) {
+                pinned.pinnedValues.putIfAbsent(row, value);
+            }
+        }
+    }
+
+    public synchronized double getValue(int row) {
+        checkRow(row);
+        return columns.value(row);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int studentCount() {
+        return studentIds.size();
+    }
+
+    public synchronized int countForStudent(String studentId) {
+        Integer ordinal = studentOrdinalMap.get(studentId);
+        return ordinal == null ? 0 : studentRowCounts[ordinal];
+    }
+
+    /**
+     * Values of one student's grades, read straight from the value column.
+     * Time Complexity: O(k) where k = grades for the student
+     */
+    public double[] valuesForStudent(String studentId) {
+        return valuesForStudent(studentId, ALL_SUBJECTS);
+    }
+
+    /**
+     * Values of one student's grades, optionally restricted to one subject id (ALL_SUBJECTS = all).
+     * Time Complexity: O(k) where k = grades for the student
+     */
+    public synchronized double[] valuesForStudent(String studentId, int subjectId) {
+        Integer ordinal = studentOrdinalMap.get(studentId);
+        if (ordinal == null) return new double[0];
+
+        int[] rows = studentRows[ordinal];
+        int count = studentRowCounts[ordinal];
+        double[] result = new double[count];
+        int matched = 0;
+        for (int i = 0; i < count; i++) {
+            if (subjectId == ALL_SUBJECTS || columns.subjectOrdinal(rows[i]) == subjectId) {
+                result[matched++] = columns.value(rows[i]);
+            }
+        }
+        return matched == count ? result : Arrays.copyOf(result, matched);
+    }
+
+    /**
+     * Values of one subject's grades from a scan of the subject and value columns.
+     * Time Complexity: O(n) with no object allocation per grade
+     */
+    public synchronized double[] valuesForSubject(String subjectName) {
+        boolean[] targets = subjectMask(subjectName);
+        if (targets == null) return new double[0];
+
+        double[] result = new double[size];
+        int matched = 0;
+        for (int row = 0; row < size; row++) {
+            if (targets[columns.subjectOrdinal(row)]) {
+                result[matched++] = columns.value(row);
+            }
+        }
+        return Arrays.copyOf(result, matched);
+    }
+
+    public synchronized List<Grade> gradesForStudent(String studentId) {
+        Integer ordinal = studentOrdinalMap.get(studentId);
+        if (ordinal == null) return new ArrayList<>();
+
+        int count = studentRowCounts[ordinal];
+        List<Grade> grades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            grades.add(materialize(studentRows[ordinal][i]));
+        }
+        return grades;
+    }
+
+    public synchronized List<Grade> gradesForSubject(String subjectName) {
+        boolean[] targets = subjectMask(subjectName);
+        if (targets == null) return new ArrayList<>();
+
+        List<Grade> grades = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            if (targets[columns.subjectOrdinal(row)]) {
+                grades.add(materialize(row));
+            }
+        }
+        return grades;
+    }
+
+    /**
+     * Grades with fromEpochMillis <= timestamp <= toEpochMillis, oldest first.
+     * Time Complexity: O(log n + k) while rows are in time order (the normal append pattern), else O(n)
+     */
+    public synchronized List<Grade> gradesBetween(long fromEpochMillis, long toEpochMillis) {
+        List<Grade> grades = new ArrayList<>();
+        if (timestampsSorted) {
+            for (int row = firstRowAtOrAfter(fromEpochMillis); row < size && columns.timestamp(row) <= toEpochMillis; row++) {
+                grades.add(materialize(row));
+            }
+            return grades;
+        }
+        for (int row = 0; row < size; row++) {
+            long ts = columns.timestamp(row);
+            if (ts >= fromEpochMillis && ts <= toEpochMillis) {
+                grades.add(materialize(row));
+            }
+        }
+        return grades;
+    }
+
+    public synchronized List<Grade> allGrades() {
+        List<Grade> grades = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            grades.add(materialize(row));
+        }
+        return grades;
+    }
+
+    /**
+     * Pins the rows stored so far as a read-only list for a snapshot at a data version. Rows are
+     * materialized on the first read of an element, not here; a row corrected in between is
+     * materialized with its pinned value as a revision superseded after that version, so
+     * Grade.valueAt(version) still returns the pinned value.
+     * Time Complexity: O(1); the first read materializes the rows (O(n))
+     */
+    public synchronized List<Grade> pin(long version) {
+        PinnedRows pinned = new PinnedRows(size, version);
+        if (size > 0) {
+            openPins.add(new WeakReference<>(pinned));
+        }
+        return pinned;
+    }
+
+    public synchronized Set<String> subjectNames() {
+        Set<String> names = new HashSet<>();
+        for (int id = 0; id < subjectRegistry.size(); id++) {
+            if (subjectPresent[id]) names.add(subjectRegistry.get(id).getSubjectName());
+        }
+        return names;
+    }
+
+    /**
+     * Approximate retained size of the columns, dictionaries excluded (heap and off-heap).
+     */
+    public synchronized long estimateColumnBytes() {
+        return columns.reservedBytes() + rowIndexBytes();
+    }
+
+    /**
+     * Direct memory reserved for the columns; 0 when they are on the heap.
+     */
+    public synchronized long offHeapBytes() {
+        return columns.isOffHeap() ? columns.reservedBytes() : 0;
+    }
+
+    /**
+     * Approximate heap retained by the columns and the per-student row index, dictionaries excluded.
+     */
+    public synchronized long heapColumnBytes() {
+        return (columns.isOffHeap() ? 0 : columns.reservedBytes()) + rowIndexBytes();
+    }
+
+    private long rowIndexBytes() {
+        long rowIndex = 0;
+        for (int i = 0; i < studentIds.size(); i++) {
+            rowIndex += (long) studentRows[i].length * Integer.BYTES;
+        }
+        return rowIndex;
+    }
+
+    public boolean isOffHeap() {
+        return columns.isOffHeap();
+    }
+
+    private int firstRowAtOrAfter(long epochMillis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (columns.timestamp(mid) < epochMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Dictionary helpers
+
+    private int studentOrdinal(String studentId) {
+        Integer ordinal = studentOrdinalMap.get(studentId);
+        if (ordinal == null) {
+            ordinal = studentIds.size();
+            studentIds.add(studentId);
+            studentOrdinalMap.put(studentId, ordinal);
+            if (ordinal == studentRows.length) {
+                studentRows = Arrays.copyOf(studentRows, ordinal * 2);
+                studentRowCounts = Arrays.copyOf(studentRowCounts, ordinal * 2);
+            }
+            studentRows[ordinal] = new int[4];
+        }
+        return ordinal;
+    }
+
+    private short subjectOrdinal(Subject subject) {
+        int id = subjectRegistry.intern(subject).getSubjectId();
+        if (id >= Short.MAX_VALUE) {
+            throw new IllegalStateException("Columnar store supports at most " + Short.MAX_VALUE + " subjects");
+        }
+        subjectPresent[id] = true;
+        return (short) id;
+    }
+
+    // Subject ids sharing a name, as a lookup mask over the subject column; null if none stored
+    private boolean[] subjectMask(String subjectName) {
+        boolean[] mask = null;
+        for (int id : subjectRegistry.idsForName(subjectName)) {
+            if (id < Short.MAX_VALUE && subjectPresent[id]) {
+                if (mask == null) mask = new boolean[Short.MAX_VALUE];
+                mask[id] = true;
+            }
+        }
+        return mask;
+    }
+
+    private void addStudentRow(int studentOrdinal, int row) {
+        int[] rows = studentRows[studentOrdinal];
+        int count = studentRowCounts[studentOrdinal];
+        if (count == rows.length) {
+            rows = Arrays.copyOf(rows, count * 2);
+            studentRows[studentOrdinal] = rows;
+        }
+        rows[count] = row;
+        studentRowCounts[studentOrdinal] = count + 1;
+    }
+
+    /**
+     * Ids issued by IdAllocator.GRADES are stored as their ordinal; anything else goes
+     * into the overflow dictionary and is referenced by a negative value.
+     */
+    private int encodeGradeId(String gradeId) {
+        long ordinal = IdAllocator.GRADES.parse(gradeId);
+        if (ordinal >= 0 && ordinal <= Integer.MAX_VALUE) {
+            return (int) ordinal;
+        }
+        overflowGradeIds.add(gradeId);
+        return -overflowGradeIds.size();
+    }
+
+    private String decodeGradeId(int encoded) {
+        if (encoded >= 0) {
+            return IdAllocator.GRADES.format(encoded);
+        }
+        return overflowGradeIds.get(-encoded - 1);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range (size " + size + ")");
+        }
+    }
+
+    // Rows [0, rowCount) at a data version, materialized once on first read
+    private final class PinnedRows extends AbstractList<Grade> implements RandomAccess {
+        private final int rowCount;
+        private final long version;
+        private final Map<Integer, Float> pinnedValues = new HashMap<>(); // guarded by the store
+        private volatile List<Grade> grades;
+
+        PinnedRows(int rowCount, long version) {
+            this.rowCount = rowCount;
+            this.version = version;
+        }
+
+        @Override
+        public Grade get(int index) {
+            return materialized().get(index);
+        }
+
+        @Override
+        public int size() {
+            return rowCount;
+        }
+
+        @Override
+        public Iterator<Grade> iterator() {
+            return materialized().iterator();
+        }
+
+        private List<Grade> materialized() {
+            List<Grade> result = grades;
+            if (result != null) return result;
+            synchronized (ColumnarGradeStore.this) {
+                if (grades == null) {
+                    List<Grade> list = new ArrayList<>(rowCount);
+                    for (int row = 0; row < rowCount; row++) {
+                        Grade grade = materialize(row);
+                        Float pinnedValue = pinnedValues.get(row);
+                        if (pinnedValue != null) {
+                            grade.addCommittedRevision(pinnedValue, version + 1);
+                        }
+                        list.add(grade);
+                    }
+                    grades = list;
+                    pinnedValues.clear();
+                    openPins.removeIf(ref -> ref.get() == this || ref.get() == null);
+                }
+                return grades;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package models;
+
+import java.util.TreeMap;
+
+/**
+ * Data version clock and commit log (MVCC). A GradeManager owns one; the partitions of a
+ * ShardedGradeManager share one, so a snapshot pinned across partitions is still a single
+ * consistent version.
+ *
+ * Guarded by its own monitor: writers hold it only to take the next version and append to
+ * the log, so it is the one short global step on the write path.
+ *
+ * It also counts the open snapshots per pinned version. Grade revisions superseded at or
+ * before the oldest of them can no longer be read and are dropped on the next correction.
+ */
+final class CommitClock {
+    long version;
+    final AppendOnlyList<Grade> log = new AppendOnlyList<>(1024);
+
+    // Pinned version -> open snapshots at that version
+    private final TreeMap<Long, Integer> pinned = new TreeMap<>();
+
+    // Caller holds the monitor
+    void pin(long at) {
+        pinned.merge(at, 1, Integer::sum);
+    }
+
+    synchronized void unpin(long at) {
+        pinned.computeIfPresent(at, (k, open) -> open == 1 ? null : open - 1);
+    }
+
+    /**
+     * Oldest version an open snapshot reads; the current version when none is open.
+     * Caller holds the monitor. Time Complexity: O(log p) for p distinct pinned versions
+     */
+    long oldestPinned() {
+        return pinned.isEmpty() ? version : pinned.firstKey();
+    }
+
+    synchronized int pinnedCount() {
+        int open = 0;
+        for (int count : pinned.values()) open += count;
+        return open;
+    }
+}
@@ -0,0 +1,278 @@
+package models;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Order-statistic ranking of students by GPA (size-augmented treap).
+ *
+ * Order: GPA descending, then average percentage descending (breaks ties inside a GPA band),
+ * then student ID ascending so every student has exactly one position.
+ *
+ * Time Complexity: update/remove/rank/percentile O(log n) expected; top-K O(log n + k);
+ * GPA range O(log n + k).
+ *
+ * Thread safety: a read/write lock; queries share the read lock, updates take the write lock
+ * for O(log n).
+ */
+public class GpaRankingIndex {
+
+    private static final class Node {
+        final Student student;
+        final String studentId;
+        final double gpa;
+        final double average;
+        final int priority;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(Student student, double gpa, double average, int priority) {
+            this.student = student;
+            this.studentId = student.getStudentId();
+            this.gpa = gpa;
+            this.average = average;
+            this.priority = priority;
+        }
+    }
+
+    private final Map<String, Node> nodesById = new HashMap<>();
+    private final Random priorities = new Random(0x5EED);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+
+    /**
+     * Inserts or repositions a student.
+     * Time Complexity: O(log n) expected
+     */
+    public void update(Student student, double gpa, double average) {
+        lock.writeLock().lock();
+        try {
+            Node previous = nodesById.get(student.getStudentId());
+            if (previous != null) {
+                if (previous.gpa == gpa && previous.average == average && previous.student == student) return;
+                root = delete(root, previous);
+            }
+            Node node = new Node(student, gpa, average, priorities.nextInt());
+            nodesById.put(node.studentId, node);
+            root = insert(root, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String studentId) {
+        lock.writeLock().lock();
+        try {
+            Node node = nodesById.remove(studentId);
+            if (node == null) return false;
+            root = delete(root, node);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String studentId) {
+        lock.readLock().lock();
+        try {
+            return nodesById.containsKey(studentId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Competition rank (1 = best): 1 + number of students with a strictly better GPA/average.
+     * Students tied on both share a rank. Unknown students rank 1 + everyone strictly above 0.0.
+     * Time Complexity: O(log n) expected
+     */
+    public int rankOf(String studentId) {
+        lock.readLock().lock();
+        try {
+            Node node = nodesById.get(studentId);
+            double gpa = node != null ? node.gpa : 0.0;
+            double average = node != null ? node.average : 0.0;
+            return countStrictlyBetter(gpa, average) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Percentage of ranked students this student is at or above (100 = top of class).
+     * Time Complexity: O(log n) expected
+     */
+    public double percentileOf(String studentId) {
+        lock.readLock().lock();
+        try {
+            Node node = nodesById.get(studentId);
+            int total = size(root);
+            if (node == null || total == 0) return 0.0;
+            int better = countStrictlyBetter(node.gpa, node.average);
+            return (total - better) * 100.0 / total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best k students in rank order.
+     * Time Complexity: O(log n + k)
+     */
+    public List<Student> topK(int k) {
+        lock.readLock().lock();
+        try {
+            List<Student> result = new ArrayList<>(Math.max(0, Math.min(k, size(root))));
+            Deque<Node> path = new ArrayDeque<>();
+            Node current = root;
+            while ((current != null || !path.isEmpty()) && result.size() < k) {
+                while (current != null) {
+                    path.push(current);
+                    current = current.left;
+                }
+                current = path.pop();
+                result.add(current.student);
+                current = current.right;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Students whose GPA lies in [minGpa, maxGpa], in rank order.
+     * Time Complexity: O(log n + k)
+     */
+    public List<Student> rangeByGpa(double minGpa, double maxGpa) {
+        lock.readLock().lock();
+        try {
+            List<Student> result = new ArrayList<>();
+            collectRange(root, minGpa, maxGpa, result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tree helpers (caller holds the lock)
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void resize(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    // Negative when a ranks before b
+    private static int compare(Node a, Node b) {
+        int byGpa = Double.compare(b.gpa, a.gpa);
+        if (byGpa != 0) return byGpa;
+        int byAverage = Double.compare(b.average, a.average);
+        if (byAverage != 0) return byAverage;
+        return a.studentId.compareTo(b.studentId);
+    }
+
+    private static boolean strictlyBetter(Node node, double gpa, double average) {
+        return node.gpa > gpa || (node.gpa == gpa && node.average > average);
+    }
+
+    private int countStrictlyBetter(double gpa, double average) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (strictlyBetter(node, gpa, average)) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) return inserted;
+        if (compare(inserted, node) < 0) {
+            node.left = insert(node.left, inserted);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, inserted);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        resize(node);
+        return node;
+    }
+
+    private static Node delete(Node node, Node target) {
+        if (node == null) return null;
+        if (node == target) {
+            return merge(node.left, node.right);
+        }
+        if (compare(target, node) < 0) {
+            node.left = delete(node.left, target);
+        } else {
+            node.right = delete(node.right, target);
+        }
+        resize(node);
+        return node;
+    }
+
+    // All of left ranks before all of right
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            resize(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        resize(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        resize(node);
+        resize(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        resize(node);
+        resize(pivot);
+        return pivot;
+    }
+
+    private static void collectRange(Node node, double minGpa, double maxGpa, List<Student> result) {
+        if (node == null) return;
+        if (node.gpa > maxGpa) {
+            // Node and its left subtree rank above the range
+            collectRange(node.right, minGpa, maxGpa, result);
+        } else if (node.gpa < minGpa) {
+            // Node and its right subtree rank below the range
+            collectRange(node.left, minGpa, maxGpa, result);
+        } else {
+            collectRange(node.left, minGpa, maxGpa, result);
+            result.add(node.student);
+            collectRange(node.right, minGpa, maxGpa, result);
+        }
+    }
+}
@@ -1,56 +1,104 @@
 package models;
 
+import interfaces.GradeChangeListener;
 import interfaces.Gradable;
 
 import java.io.Serializable;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class Grade implements Gradable, Serializable {
     private static final long serialVersionUID = 1L;
 
     private String gradeId;
+    private long gradeOrdinal; // numeric form of gradeId, -1 for ids not issued by IdAllocator.GRADES
     private String studentId;
     private Subject subject;
-    private double grade;
+    private volatile double grade; // corrections may be read from another ingestion thread
     private String date;
+    private transient LocalDate recordedDay; // date as a LocalDate, so indexing never re-parses it
     private LocalDateTime timestamp;
 
-    private static int gradeCounter = 0;
+    // Notified on corrections so GradeManager aggregates never go stale
+    private transient GradeChangeListener changeListener;
+
+    // MVCC bookkeeping (see ModelSnapshot): the data version that made this grade visible, and
+    // the values it held before each correction, newest first
+    private transient volatile long committedVersion = UNCOMMITTED;
+    private transient volatile Revision revisions;
+    private static final AtomicReferenceFieldUpdater<Grade, Revision> REVISIONS =
+            AtomicReferenceFieldUpdater.newUpdater(Grade.class, Revision.class, "revisions");
+    static final long UNCOMMITTED = Long.MAX_VALUE;
+
     private static final DateTimeFormatter TIMESTAMP_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private static final SimpleDateFormat DATE_FORMATTER =
-            new SimpleDateFormat("dd-MM-yyyy");
+    private static final DateTimeFormatter DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("dd-MM-yyyy");
 
     public Grade(String studentId, Subject subject, double grade) {
-        this(generateGradeId(), studentId, subject, grade);
+        this(IdAllocator.GRADES.nextId(), studentId, subject, grade);
     }
 
     public Grade(String gradeId, String studentId, Subject subject, double grade) {
-        this.gradeId = gradeId;
+        setGradeId(gradeId);
         this.studentId = studentId;
-        this.subject = subject;
+        this.subject = SubjectRegistry.getInstance().intern(subject); // shared flyweight instance
         this.grade = grade;
-        this.date = generateDate();
         this.timestamp = LocalDateTime.now();
+        this.date = generateDate();
+    }
+
+    /**
+     * Restores a previously recorded grade with its original timestamp
+     * (used when grades are rebuilt from columnar or persisted storage).
+     */
+    public Grade(String gradeId, String studentId, Subject subject, double grade, LocalDateTime timestamp) {
+        setGradeId(gradeId);
+        this.studentId = studentId;
+        this.subject = SubjectRegistry.getInstance().intern(subject);
+        this.grade = grade;
+        this.timestamp = timestamp;
+        this.date = generateDate();
     }
 
-    private static String generateGradeId() {
-        gradeCounter++;
-        return String.format("GRD%03d", gradeCounter);
+    // Explicit ids (imports, restores) raise the allocator's high-water mark so they are never reissued
+    private void setGradeId(String gradeId) {
+        this.gradeId = gradeId;
+        this.gradeOrdinal = IdAllocator.GRADES.parse(gradeId);
+        IdAllocator.GRADES.observe(gradeOrdinal);
     }
 
     private String generateDate() {
-        return DATE_FORMATTER.format(new Date());
+        recordedDay = timestamp.toLocalDate();
+        return recordedDay.format(DATE_FORMATTER);
+    }
+
+    // Day the grade was recorded (getDate() as a LocalDate); corrections do not move it
+    public LocalDate getRecordedDay() {
+        LocalDate day = recordedDay;
+        if (day == null) { // deserialized
+            day = LocalDate.parse(date, DATE_FORMATTER);
+            recordedDay = day;
+        }
+        return day;
     }
 
     @Override
     public boolean recordGrade(double grade) {
         if (validateGrade(grade)) {
+            double previousGrade = this.grade;
+            if (changeListener != null && previousGrade != grade) {
+                // Publish the old value before the new one, so a snapshot reader that sees the
+                // new value also finds the revision holding the old one
+                revisions = new Revision(previousGrade, revisions);
+            }
             this.grade = grade;
             this.timestamp = LocalDateTime.now();
+            if (changeListener != null && previousGrade != grade) {
+                changeListener.onGradeChanged(this, previousGrade);
+            }
             return true;
         }
         return false;
@@ -71,21 +119,24 @@ public class Grade implements Gradable, Serializable {
         System.out.println("Letter Grade: " + getLetterGrade());
     }
 
+    /**
+     * Letter on the standard scale. A grade does not know its student's type; callers that do
+     * use getLetterGrade(scale) with Student.getGradingScale() or StudentManager.getGradingScale(id).
+     */
     public String getLetterGrade() {
-        if (grade >= 93) return "A";
-        else if (grade >= 90) return "A-";
-        else if (grade >= 87) return "B+";
-        else if (grade >= 83) return "B";
-        else if (grade >= 80) return "B-";
-        else if (grade >= 77) return "C+";
-        else if (grade >= 73) return "C";
-        else if (grade >= 70) return "C-";
-        else if (grade >= 67) return "D+";
-        else if (grade >= 60) return "D";
-        else return "F";
+        return letterGradeFor(grade);
+    }
+
+    public String getLetterGrade(GradingScale scale) {
+        return scale.letter(grade);
+    }
+
+    public static String letterGradeFor(double grade) {
+        return GradingScale.STANDARD.letter(grade);
     }
 
     public String getGradeId() { return gradeId; }
+    public long getGradeOrdinal() { return gradeOrdinal; }
     public String getStudentId() { return studentId; }
     public Subject getSubject() { return subject; }
     public double getGrade() { return grade; }
@@ -95,5 +146,83 @@ public class Grade implements Gradable, Serializable {
         return timestamp.format(TIMESTAMP_FORMATTER);
     }
 
-    public static int getGradeCounter() { return gradeCounter; }
+    public static long getGradeCounter() { return IdAllocator.GRADES.getHighWaterMark(); }
+
+    void setChangeListener(GradeChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    long getCommittedVersion() {
+        return committedVersion;
+    }
+
+    void markCommitted(long version) {
+        this.committedVersion = version;
+    }
+
+    /**
+     * Stamps the newest correction with the data version it was committed at.
+     */
+    void markCorrectionCommitted(long version) {
+        Revision latest = revisions;
+        if (latest != null && latest.supersededAt == UNCOMMITTED) {
+            latest.supersededAt = version;
+        }
+    }
+
+    /**
+     * Records that the grade held value until a correction committed at supersededAt (a row
+     * materialized after a snapshot pinned its earlier value, see ColumnarGradeStore.pin).
+     */
+    void addCommittedRevision(double value, long supersededAt) {
+        Revision revision = new Revision(value, revisions);
+        revision.supersededAt = supersededAt;
+        revisions = revision;
+    }
+
+    /**
+     * Drops the revisions no open snapshot can read: those superseded at or before oldestPinned
+     * (CommitClock.oldestPinned). Called under the commit clock after each correction, so a grade
+     * keeps no revisions while nothing is pinned.
+     * Time Complexity: O(r) for the r revisions kept
+     */
+    void pruneRevisions(long oldestPinned) {
+        Revision head = revisions;
+        if (head == null) return;
+        if (head.supersededAt <= oldestPinned) {
+            // A racing recordGrade may have pushed an uncommitted revision; keep it then
+            REVISIONS.compareAndSet(this, head, null);
+            return;
+        }
+        for (Revision r = head; r.previous != null; r = r.previous) {
+            if (r.previous.supersededAt <= oldestPinned) {
+                r.previous = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Value this grade had at a data version.
+     * Time Complexity: O(1) unless corrected after that version (one step per later correction)
+     */
+    double valueAt(long version) {
+        double value = this.grade; // read the value before the revisions (see recordGrade)
+        for (Revision r = revisions; r != null && r.supersededAt > version; r = r.previous) {
+            value = r.value;
+        }
+        return value;
+    }
+
+    // Value a grade held until a correction committed at supersededAt
+    static final class Revision {
+        final double value;
+        volatile Revision previous; // cut by pruneRevisions
+        volatile long supersededAt = UNCOMMITTED;
+
+        Revision(double value, Revision previous) {
+            this.value = value;
+            this.previous = previous;
+        }
+    }
 }
\ No newline at end of file
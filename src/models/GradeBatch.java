@@ -0,0 +1,73 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffered batch session over GradeManager.addGrades.
+ *
+ * Grades added to the session become visible when the buffer reaches flushSize, on flush(),
+ * or on close(). Per-student GPA/honors updates and cache invalidation happen once per flush
+ * instead of once per grade, and nothing is printed.
+ *
+ * Not thread-safe: use one session per importing thread (GradeManager itself is thread-safe).
+ */
+public class GradeBatch implements AutoCloseable {
+    static final int DEFAULT_FLUSH_SIZE = 10_000;
+
+    private final GradeManager gradeManager;
+    private final int flushSize;
+    private List<Grade> buffer;
+    private int addedCount = 0;
+    private int flushCount = 0;
+    private boolean closed = false;
+
+    GradeBatch(GradeManager gradeManager, int flushSize) {
+        if (flushSize <= 0) {
+            throw new IllegalArgumentException("Flush size must be positive: " + flushSize);
+        }
+        this.gradeManager = gradeManager;
+        this.flushSize = flushSize;
+        this.buffer = new ArrayList<>(Math.min(flushSize, DEFAULT_FLUSH_SIZE));
+    }
+
+    /**
+     * Time Complexity: O(1) amortized (a flush every flushSize grades)
+     */
+    public void add(Grade grade) {
+        if (closed) {
+            throw new IllegalStateException("Batch session is closed");
+        }
+        buffer.add(grade);
+        if (buffer.size() >= flushSize) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        if (buffer.isEmpty()) return;
+        List<Grade> pending = buffer;
+        buffer = new ArrayList<>(Math.min(flushSize, DEFAULT_FLUSH_SIZE));
+        addedCount += gradeManager.addGrades(pending);
+        flushCount++;
+    }
+
+    public int getAddedCount() {
+        return addedCount;
+    }
+
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    public int getFlushCount() {
+        return flushCount;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        flush();
+        closed = true;
+    }
+}
@@ -0,0 +1,35 @@
+package models;
+
+/**
+ * Storage for ColumnarGradeStore's primitive columns, addressed by row.
+ *
+ * HeapGradeColumns keeps them in Java arrays; OffHeapGradeColumns keeps them in direct
+ * memory so large grade histories add nothing to the heap the collector has to trace or
+ * copy. Callers (the store) hold the store's monitor, so implementations are not thread-safe.
+ */
+interface GradeColumns {
+    /** Rows that can be written without growing. */
+    int capacity();
+
+    /** Makes room for at least required rows, keeping rows already written. */
+    void ensureCapacity(int required);
+
+    void set(int row, int studentOrdinal, short subjectOrdinal, float value, long epochMillis, int gradeId);
+
+    int studentOrdinal(int row);
+
+    short subjectOrdinal(int row);
+
+    float value(int row);
+
+    void setValue(int row, float value);
+
+    long timestamp(int row);
+
+    int gradeId(int row);
+
+    /** Bytes reserved for the columns (on the heap or off it, see isOffHeap). */
+    long reservedBytes();
+
+    boolean isOffHeap();
+}
@@ -1,72 +1,435 @@
 package models;
 
+import interfaces.GradeBookJournal;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
-
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Grade storage and per-student/subject/class aggregates.
+ *
+ * Thread safety / memory model:
+ * - Every write for a student (addGrade, grade corrections) runs under that student's lock
+ *   stripe, so writes to one student are serialized and writes to different stripes run in
+ *   parallel. The per-student grade list and the stripe-owned aggregates are only mutated
+ *   under the stripe.
+ * - Secondary indexes (by id, by subject, by date, history) are concurrent collections.
+ *   Inserting a grade into one happens-before any read that observes it there, and readers of
+ *   these indexes never take a stripe, so they do not block writers (iteration is weakly
+ *   consistent: a grade added during the read may or may not be seen).
+ * - Per-student grade lists are AppendOnlyLists: appended under the stripe, read lock-free.
+ *   The view* / forEachGrade / gradeStream APIs hand out read-only snapshots of them without
+ *   copying; getGradesByStudent / getGradesBySubject still return mutable copies.
+ * - Aggregates are read under their own monitor, so a reader observes a student either before
+ *   or after a grade, never half-applied.
+ * - Columnar mode serializes appends on the ColumnarGradeStore monitor.
+ * - Every add and correction is also committed under a short global monitor that assigns
+ *   the next data version. snapshot() pins the current version in O(1) for readers that need
+ *   one consistent view for a long time (see ModelSnapshot).
+ * - With a journal attached, adds and corrections are logged under the stripe (so a student's
+ *   records are in apply order) and awaited after the stripe is released, so writers on other
+ *   stripes share one flush. Bulk adds wait once for the whole batch.
+ * - Adds and corrections are published on the StudentManager's ChangeFeed under the stripe,
+ *   so a student's events are in apply order; listeners run later on the feed's thread.
+ * - ShardedGradeManager hash-partitions students over several GradeManagers that share one
+ *   commit clock, and answers class-wide queries by merging their partial results.
+ */
 public class GradeManager {
+    private static final int LOCK_STRIPES = 64; // power of two
+    private static final int ALL_SUBJECTS = ColumnarGradeStore.ALL_SUBJECTS;
+
     // Optimized collections from PDF requirements
-    private Map<String, List<Grade>> studentGradesMap;     // HashMap for O(1) student grade lookup
-    private Map<String, Grade> gradeByIdMap;              // HashMap for O(1) grade lookup
-    private TreeMap<String, List<Grade>> gradesByDate;    // TreeMap for sorted by date
-    private Map<String, List<Grade>> gradesBySubject;     // HashMap for grades by subject
-    private LinkedList<Grade> gradeHistory;               // LinkedList for chronological access
+    private Map<String, AppendOnlyList<Grade>> studentGradesMap; // ConcurrentHashMap; appends under the student's stripe
+    private Map<String, Grade> gradeByIdMap;                     // ConcurrentHashMap for O(1) grade lookup
+    private NavigableMap<Long, Queue<Grade>> gradesByDay;        // ConcurrentSkipListMap keyed by epoch day
+    private SubjectTable<Queue<Grade>> gradesBySubject;          // Array indexed by SubjectRegistry id
+    private Deque<Grade> gradeHistory;                           // ConcurrentLinkedDeque for chronological access
+    private final LongAdder totalGrades = new LongAdder();      // deque size() is O(n)
+
+    // Day/week/month/term rollups (count, sum, histogram) for trend and range statistics
+    private final GradeTimeIndex timeIndex = new GradeTimeIndex();
+
+    // Optional columnar backend (primitive arrays instead of Grade objects); null in object mode
+    private ColumnarGradeStore columnarStore;
 
-    // Caching system
-    private Map<String, Double> studentAveragesCache;
-    private Map<String, Map<String, Double>> subjectAveragesCache;
+    // Per-student write locks
+    private final ReentrantLock[] stripes;
 
-    // Performance tracking
-    private long cacheHits = 0;
-    private long cacheMisses = 0;
+    // MVCC: data version clock and grades in commit order (shared by the partitions of a ShardedGradeManager)
+    private final CommitClock clock;
+
+    // Write-ahead journal; null when the grade book is not persisted
+    private volatile GradeBookJournal journal;
+
+    // Change events (the StudentManager's feed, so student and grade events share one order)
+    private final ChangeFeed changeFeed;
+
+    // Running aggregates, updated in O(1) per grade (averages/variance become O(1) reads)
+    private Map<String, RunningGradeStats> studentStats;
+    private Map<String, RunningGradeStats> studentCoreStats;
+    private Map<String, RunningGradeStats> studentElectiveStats;
+    private Map<String, GradePointTally> studentGradePoints; // grades per band of the student's scale (GPA)
+    // Subject and class aggregates are kept per stripe and merged on read, so writers in
+    // different stripes never contend on a shared aggregate
+    private List<SubjectTable<RunningGradeStats>> subjectStatsByStripe; // indexed by subject id
+    private RunningGradeStats[] classStatsByStripe;
 
     // StudentManager reference for GPA updates
     private StudentManager studentManager;
 
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    /**
+     * How grade records are held.
+     */
+    public enum Storage {
+        /** Grade objects referenced from the indexes (the default) */
+        OBJECTS,
+        /** ColumnarGradeStore: dense primitive columns on the heap */
+        COLUMNAR,
+        /** ColumnarGradeStore with its columns in direct memory; only the indexes stay on the heap */
+        OFF_HEAP
+    }
+
     public GradeManager(StudentManager studentManager) {
-        studentGradesMap = new HashMap<>();
-        gradeByIdMap = new HashMap<>();
-        gradesByDate = new TreeMap<>(Collections.reverseOrder()); // Newest first
-        gradesBySubject = new HashMap<>();
-        gradeHistory = new LinkedList<>();
-
-        studentAveragesCache = new HashMap<>();
-        subjectAveragesCache = new HashMap<>();
+        this(studentManager, Storage.OBJECTS);
+    }
+
+    /**
+     * @param columnarStorage when true, grades are kept in a ColumnarGradeStore (dense primitive
+     *                        columns) and Grade objects are only created when a query returns them
+     */
+    public GradeManager(StudentManager studentManager, boolean columnarStorage) {
+        this(studentManager, columnarStorage ? Storage.COLUMNAR : Storage.OBJECTS);
+    }
+
+    public GradeManager(StudentManager studentManager, Storage storage) {
+        this(studentManager, storage, new CommitClock());
+    }
+
+    // Partitions of a ShardedGradeManager are built with the shared clock
+    GradeManager(StudentManager studentManager, Storage storage, CommitClock clock) {
+        this.clock = clock;
+        if (storage != Storage.OBJECTS) {
+            columnarStore = storage == Storage.OFF_HEAP ? ColumnarGradeStore.offHeap() : new ColumnarGradeStore();
+            columnarStore.setChangeListener(this::onGradeCorrected);
+        }
+        studentGradesMap = new ConcurrentHashMap<>();
+        gradeByIdMap = new ConcurrentHashMap<>();
+        gradesByDay = new ConcurrentSkipListMap<>(); // Chronological (epoch day)
+        gradesBySubject = new SubjectTable<>();
+        gradeHistory = new ConcurrentLinkedDeque<>();
+
+        stripes = new ReentrantLock[LOCK_STRIPES];
+        classStatsByStripe = new RunningGradeStats[LOCK_STRIPES];
+        subjectStatsByStripe = new ArrayList<>(LOCK_STRIPES);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+            classStatsByStripe[i] = new RunningGradeStats();
+            subjectStatsByStripe.add(new SubjectTable<>());
+        }
+
+        studentStats = new ConcurrentHashMap<>();
+        studentCoreStats = new ConcurrentHashMap<>();
+        studentElectiveStats = new ConcurrentHashMap<>();
+        studentGradePoints = new ConcurrentHashMap<>();
+
         this.studentManager = studentManager;
+        this.changeFeed = studentManager.getChangeFeed();
     }
 
     /**
      * Adds a grade to all collections
-     * Time Complexity: O(1) for HashMap operations, O(1) amortized for LinkedList
-     * Overall: O(1)
+     * Time Complexity: O(1) for HashMap operations, O(log d) for the date index
+     * Thread-safe: takes the student's stripe; other stripes proceed in parallel
      */
     public void addGrade(Grade grade) {
         String studentId = grade.getStudentId();
-        String gradeId = grade.getGradeId();
-        String date = grade.getDate();
-        String subjectName = grade.getSubject().getSubjectName();
+        ReentrantLock lock = stripeLock(studentId);
+        long logPosition;
+        lock.lock();
+        try {
+            logPosition = storeGrade(grade);
+
+            // O(1) aggregate maintenance
+            recordAggregates(grade);
+            if (changeFeed.isActive()) {
+                changeFeed.publish(new ChangeEvent.GradeAdded(grade));
+            }
 
-        // Add to all collections
-        studentGradesMap.computeIfAbsent(studentId, k -> new ArrayList<>()).add(grade);
-        gradeByIdMap.put(gradeId, grade);
-        gradesByDate.computeIfAbsent(date, k -> new ArrayList<>()).add(grade);
-        gradesBySubject.computeIfAbsent(subjectName, k -> new ArrayList<>()).add(grade);
-        gradeHistory.addFirst(grade); // Add to beginning for reverse chronological
+            // Update student GPA and honors eligibility (under the stripe so updates for one
+            // student are applied in order)
+            updateStudentGPAAndHonors(studentId);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(logPosition);
 
         // Track course code in HashSet (prevents duplicates)
         String courseCode = grade.getSubject().getSubjectCode();
         studentManager.addCourseCode(courseCode);
 
-        // Invalidate caches
-        studentAveragesCache.remove(studentId);
-        subjectAveragesCache.clear();
-
-        // Update student GPA and honors eligibility
-        updateStudentGPAAndHonors(studentId);
-
         System.out.println("✓ Grade added successfully!");
         displayCollectionPerformance();
     }
 
+    /**
+     * Bulk insert: grades are stored with one lock acquisition per stripe, then GPA/honors are
+     * recomputed once per affected student and caches are invalidated once for the batch.
+     * Prints nothing.
+     * Time Complexity: O(k) for k grades + O(s log n) for s affected students' GPA updates
+     *
+     * @return number of grades added
+     */
+    public int addGrades(Collection<Grade> grades) {
+        return addGrades(grades, false);
+    }
+
+    /**
+     * @param verbose print a one-line summary and the collection table once for the batch
+     */
+    public int addGrades(Collection<Grade> grades, boolean verbose) {
+        if (grades.isEmpty()) return 0;
+
+        // Group by stripe so each stripe is locked once per batch (input order kept within a stripe)
+        List<List<Grade>> byStripe = new ArrayList<>(LOCK_STRIPES);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            byStripe.add(null);
+        }
+        for (Grade grade : grades) {
+            int stripe = stripeOf(grade.getStudentId());
+            List<Grade> bucket = byStripe.get(stripe);
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                byStripe.set(stripe, bucket);
+            }
+            bucket.add(grade);
+        }
+
+        Set<String> courseCodes = new HashSet<>();
+        long logPosition = 0;
+        for (int stripe = 0; stripe < LOCK_STRIPES; stripe++) {
+            List<Grade> bucket = byStripe.get(stripe);
+            if (bucket == null) continue;
+
+            Set<String> affectedStudents = new LinkedHashSet<>();
+            List<ChangeEvent> events = changeFeed.isActive() ? new ArrayList<>(bucket.size()) : null;
+            ReentrantLock lock = stripes[stripe];
+            lock.lock();
+            try {
+                for (Grade grade : bucket) {
+                    logPosition = Math.max(logPosition, storeGrade(grade));
+                    recordAggregates(grade);
+                    affectedStudents.add(grade.getStudentId());
+                    courseCodes.add(grade.getSubject().getSubjectCode());
+                    if (events != null) events.add(new ChangeEvent.GradeAdded(grade));
+                }
+                if (events != null) changeFeed.publishAll(events); // one feed lock per stripe
+
+                // Once per affected student rather than once per grade
+                for (String studentId : affectedStudents) {
+                    studentManager.updateStudentGPA(studentId, calculateOverallAverage(studentId), this, false);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Once per batch
+        awaitDurable(logPosition);
+        studentManager.addCourseCodes(courseCodes);
+
+        if (verbose) {
+            System.out.printf("✓ %d grades added in bulk%n", grades.size());
+            displayCollectionPerformance();
+        }
+        return grades.size();
+    }
+
+    /**
+     * Opens a batch session that buffers grades and applies them through addGrades
+     * every flushSize grades and on close. Use with try-with-resources.
+     */
+    public GradeBatch beginBatch() {
+        return new GradeBatch(this, GradeBatch.DEFAULT_FLUSH_SIZE);
+    }
+
+    public GradeBatch beginBatch(int flushSize) {
+        return new GradeBatch(this, flushSize);
+    }
+
+    // Caller holds the student's stripe; returns the journal position (0 when not journaled)
+    private long storeGrade(Grade grade) {
+        totalGrades.increment();
+        LocalDate day = recordedDay(grade);
+        timeIndex.record(grade.getStudentId(), day, grade.getGrade());
+        if (isColumnar()) {
+            // Columnar mode: one row across the primitive columns, no heap Grade retained
+            columnarStore.append(grade);
+            commit(grade);
+            return logAdded(grade);
+        }
+
+        // Add to all collections
+        studentGradesMap.computeIfAbsent(grade.getStudentId(), k -> new AppendOnlyList<>()).add(grade);
+        gradeByIdMap.put(grade.getGradeId(), grade);
+        gradesByDay.computeIfAbsent(day.toEpochDay(), k -> new ConcurrentLinkedQueue<>()).add(grade);
+        gradesBySubject.computeIfAbsent(grade.getSubject().getSubjectId(), k -> new ConcurrentLinkedQueue<>()).add(grade);
+        gradeHistory.addFirst(grade); // Add to beginning for reverse chronological
+        grade.setChangeListener(this::onGradeCorrected);
+        commit(grade);
+        return logAdded(grade);
+    }
+
+    private long logAdded(Grade grade) {
+        GradeBookJournal log = journal;
+        return log != null ? log.gradeAdded(grade) : 0;
+    }
+
+    private void awaitDurable(long logPosition) {
+        GradeBookJournal log = journal;
+        if (log != null && logPosition > 0) {
+            log.awaitDurable(logPosition);
+        }
+    }
+
+    /**
+     * Attaches the write-ahead journal (null detaches). Attach after restoring, so replayed
+     * grades are not logged again.
+     */
+    public void setJournal(GradeBookJournal journal) {
+        this.journal = journal;
+    }
+
+    // Makes a stored grade visible to snapshots; caller holds the student's stripe
+    private void commit(Grade grade) {
+        synchronized (clock) {
+            long version = ++clock.version;
+            if (!isColumnar()) {
+                grade.markCommitted(version);
+                clock.log.add(grade);
+            }
+        }
+    }
+
+    // Makes a correction visible to snapshots; caller holds the student's stripe
+    private void commitCorrection(Grade grade) {
+        synchronized (clock) {
+            grade.markCorrectionCommitted(++clock.version);
+            grade.pruneRevisions(clock.oldestPinned());
+        }
+    }
+
+    // Caller holds the student's stripe
+    private void recordAggregates(Grade grade) {
+        double value = grade.getGrade();
+        String studentId = grade.getStudentId();
+        int stripe = stripeOf(studentId);
+
+        studentStats.computeIfAbsent(studentId, k -> new RunningGradeStats()).add(value);
+        studentGradePoints.computeIfAbsent(studentId, k -> new GradePointTally(studentManager.getGradingScale(k)))
+                .add(value);
+        splitStats(grade).computeIfAbsent(studentId, k -> new RunningGradeStats()).add(value);
+        subjectStatsByStripe.get(stripe)
+                .computeIfAbsent(grade.getSubject().getSubjectId(), k -> new RunningGradeStats()).add(value);
+        classStatsByStripe[stripe].add(value);
+    }
+
+    private Map<String, RunningGradeStats> splitStats(Grade grade) {
+        return grade.getSubject() instanceof CoreSubject ? studentCoreStats : studentElectiveStats;
+    }
+
+    /**
+     * Called when Grade.recordGrade corrects a grade held by this manager.
+     * Time Complexity: O(1), unless the old value was a group's min/max (then O(k) for that group)
+     */
+    private void onGradeCorrected(Grade grade, double previousGrade) {
+        String studentId = grade.getStudentId();
+        int subjectId = grade.getSubject().getSubjectId();
+        double value = grade.getGrade();
+        boolean core = grade.getSubject() instanceof CoreSubject;
+        int stripe = stripeOf(studentId);
+
+        ReentrantLock lock = stripes[stripe];
+        long logPosition = 0;
+        lock.lock();
+        try {
+            RunningGradeStats stats = studentStats.get(studentId);
+            if (stats == null) return; // Not one of ours
+
+            stats.replace(previousGrade, value, () -> studentValues(studentId, ALL_SUBJECTS));
+            splitStats(grade).get(studentId).replace(previousGrade, value, () -> gradesFor(studentId).stream()
+                    .filter(g -> (g.getSubject() instanceof CoreSubject) == core)
+                    .mapToDouble(Grade::getGrade));
+            subjectStatsByStripe.get(stripe).get(subjectId)
+                    .replace(previousGrade, value, () -> stripeValues(stripe, subjectId));
+            classStatsByStripe[stripe].replace(previousGrade, value, () -> stripeValues(stripe, ALL_SUBJECTS));
+            studentGradePoints.get(studentId).replace(previousGrade, value);
+            timeIndex.correct(studentId, recordedDay(grade), previousGrade, value);
+            commitCorrection(grade);
+            GradeBookJournal log = journal;
+            if (log != null) {
+                logPosition = log.gradeCorrected(grade); // logs the current value, so racing corrections converge
+            }
+            if (changeFeed.isActive()) {
+                changeFeed.publish(new ChangeEvent.GradeUpdated(grade, previousGrade));
+            }
+
+            updateStudentGPAAndHonors(studentId);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(logPosition);
+    }
+
+    private DoubleStream studentValues(String studentId, int subjectId) {
+        if (isColumnar()) {
+            return Arrays.stream(columnarStore.valuesForStudent(studentId, subjectId));
+        }
+        return viewGradesByStudent(studentId).stream()
+                .filter(g -> subjectId == ALL_SUBJECTS || g.getSubject().getSubjectId() == subjectId)
+                .mapToDouble(Grade::getGrade);
+    }
+
+    // Values of every student in a stripe; caller holds that stripe
+    private DoubleStream stripeValues(int stripe, int subjectId) {
+        return studentStats.keySet().stream()
+                .filter(id -> stripeOf(id) == stripe)
+                .flatMapToDouble(id -> studentValues(id, subjectId));
+    }
+
+    /**
+     * Day a grade was recorded. Taken from getDate(), which is fixed at creation
+     * (recordGrade refreshes the timestamp on corrections).
+     */
+    private static LocalDate recordedDay(Grade grade) {
+        return grade.getRecordedDay();
+    }
+
+    private static int stripeOf(String studentId) {
+        int h = studentId.hashCode();
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    private ReentrantLock stripeLock(String studentId) {
+        return stripes[stripeOf(studentId)];
+    }
+
     /**
      * Updates student GPA and honors eligibility
      */
@@ -85,8 +448,7 @@ public class GradeManager {
         System.out.println("Student: " + studentId + " - " + student.getName());
         System.out.println("Type: " + student.getStudentType() + " Student");
 
-        // Use cached average if available
-        double overallAvg = getCachedAverage(studentId);
+        double overallAvg = calculateOverallAverage(studentId); // O(1) running aggregate
         System.out.println("Current Average: " + String.format("%.1f", overallAvg) + "%");
         System.out.println("GPA: " + String.format("%.2f", student.getGpa()));
         System.out.println("Status: " + student.getStatus());
@@ -102,7 +464,7 @@ public class GradeManager {
         System.out.println("GRD ID | DATE       | SUBJECT     | TYPE    | GRADE | PERFORMANCE");
         System.out.println("------------------------------------------------------------------");
 
-        List<Grade> grades = studentGradesMap.getOrDefault(studentId, new ArrayList<>());
+        List<Grade> grades = gradesFor(studentId);
 
         if (grades.isEmpty()) {
             System.out.println("\nNo grades recorded for this student.");
@@ -129,8 +491,8 @@ public class GradeManager {
         }
 
         // Calculate averages using streams
-        double coreAvg = calculateCoreAverageWithStream(studentId);
-        double electiveAvg = calculateElectiveAverageWithStream(studentId);
+        double coreAvg = calculateCoreAverage(studentId);
+        double electiveAvg = calculateElectiveAverage(studentId);
 
         // Get grade distribution
         Map<String, Long> gradeDistribution = getGradeDistribution(studentId);
@@ -145,73 +507,130 @@ public class GradeManager {
         System.out.println("\n=== GRADE DISTRIBUTION ===");
         gradeDistribution.forEach((range, count) ->
                 System.out.printf("%-10s: %2d grades%n", range, count));
+    }
 
-        displayCachePerformance();
+    /**
+     * Time Complexity: O(1) - read from the running aggregate
+     */
+    public double calculateOverallAverage(String studentId) {
+        return meanOf(studentStats.get(studentId));
     }
 
-    private double getCachedAverage(String studentId) {
-        if (studentAveragesCache.containsKey(studentId)) {
-            cacheHits++;
-            return studentAveragesCache.get(studentId);
-        } else {
-            cacheMisses++;
-            double avg = calculateOverallAverage(studentId);
-            studentAveragesCache.put(studentId, avg);
-            return avg;
-        }
+    /**
+     * GPA as GPACalculator.calculateGPA reports it: the mean grade points of the student's
+     * grades on the student's scale (0.0 without grades).
+     * Time Complexity: O(1) - read from the running per-band counts
+     */
+    public double calculateGradePointAverage(String studentId) {
+        GradePointTally tally = studentGradePoints.get(studentId);
+        return tally != null ? tally.average() : 0.0;
     }
 
-    private double calculateCoreAverageWithStream(String studentId) {
-        List<Grade> grades = studentGradesMap.getOrDefault(studentId, new ArrayList<>());
-        return grades.stream()
-                .filter(g -> g.getSubject() instanceof CoreSubject)
-                .mapToDouble(Grade::getGrade)
-                .average()
-                .orElse(0.0);
+    public double calculateCoreAverage(String studentId) {
+        return meanOf(studentCoreStats.get(studentId));
     }
 
-    private double calculateElectiveAverageWithStream(String studentId) {
-        List<Grade> grades = studentGradesMap.getOrDefault(studentId, new ArrayList<>());
-        return grades.stream()
-                .filter(g -> g.getSubject() instanceof ElectiveSubject)
-                .mapToDouble(Grade::getGrade)
-                .average()
-                .orElse(0.0);
+    public double calculateElectiveAverage(String studentId) {
+        return meanOf(studentElectiveStats.get(studentId));
     }
 
-    public double calculateOverallAverage(String studentId) {
-        List<Grade> grades = studentGradesMap.getOrDefault(studentId, new ArrayList<>());
-        if (grades.isEmpty()) return 0.0;
+    /**
+     * Population standard deviation of a student's grades.
+     * Time Complexity: O(1)
+     */
+    public double calculateStandardDeviation(String studentId) {
+        RunningGradeStats stats = studentStats.get(studentId);
+        return stats != null ? stats.getStandardDeviation() : 0.0;
+    }
 
-        return grades.stream()
-                .mapToDouble(Grade::getGrade)
-                .average()
-                .orElse(0.0);
+    /**
+     * Mean of every grade in the system.
+     * Time Complexity: O(1)
+     */
+    public double calculateClassAverage() {
+        return getClassStatistics().getMean();
     }
 
-    public double calculateCoreAverage(String studentId) {
-        return calculateCoreAverageWithStream(studentId);
+    /**
+     * Class-wide average per subject name.
+     * Time Complexity: O(s) where s = number of subjects
+     */
+    public Map<String, Double> calculateAverageBySubject() {
+        Map<String, RunningGradeStats> byName = new HashMap<>();
+        SubjectRegistry registry = SubjectRegistry.getInstance();
+        subjectStatistics().forEach((stats, subjectId) -> byName.computeIfAbsent(
+                registry.get(subjectId).getSubjectName(), k -> new RunningGradeStats()).merge(stats));
+
+        Map<String, Double> averages = new HashMap<>();
+        byName.forEach((subject, stats) -> averages.put(subject, stats.getMean()));
+        return averages;
     }
 
-    public double calculateElectiveAverage(String studentId) {
-        return calculateElectiveAverageWithStream(studentId);
+    /**
+     * Snapshot of a student's running aggregate (count, mean, variance, min, max).
+     */
+    public RunningGradeStats getStudentStatistics(String studentId) {
+        return copyOf(studentStats.get(studentId));
     }
 
-    private Map<String, Long> getGradeDistribution(String studentId) {
-        List<Grade> grades = studentGradesMap.getOrDefault(studentId, new ArrayList<>());
-        return grades.stream()
-                .collect(Collectors.groupingBy(
-                        g -> getGradeRange(g.getGrade()),
-                        Collectors.counting()
-                ));
+    /**
+     * Aggregate over every subject registered under this name.
+     * Time Complexity: O(stripes)
+     */
+    public RunningGradeStats getSubjectStatistics(String subjectName) {
+        RunningGradeStats merged = new RunningGradeStats();
+        for (int subjectId : SubjectRegistry.getInstance().idsForName(subjectName)) {
+            merged.merge(getSubjectStatistics(subjectId));
+        }
+        return merged;
+    }
+
+    public RunningGradeStats getSubjectStatistics(int subjectId) {
+        RunningGradeStats merged = new RunningGradeStats();
+        for (SubjectTable<RunningGradeStats> stripeStats : subjectStatsByStripe) {
+            RunningGradeStats stats = stripeStats.get(subjectId);
+            if (stats != null) merged.merge(stats);
+        }
+        return merged;
     }
 
-    private String getGradeRange(double grade) {
-        if (grade >= 90) return "90-100 (A)";
-        if (grade >= 80) return "80-89 (B)";
-        if (grade >= 70) return "70-79 (C)";
-        if (grade >= 60) return "60-69 (D)";
-        return "0-59 (F)";
+    /**
+     * Time Complexity: O(stripes) - merges the per-stripe class aggregates
+     */
+    public RunningGradeStats getClassStatistics() {
+        RunningGradeStats merged = new RunningGradeStats();
+        for (RunningGradeStats stats : classStatsByStripe) {
+            merged.merge(stats);
+        }
+        return merged;
+    }
+
+    // Class-wide aggregate per subject id (ShardedGradeManager merges its partitions' tables)
+    SubjectTable<RunningGradeStats> subjectStatistics() {
+        SubjectTable<RunningGradeStats> merged = new SubjectTable<>();
+        for (SubjectTable<RunningGradeStats> stripeStats : subjectStatsByStripe) {
+            stripeStats.forEach((stats, subjectId) ->
+                    merged.computeIfAbsent(subjectId, k -> new RunningGradeStats()).merge(stats));
+        }
+        return merged;
+    }
+
+    private double meanOf(RunningGradeStats stats) {
+        return stats != null ? stats.getMean() : 0.0;
+    }
+
+    private RunningGradeStats copyOf(RunningGradeStats stats) {
+        return stats != null ? stats.copy() : new RunningGradeStats();
+    }
+
+    /**
+     * Band counts on the student's grading scale, highest band first; empty bands are left out
+     */
+    private Map<String, Long> getGradeDistribution(String studentId) {
+        double[] values = gradesFor(studentId).stream().mapToDouble(Grade::getGrade).toArray();
+        Map<String, Long> distribution = studentManager.getGradingScale(studentId).distribution(values);
+        distribution.values().removeIf(count -> count == 0);
+        return distribution;
     }
 
     private String getPerformanceIndicator(double grade) {
@@ -222,72 +641,347 @@ public class GradeManager {
         return "★☆☆☆☆";
     }
 
-    private void displayCachePerformance() {
-        System.out.println("\n=== CACHE PERFORMANCE ===");
-        System.out.printf("Cache Hit Rate: %.1f%% (%d/%d requests)%n",
-                (cacheHits + cacheMisses) > 0 ? (cacheHits * 100.0 / (cacheHits + cacheMisses)) : 0,
-                cacheHits, cacheHits + cacheMisses);
-        System.out.println("Cached Students: " + studentAveragesCache.size());
-    }
-
     private void displayCollectionPerformance() {
+        if (isColumnar()) {
+            System.out.println("\n=== COLLECTION PERFORMANCE (" + (isOffHeap() ? "OFF-HEAP" : "COLUMNAR") + ") ===");
+            System.out.printf("Rows: %d | Students: %d | Column memory: %.1f KB heap, %.1f KB off-heap%n",
+                    columnarStore.size(), columnarStore.studentCount(),
+                    columnarStore.heapColumnBytes() / 1024.0, columnarStore.offHeapBytes() / 1024.0);
+            return;
+        }
         System.out.println("\n=== COLLECTION PERFORMANCE ===");
         System.out.println("Data Structure            | Size | Complexity");
         System.out.println("------------------------------------------------");
         System.out.printf("HashMap<StudentID, Grades> | %4d | O(1) lookup%n",
                 studentGradesMap.size());
-        System.out.printf("TreeMap<Date, Grades>      | %4d | O(log n) sorted access%n",
-                gradesByDate.size());
-        System.out.printf("LinkedList<GradeHistory>   | %4d | O(1) add/remove%n",
-                gradeHistory.size());
-        System.out.printf("HashMap<Subject, Grades>   | %4d | O(1) subject grouping%n",
-                gradesBySubject.size());
+        System.out.printf("SkipListMap<Day, Grades>   | %4d | O(log n) range access%n",
+                gradesByDay.size());
+        System.out.printf("Deque<GradeHistory>        | %4d | O(1) add/remove%n",
+                totalGrades.intValue());
+        System.out.printf("SubjectTable<Grades>       | %4d | O(1) array-indexed subject grouping%n",
+                gradesBySubject.countNonEmpty());
     }
 
     public List<Grade> getGradesByStudent(String studentId) {
+        if (isColumnar()) {
+            return "all".equals(studentId) ? columnarStore.allGrades() : columnarStore.gradesForStudent(studentId);
+        }
         if ("all".equals(studentId)) {
             // Special case: return all grades from all students
-            List<Grade> allGrades = new ArrayList<>();
-            for (List<Grade> grades : studentGradesMap.values()) {
-                allGrades.addAll(grades);
-            }
-            return allGrades;
+            return new ArrayList<>(viewAllGrades());
+        }
+        return gradesFor(studentId);
+    }
+
+    // Zero-copy read views. Each is a read-only snapshot: grades added afterwards are not
+    // included, and the view stays safe to iterate while writers keep appending.
+
+    /**
+     * Read-only view of one student's grades (insertion order).
+     * Time Complexity: O(1), no copying (columnar mode materializes the grades)
+     */
+    public List<Grade> viewGradesByStudent(String studentId) {
+        if (isColumnar()) {
+            return Collections.unmodifiableList(columnarStore.gradesForStudent(studentId));
+        }
+        AppendOnlyList<Grade> grades = studentGradesMap.get(studentId);
+        return grades == null ? Collections.emptyList() : grades.view();
+    }
+
+    /**
+     * Read-only view of every grade, grouped by student.
+     * Time Complexity: O(s) for s students, no per-grade copying (columnar mode materializes)
+     */
+    public List<Grade> viewAllGrades() {
+        if (isColumnar()) {
+            return Collections.unmodifiableList(columnarStore.allGrades());
+        }
+        List<List<Grade>> segments = new ArrayList<>(studentGradesMap.size());
+        for (AppendOnlyList<Grade> grades : studentGradesMap.values()) {
+            segments.add(grades.view());
+        }
+        return new SegmentedListView<>(segments);
+    }
+
+    /**
+     * Read-only view of a subject's grades. Weakly consistent: grades added while iterating
+     * may or may not be seen.
+     */
+    public Collection<Grade> viewGradesBySubject(String subjectName) {
+        if (isColumnar()) {
+            return Collections.unmodifiableList(columnarStore.gradesForSubject(subjectName));
+        }
+        int[] subjectIds = SubjectRegistry.getInstance().idsForName(subjectName);
+        if (subjectIds.length == 1) {
+            Queue<Grade> subjectGrades = gradesBySubject.get(subjectIds[0]);
+            return subjectGrades == null ? Collections.emptyList() : Collections.unmodifiableCollection(subjectGrades);
+        }
+        return Collections.unmodifiableList(getGradesBySubject(subjectName)); // same name under several codes
+    }
+
+    /**
+     * Visits every grade without building a list.
+     */
+    public void forEachGrade(Consumer<? super Grade> action) {
+        if (isColumnar()) {
+            columnarStore.allGrades().forEach(action);
+            return;
+        }
+        for (AppendOnlyList<Grade> grades : studentGradesMap.values()) {
+            grades.forEach(action);
+        }
+    }
+
+    public void forEachGrade(String studentId, Consumer<? super Grade> action) {
+        if (isColumnar()) {
+            columnarStore.gradesForStudent(studentId).forEach(action);
+            return;
+        }
+        AppendOnlyList<Grade> grades = studentGradesMap.get(studentId);
+        if (grades != null) grades.forEach(action);
+    }
+
+    /**
+     * Reduces every grade with a Collector, without building a list first.
+     * Time Complexity: O(n); ShardedGradeManager accumulates its partitions in parallel
+     */
+    public <A, R> R collectGrades(Collector<? super Grade, A, R> collector) {
+        return finishCollect(collector, accumulateGrades(collector));
+    }
+
+    // Unfinished result container for this manager's grades
+    <A> A accumulateGrades(Collector<? super Grade, A, ?> collector) {
+        A container = collector.supplier().get();
+        BiConsumer<A, ? super Grade> accumulator = collector.accumulator();
+        forEachGrade(grade -> accumulator.accept(container, grade));
+        return container;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, R> R finishCollect(Collector<? super Grade, A, R> collector, A container) {
+        if (collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return (R) container;
+        }
+        return collector.finisher().apply(container);
+    }
+
+    /**
+     * Pins the current data version: a consistent, immutable view of every student and grade
+     * that later adds and corrections do not affect. Close the snapshot when done with it, so
+     * corrections stop keeping the values it could read.
+     * Time Complexity: O(1); columnar mode materializes the grades on first read, outside the
+     * commit monitor (O(n))
+     */
+    public ModelSnapshot snapshot() {
+        List<Student> students = studentManager.viewStudents();
+        long version;
+        List<Grade> grades;
+        synchronized (clock) {
+            version = clock.version;
+            grades = isColumnar() ? pinColumnarRows(version) : clock.log.view();
+            clock.pin(version);
+        }
+        return new ModelSnapshot(this, studentManager, clock, students, grades, version, isColumnar());
+    }
+
+    // Caller holds the commit clock, so no add or correction commits between the version and the pin
+    List<Grade> pinColumnarRows(long version) {
+        return columnarStore.pin(version);
+    }
+
+    /**
+     * Snapshots pinned and not yet closed (or collected).
+     */
+    public int getOpenSnapshotCount() {
+        return clock.pinnedCount();
+    }
+
+    /**
+     * Number of adds and corrections committed so far.
+     */
+    public long getDataVersion() {
+        synchronized (clock) {
+            return clock.version;
         }
-        return new ArrayList<>(studentGradesMap.getOrDefault(studentId, new ArrayList<>()));
     }
 
+    /**
+     * Fingerprint of one student's grades (IDs, subject names and current values). Unlike
+     * getDataVersion it does not depend on the order grades were added or on the process, so a
+     * value derived from the grades can be persisted with it and trusted after a restart while
+     * the fingerprint still matches (CacheCheckpoint).
+     * Time Complexity: O(g) for the student's g grades
+     */
+    public long getStudentDataVersion(String studentId) {
+        long[] fingerprint = { studentId.hashCode() };
+        forEachGrade(studentId, grade -> {
+            long hash = grade.getGradeId().hashCode() * 0x9E3779B97F4A7C15L;
+            hash ^= grade.getSubject().getSubjectName().hashCode() + 31L * Double.doubleToLongBits(grade.getGrade());
+            hash ^= hash >>> 29;
+            fingerprint[0] += hash * 0xBF58476D1CE4E5B9L; // order-independent sum of mixed hashes
+        });
+        return fingerprint[0];
+    }
+
+    /**
+     * Sized spliterator over every grade; splits evenly by grade count for parallel streams.
+     */
+    public Spliterator<Grade> gradeSpliterator() {
+        return viewAllGrades().spliterator();
+    }
+
+    public Stream<Grade> gradeStream() {
+        return StreamSupport.stream(gradeSpliterator(), false);
+    }
+
+    public Stream<Grade> parallelGradeStream() {
+        return StreamSupport.stream(gradeSpliterator(), true);
+    }
+
+    /**
+     * Grades recorded between two dd-MM-yyyy dates (inclusive), newest day first.
+     * Time Complexity: O(log d + days touched + k)
+     */
     public List<Grade> getGradesByDateRange(String startDate, String endDate) {
-        return gradesByDate.subMap(startDate, true, endDate, true)
-                .values().stream()
-                .flatMap(List::stream)
+        LocalDate from = LocalDate.parse(startDate, DATE_FORMATTER);
+        LocalDate to = LocalDate.parse(endDate, DATE_FORMATTER);
+        if (from.isAfter(to)) return new ArrayList<>();
+
+        if (isColumnar()) {
+            ZoneId zone = ZoneId.systemDefault();
+            List<Grade> grades = columnarStore.gradesBetween(from.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    to.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1);
+            Collections.reverse(grades);
+            return grades;
+        }
+        return gradesByDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true)
+                .descendingMap().values().stream()
+                .flatMap(Queue::stream)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Pre-aggregated buckets overlapping [from, to], oldest first.
+     * Time Complexity: O(log b + buckets touched)
+     */
+    public List<GradeTimeIndex.TimeRollup> getRollups(GradeTimeIndex.Granularity granularity,
+                                                      LocalDate from, LocalDate to) {
+        return timeIndex.rollups(granularity, from, to);
+    }
+
+    public List<GradeTimeIndex.TimeRollup> getRollups(GradeTimeIndex.Granularity granularity) {
+        return timeIndex.rollups(granularity);
+    }
+
+    /**
+     * A student's per-term buckets (S1 = Jan-Jun, S2 = Jul-Dec), oldest first.
+     * Time Complexity: O(terms)
+     */
+    public List<GradeTimeIndex.TimeRollup> getStudentTermRollups(String studentId) {
+        return timeIndex.studentTermRollups(studentId);
+    }
+
+    /**
+     * Count/sum/histogram for every grade recorded in [from, to].
+     * Time Complexity: O(log d + days touched)
+     */
+    public GradeTimeIndex.TimeRollup summarizeDateRange(LocalDate from, LocalDate to) {
+        return timeIndex.summarize(from, to);
+    }
+
     public List<Grade> getGradesBySubject(String subjectName) {
-        return new ArrayList<>(gradesBySubject.getOrDefault(subjectName, new ArrayList<>()));
+        if (isColumnar()) {
+            return columnarStore.gradesForSubject(subjectName);
+        }
+        List<Grade> grades = new ArrayList<>();
+        for (int subjectId : SubjectRegistry.getInstance().idsForName(subjectName)) {
+            Queue<Grade> subjectGrades = gradesBySubject.get(subjectId);
+            if (subjectGrades != null) grades.addAll(subjectGrades);
+        }
+        return grades;
     }
 
     public int getTotalGradeCount() {
-        return gradeHistory.size();
+        return totalGrades.intValue();
     }
 
     public int getGradeCountForStudent(String studentId) {
-        return studentGradesMap.getOrDefault(studentId, new ArrayList<>()).size();
+        if (isColumnar()) {
+            return columnarStore.countForStudent(studentId);
+        }
+        RunningGradeStats stats = studentStats.get(studentId);
+        return stats != null ? (int) stats.getCount() : 0;
     }
 
     public Set<String> getUniqueCourses() {
-        Set<String> courses = new HashSet<>();
-        for (String subject : gradesBySubject.keySet()) {
-            courses.add(subject);
+        if (isColumnar()) {
+            return columnarStore.subjectNames();
         }
+        Set<String> courses = new HashSet<>();
+        SubjectRegistry registry = SubjectRegistry.getInstance();
+        gradesBySubject.forEach((grades, subjectId) -> courses.add(registry.get(subjectId).getSubjectName()));
         return courses;
     }
 
-    public void clearCache() {
-        studentAveragesCache.clear();
-        subjectAveragesCache.clear();
-        cacheHits = 0;
-        cacheMisses = 0;
-        System.out.println("✓ All caches cleared!");
+    public boolean isColumnar() {
+        return columnarStore != null;
+    }
+
+    public boolean isOffHeap() {
+        return columnarStore != null && columnarStore.isOffHeap();
+    }
+
+    /**
+     * Direct memory held by off-heap grade columns (0 in the other storage modes).
+     */
+    public long getOffHeapBytes() {
+        return columnarStore != null ? columnarStore.offHeapBytes() : 0;
+    }
+
+    /**
+     * Mutable copy of a student's grades.
+     */
+    private List<Grade> gradesFor(String studentId) {
+        if (isColumnar()) {
+            return columnarStore.gradesForStudent(studentId);
+        }
+        return new ArrayList<>(viewGradesByStudent(studentId));
+    }
+
+    /**
+     * Number of a student's grades in each band of a grading scale. Counts rather than a running
+     * sum of points, so corrections leave no rounding drift and students with the same grades
+     * get bit-identical GPAs (and tie in the ranking). Updated under the student's stripe.
+     */
+    private static final class GradePointTally {
+        private final GradingScale scale;
+        private final int[] countByBand;
+        private volatile int count;
+
+        GradePointTally(GradingScale scale) {
+            this.scale = scale;
+            this.countByBand = new int[scale.getBandCount()];
+        }
+
+        void add(double value) {
+            countByBand[scale.classify(value)]++;
+            count++;
+        }
+
+        void replace(double previousValue, double value) {
+            countByBand[scale.classify(previousValue)]--;
+            countByBand[scale.classify(value)]++;
+        }
+
+        // O(bands), independent of the number of grades
+        double average() {
+            int total = count;
+            if (total == 0) return 0.0;
+            double points = 0.0;
+            for (int band = 0; band < countByBand.length; band++) {
+                points += countByBand[band] * scale.getPoints(band);
+            }
+            return points / total;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,298 @@
+package models;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Time-series index of grades keyed by the day they were recorded (epoch day, not the
+ * dd-MM-yyyy string, so ordering is chronological).
+ *
+ * Every grade is rolled up into day, week (ISO, Monday start), month and term buckets holding
+ * count, sum and a 101-bin histogram of whole percentages (bin = floor(grade)). Any scale whose
+ * thresholds are whole percentages (GPA points, letter bands) can be evaluated from a histogram
+ * without touching the grades. Per-student term buckets back semester GPA queries.
+ *
+ * Terms: S1 = January-June, S2 = July-December.
+ *
+ * Time Complexity: record/correct O(log b) where b = buckets at a level; range queries
+ * O(log b + buckets touched).
+ *
+ * Thread safety: concurrent maps and lock-free bucket counters. A bucket read while writers
+ * are active may reflect a grade in its count before its sum (each field is exact on its own).
+ */
+public class GradeTimeIndex {
+    public static final int HISTOGRAM_BINS = 101;
+
+    public enum Granularity { DAY, WEEK, MONTH, TERM }
+
+    private final EnumMap<Granularity, ConcurrentSkipListMap<Long, Bucket>> rollups =
+            new EnumMap<>(Granularity.class);
+    private final Map<String, ConcurrentSkipListMap<Long, Bucket>> studentTerms = new ConcurrentHashMap<>();
+
+    public GradeTimeIndex() {
+        for (Granularity granularity : Granularity.values()) {
+            rollups.put(granularity, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /**
+     * Time Complexity: O(log b) per level
+     */
+    public void record(String studentId, LocalDate day, double grade) {
+        for (Granularity granularity : Granularity.values()) {
+            bucket(rollups.get(granularity), granularity, day).add(grade);
+        }
+        bucket(studentTerms.computeIfAbsent(studentId, k -> new ConcurrentSkipListMap<>()),
+                Granularity.TERM, day).add(grade);
+    }
+
+    /**
+     * Moves a corrected grade between histogram bins of the buckets it was recorded in.
+     */
+    public void correct(String studentId, LocalDate day, double previousGrade, double newGrade) {
+        for (Granularity granularity : Granularity.values()) {
+            bucket(rollups.get(granularity), granularity, day).replace(previousGrade, newGrade);
+        }
+        ConcurrentSkipListMap<Long, Bucket> terms = studentTerms.get(studentId);
+        if (terms != null) {
+            bucket(terms, Granularity.TERM, day).replace(previousGrade, newGrade);
+        }
+    }
+
+    /**
+     * Buckets overlapping [from, to] (inclusive days), oldest first.
+     * Time Complexity: O(log b + buckets touched)
+     */
+    public List<TimeRollup> rollups(Granularity granularity, LocalDate from, LocalDate to) {
+        List<TimeRollup> result = new ArrayList<>();
+        rollups.get(granularity).subMap(keyOf(granularity, from), true, keyOf(granularity, to), true)
+                .values().forEach(bucket -> result.add(bucket.snapshot()));
+        return result;
+    }
+
+    public List<TimeRollup> rollups(Granularity granularity) {
+        List<TimeRollup> result = new ArrayList<>();
+        rollups.get(granularity).values().forEach(bucket -> result.add(bucket.snapshot()));
+        return result;
+    }
+
+    /**
+     * One student's term buckets, oldest first.
+     * Time Complexity: O(terms)
+     */
+    public List<TimeRollup> studentTermRollups(String studentId) {
+        List<TimeRollup> result = new ArrayList<>();
+        ConcurrentSkipListMap<Long, Bucket> terms = studentTerms.get(studentId);
+        if (terms != null) {
+            terms.values().forEach(bucket -> result.add(bucket.snapshot()));
+        }
+        return result;
+    }
+
+    /**
+     * Combines the day buckets in [from, to] into one rollup.
+     * Time Complexity: O(log b + days touched)
+     */
+    public TimeRollup summarize(LocalDate from, LocalDate to) {
+        TimeRollup.Builder total = new TimeRollup.Builder(from.toString() + ".." + to.toString(), from);
+        for (TimeRollup day : rollups(Granularity.DAY, from, to)) {
+            total.add(day);
+        }
+        return total.build();
+    }
+
+    public int bucketCount(Granularity granularity) {
+        return rollups.get(granularity).size();
+    }
+
+    // Bucket keys
+
+    static long keyOf(Granularity granularity, LocalDate day) {
+        switch (granularity) {
+            case DAY:
+                return day.toEpochDay();
+            case WEEK:
+                return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toEpochDay();
+            case MONTH:
+                return day.getYear() * 12L + day.getMonthValue() - 1;
+            default:
+                return day.getYear() * 2L + (day.getMonthValue() > 6 ? 1 : 0);
+        }
+    }
+
+    static LocalDate startOf(Granularity granularity, long key) {
+        switch (granularity) {
+            case DAY:
+            case WEEK:
+                return LocalDate.ofEpochDay(key);
+            case MONTH:
+                return LocalDate.of((int) Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1, 1);
+            default:
+                return LocalDate.of((int) Math.floorDiv(key, 2), Math.floorMod(key, 2) == 0 ? 1 : 7, 1);
+        }
+    }
+
+    /**
+     * Term label ("yyyy-S1"/"yyyy-S2") of the bucket a day falls in.
+     */
+    public static String termLabelOf(LocalDate day) {
+        return labelOf(Granularity.TERM, keyOf(Granularity.TERM, day));
+    }
+
+    static String labelOf(Granularity granularity, long key) {
+        LocalDate start = startOf(granularity, key);
+        switch (granularity) {
+            case DAY:
+                return start.toString();
+            case WEEK:
+                return "W" + start;
+            case MONTH:
+                return String.format("%d-%02d", start.getYear(), start.getMonthValue());
+            default:
+                return start.getYear() + (start.getMonthValue() == 1 ? "-S1" : "-S2");
+        }
+    }
+
+    private static Bucket bucket(ConcurrentSkipListMap<Long, Bucket> level, Granularity granularity, LocalDate day) {
+        long key = keyOf(granularity, day);
+        return level.computeIfAbsent(key, k -> new Bucket(granularity, k));
+    }
+
+    static int binOf(double grade) {
+        return Math.max(0, Math.min(HISTOGRAM_BINS - 1, (int) Math.floor(grade)));
+    }
+
+    private static final class Bucket {
+        private final Granularity granularity;
+        private final long key;
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BINS);
+
+        Bucket(Granularity granularity, long key) {
+            this.granularity = granularity;
+            this.key = key;
+        }
+
+        void add(double grade) {
+            count.increment();
+            sum.add(grade);
+            histogram.incrementAndGet(binOf(grade));
+        }
+
+        void replace(double previousGrade, double newGrade) {
+            sum.add(newGrade - previousGrade);
+            int from = binOf(previousGrade);
+            int to = binOf(newGrade);
+            if (from != to) {
+                histogram.decrementAndGet(from);
+                histogram.incrementAndGet(to);
+            }
+        }
+
+        TimeRollup snapshot() {
+            long[] bins = new long[HISTOGRAM_BINS];
+            for (int i = 0; i < HISTOGRAM_BINS; i++) {
+                bins[i] = histogram.get(i);
+            }
+            return new TimeRollup(labelOf(granularity, key), startOf(granularity, key),
+                    count.sum(), sum.sum(), bins);
+        }
+    }
+
+    /**
+     * Immutable view of one time bucket (or of several combined).
+     */
+    public static final class TimeRollup {
+        private final String label;
+        private final LocalDate start;
+        private final long count;
+        private final double sum;
+        private final long[] histogram;
+
+        TimeRollup(String label, LocalDate start, long count, double sum, long[] histogram) {
+            this.label = label;
+            this.start = start;
+            this.count = count;
+            this.sum = sum;
+            this.histogram = histogram;
+        }
+
+        public String getLabel() { return label; }
+        public LocalDate getStart() { return start; }
+        public long getCount() { return count; }
+        public double getSum() { return sum; }
+
+        public double getMean() {
+            return count > 0 ? sum / count : 0.0;
+        }
+
+        /**
+         * Grades whose whole percentage lies in [minPercent, maxPercent].
+         * Time Complexity: O(101)
+         */
+        public long countBetween(int minPercent, int maxPercent) {
+            long total = 0;
+            for (int bin = Math.max(0, minPercent); bin <= Math.min(HISTOGRAM_BINS - 1, maxPercent); bin++) {
+                total += histogram[bin];
+            }
+            return total;
+        }
+
+        /**
+         * Sum of a per-grade score over the bucket, for scales with whole-percent thresholds
+         * (e.g. GPA points). Time Complexity: O(101)
+         */
+        public double sumOf(IntToDoubleFunction scoreForPercent) {
+            double total = 0;
+            for (int bin = 0; bin < HISTOGRAM_BINS; bin++) {
+                if (histogram[bin] != 0) {
+                    total += histogram[bin] * scoreForPercent.applyAsDouble(bin);
+                }
+            }
+            return total;
+        }
+
+        public double meanOf(IntToDoubleFunction scoreForPercent) {
+            return count > 0 ? sumOf(scoreForPercent) / count : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s count=%d mean=%.2f", label, count, getMean());
+        }
+
+        static final class Builder {
+            private final String label;
+            private final LocalDate start;
+            private long count;
+            private double sum;
+            private final long[] histogram = new long[HISTOGRAM_BINS];
+
+            Builder(String label, LocalDate start) {
+                this.label = label;
+                this.start = start;
+            }
+
+            void add(TimeRollup rollup) {
+                count += rollup.count;
+                sum += rollup.sum;
+                for (int i = 0; i < HISTOGRAM_BINS; i++) {
+                    histogram[i] += rollup.histogram[i];
+                }
+            }
+
+            TimeRollup build() {
+                return new TimeRollup(label, start, count, sum, histogram);
+            }
+        }
+    }
+}
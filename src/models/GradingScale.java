@@ -0,0 +1,282 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Percentage-to-letter and percentage-to-GPA classification, shared by every component that
+ * grades (Grade, StudentManager, GPACalculator, the search, stream and dashboard services).
+ *
+ * A scale is a list of bands (minimum percentage, letter, grade points) compiled into a lookup
+ * table with one entry per 0.1% from 0 to 100, so classifying a value is an array index plus two
+ * boundary comparisons instead of an if-chain. The comparisons make the result exact for values
+ * that sit within rounding distance of a cutoff; values below 0 fall into the lowest band and
+ * values above 100 into the highest, as the old if-chains did.
+ *
+ * Scales are immutable. The scale used for a student is looked up by student type and can be
+ * replaced with {@link #configure}; do that at startup, before GPAs are calculated and cached.
+ */
+public final class GradingScale {
+    private static final int SLOTS_PER_PERCENT = 10;
+    private static final int MAX_SLOT = 100 * SLOTS_PER_PERCENT;
+
+    /** Plus/minus letters on the 4.0 scale: A ≥ 93, A- ≥ 90, B+ ≥ 87, ... D ≥ 60. */
+    public static final GradingScale STANDARD = builder("Standard")
+            .band(93, "A", 4.0)
+            .band(90, "A-", 3.7)
+            .band(87, "B+", 3.3)
+            .band(83, "B", 3.0)
+            .band(80, "B-", 2.7)
+            .band(77, "C+", 2.3)
+            .band(73, "C", 2.0)
+            .band(70, "C-", 1.7)
+            .band(67, "D+", 1.3)
+            .band(60, "D", 1.0)
+            .band(0, "F", 0.0)
+            .build();
+
+    /** STANDARD with A+ (≥ 97) and D- (60-62) split out; grade points are unchanged. */
+    public static final GradingScale DETAILED = builder("Detailed")
+            .band(97, "A+", 4.0)
+            .band(93, "A", 4.0)
+            .band(90, "A-", 3.7)
+            .band(87, "B+", 3.3)
+            .band(83, "B", 3.0)
+            .band(80, "B-", 2.7)
+            .band(77, "C+", 2.3)
+            .band(73, "C", 2.0)
+            .band(70, "C-", 1.7)
+            .band(67, "D+", 1.3)
+            .band(63, "D", 1.0)
+            .band(60, "D-", 1.0)
+            .band(0, "F", 0.0)
+            .build();
+
+    // Student type ("Regular", "Honors") -> scale; unknown types use STANDARD
+    private static final Map<String, GradingScale> scalesByStudentType = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final String[] letters;
+    private final double[] points;
+    private final double[] minimums;
+    private final byte[] bandBySlot;   // band of each 0.1% slot, highest band = 0
+    private final double[] floors;     // lowest value in each band (-Infinity for the last)
+    private final double[] ceilings;   // floor of the band above (+Infinity for the first)
+    private final boolean wholePercentCutoffs;
+
+    private GradingScale(String name, List<Double> minimums, List<String> letters, List<Double> points) {
+        int bands = minimums.size();
+        this.name = name;
+        this.letters = letters.toArray(new String[0]);
+        this.points = new double[bands];
+        this.minimums = new double[bands];
+        this.floors = new double[bands];
+        this.ceilings = new double[bands];
+        int[] minimumSlots = new int[bands];
+        boolean whole = true;
+        for (int band = 0; band < bands; band++) {
+            this.points[band] = points.get(band);
+            this.minimums[band] = minimums.get(band);
+            minimumSlots[band] = (int) Math.round(this.minimums[band] * SLOTS_PER_PERCENT);
+            whole &= minimumSlots[band] % SLOTS_PER_PERCENT == 0;
+            floors[band] = band == bands - 1 ? Double.NEGATIVE_INFINITY : this.minimums[band];
+            ceilings[band] = band == 0 ? Double.POSITIVE_INFINITY : floors[band - 1];
+        }
+        wholePercentCutoffs = whole;
+
+        bandBySlot = new byte[MAX_SLOT + 1];
+        int band = bands - 1;
+        for (int slot = 0; slot <= MAX_SLOT; slot++) {
+            while (band > 0 && slot >= minimumSlots[band - 1]) band--;
+            bandBySlot[slot] = (byte) band;
+        }
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    /**
+     * Bands are added from the highest minimum down; the last band must start at 0.
+     */
+    public static final class Builder {
+        private final String name;
+        private final List<Double> minimums = new ArrayList<>();
+        private final List<String> letters = new ArrayList<>();
+        private final List<Double> points = new ArrayList<>();
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder band(double minimumPercentage, String letter, double gradePoints) {
+            if (letter == null || letter.isEmpty()) {
+                throw new IllegalArgumentException("Band letter must not be empty");
+            }
+            if (!(minimumPercentage >= 0 && minimumPercentage <= 100)) {
+                throw new IllegalArgumentException("Band minimum must be between 0 and 100: " + minimumPercentage);
+            }
+            double slots = minimumPercentage * SLOTS_PER_PERCENT;
+            if (Math.abs(slots - Math.rint(slots)) > 1e-6) {
+                throw new IllegalArgumentException("Band minimum must be a multiple of 0.1: " + minimumPercentage);
+            }
+            if (!minimums.isEmpty() && Math.rint(slots) >= Math.rint(minimums.get(minimums.size() - 1) * SLOTS_PER_PERCENT)) {
+                throw new IllegalArgumentException("Band minimums must be strictly descending: " + minimumPercentage);
+            }
+            if (minimums.size() == Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("A scale holds at most " + Byte.MAX_VALUE + " bands");
+            }
+            minimums.add(minimumPercentage);
+            letters.add(letter);
+            points.add(gradePoints);
+            return this;
+        }
+
+        public GradingScale build() {
+            if (minimums.isEmpty() || minimums.get(minimums.size() - 1) != 0) {
+                throw new IllegalArgumentException("The last band of scale " + name + " must start at 0");
+            }
+            return new GradingScale(name, minimums, letters, points);
+        }
+    }
+
+    /**
+     * Scale for a student type as returned by Student.getStudentType()
+     * Time Complexity: O(1)
+     */
+    public static GradingScale forStudentType(String studentType) {
+        GradingScale scale = studentType == null ? null : scalesByStudentType.get(studentType);
+        return scale != null ? scale : STANDARD;
+    }
+
+    /**
+     * Replaces the scale for a student type; null restores STANDARD.
+     */
+    public static void configure(String studentType, GradingScale scale) {
+        if (scale == null) {
+            scalesByStudentType.remove(studentType);
+        } else {
+            scalesByStudentType.put(studentType, scale);
+        }
+    }
+
+    /**
+     * Band index of a percentage, 0 for the highest band
+     * Time Complexity: O(1) - one table lookup, no per-band comparisons
+     */
+    public int classify(double percentage) {
+        percentage = Math.min(percentage, 100.0); // keeps +Infinity below the top band's ceiling
+        int slot = Math.min(MAX_SLOT, Math.max(0, (int) (percentage * SLOTS_PER_PERCENT)));
+        int band = bandBySlot[slot];
+        // x * 10 may round across a cutoff; the neighbouring band's bounds settle it
+        band += percentage < floors[band] ? 1 : 0;
+        band -= percentage >= ceilings[band] ? 1 : 0;
+        return band;
+    }
+
+    public String letter(double percentage) {
+        return letters[classify(percentage)];
+    }
+
+    public double points(double percentage) {
+        return points[classify(percentage)];
+    }
+
+    /**
+     * Classifies percentages[from, to) into bands[from, to) in one pass.
+     * Time Complexity: O(n)
+     */
+    public void classify(double[] percentages, int from, int to, int[] bands) {
+        for (int i = from; i < to; i++) {
+            bands[i] = classify(percentages[i]);
+        }
+    }
+
+    public int[] classify(double[] percentages) {
+        int[] bands = new int[percentages.length];
+        classify(percentages, 0, percentages.length, bands);
+        return bands;
+    }
+
+    /**
+     * Mean grade points of the first count percentages (0.0 when count is 0)
+     * Time Complexity: O(n)
+     */
+    public double averagePoints(double[] percentages, int count) {
+        if (count == 0) return 0.0;
+        double total = 0.0;
+        for (int i = 0; i < count; i++) {
+            total += points[classify(percentages[i])];
+        }
+        return total / count;
+    }
+
+    /**
+     * Number of percentages in each band, indexed like getLetter(band)
+     * Time Complexity: O(n)
+     */
+    public int[] countByBand(double[] percentages) {
+        int[] counts = new int[letters.length];
+        for (double percentage : percentages) {
+            counts[classify(percentage)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Band counts of the percentages keyed by getLabel(band), highest band first; bands with
+     * no grades are kept with a count of 0
+     * Time Complexity: O(n + bands)
+     */
+    public Map<String, Long> distribution(double[] percentages) {
+        int[] counts = countByBand(percentages);
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        for (int band = 0; band < counts.length; band++) {
+            distribution.put(getLabel(band), (long) counts[band]);
+        }
+        return distribution;
+    }
+
+    /**
+     * Percentages covered by a band, e.g. "90-92" for A- on STANDARD. Whole-percent scales
+     * show whole bounds in the style of "80-89"; others show one decimal.
+     */
+    public String getRange(int band) {
+        if (wholePercentCutoffs) {
+            int high = band == 0 ? 100 : (int) minimums[band - 1] - 1;
+            return String.format("%d-%d", (int) minimums[band], high);
+        }
+        double high = band == 0 ? 100.0 : minimums[band - 1] - 1.0 / SLOTS_PER_PERCENT;
+        return String.format("%.1f-%.1f", minimums[band], high);
+    }
+
+    /** Distribution label of a band, e.g. "A- (90-92)" */
+    public String getLabel(int band) {
+        return letters[band] + " (" + getRange(band) + ")";
+    }
+
+    public String getName() { return name; }
+    public int getBandCount() { return letters.length; }
+    public String getLetter(int band) { return letters[band]; }
+    public double getPoints(int band) { return points[band]; }
+    public double getMinimum(int band) { return minimums[band]; }
+
+    /**
+     * True when every cutoff is a whole percentage, so a value's band is decided by its whole
+     * part and the scale can be applied to floor-binned histograms (GradeTimeIndex).
+     */
+    public boolean hasWholePercentCutoffs() { return wholePercentCutoffs; }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(name).append(" [");
+        for (int band = 0; band < letters.length; band++) {
+            if (band > 0) text.append(", ");
+            text.append(String.format("%s ≥%.1f %.1f", letters[band], minimums[band], points[band]));
+        }
+        return text.append(']').toString();
+    }
+}
@@ -0,0 +1,88 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * Grade columns as Java arrays, grown by 1.5x copies (ColumnarGradeStore's default).
+ * Memory per grade: 22 bytes of heap.
+ */
+final class HeapGradeColumns implements GradeColumns {
+    private int[] studentOrdinals;
+    private short[] subjectOrdinals;
+    private float[] values;
+    private long[] timestamps;
+    private int[] gradeIds;
+
+    HeapGradeColumns(int initialCapacity) {
+        studentOrdinals = new int[initialCapacity];
+        subjectOrdinals = new short[initialCapacity];
+        values = new float[initialCapacity];
+        timestamps = new long[initialCapacity];
+        gradeIds = new int[initialCapacity];
+    }
+
+    @Override
+    public int capacity() {
+        return studentOrdinals.length;
+    }
+
+    @Override
+    public void ensureCapacity(int required) {
+        if (required <= studentOrdinals.length) return;
+        int capacity = Math.max(required, studentOrdinals.length + (studentOrdinals.length >> 1));
+        studentOrdinals = Arrays.copyOf(studentOrdinals, capacity);
+        subjectOrdinals = Arrays.copyOf(subjectOrdinals, capacity);
+        values = Arrays.copyOf(values, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        gradeIds = Arrays.copyOf(gradeIds, capacity);
+    }
+
+    @Override
+    public void set(int row, int studentOrdinal, short subjectOrdinal, float value, long epochMillis, int gradeId) {
+        studentOrdinals[row] = studentOrdinal;
+        subjectOrdinals[row] = subjectOrdinal;
+        values[row] = value;
+        timestamps[row] = epochMillis;
+        gradeIds[row] = gradeId;
+    }
+
+    @Override
+    public int studentOrdinal(int row) {
+        return studentOrdinals[row];
+    }
+
+    @Override
+    public short subjectOrdinal(int row) {
+        return subjectOrdinals[row];
+    }
+
+    @Override
+    public float value(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void setValue(int row, float value) {
+        values[row] = value;
+    }
+
+    @Override
+    public long timestamp(int row) {
+        return timestamps[row];
+    }
+
+    @Override
+    public int gradeId(int row) {
+        return gradeIds[row];
+    }
+
+    @Override
+    public long reservedBytes() {
+        return (long) studentOrdinals.length * (Integer.BYTES + Short.BYTES + Float.BYTES + Long.BYTES + Integer.BYTES);
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return false;
+    }
+}
@@ -11,6 +11,12 @@ public class HonorsStudent extends Student {
         this.gpa = 0.0;
     }
 
+    public HonorsStudent(String studentId, String name, int age, String email, String phone, String enrollmentDate) {
+        super(studentId, name, age, email, phone, enrollmentDate);
+        this.honorsEligible = false;
+        this.gpa = 0.0;
+    }
+
     @Override
     public void displayStudentDetails() {
         System.out.println("=".repeat(50));
@@ -0,0 +1,209 @@
+package models;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Thread-safe allocator for display IDs such as "STU001" / "GRD1042".
+ *
+ * Every ID is backed by a compact numeric ordinal (1, 2, 3, ...). The display form is the prefix
+ * followed by the ordinal zero-padded to at least minWidth digits, so "STU999" is followed by
+ * "STU1000" rather than running out.
+ *
+ * Allocation is a single atomic increment. Bulk producers can reserve(n) a contiguous block and
+ * hand IDs out of it without touching shared state at all.
+ *
+ * The high-water mark (largest ordinal handed out or observed) can be saved and restored so IDs
+ * are never reused across restarts.
+ */
+public final class IdAllocator {
+    public static final IdAllocator STUDENTS = new IdAllocator("STU", 3);
+    public static final IdAllocator GRADES = new IdAllocator("GRD", 3);
+
+    private final String prefix;
+    private final int minWidth;
+    private final Pattern pattern;
+    private final AtomicLong highWaterMark = new AtomicLong();
+
+    public IdAllocator(String prefix, int minWidth) {
+        if (minWidth < 1 || minWidth > 18) {
+            throw new IllegalArgumentException("Minimum width must be between 1 and 18: " + minWidth);
+        }
+        this.prefix = prefix;
+        this.minWidth = minWidth;
+        // Exactly minWidth zero-padded digits, or more digits without a leading zero
+        this.pattern = Pattern.compile("^" + Pattern.quote(prefix)
+                + "(\\d{" + minWidth + "}|[1-9]\\d{" + minWidth + ",})$");
+    }
+
+    /**
+     * Time Complexity: O(1) - one atomic increment
+     */
+    public long nextOrdinal() {
+        return highWaterMark.incrementAndGet();
+    }
+
+    public String nextId() {
+        return format(nextOrdinal());
+    }
+
+    /**
+     * Reserves count consecutive ordinals for the calling thread.
+     * Time Complexity: O(1)
+     */
+    public Block reserve(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + count);
+        }
+        long last = highWaterMark.addAndGet(count);
+        return new Block(last - count + 1, last);
+    }
+
+    /**
+     * Raises the high-water mark to an ordinal that entered the system from outside (imports,
+     * restored data), so later allocations cannot collide with it.
+     */
+    public void observe(long ordinal) {
+        if (ordinal > highWaterMark.get()) {
+            highWaterMark.accumulateAndGet(ordinal, Math::max);
+        }
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    /**
+     * Display form of an ordinal: prefix + ordinal padded to minWidth digits.
+     * Time Complexity: O(d) where d = digits
+     */
+    public String format(long ordinal) {
+        String digits = Long.toString(ordinal);
+        StringBuilder id = new StringBuilder(prefix.length() + Math.max(minWidth, digits.length()));
+        id.append(prefix);
+        for (int i = digits.length(); i < minWidth; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
+    }
+
+    /**
+     * Ordinal of an ID in this allocator's format, or -1 if it is not one.
+     */
+    public long parse(String id) {
+        // Same rules as the pattern, scanned by hand: this runs for every Grade constructed
+        if (id == null || !id.startsWith(prefix)) return -1;
+        int start = prefix.length();
+        int digits = id.length() - start;
+        if (digits < minWidth || digits > 18) return -1;
+        if (digits > minWidth && id.charAt(start) == '0') return -1;
+        long ordinal = 0;
+        for (int i = start; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            ordinal = ordinal * 10 + (c - '0');
+        }
+        return ordinal;
+    }
+
+    public boolean matches(String id) {
+        return id != null && pattern.matcher(id).matches();
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Human-readable format description for validation messages.
+     */
+    public String describeFormat() {
+        return prefix + "#".repeat(minWidth) + " (" + prefix + " followed by " + minWidth + " or more digits)";
+    }
+
+    // Persistence of high-water marks (one properties file, keyed by prefix)
+
+    /**
+     * Writes the high-water marks atomically (temp file + move).
+     */
+    public static void save(Path file, IdAllocator... allocators) throws IOException {
+        Properties properties = new Properties();
+        for (IdAllocator allocator : allocators) {
+            properties.setProperty(allocator.prefix, Long.toString(allocator.getHighWaterMark()));
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp)) {
+            properties.store(writer, "ID allocator high-water marks");
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores high-water marks; a mark is only ever raised, never lowered.
+     * A missing file is not an error (first start).
+     */
+    public static void load(Path file, IdAllocator... allocators) throws IOException {
+        if (!Files.exists(file)) return;
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        for (IdAllocator allocator : allocators) {
+            String value = properties.getProperty(allocator.prefix);
+            if (value != null) {
+                try {
+                    allocator.observe(Long.parseLong(value.trim()));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Corrupt high-water mark for " + allocator.prefix + ": " + value, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Contiguous range of reserved ordinals. Not thread-safe: owned by the reserving thread.
+     */
+    public final class Block {
+        private long next;
+        private final long last;
+
+        private Block(long first, long last) {
+            this.next = first;
+            this.last = last;
+        }
+
+        public boolean hasNext() {
+            return next <= last;
+        }
+
+        public long nextOrdinal() {
+            if (next > last) {
+                throw new IllegalStateException("ID block exhausted");
+            }
+            return next++;
+        }
+
+        public String nextId() {
+            return format(nextOrdinal());
+        }
+
+        public long remaining() {
+            return last - next + 1;
+        }
+    }
+}
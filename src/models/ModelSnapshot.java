@@ -0,0 +1,249 @@
+package models;
+
+import java.lang.ref.Cleaner;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Consistent, read-only view of the student/grade model at one data version (MVCC).
+ *
+ * Pinning is O(1): the snapshot keeps prefix views of the append-only student list and grade
+ * commit log, and grade values are resolved through each grade's correction history. Writers
+ * keep adding and correcting while a snapshot is in use; none of that shows up here.
+ *
+ * Grade objects handed out are the live instances, so read their values through
+ * {@link #valueOf(Grade)} (getGrade() returns the latest value). Student fields that change
+ * over time (GPA, honors) are live as well; use the snapshot's averages instead.
+ *
+ * A snapshot holds on to the grade revisions it can read until close() (try-with-resources);
+ * one that is dropped without closing is released once it has been garbage collected. Reads
+ * after close() may see later corrections.
+ *
+ * In columnar mode pinning records the row count; the grades are materialized on first read
+ * (O(n)), and rows corrected after the pin are handed out with their pinned value as a revision.
+ */
+public class ModelSnapshot implements AutoCloseable {
+    private static final DateTimeFormatter STAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Cleaner RELEASER = Cleaner.create();
+
+    private final GradeManager gradeManager;
+    private final StudentManager studentManager;
+    private final List<Student> students;
+    private final List<Grade> grades;
+    private final long gradeVersion;
+    private final boolean materialized;
+    private final LocalDateTime pinnedAt = LocalDateTime.now();
+    private final Cleaner.Cleanable release; // unpins the version once (close or collection)
+
+    // Built on first use only
+    private Set<String> studentIds;
+    private Map<String, List<Grade>> gradesByStudent;
+
+    // The caller has pinned gradeVersion on the clock; the snapshot unpins it
+    ModelSnapshot(GradeManager gradeManager, StudentManager studentManager, CommitClock clock,
+                  List<Student> students, List<Grade> grades, long gradeVersion, boolean materialized) {
+        this.release = RELEASER.register(this, new Unpin(clock, gradeVersion));
+        this.gradeManager = gradeManager;
+        this.studentManager = studentManager;
+        this.students = students;
+        this.grades = Collections.unmodifiableList(grades);
+        this.gradeVersion = gradeVersion;
+        this.materialized = materialized;
+    }
+
+    /**
+     * Releases the pinned version. Idempotent.
+     */
+    @Override
+    public void close() {
+        release.clean();
+    }
+
+    // Must not reference the snapshot, or it would never become unreachable
+    private static final class Unpin implements Runnable {
+        private final CommitClock clock;
+        private final long version;
+
+        Unpin(CommitClock clock, long version) {
+            this.clock = clock;
+            this.version = version;
+        }
+
+        @Override
+        public void run() {
+            clock.unpin(version);
+        }
+    }
+
+    /**
+     * Data version this snapshot was pinned at. Grows with every student added and every grade
+     * added or corrected, so two reports with the same version saw identical data.
+     */
+    public long getVersion() {
+        return gradeVersion + students.size();
+    }
+
+    public LocalDateTime getPinnedAt() {
+        return pinnedAt;
+    }
+
+    public int getStudentCount() {
+        return students.size();
+    }
+
+    public int getGradeCount() {
+        return grades.size();
+    }
+
+    /**
+     * One-line stamp for reports, e.g. "Data version v20200 (200 students, 20000 grades) pinned 2024-...".
+     */
+    public String stamp() {
+        return String.format("Data version v%d (%d students, %d grades) pinned %s",
+                getVersion(), students.size(), grades.size(), pinnedAt.format(STAMP_FORMATTER));
+    }
+
+    // Students
+
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    /**
+     * Student registered at this version, or null.
+     * Time Complexity: O(1), or O(s) once if students were added since the pin
+     */
+    public Student findStudent(String studentId) {
+        Student student = studentManager.findStudent(studentId);
+        if (student == null) return null;
+        if (studentManager.getStudentCount() == students.size()) return student;
+        return pinnedStudentIds().contains(studentId) ? student : null;
+    }
+
+    // Grades
+
+    /**
+     * Every grade committed at this version, in commit order (read values with valueOf).
+     */
+    public List<Grade> getGrades() {
+        return grades;
+    }
+
+    /**
+     * One student's grades committed at this version, in insertion order.
+     * Time Complexity: O(log k), no copying
+     */
+    public List<Grade> getGradesByStudent(String studentId) {
+        if (materialized) {
+            return pinnedGradesByStudent().getOrDefault(studentId, Collections.emptyList());
+        }
+        List<Grade> live = gradeManager.viewGradesByStudent(studentId);
+        // Commit versions increase along a student's list; keep the prefix committed by the pin
+        int low = 0;
+        int high = live.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (live.get(mid).getCommittedVersion() <= gradeVersion) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low == live.size() ? live : live.subList(0, low);
+    }
+
+    /**
+     * Value of a grade at this version (corrections made after the pin are ignored).
+     */
+    public double valueOf(Grade grade) {
+        return grade.valueAt(gradeVersion);
+    }
+
+    /**
+     * Visits every grade at this version with its value at this version.
+     */
+    public void forEachGrade(GradeValueConsumer action) {
+        for (Grade grade : grades) {
+            action.accept(grade, valueOf(grade));
+        }
+    }
+
+    public double calculateOverallAverage(String studentId) {
+        return average(getGradesByStudent(studentId), null);
+    }
+
+    public double calculateCoreAverage(String studentId) {
+        return average(getGradesByStudent(studentId), true);
+    }
+
+    public double calculateElectiveAverage(String studentId) {
+        return average(getGradesByStudent(studentId), false);
+    }
+
+    public double calculateClassAverage() {
+        return average(grades, null);
+    }
+
+    /**
+     * Count, mean, variance, min and max of every grade value at this version.
+     * Time Complexity: O(n)
+     */
+    public RunningGradeStats getClassStatistics() {
+        RunningGradeStats stats = new RunningGradeStats();
+        forEachGrade((grade, value) -> stats.add(value));
+        return stats;
+    }
+
+    public Map<String, Double> calculateAverageBySubject() {
+        Map<String, double[]> totals = new HashMap<>();
+        forEachGrade((grade, value) -> {
+            double[] t = totals.computeIfAbsent(grade.getSubject().getSubjectName(), k -> new double[2]);
+            t[0] += value;
+            t[1]++;
+        });
+        Map<String, Double> averages = new HashMap<>();
+        totals.forEach((subject, t) -> averages.put(subject, t[0] / t[1]));
+        return averages;
+    }
+
+    private double average(List<Grade> list, Boolean core) {
+        double sum = 0;
+        int count = 0;
+        for (Grade grade : list) {
+            if (core != null && (grade.getSubject() instanceof CoreSubject) != core) continue;
+            sum += valueOf(grade);
+            count++;
+        }
+        return count > 0 ? sum / count : 0.0;
+    }
+
+    private synchronized Set<String> pinnedStudentIds() {
+        if (studentIds == null) {
+            Set<String> ids = new HashSet<>(students.size() * 2);
+            students.forEach(s -> ids.add(s.getStudentId()));
+            studentIds = ids;
+        }
+        return studentIds;
+    }
+
+    private synchronized Map<String, List<Grade>> pinnedGradesByStudent() {
+        if (gradesByStudent == null) {
+            Map<String, List<Grade>> byStudent = new HashMap<>();
+            grades.forEach(g -> byStudent.computeIfAbsent(g.getStudentId(), k -> new ArrayList<>()).add(g));
+            byStudent.replaceAll((id, list) -> Collections.unmodifiableList(list));
+            gradesByStudent = byStudent;
+        }
+        return gradesByStudent;
+    }
+
+    @FunctionalInterface
+    public interface GradeValueConsumer {
+        void accept(Grade grade, double valueAtVersion);
+    }
+
+    @Override
+    public String toString() {
+        return stamp();
+    }
+}
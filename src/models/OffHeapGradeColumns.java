@@ -0,0 +1,112 @@
+package models;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Grade columns in direct (off-heap) memory.
+ *
+ * Rows live in fixed-size chunks of CHUNK_ROWS, each one direct ByteBuffer laid out column
+ * by column (timestamps, values, student ordinals, grade ids, subject ordinals), so a scan of
+ * one column stays sequential. Growing adds chunks and never copies, so there is no 1.5x
+ * peak while growing either. The heap keeps only the chunk table (one reference per 64K rows).
+ *
+ * Direct memory is capped by -XX:MaxDirectMemorySize (by default the maximum heap size) and
+ * is released when the store becomes unreachable and its buffers are collected.
+ *
+ * Direct ByteBuffers rather than MemorySegment/Arena: on Java 21, which the build targets, the
+ * FFM API (java.lang.foreign) is still a preview API (final from Java 22) and would need
+ * --enable-preview to compile and run.
+ * Memory per grade: 22 bytes off the heap.
+ */
+final class OffHeapGradeColumns implements GradeColumns {
+    static final int CHUNK_SHIFT = 16;
+    static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+    private static final int ROW_MASK = CHUNK_ROWS - 1;
+
+    // Column offsets within a chunk
+    private static final int TIMESTAMPS = 0;
+    private static final int VALUES = TIMESTAMPS + CHUNK_ROWS * Long.BYTES;
+    private static final int STUDENTS = VALUES + CHUNK_ROWS * Float.BYTES;
+    private static final int GRADE_IDS = STUDENTS + CHUNK_ROWS * Integer.BYTES;
+    private static final int SUBJECTS = GRADE_IDS + CHUNK_ROWS * Integer.BYTES;
+    private static final int CHUNK_BYTES = SUBJECTS + CHUNK_ROWS * Short.BYTES;
+
+    private ByteBuffer[] chunks = new ByteBuffer[4];
+    private int chunkCount;
+
+    OffHeapGradeColumns(int initialCapacity) {
+        ensureCapacity(initialCapacity);
+    }
+
+    @Override
+    public int capacity() {
+        return chunkCount << CHUNK_SHIFT;
+    }
+
+    @Override
+    public void ensureCapacity(int required) {
+        while (capacity() < required) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            chunks[chunkCount++] = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    private ByteBuffer chunk(int row) {
+        return chunks[row >>> CHUNK_SHIFT];
+    }
+
+    @Override
+    public void set(int row, int studentOrdinal, short subjectOrdinal, float value, long epochMillis, int gradeId) {
+        ByteBuffer chunk = chunk(row);
+        int slot = row & ROW_MASK;
+        chunk.putLong(TIMESTAMPS + slot * Long.BYTES, epochMillis);
+        chunk.putFloat(VALUES + slot * Float.BYTES, value);
+        chunk.putInt(STUDENTS + slot * Integer.BYTES, studentOrdinal);
+        chunk.putInt(GRADE_IDS + slot * Integer.BYTES, gradeId);
+        chunk.putShort(SUBJECTS + slot * Short.BYTES, subjectOrdinal);
+    }
+
+    @Override
+    public int studentOrdinal(int row) {
+        return chunk(row).getInt(STUDENTS + (row & ROW_MASK) * Integer.BYTES);
+    }
+
+    @Override
+    public short subjectOrdinal(int row) {
+        return chunk(row).getShort(SUBJECTS + (row & ROW_MASK) * Short.BYTES);
+    }
+
+    @Override
+    public float value(int row) {
+        return chunk(row).getFloat(VALUES + (row & ROW_MASK) * Float.BYTES);
+    }
+
+    @Override
+    public void setValue(int row, float value) {
+        chunk(row).putFloat(VALUES + (row & ROW_MASK) * Float.BYTES, value);
+    }
+
+    @Override
+    public long timestamp(int row) {
+        return chunk(row).getLong(TIMESTAMPS + (row & ROW_MASK) * Long.BYTES);
+    }
+
+    @Override
+    public int gradeId(int row) {
+        return chunk(row).getInt(GRADE_IDS + (row & ROW_MASK) * Integer.BYTES);
+    }
+
+    @Override
+    public long reservedBytes() {
+        return (long) chunkCount * CHUNK_BYTES;
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return true;
+    }
+}
@@ -7,6 +7,10 @@ public class RegularStudent extends Student {
         super(name, age, email, phone, enrollmentDate);
     }
 
+    public RegularStudent(String studentId, String name, int age, String email, String phone, String enrollmentDate) {
+        super(studentId, name, age, email, phone, enrollmentDate);
+    }
+
     @Override
     public void displayStudentDetails() {
         System.out.println("=".repeat(50));
@@ -0,0 +1,112 @@
+package models;
+
+import java.util.function.Supplier;
+import java.util.stream.DoubleStream;
+
+/**
+ * Running aggregate over a group of grades (one student, one subject, core/elective split...).
+ * Count, sum and sum of squares are maintained in O(1) per add/replace, so mean and
+ * variance are O(1) reads. Min/max are exact on add; when a correction moves the current
+ * extreme, they are rebuilt once from the group's values.
+ *
+ * Thread safety: all methods synchronize on the instance, so a reader sees count/sum/min/max
+ * from the same update.
+ */
+public class RunningGradeStats {
+    private long count;
+    private double sum;
+    private double sumOfSquares;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * Time Complexity: O(1)
+     */
+    public synchronized void add(double value) {
+        count++;
+        sum += value;
+        sumOfSquares += value * value;
+        if (count == 1) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+    }
+
+    /**
+     * Applies a grade correction.
+     * Time Complexity: O(1), or O(k) when the corrected value was the current min/max
+     *
+     * @param groupValues supplies the group's current values, only used to rebuild min/max
+     */
+    public synchronized void replace(double oldValue, double newValue, Supplier<DoubleStream> groupValues) {
+        if (count == 0) return;
+
+        sum += newValue - oldValue;
+        sumOfSquares += newValue * newValue - oldValue * oldValue;
+
+        if (oldValue == min || oldValue == max) {
+            min = groupValues.get().min().orElse(Double.NaN);
+            max = groupValues.get().max().orElse(Double.NaN);
+        } else {
+            min = Math.min(min, newValue);
+            max = Math.max(max, newValue);
+        }
+    }
+
+    /**
+     * Folds another aggregate into this one (used to combine per-stripe partials).
+     * Time Complexity: O(1)
+     */
+    public void merge(RunningGradeStats other) {
+        RunningGradeStats snapshot = other.copy();
+        synchronized (this) {
+            if (snapshot.count == 0) return;
+            min = count == 0 ? snapshot.min : Math.min(min, snapshot.min);
+            max = count == 0 ? snapshot.max : Math.max(max, snapshot.max);
+            count += snapshot.count;
+            sum += snapshot.sum;
+            sumOfSquares += snapshot.sumOfSquares;
+        }
+    }
+
+    public synchronized RunningGradeStats copy() {
+        RunningGradeStats copy = new RunningGradeStats();
+        copy.count = count;
+        copy.sum = sum;
+        copy.sumOfSquares = sumOfSquares;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+
+    public synchronized long getCount() { return count; }
+    public synchronized double getSum() { return sum; }
+    public synchronized double getMin() { return count > 0 ? min : 0.0; }
+    public synchronized double getMax() { return count > 0 ? max : 0.0; }
+
+    public synchronized double getMean() {
+        return count > 0 ? sum / count : 0.0;
+    }
+
+    /**
+     * Population variance (matches the averaged squared deviation used elsewhere).
+     */
+    public synchronized double getVariance() {
+        if (count == 0) return 0.0;
+        double mean = getMean();
+        return Math.max(0.0, sumOfSquares / count - mean * mean);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("count=%d mean=%.2f sd=%.2f min=%.1f max=%.1f",
+                count, getMean(), getStandardDeviation(), getMin(), getMax());
+    }
+}
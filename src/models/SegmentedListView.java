@@ -0,0 +1,122 @@
+package models;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Read-only list over several lists laid end to end (e.g. every student's grade snapshot),
+ * without copying their elements. Costs O(segments) to build; get(i) is O(log segments).
+ *
+ * Its spliterator splits on element count rather than on segment boundaries, so one large
+ * segment is still divided evenly across parallel workers.
+ */
+final class SegmentedListView<T> extends AbstractList<T> implements RandomAccess {
+    private final List<? extends T>[] segments;
+    private final int[] offsets; // offsets[i] = elements before segment i; offsets[n] = size
+
+    @SuppressWarnings("unchecked")
+    SegmentedListView(Collection<? extends List<? extends T>> lists) {
+        segments = (List<? extends T>[]) lists.toArray(new List<?>[0]);
+        offsets = new int[segments.length + 1];
+        for (int i = 0; i < segments.length; i++) {
+            offsets[i + 1] = offsets[i] + segments[i].size();
+        }
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size());
+        int segment = segmentOf(index);
+        return segments[segment].get(index - offsets[segment]);
+    }
+
+    @Override
+    public int size() {
+        return offsets[segments.length];
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        for (List<? extends T> segment : segments) {
+            segment.forEach(action);
+        }
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return new SegmentSpliterator(0, size());
+    }
+
+    // Segment holding a global index (last segment whose offset is <= index)
+    private int segmentOf(int index) {
+        int low = 0;
+        int high = segments.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private final class SegmentSpliterator implements Spliterator<T> {
+        private int index;
+        private final int end;
+        private int segment;
+
+        SegmentSpliterator(int from, int to) {
+            this.index = from;
+            this.end = to;
+            this.segment = from < to ? segmentOf(from) : 0;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (index >= end) return false;
+            while (index >= offsets[segment + 1]) {
+                segment++;
+            }
+            action.accept(segments[segment].get(index - offsets[segment]));
+            index++;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            while (index < end) {
+                while (index >= offsets[segment + 1]) {
+                    segment++;
+                }
+                List<? extends T> current = segments[segment];
+                int stop = Math.min(end, offsets[segment + 1]);
+                for (int i = index - offsets[segment], last = stop - offsets[segment]; i < last; i++) {
+                    action.accept(current.get(i));
+                }
+                index = stop;
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (index + end) >>> 1;
+            if (mid <= index) return null;
+            Spliterator<T> prefix = new SegmentSpliterator(index, mid);
+            index = mid;
+            segment = segmentOf(mid);
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return SIZED | SUBSIZED | ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
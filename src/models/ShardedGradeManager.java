@@ -0,0 +1,457 @@
+package models;
+
+import interfaces.GradeBookJournal;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Collector;
+
+/**
+ * GradeManager that hash-partitions students across several independent GradeManagers.
+ *
+ * Each partition has its own grade lists, secondary indexes, aggregates, lock stripes and
+ * caches, so writes for students in different partitions share nothing but the commit clock.
+ * Student-scoped calls are routed to the student's partition. Class-wide queries run as
+ * scatter-gather: every partition computes a partial result (RunningGradeStats, subject
+ * tables, rollups, Collector containers) in parallel and the partials are merged here.
+ *
+ * Thread safety / memory model:
+ * - Partitions follow the GradeManager rules; a student always lives in one partition, so
+ *   per-student ordering is unchanged.
+ * - All partitions commit on one shared CommitClock, so getDataVersion() and snapshot() see
+ *   a single version across partitions.
+ * - Merged reads are weakly consistent across partitions in the same way the per-stripe
+ *   aggregates of one GradeManager are: each partial is consistent, a grade committed while
+ *   the scatter runs may or may not be included.
+ *
+ * The inherited GradeManager state of this object is unused; every method that would touch it
+ * is overridden to go to the partitions.
+ */
+public class ShardedGradeManager extends GradeManager {
+    private static final int SCATTER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    // Shared by every sharded manager; the calling thread always takes part, so a scatter
+    // finishes even when the pool is busy
+    private static final AtomicInteger SCATTER_THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService SCATTER_POOL = Executors.newFixedThreadPool(SCATTER_THREADS, r -> {
+        Thread t = new Thread(r, "GradeShard-Scatter-" + SCATTER_THREAD_COUNT.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final GradeManager[] partitions;
+    private final CommitClock clock;
+    private final StudentManager studentManager;
+
+    public ShardedGradeManager(StudentManager studentManager, int partitionCount) {
+        this(studentManager, partitionCount, Storage.OBJECTS);
+    }
+
+    /**
+     * @param partitionCount number of partitions (at least 1); around the core count is a good start
+     * @param storage        storage mode of every partition
+     */
+    public ShardedGradeManager(StudentManager studentManager, int partitionCount, Storage storage) {
+        this(studentManager, partitionCount, storage, new CommitClock());
+    }
+
+    private ShardedGradeManager(StudentManager studentManager, int partitionCount, Storage storage, CommitClock clock) {
+        super(studentManager, Storage.OBJECTS, clock);
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("partitionCount must be at least 1: " + partitionCount);
+        }
+        this.clock = clock;
+        this.studentManager = studentManager;
+        this.partitions = new GradeManager[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new GradeManager(studentManager, storage, clock);
+        }
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Partition a student's grades live in. Uses the high bits of a multiplicative hash so it
+     * does not correlate with the partition's own lock stripe (low bits of the hash).
+     * Time Complexity: O(1)
+     */
+    public int partitionOf(String studentId) {
+        long mixed = (studentId.hashCode() & 0xffffffffL) * 0x9E3779B97F4A7C15L;
+        return (int) ((mixed >>> 32) % partitions.length);
+    }
+
+    private GradeManager partitionFor(String studentId) {
+        return partitions[partitionOf(studentId)];
+    }
+
+    // Writes
+
+    @Override
+    public void addGrade(Grade grade) {
+        partitionFor(grade.getStudentId()).addGrade(grade);
+    }
+
+    /**
+     * Groups the batch by partition and applies the groups in parallel.
+     * Time Complexity: O(k) for k grades, spread across partitions
+     */
+    @Override
+    public int addGrades(Collection<Grade> grades, boolean verbose) {
+        if (grades.isEmpty()) return 0;
+
+        List<List<Grade>> byPartition = new ArrayList<>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            byPartition.add(new ArrayList<>());
+        }
+        for (Grade grade : grades) {
+            byPartition.get(partitionOf(grade.getStudentId())).add(grade);
+        }
+        scatter(i -> partitions[i].addGrades(byPartition.get(i)));
+
+        if (verbose) {
+            System.out.printf("✓ %d grades added in bulk across %d partitions%n", grades.size(), partitions.length);
+            displayPartitionSizes();
+        }
+        return grades.size();
+    }
+
+    @Override
+    public void setJournal(GradeBookJournal journal) {
+        for (GradeManager partition : partitions) {
+            partition.setJournal(journal);
+        }
+    }
+
+    // Student-scoped reads: routed to one partition
+
+    @Override
+    public void viewGradesByStudent(String studentId, Student student) {
+        partitionFor(studentId).viewGradesByStudent(studentId, student);
+    }
+
+    @Override
+    public double calculateOverallAverage(String studentId) {
+        return partitionFor(studentId).calculateOverallAverage(studentId);
+    }
+
+    @Override
+    public double calculateGradePointAverage(String studentId) {
+        return partitionFor(studentId).calculateGradePointAverage(studentId);
+    }
+
+    @Override
+    public double calculateCoreAverage(String studentId) {
+        return partitionFor(studentId).calculateCoreAverage(studentId);
+    }
+
+    @Override
+    public double calculateElectiveAverage(String studentId) {
+        return partitionFor(studentId).calculateElectiveAverage(studentId);
+    }
+
+    @Override
+    public double calculateStandardDeviation(String studentId) {
+        return partitionFor(studentId).calculateStandardDeviation(studentId);
+    }
+
+    @Override
+    public RunningGradeStats getStudentStatistics(String studentId) {
+        return partitionFor(studentId).getStudentStatistics(studentId);
+    }
+
+    @Override
+    public List<Grade> getGradesByStudent(String studentId) {
+        if ("all".equals(studentId)) {
+            return new ArrayList<>(viewAllGrades());
+        }
+        return partitionFor(studentId).getGradesByStudent(studentId);
+    }
+
+    @Override
+    public List<Grade> viewGradesByStudent(String studentId) {
+        return partitionFor(studentId).viewGradesByStudent(studentId);
+    }
+
+    @Override
+    public void forEachGrade(String studentId, Consumer<? super Grade> action) {
+        partitionFor(studentId).forEachGrade(studentId, action);
+    }
+
+    @Override
+    public List<GradeTimeIndex.TimeRollup> getStudentTermRollups(String studentId) {
+        return partitionFor(studentId).getStudentTermRollups(studentId);
+    }
+
+    @Override
+    public int getGradeCountForStudent(String studentId) {
+        return partitionFor(studentId).getGradeCountForStudent(studentId);
+    }
+
+    // Class-wide reads: scatter-gather
+
+    /**
+     * Time Complexity: O(partitions * stripes)
+     */
+    @Override
+    public RunningGradeStats getClassStatistics() {
+        RunningGradeStats merged = new RunningGradeStats();
+        for (GradeManager partition : partitions) {
+            merged.merge(partition.getClassStatistics());
+        }
+        return merged;
+    }
+
+    @Override
+    public RunningGradeStats getSubjectStatistics(int subjectId) {
+        RunningGradeStats merged = new RunningGradeStats();
+        for (GradeManager partition : partitions) {
+            merged.merge(partition.getSubjectStatistics(subjectId));
+        }
+        return merged;
+    }
+
+    @Override
+    SubjectTable<RunningGradeStats> subjectStatistics() {
+        SubjectTable<RunningGradeStats> merged = new SubjectTable<>();
+        for (SubjectTable<RunningGradeStats> partial : scatter(i -> partitions[i].subjectStatistics())) {
+            partial.forEach((stats, subjectId) ->
+                    merged.computeIfAbsent(subjectId, k -> new RunningGradeStats()).merge(stats));
+        }
+        return merged;
+    }
+
+    /**
+     * Each partition accumulates its own grades into a container in parallel; the containers
+     * are then combined in partition order and finished once.
+     * Time Complexity: O(n / partitions) per partition + O(partitions) combines
+     */
+    @Override
+    public <A, R> R collectGrades(Collector<? super Grade, A, R> collector) {
+        List<A> partials = scatter(i -> partitions[i].accumulateGrades(collector));
+        BinaryOperator<A> combiner = collector.combiner();
+        A result = partials.get(0);
+        for (int i = 1; i < partials.size(); i++) {
+            result = combiner.apply(result, partials.get(i));
+        }
+        return finishCollect(collector, result);
+    }
+
+    /**
+     * Read-only view of every grade, partition by partition.
+     * Time Complexity: O(s) for s students, no per-grade copying (columnar mode materializes)
+     */
+    @Override
+    public List<Grade> viewAllGrades() {
+        return new SegmentedListView<>(scatter(i -> partitions[i].viewAllGrades()));
+    }
+
+    @Override
+    public Collection<Grade> viewGradesBySubject(String subjectName) {
+        return Collections.unmodifiableList(getGradesBySubject(subjectName));
+    }
+
+    @Override
+    public List<Grade> getGradesBySubject(String subjectName) {
+        List<Grade> grades = new ArrayList<>();
+        for (List<Grade> partial : scatter(i -> partitions[i].getGradesBySubject(subjectName))) {
+            grades.addAll(partial);
+        }
+        return grades;
+    }
+
+    @Override
+    public void forEachGrade(Consumer<? super Grade> action) {
+        for (GradeManager partition : partitions) {
+            partition.forEachGrade(action);
+        }
+    }
+
+    /**
+     * Grades recorded between two dd-MM-yyyy dates (inclusive), newest day first.
+     * Time Complexity: O(partitions * log d + k log k) for the merge
+     */
+    @Override
+    public List<Grade> getGradesByDateRange(String startDate, String endDate) {
+        List<Grade> grades = new ArrayList<>();
+        for (List<Grade> partial : scatter(i -> partitions[i].getGradesByDateRange(startDate, endDate))) {
+            grades.addAll(partial);
+        }
+        grades.sort(Comparator.comparing(Grade::getRecordedDay).reversed());
+        return grades;
+    }
+
+    @Override
+    public List<GradeTimeIndex.TimeRollup> getRollups(GradeTimeIndex.Granularity granularity,
+                                                      LocalDate from, LocalDate to) {
+        return mergeRollups(scatter(i -> partitions[i].getRollups(granularity, from, to)));
+    }
+
+    @Override
+    public List<GradeTimeIndex.TimeRollup> getRollups(GradeTimeIndex.Granularity granularity) {
+        return mergeRollups(scatter(i -> partitions[i].getRollups(granularity)));
+    }
+
+    @Override
+    public GradeTimeIndex.TimeRollup summarizeDateRange(LocalDate from, LocalDate to) {
+        GradeTimeIndex.TimeRollup.Builder total = null;
+        for (GradeTimeIndex.TimeRollup partial : scatter(i -> partitions[i].summarizeDateRange(from, to))) {
+            if (total == null) {
+                total = new GradeTimeIndex.TimeRollup.Builder(partial.getLabel(), partial.getStart());
+            }
+            total.add(partial);
+        }
+        return total.build();
+    }
+
+    // Buckets with the same start are summed; result oldest first like the partitions' lists
+    private static List<GradeTimeIndex.TimeRollup> mergeRollups(List<List<GradeTimeIndex.TimeRollup>> partials) {
+        TreeMap<LocalDate, GradeTimeIndex.TimeRollup.Builder> merged = new TreeMap<>();
+        for (List<GradeTimeIndex.TimeRollup> rollups : partials) {
+            for (GradeTimeIndex.TimeRollup rollup : rollups) {
+                merged.computeIfAbsent(rollup.getStart(),
+                        start -> new GradeTimeIndex.TimeRollup.Builder(rollup.getLabel(), start)).add(rollup);
+            }
+        }
+        List<GradeTimeIndex.TimeRollup> result = new ArrayList<>(merged.size());
+        for (GradeTimeIndex.TimeRollup.Builder builder : merged.values()) {
+            result.add(builder.build());
+        }
+        return result;
+    }
+
+    @Override
+    public int getTotalGradeCount() {
+        int total = 0;
+        for (GradeManager partition : partitions) {
+            total += partition.getTotalGradeCount();
+        }
+        return total;
+    }
+
+    @Override
+    public Set<String> getUniqueCourses() {
+        Set<String> courses = new HashSet<>();
+        for (GradeManager partition : partitions) {
+            courses.addAll(partition.getUniqueCourses());
+        }
+        return courses;
+    }
+
+    /**
+     * Pins one data version across every partition (they share the commit clock).
+     * Time Complexity: O(1) in object mode; O(partitions) in columnar mode, which materializes
+     * each partition on first read, outside the commit monitor
+     */
+    @Override
+    public ModelSnapshot snapshot() {
+        List<Student> students = studentManager.viewStudents();
+        long version;
+        List<Grade> grades;
+        synchronized (clock) {
+            version = clock.version;
+            if (isColumnar()) {
+                List<List<Grade>> pinned = new ArrayList<>(partitions.length);
+                for (GradeManager partition : partitions) {
+                    pinned.add(partition.pinColumnarRows(version));
+                }
+                grades = new SegmentedListView<>(pinned);
+            } else {
+                grades = clock.log.view();
+            }
+            clock.pin(version);
+        }
+        return new ModelSnapshot(this, studentManager, clock, students, grades, version, isColumnar());
+    }
+
+    @Override
+    public boolean isColumnar() {
+        return partitions[0].isColumnar();
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return partitions[0].isOffHeap();
+    }
+
+    @Override
+    public long getOffHeapBytes() {
+        long total = 0;
+        for (GradeManager partition : partitions) {
+            total += partition.getOffHeapBytes();
+        }
+        return total;
+    }
+
+    private void displayPartitionSizes() {
+        System.out.println("\n=== PARTITIONS ===");
+        System.out.println("Partition | Grades");
+        System.out.println("-------------------");
+        for (int i = 0; i < partitions.length; i++) {
+            System.out.printf("%9d | %6d%n", i, partitions[i].getTotalGradeCount());
+        }
+    }
+
+    /**
+     * Runs task(i) for every partition index and returns the results in partition order.
+     * Pool threads and the caller claim partitions from a shared counter, so the caller never
+     * waits on a partition nobody has started. The first failure is rethrown once all are done.
+     */
+    private <T> List<T> scatter(IntFunction<T> task) {
+        int n = partitions.length;
+        if (n == 1) {
+            return Collections.singletonList(task.apply(0));
+        }
+
+        Object[] results = new Object[n];
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(n);
+        Runnable worker = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < n) {
+                try {
+                    results[i] = task.apply(i);
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        for (int helper = Math.min(n - 1, SCATTER_THREADS); helper > 0; helper--) {
+            SCATTER_POOL.execute(worker);
+        }
+        worker.run();
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true; // partitions are mid-update; finish before returning
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+
+        @SuppressWarnings("unchecked")
+        List<T> list = (List<T>) Arrays.asList(results);
+        return list;
+    }
+}
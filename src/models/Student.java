@@ -4,8 +4,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
 public abstract class Student {
-    private static int idCounter = 0;
-
+    private long ordinal; // compact numeric form of studentId
     private String studentId;
     private String name;
     private int age;
@@ -16,7 +15,8 @@ public abstract class Student {
     private double gpa;
 
     public Student(String name, int age, String email, String phone, String enrollmentDate) {
-        this.studentId = generateStudentId();
+        this.ordinal = IdAllocator.STUDENTS.nextOrdinal();
+        this.studentId = IdAllocator.STUDENTS.format(ordinal);
         this.name = name;
         this.age = age;
         this.email = email;
@@ -26,9 +26,21 @@ public abstract class Student {
         this.gpa = 0.0;
     }
 
-    private String generateStudentId() {
-        idCounter++;
-        return String.format("STU%03d", idCounter);
+    /**
+     * Restores a previously registered student under its original ID
+     * (used when the grade book is rebuilt from persisted storage).
+     */
+    protected Student(String studentId, String name, int age, String email, String phone, String enrollmentDate) {
+        this.ordinal = IdAllocator.STUDENTS.parse(studentId);
+        this.studentId = studentId;
+        IdAllocator.STUDENTS.observe(ordinal); // never reissue a restored ID
+        this.name = name;
+        this.age = age;
+        this.email = email;
+        this.phone = phone;
+        this.enrollmentDate = LocalDate.parse(enrollmentDate);
+        this.averageGrade = 0.0;
+        this.gpa = 0.0;
     }
 
     // Abstract methods
@@ -37,6 +49,13 @@ public abstract class Student {
     public abstract double getPassingGrade();
     public abstract String getStatus();
 
+    /**
+     * Grading scale for this student's type (GradingScale.forStudentType)
+     */
+    public GradingScale getGradingScale() {
+        return GradingScale.forStudentType(getStudentType());
+    }
+
     // GPA methods
     public double getGpa() {
         return gpa;
@@ -51,6 +70,10 @@ public abstract class Student {
         return studentId;
     }
 
+    public long getOrdinal() {
+        return ordinal;
+    }
+
     public String getName() {
         return name;
     }
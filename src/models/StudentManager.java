@@ -1,41 +1,68 @@
 package models;
 
-import java.util.*;
+import interfaces.GradeBookJournal;
+import utils.MemoryEstimator;
 
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Student registry and GPA ranking.
+ *
+ * Thread safety / memory model:
+ * - Lookups (studentMap) and uniqueness checks (emails, course codes) use concurrent
+ *   collections; the duplicate check and insert are a single atomic add().
+ * - The GPA ranking is a GpaRankingIndex (order-statistic tree behind a read/write lock held
+ *   for O(log n)). A student's GPA update is serialized on the Student instance (GradeManager
+ *   already calls in under the student's lock stripe).
+ * - A student's GPA is the mean of the grade points of each grade on the student's scale,
+ *   the value GPACalculator.calculateGPA reports, so rank and reported GPA agree.
+ * - Insertion-order lists are AppendOnlyLists: appends serialize on the list, reads are
+ *   lock-free. viewStudents / forEachStudent hand out read-only snapshots without copying;
+ *   getStudents / getStudentsByType still return mutable copies.
+ * - With a journal attached, addStudent logs the student after it is registered and
+ *   returns once the record is durable.
+ * - Changes are published on the change feed (shared with the GradeManagers built on this
+ *   StudentManager): StudentAdded after registration, GpaChanged under the Student monitor.
+ */
 public class StudentManager {
     // Optimized collections from PDF requirements
-    private Map<String, Student> studentMap;                 // HashMap for O(1) lookup
-    private TreeMap<Double, List<Student>> gpaRankingMap;    // TreeMap for sorted GPA rankings (auto-sorted)
-    private Set<String> studentEmailSet;                     // HashSet for unique emails
-    private Set<String> courseCodeSet;                       // HashSet for unique course codes
-    private List<Student> studentList;                       // ArrayList for insertion order
-    private Map<String, List<Student>> studentsByType;       // HashMap for type grouping
+    private Map<String, Student> studentMap;                        // ConcurrentHashMap for O(1) lookup
+    private GpaRankingIndex gpaRanking;                             // Order-statistic tree for O(log n) rank/top-K
+    private Set<String> studentEmailSet;                            // Concurrent set for unique emails
+    private Set<String> courseCodeSet;                              // Concurrent set for unique course codes
+    private AppendOnlyList<Student> studentList;                    // Append-only array for insertion order
+    private Map<String, AppendOnlyList<Student>> studentsByType;    // ConcurrentHashMap for type grouping
 
     // Performance tracking
-    private long totalLookups = 0;
-    private long successfulLookups = 0;
+    private final LongAdder totalLookups = new LongAdder();
+    private final LongAdder successfulLookups = new LongAdder();
+
+    // Write-ahead journal; null when the grade book is not persisted
+    private volatile GradeBookJournal journal;
+
+    // Change events for caches and derived views (GradeManager publishes on the same feed)
+    private final ChangeFeed changeFeed = new ChangeFeed();
 
     public StudentManager() {
-        studentMap = new HashMap<>();
-        gpaRankingMap = new TreeMap<>(Collections.reverseOrder()); // Highest GPA first (auto-sorted)
-        studentEmailSet = new HashSet<>();
-        courseCodeSet = new HashSet<>();
-        studentList = new ArrayList<>();
-        studentsByType = new HashMap<>();
-        studentsByType.put("Regular", new ArrayList<>());
-        studentsByType.put("Honors", new ArrayList<>());
+        studentMap = new ConcurrentHashMap<>();
+        gpaRanking = new GpaRankingIndex(); // Highest GPA first
+        studentEmailSet = ConcurrentHashMap.newKeySet();
+        courseCodeSet = ConcurrentHashMap.newKeySet();
+        studentList = new AppendOnlyList<>();
+        studentsByType = new ConcurrentHashMap<>();
+        studentsByType.put("Regular", new AppendOnlyList<>());
+        studentsByType.put("Honors", new AppendOnlyList<>());
     }
 
     /**
-     * Calculates GPA from percentage grade
-     * GPA Scale: 90-100 = 4.0, 80-89 = 3.0, 70-79 = 2.0, 60-69 = 1.0, <60 = 0.0
+     * Calculates GPA from percentage grade on the standard scale (see GradingScale)
+     * Time Complexity: O(1)
      */
     public double calculateGPA(double percentage) {
-        if (percentage >= 90) return 4.0;
-        if (percentage >= 80) return 3.0;
-        if (percentage >= 70) return 2.0;
-        if (percentage >= 60) return 1.0;
-        return 0.0;
+        return GradingScale.STANDARD.points(percentage);
     }
 
     /**
@@ -44,30 +71,72 @@ public class StudentManager {
      * Overall: O(1)
      */
     public void addStudent(Student student) {
-        // Check for duplicate email using HashSet
-        if (studentEmailSet.contains(student.getEmail())) {
+        addStudent(student, true);
+    }
+
+    /**
+     * @param verbose print the confirmation block (restores and imports pass false)
+     * @return false if the email is already registered
+     */
+    public boolean addStudent(Student student, boolean verbose) {
+        // Check for duplicate email (atomic check-and-add)
+        if (!studentEmailSet.add(student.getEmail())) {
             System.out.println("✗ ERROR: Email '" + student.getEmail() + "' already exists!");
             System.out.println("  HashSet prevents duplicate emails");
-            return;
+            return false;
         }
 
         // Add to all collections
         studentMap.put(student.getStudentId(), student);
-        studentEmailSet.add(student.getEmail());
         studentList.add(student);
-        studentsByType.get(student.getStudentType()).add(student);
+        studentsByType.computeIfAbsent(student.getStudentType(), k -> new AppendOnlyList<>()).add(student);
 
         // Initialize GPA to 0.0, will be updated when grades are added
-        student.setGpa(0.0);
+        synchronized (student) {
+            student.setGpa(0.0);
+            gpaRanking.update(student, 0.0, 0.0);
+        }
+        if (changeFeed.isActive()) {
+            changeFeed.publish(new ChangeEvent.StudentAdded(student));
+        }
+
+        GradeBookJournal log = journal;
+        if (log != null) {
+            log.awaitDurable(log.studentAdded(student));
+        }
+
+        if (verbose) {
+            System.out.println("✓ Student added successfully!");
+            System.out.println("  Student ID: " + student.getStudentId());
+            System.out.println("  Type: " + student.getStudentType());
+            System.out.println("  Total students: " + studentMap.size());
+            System.out.println("  Unique emails: " + studentEmailSet.size() + " (HashSet prevents duplicates)");
+        }
+        return true;
+    }
+
+    /**
+     * Attaches the write-ahead journal (null detaches). Attach after restoring, so replayed
+     * students are not logged again.
+     */
+    public void setJournal(GradeBookJournal journal) {
+        this.journal = journal;
+    }
 
-        // Add to GPA TreeMap with initial GPA of 0.0 (auto-sorted)
-        gpaRankingMap.computeIfAbsent(0.0, k -> new ArrayList<>()).add(student);
+    /**
+     * Feed of student, grade and GPA changes. Subscribe to keep a cache or view up to date.
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
 
-        System.out.println("✓ Student added successfully!");
-        System.out.println("  Student ID: " + student.getStudentId());
-        System.out.println("  Type: " + student.getStudentType());
-        System.out.println("  Total students: " + studentMap.size());
-        System.out.println("  Unique emails: " + studentEmailSet.size() + " (HashSet prevents duplicates)");
+    /**
+     * Grading scale of a student's type; STANDARD for unknown IDs
+     * Time Complexity: O(1)
+     */
+    public GradingScale getGradingScale(String studentId) {
+        Student student = studentMap.get(studentId);
+        return student != null ? student.getGradingScale() : GradingScale.STANDARD;
     }
 
     /**
@@ -75,79 +144,117 @@ public class StudentManager {
      * Time Complexity: O(1) average case
      */
     public Student findStudent(String studentId) {
-        totalLookups++;
+        totalLookups.increment();
         Student student = studentMap.get(studentId);
-        if (student != null) successfulLookups++;
+        if (student != null) successfulLookups.increment();
         return student;
     }
 
     /**
-     * Updates GPA ranking in TreeMap (auto-sorted)
+     * Updates the student's GPA and position in the ranking index
+     * Time Complexity: O(log n)
      */
     public void updateStudentGPA(String studentId, double percentage, GradeManager gradeManager) {
+        updateStudentGPA(studentId, percentage, gradeManager, true);
+    }
+
+    /**
+     * @param verbose false suppresses the honors eligibility console line (bulk imports)
+     */
+    public void updateStudentGPA(String studentId, double percentage, GradeManager gradeManager, boolean verbose) {
         Student student = studentMap.get(studentId);
-        if (student != null) {
+        if (student == null) return;
+
+        synchronized (student) {
+            double previousGpa = student.getGpa();
+            double previousAvg = student.getAverageGrade();
+
             // Calculate overall average
             double overallAvg = gradeManager.calculateOverallAverage(studentId);
 
-            // Calculate GPA
-            double gpa = calculateGPA(overallAvg);
+            // Calculate GPA: mean grade points per grade, as GPACalculator.calculateGPA reports it
+            double gpa = gradeManager.calculateGradePointAverage(studentId);
             student.setGpa(gpa);
 
-            // Remove from old GPA position in TreeMap
-            gpaRankingMap.values().forEach(list -> list.remove(student));
-
-            // Add to new GPA position (TreeMap auto-sorts)
-            gpaRankingMap.computeIfAbsent(gpa, k -> new ArrayList<>()).add(student);
-
             // Update average grade
             student.setAverageGrade(overallAvg);
 
+            // Reposition in the ranking index
+            gpaRanking.update(student, gpa, overallAvg);
+
+            if (changeFeed.isActive() && (gpa != previousGpa || overallAvg != previousAvg)) {
+                changeFeed.publish(new ChangeEvent.GpaChanged(studentId, previousGpa, gpa, previousAvg, overallAvg));
+            }
+
             // Update honors eligibility for Honors students
             if (student instanceof HonorsStudent) {
                 HonorsStudent honorsStudent = (HonorsStudent) student;
                 honorsStudent.setHonorsEligible(overallAvg >= 85.0);
-                System.out.println("✓ Honors eligibility updated for " + studentId +
-                        ": " + (overallAvg >= 85.0 ? "ELIGIBLE (≥85%)" : "NOT ELIGIBLE (<85%)"));
+                if (verbose) {
+                    System.out.println("✓ Honors eligibility updated for " + studentId +
+                            ": " + (overallAvg >= 85.0 ? "ELIGIBLE (≥85%)" : "NOT ELIGIBLE (<85%)"));
+                }
             }
         }
     }
 
     /**
-     * Gets top N performers based on GPA from TreeMap
+     * Gets top N performers (GPA, then average) from the ranking index
+     * Time Complexity: O(log n + N)
      */
     public List<Student> getTopPerformers(int count) {
-        List<Student> topPerformers = new ArrayList<>();
-        int collected = 0;
-
-        // TreeMap is already sorted in reverse order (highest GPA first)
-        for (Map.Entry<Double, List<Student>> entry : gpaRankingMap.entrySet()) {
-            for (Student student : entry.getValue()) {
-                if (collected < count) {
-                    topPerformers.add(student);
-                    collected++;
-                } else {
-                    break;
-                }
-            }
-            if (collected >= count) break;
-        }
-        return topPerformers;
+        return gpaRanking.topK(count);
+    }
+
+    /**
+     * Competition rank of a student (1 = best; ties share a rank)
+     * Time Complexity: O(log n)
+     */
+    public int getClassRank(String studentId) {
+        return gpaRanking.rankOf(studentId);
+    }
+
+    /**
+     * Percentage of the class ranked at or below this student
+     * Time Complexity: O(log n)
+     */
+    public double getPercentile(String studentId) {
+        return gpaRanking.percentileOf(studentId);
+    }
+
+    /**
+     * Students with GPA in [minGpa, maxGpa], best first
+     * Time Complexity: O(log n + k)
+     */
+    public List<Student> getStudentsByGpaRange(double minGpa, double maxGpa) {
+        return gpaRanking.rangeByGpa(minGpa, maxGpa);
     }
 
     /**
      * Adds a course code to HashSet (prevents duplicates)
      */
     public boolean addCourseCode(String courseCode) {
-        if (courseCodeSet.contains(courseCode)) {
+        if (!courseCodeSet.add(courseCode)) {
             System.out.println("⚠️ Course code '" + courseCode + "' already exists (HashSet prevents duplicates)");
             return false;
         }
-        courseCodeSet.add(courseCode);
         System.out.println("✓ Course code '" + courseCode + "' added to HashSet");
         return true;
     }
 
+    /**
+     * Adds many course codes without console output
+     * Time Complexity: O(k)
+     * @return number of codes that were new
+     */
+    public int addCourseCodes(Collection<String> courseCodes) {
+        int added = 0;
+        for (String courseCode : courseCodes) {
+            if (courseCodeSet.add(courseCode)) added++;
+        }
+        return added;
+    }
+
     /**
      * Gets unique course codes from HashSet
      */
@@ -161,7 +268,7 @@ public class StudentManager {
         System.out.println("=".repeat(100));
         System.out.println("Data Structures:");
         System.out.println("  • HashMap<String, Student> - O(1) lookup");
-        System.out.println("  • TreeMap<Double, Student> - Auto-sorted GPA rankings");
+        System.out.println("  • GpaRankingIndex - O(log n) GPA rank/top-K");
         System.out.println("  • HashSet<String> - Unique course codes");
         System.out.println("  • HashSet<String> - Unique student emails");
         System.out.println("=".repeat(100) + "\n");
@@ -175,11 +282,8 @@ public class StudentManager {
         System.out.println("STU ID | NAME           | TYPE    | GPA  | AVG % | HONORS ELIGIBLE | STATUS    | EMAIL");
         System.out.println("----------------------------------------------------------------------------------------");
 
-        // Get students sorted by GPA (highest first) using TreeMap
-        List<Student> sortedByGPA = new ArrayList<>();
-        for (List<Student> studentList : gpaRankingMap.values()) {
-            sortedByGPA.addAll(studentList);
-        }
+        // Get students sorted by GPA (highest first) from the ranking index
+        List<Student> sortedByGPA = gpaRanking.topK(Integer.MAX_VALUE);
 
         for (Student student : sortedByGPA) {
             double avgGrade = gradeManager.calculateOverallAverage(student.getStudentId());
@@ -228,7 +332,7 @@ public class StudentManager {
 
     private void displayGPADistribution() {
         System.out.println("\n" + "=".repeat(60));
-        System.out.println("GPA DISTRIBUTION (TreeMap auto-sorted)");
+        System.out.println("GPA DISTRIBUTION (ranking index)");
         System.out.println("=".repeat(60));
 
         Map<String, Integer> gpaRanges = new TreeMap<>();
@@ -238,7 +342,8 @@ public class StudentManager {
         gpaRanges.put("1.0-1.9 (D)", 0);
         gpaRanges.put("0.0 (F)", 0);
 
-        for (Student student : studentList) {
+        List<Student> students = getStudents();
+        for (Student student : students) {
             double gpa = student.getGpa();
             if (gpa == 4.0) gpaRanges.put("4.0 (A)", gpaRanges.get("4.0 (A)") + 1);
             else if (gpa >= 3.0) gpaRanges.put("3.0-3.9 (B)", gpaRanges.get("3.0-3.9 (B)") + 1);
@@ -248,8 +353,8 @@ public class StudentManager {
         }
 
         gpaRanges.forEach((range, count) -> {
-            if (studentList.size() > 0) {
-                double percentage = (count * 100.0) / studentList.size();
+            if (students.size() > 0) {
+                double percentage = (count * 100.0) / students.size();
                 System.out.printf("%-15s: %2d students (%.1f%%)%n", range, count, percentage);
             }
         });
@@ -277,7 +382,7 @@ public class StudentManager {
         long hashMapTime = System.nanoTime() - startTime;
 
         startTime = System.nanoTime();
-        studentList.stream().filter(s -> s.getStudentId().equals("STU001")).findFirst();
+        viewStudents().stream().filter(s -> s.getStudentId().equals("STU001")).findFirst();
         long listTime = System.nanoTime() - startTime;
 
         System.out.printf("HashMap<String,Student> | %4d | %6.2f ms (O(1))%n",
@@ -289,16 +394,19 @@ public class StudentManager {
         System.out.printf("HashSet<CourseCode>     | %4d | O(1) duplicate prevention%n",
                 courseCodeSet.size());
 
+        System.out.printf("Estimated memory        | %.1f KB for %d students%n",
+                calculateMemoryUsage(), studentMap.size());
+
         System.out.printf("\nLookup Statistics: %d/%d successful (%.1f%% hit rate)%n",
-                successfulLookups, totalLookups,
-                totalLookups > 0 ? (successfulLookups * 100.0 / totalLookups) : 0);
+                successfulLookups.sum(), totalLookups.sum(),
+                totalLookups.sum() > 0 ? (successfulLookups.sum() * 100.0 / totalLookups.sum()) : 0);
     }
 
     public double getAverageClassGrade(GradeManager gradeManager) {
         double total = 0;
         int count = 0;
 
-        for (Student student : studentList) {
+        for (Student student : getStudents()) {
             double avg = gradeManager.calculateOverallAverage(student.getStudentId());
             if (avg > 0) {
                 total += avg;
@@ -314,18 +422,38 @@ public class StudentManager {
     }
 
     public List<Student> getStudents() {
-        return new ArrayList<>(studentList);
+        return new ArrayList<>(studentList.view());
     }
 
     public List<Student> getStudentsByType(String type) {
-        return new ArrayList<>(studentsByType.getOrDefault(type, new ArrayList<>()));
+        return new ArrayList<>(viewStudentsByType(type));
+    }
+
+    /**
+     * Read-only snapshot of all students in insertion order.
+     * Time Complexity: O(1), no copying
+     */
+    public List<Student> viewStudents() {
+        return studentList.view();
+    }
+
+    public List<Student> viewStudentsByType(String type) {
+        AppendOnlyList<Student> students = studentsByType.get(type);
+        return students == null ? Collections.emptyList() : students.view();
+    }
+
+    /**
+     * Visits every student in insertion order without building a list.
+     */
+    public void forEachStudent(Consumer<? super Student> action) {
+        studentList.forEach(action);
     }
 
     public Map<String, Integer> getStudentTypeDistribution() {
         Map<String, Integer> distribution = new HashMap<>();
-        for (Student student : studentList) {
-            distribution.merge(student.getStudentType(), 1, Integer::sum);
-        }
+        studentsByType.forEach((type, students) -> {
+            if (!students.isEmpty()) distribution.put(type, students.size());
+        });
         return distribution;
     }
 
@@ -338,8 +466,16 @@ public class StudentManager {
         return email.substring(0, maxLength - 3) + "...";
     }
 
+    // Students with their strings and dates, plus a map entry, a list slot and an email-set
+    // entry each (the keys are the students' own strings). Time Complexity: O(n)
     private double calculateMemoryUsage() {
-        // Simplified memory estimation
-        return (studentMap.size() * 100 + studentList.size() * 80) / 1024.0;
+        long bytes = 0;
+        for (Student student : studentList.view()) {
+            bytes += MemoryEstimator.sizeOf(student);
+        }
+        bytes += studentMap.size() * MemoryEstimator.hashEntryOverhead()
+                + studentList.size() * (long) MemoryEstimator.REFERENCE_SIZE
+                + studentEmailSet.size() * MemoryEstimator.hashEntryOverhead();
+        return bytes / 1024.0;
     }
 }
\ No newline at end of file
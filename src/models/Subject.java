@@ -3,6 +3,7 @@ package models;
 public abstract class Subject {
     private String subjectName;
     private String subjectCode;
+    private int subjectId = -1; // dense id assigned by SubjectRegistry; -1 until interned
 
     public Subject(String subjectName, String subjectCode, String core) {
         this.subjectName = subjectName;
@@ -15,4 +16,7 @@ public abstract class Subject {
 
     public String getSubjectName() { return subjectName; }
     public String getSubjectCode() { return subjectCode; }
+    public int getSubjectId() { return subjectId; }
+
+    void assignSubjectId(int subjectId) { this.subjectId = subjectId; }
 }
\ No newline at end of file
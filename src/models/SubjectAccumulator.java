@@ -0,0 +1,82 @@
+package models;
+
+import java.util.*;
+import java.util.stream.Collector;
+
+/**
+ * Per-subject count/sum accumulated into arrays indexed by subject id (no string hashing per
+ * grade). Results are folded to subject names only once, at the end.
+ *
+ * Not thread-safe; parallel streams get one accumulator per thread via collector().
+ */
+public class SubjectAccumulator {
+    private long[] counts;
+    private double[] sums;
+
+    public SubjectAccumulator() {
+        int capacity = Math.max(16, SubjectRegistry.getInstance().size());
+        counts = new long[capacity];
+        sums = new double[capacity];
+    }
+
+    /**
+     * Time Complexity: O(1)
+     */
+    public void add(Grade grade) {
+        int id = grade.getSubject().getSubjectId();
+        if (id >= counts.length) {
+            int capacity = Math.max(id + 1, counts.length * 2);
+            counts = Arrays.copyOf(counts, capacity);
+            sums = Arrays.copyOf(sums, capacity);
+        }
+        counts[id]++;
+        sums[id] += grade.getGrade();
+    }
+
+    public SubjectAccumulator combine(SubjectAccumulator other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+            sums = Arrays.copyOf(sums, other.counts.length);
+        }
+        for (int id = 0; id < other.counts.length; id++) {
+            counts[id] += other.counts[id];
+            sums[id] += other.sums[id];
+        }
+        return this;
+    }
+
+    public long getCount(int subjectId) {
+        return subjectId < counts.length ? counts[subjectId] : 0;
+    }
+
+    public double getAverage(int subjectId) {
+        long count = getCount(subjectId);
+        return count > 0 ? sums[subjectId] / count : 0.0;
+    }
+
+    /**
+     * Average per subject name (ids sharing a name are combined).
+     * Time Complexity: O(s) where s = registered subjects
+     */
+    public Map<String, Double> averageByName() {
+        SubjectRegistry registry = SubjectRegistry.getInstance();
+        Map<String, double[]> byName = new HashMap<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] == 0) continue;
+            double[] totals = byName.computeIfAbsent(registry.get(id).getSubjectName(), k -> new double[2]);
+            totals[0] += sums[id];
+            totals[1] += counts[id];
+        }
+        Map<String, Double> averages = new HashMap<>();
+        byName.forEach((name, totals) -> averages.put(name, totals[0] / totals[1]));
+        return averages;
+    }
+
+    /**
+     * Collector for grade streams (sequential or parallel) producing average per subject name.
+     */
+    public static Collector<Grade, SubjectAccumulator, Map<String, Double>> averagingByName() {
+        return Collector.of(SubjectAccumulator::new, SubjectAccumulator::add,
+                SubjectAccumulator::combine, SubjectAccumulator::averageByName);
+    }
+}
@@ -0,0 +1,116 @@
+package models;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical subject catalog (flyweight).
+ *
+ * Each distinct (type, code, name) is interned once and given a dense int id (0, 1, 2, ...),
+ * so every Grade for "Mathematics/MAT101" shares one Subject instance and per-subject
+ * aggregation can index arrays by id instead of hashing names.
+ *
+ * Thread safety: lookups are lock-free (ConcurrentHashMap + volatile id table); registering a
+ * new subject synchronizes on the registry.
+ */
+public class SubjectRegistry {
+    private static final SubjectRegistry INSTANCE = new SubjectRegistry();
+
+    private final Map<String, Subject> subjectsByKey = new ConcurrentHashMap<>();
+    private final Map<String, int[]> idsByName = new ConcurrentHashMap<>();
+    private volatile Subject[] subjectsById = new Subject[16];
+    private volatile int size = 0;
+
+    private SubjectRegistry() {
+    }
+
+    public static SubjectRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public Subject core(String subjectName, String subjectCode) {
+        Subject subject = subjectsByKey.get(keyOf("Core", subjectName, subjectCode));
+        return subject != null ? subject : intern(new CoreSubject(subjectName, subjectCode));
+    }
+
+    public Subject elective(String subjectName, String subjectCode) {
+        Subject subject = subjectsByKey.get(keyOf("Elective", subjectName, subjectCode));
+        return subject != null ? subject : intern(new ElectiveSubject(subjectName, subjectCode));
+    }
+
+    /**
+     * @param subjectType "Core" or "Elective" (case-insensitive)
+     */
+    public Subject of(String subjectType, String subjectName, String subjectCode) {
+        return "Core".equalsIgnoreCase(subjectType)
+                ? core(subjectName, subjectCode)
+                : elective(subjectName, subjectCode);
+    }
+
+    /**
+     * Returns the canonical instance for the subject's (type, code, name), registering it
+     * (and assigning its id) on first sight.
+     * Time Complexity: O(1)
+     */
+    public Subject intern(Subject subject) {
+        if (subject.getSubjectId() >= 0 && get(subject.getSubjectId()) == subject) {
+            return subject; // already canonical
+        }
+        String key = keyOf(subject.getSubjectType(), subject.getSubjectName(), subject.getSubjectCode());
+        Subject canonical = subjectsByKey.get(key);
+        if (canonical != null) return canonical;
+
+        synchronized (this) {
+            canonical = subjectsByKey.get(key);
+            if (canonical != null) return canonical;
+
+            int id = size;
+            Subject[] table = subjectsById;
+            if (id == table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+            subject.assignSubjectId(id);
+            table[id] = subject;
+            subjectsById = table;
+            size = id + 1;
+
+            int[] ids = idsByName.get(subject.getSubjectName());
+            int[] grown = ids == null ? new int[1] : Arrays.copyOf(ids, ids.length + 1);
+            grown[grown.length - 1] = id;
+            idsByName.put(subject.getSubjectName(), grown);
+
+            subjectsByKey.put(key, subject);
+            return subject;
+        }
+    }
+
+    /**
+     * Time Complexity: O(1)
+     */
+    public Subject get(int subjectId) {
+        // size before the table: intern publishes the (possibly grown) table before the size,
+        // so a table read after a size that covers the id is large enough to hold it
+        int registered = size;
+        Subject[] table = subjectsById;
+        return subjectId >= 0 && subjectId < registered ? table[subjectId] : null;
+    }
+
+    /**
+     * Ids registered under a subject name (one per distinct code/type; usually a single id).
+     */
+    public int[] idsForName(String subjectName) {
+        int[] ids = idsByName.get(subjectName);
+        return ids == null ? new int[0] : ids.clone();
+    }
+
+    /**
+     * Number of registered subjects; ids are 0 .. size()-1.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static String keyOf(String subjectType, String subjectName, String subjectCode) {
+        return subjectType + '|' + subjectCode + '|' + subjectName;
+    }
+}
@@ -0,0 +1,67 @@
+package models;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Growable array indexed by SubjectRegistry id (replaces Map&lt;String subjectName, T&gt;).
+ *
+ * Thread safety: reads are lock-free against a volatile array; creating a slot or growing the
+ * array synchronizes on the table. Values themselves must be thread-safe if shared.
+ */
+public class SubjectTable<T> {
+    private volatile Object[] slots = new Object[16];
+
+    /**
+     * Time Complexity: O(1)
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int subjectId) {
+        Object[] current = slots;
+        return subjectId >= 0 && subjectId < current.length ? (T) current[subjectId] : null;
+    }
+
+    /**
+     * Time Complexity: O(1) once the slot exists
+     */
+    public T computeIfAbsent(int subjectId, IntFunction<T> factory) {
+        T value = get(subjectId);
+        if (value != null) return value;
+
+        synchronized (this) {
+            value = get(subjectId);
+            if (value != null) return value;
+
+            Object[] current = slots;
+            Object[] next = subjectId < current.length
+                    ? current.clone()
+                    : Arrays.copyOf(current, Math.max(subjectId + 1, current.length * 2));
+            value = factory.apply(subjectId);
+            next[subjectId] = value;
+            slots = next;
+            return value;
+        }
+    }
+
+    /**
+     * Visits non-empty slots in id order.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<T> action) {
+        Object[] current = slots;
+        for (int id = 0; id < current.length; id++) {
+            if (current[id] != null) {
+                action.accept((T) current[id], id);
+            }
+        }
+    }
+
+    public int countNonEmpty() {
+        int count = 0;
+        for (Object slot : slots) {
+            if (slot != null) count++;
+        }
+        return count;
+    }
+}
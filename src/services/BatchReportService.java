@@ -37,6 +37,8 @@ public class BatchReportService {
         createReportDirectories();
 
         String batchId = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
+        // Every report in the batch is produced from the same data version
+        ModelSnapshot snapshot = reportGenerator.snapshot();
         String outputDir = "./reports/batch_" + batchId + "/";
 
         long startTime = System.currentTimeMillis();
@@ -51,6 +53,7 @@ public class BatchReportService {
         System.out.println("Threads:           " + threadCount);
         System.out.println("Total Tasks:       " + (students.size() * reportTypes.size()));
         System.out.println("Start Time:        " + LocalDateTime.now().format(DISPLAY_FORMATTER));
+        System.out.println("Data Version:      v" + snapshot.getVersion());
         System.out.println("=".repeat(80));
 
         System.out.println("\n📊 Initializing thread pool...");
@@ -87,7 +90,7 @@ public class BatchReportService {
 
         for (Student student : students) {
             for (String reportType : reportTypes) {
-                ReportTask task = new ReportTask(student, reportType, batchId,
+                ReportTask task = new ReportTask(student, reportType, batchId, snapshot,
                         completedTasks, successfulTasks, failedTasks,
                         totalProcessingTime);
                 tasks.add(task);
@@ -162,6 +165,7 @@ public class BatchReportService {
             executor.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        snapshot.close(); // every report task has finished or been cancelled
 
         // Stop monitor thread
         if (monitorThread.isAlive()) {
@@ -491,6 +495,7 @@ public class BatchReportService {
         private Student student;
         private String reportType;
         private String batchId;
+        private ModelSnapshot snapshot;
         private AtomicInteger completedTasks;
         private AtomicInteger successfulTasks;
         private AtomicInteger failedTasks;
@@ -502,12 +507,13 @@ public class BatchReportService {
         public long startTime;
         public long processingTime = 0;
 
-        public ReportTask(Student student, String reportType, String batchId,
+        public ReportTask(Student student, String reportType, String batchId, ModelSnapshot snapshot,
                           AtomicInteger completedTasks, AtomicInteger successfulTasks,
                           AtomicInteger failedTasks, AtomicLong totalProcessingTime) {
             this.student = student;
             this.reportType = reportType;
             this.batchId = batchId;
+            this.snapshot = snapshot;
             this.completedTasks = completedTasks;
             this.successfulTasks = successfulTasks;
             this.failedTasks = failedTasks;
@@ -560,9 +566,11 @@ public class BatchReportService {
 
                         // Write text content
                         String textContent = String.format(
-                                "Batch Report: %s\nStudent: %s\nStudent ID: %s\nReport Type: %s\nGenerated: %s\n",
+                                "Batch Report: %s\nStudent: %s\nStudent ID: %s\nReport Type: %s\nGenerated: %s\n"
+                                        + "Overall Average: %.1f%%\n%s\n",
                                 batchId, student.getName(), student.getStudentId(),
-                                reportType, LocalDateTime.now()
+                                reportType, LocalDateTime.now(),
+                                snapshot.calculateOverallAverage(studentId), snapshot.stamp()
                         );
 
                         Files.write(textPath, textContent.getBytes(),
@@ -580,9 +588,10 @@ public class BatchReportService {
 
                         // Write CSV content
                         String csvContent = String.format(
-                                "BatchID,StudentID,StudentName,ReportType,Generated\n%s,%s,%s,%s,%s",
+                                "BatchID,StudentID,StudentName,ReportType,Generated,OverallAverage,DataVersion\n%s,%s,%s,%s,%s,%.2f,%d",
                                 batchId, student.getStudentId(), student.getName(),
-                                reportType, LocalDateTime.now()
+                                reportType, LocalDateTime.now(),
+                                snapshot.calculateOverallAverage(studentId), snapshot.getVersion()
                         );
 
                         Files.write(csvPath, csvContent.getBytes(),
@@ -647,6 +656,8 @@ public class BatchReportService {
                     contentStream.showText("  Generated: " + LocalDateTime.now());
                     contentStream.newLineAtOffset(0, -18);
                     contentStream.showText("  Batch ID: " + batchId);
+                    contentStream.newLineAtOffset(0, -18);
+                    contentStream.showText("  Data Version: v" + snapshot.getVersion());
 
                     contentStream.newLineAtOffset(0, -30);
                     contentStream.showText("--- End of Report ---");
@@ -0,0 +1,1125 @@
+package services;
+
+import utils.MemoryEstimator;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Concurrent cache bounded by total weight (entry count with the default weigher), with a
+ * choice of eviction policy:
+ * - LRU: one access-ordered queue.
+ * - SLRU: segmented LRU. New entries go to a probation segment and move to a protected
+ *   segment (80% of the budget) on their second access, so one pass over cold keys cannot
+ *   flush the entries that are used repeatedly.
+ * - W_TINYLFU (default): a small LRU window (1% of the budget) in front of an SLRU main space.
+ *   An entry leaving the window only gets into the main space if a count-min frequency sketch
+ *   says it is used more often than the main space's eviction victim. Scans and one-off keys
+ *   stay in the window and pass through without displacing the hot set.
+ *
+ * Thread safety / memory model:
+ * - Entries live in a ConcurrentHashMap. get() is lock-free: it looks the entry up and records
+ *   the access in a small lossy ring buffer. Under heavy contention some accesses are dropped,
+ *   which only makes the recency/frequency bookkeeping approximate.
+ * - Queue order, weights and the sketch are guarded by one eviction lock. Writers take it and
+ *   replay the buffered reads first. A reader that finds the buffer half full drains it if
+ *   the lock is free (tryLock), so readers never wait for it.
+ * - Values are published through a volatile field: a get() that returns a value sees
+ *   everything written before the put() that stored it.
+ *
+ * Loading (get with a loader, getAsync, getAll):
+ * - At most one computation per key is in flight. Callers that miss while it runs wait for
+ *   the same CompletableFuture instead of recomputing (no cache stampede).
+ * - A remove(), put() or clear() of the key while it loads wins: waiters still receive the
+ *   loaded value, but it is not stored over the newer state.
+ * - A loader returning null caches nothing; a loader exception reaches every waiter and
+ *   nothing is cached, so the next call retries.
+ *
+ * Refresh-ahead (setRefreshPolicy, per key):
+ * - A loading read (get with a loader, getAsync, getAll) of an entry older than
+ *   refreshAfter returns the cached value and reloads it in the background on the refresh
+ *   executor, so a hot entry is replaced before its TTL instead of vanishing at it.
+ * - Past expireAfterWrite the entry is stale: plain get()/peek() treat it as absent, but
+ *   loading reads keep serving it (and refreshing) for up to maxStale more. After that it is
+ *   expired and the next loading read blocks on a fresh load.
+ * - A failed refresh keeps the current value; the next loading read tries again.
+ *
+ * Expiry: each entry is scheduled on a hierarchical timer wheel at its hard expiry time
+ * (write + expireAfterWrite + maxStale). cleanUp() and readers' buffer drains advance the
+ * wheel and remove only the entries whose bucket has come due, so reclaiming costs O(1)
+ * amortized per entry and never scans the map. Writes do not advance the wheel: a put never
+ * pays for other entries' expiry. Reads still check each entry's age exactly, so an entry
+ * is never served past its TTL while it waits for its bucket.
+ */
+public class BoundedCache<K, V> {
+    public enum Policy { LRU, SLRU, W_TINYLFU }
+
+    public enum RemovalCause { EXPLICIT, REPLACED, SIZE, EXPIRED }
+
+    /**
+     * When loading reads refresh an entry, and how long past its TTL they may still serve it.
+     */
+    public static final class RefreshPolicy {
+        public static final RefreshPolicy NONE = new RefreshPolicy(0, 0);
+
+        private final long refreshAfterNanos;
+        private final long maxStaleNanos;
+
+        /**
+         * @param refreshAfterMillis age at which a loading read triggers a background reload (0 = never)
+         * @param maxStaleMillis     how long past expireAfterWrite loading reads may serve the old value
+         */
+        public RefreshPolicy(long refreshAfterMillis, long maxStaleMillis) {
+            if (refreshAfterMillis < 0 || maxStaleMillis < 0) {
+                throw new IllegalArgumentException("refreshAfter and maxStale must not be negative");
+            }
+            this.refreshAfterNanos = refreshAfterMillis * 1_000_000L;
+            this.maxStaleNanos = maxStaleMillis * 1_000_000L;
+        }
+
+        public long getRefreshAfterMillis() {
+            return refreshAfterNanos / 1_000_000L;
+        }
+
+        public long getMaxStaleMillis() {
+            return maxStaleNanos / 1_000_000L;
+        }
+
+        @Override
+        public String toString() {
+            return refreshAfterNanos == 0 ? "none"
+                    : "refresh after " + getRefreshAfterMillis() + " ms, stale up to " + getMaxStaleMillis() + " ms";
+        }
+    }
+
+    /**
+     * Weight of an entry against the cache's maximum (must be >= 0).
+     */
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    /**
+     * Told about every entry that leaves the cache. Runs under the eviction lock: keep it quick.
+     */
+    @FunctionalInterface
+    public interface RemovalListener<K, V> {
+        void onRemoval(K key, V value, RemovalCause cause);
+    }
+
+    /**
+     * Receives an entry with its estimated access frequency (forEachWithFrequency).
+     */
+    @FunctionalInterface
+    interface FrequencyVisitor<K, V> {
+        void accept(K key, V value, int frequency);
+    }
+
+    private static final int READ_BUFFER_SIZE = 128; // power of two
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final double WINDOW_FRACTION = 0.01;
+    private static final double PROTECTED_FRACTION = 0.80;
+    private static final long SKETCH_INITIAL_SIZE = 1024; // grows with the entry count
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+    private static final byte DEAD = 3;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final Policy policy;
+    private final Weigher<? super K, ? super V> weigher;
+    private final long expireAfterWriteNanos; // 0 = never
+    private volatile RemovalListener<K, V> removalListener;
+    private volatile Function<? super K, RefreshPolicy> refreshPolicies = key -> RefreshPolicy.NONE;
+    private volatile Executor refreshExecutor = Runnable::run;
+
+    // Guarded by evictionLock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final TimerWheel<K, V> timerWheel; // null without expiry
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedQueue = new AccessOrderDeque<>();
+    private final FrequencySketch sketch;
+    private long maximumWeight;
+    private long windowMaximum;
+    private long mainMaximum;
+    private long protectedMaximum;
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+
+    // Lossy ring buffer of read accesses; slots are claimed by CAS on readBufferWrites
+    private final AtomicReferenceArray<Node<K, V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readBufferWrites = new AtomicLong();
+    private volatile long readBufferReads; // written under evictionLock
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder evictedWeight = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadWaits = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder totalRefreshNanos = new LongAdder();
+    private final AtomicLong maxRefreshNanos = new AtomicLong();
+
+    public BoundedCache(long maximumWeight) {
+        this(maximumWeight, Policy.W_TINYLFU, 0, (key, value) -> 1);
+    }
+
+    /**
+     * @param maximumWeight          total weight the cache may hold (entries with the default weigher)
+     * @param expireAfterWriteMillis entries are dropped this long after their last write (0 = never)
+     * @param weigher                weight of each entry
+     */
+    public BoundedCache(long maximumWeight, Policy policy, long expireAfterWriteMillis,
+                        Weigher<? super K, ? super V> weigher) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative: " + maximumWeight);
+        }
+        this.policy = Objects.requireNonNull(policy, "policy");
+        this.weigher = Objects.requireNonNull(weigher, "weigher");
+        this.expireAfterWriteNanos = expireAfterWriteMillis * 1_000_000L;
+        this.sketch = new FrequencySketch(Math.min(maximumWeight, SKETCH_INITIAL_SIZE));
+        this.timerWheel = expireAfterWriteMillis > 0 ? new TimerWheel<>(System.nanoTime()) : null;
+        setMaximumWeight(maximumWeight);
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile long writeTime;
+        volatile RefreshPolicy refresh;
+        int weight;  // guarded by evictionLock
+        byte queue;  // guarded by evictionLock
+        Node<K, V> prev;
+        Node<K, V> next;
+        long expiresAt;          // timer wheel, guarded by evictionLock
+        Node<K, V> timerPrev;
+        Node<K, V> timerNext;
+
+        Node(K key, V value, int weight, long writeTime, RefreshPolicy refresh) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = writeTime;
+            this.refresh = refresh;
+        }
+    }
+
+    /**
+     * Heap the cache itself spends per entry (its node and hash-table slot), for weighers that
+     * bound the cache in bytes.
+     */
+    public static long entryOverheadBytes() {
+        return MemoryEstimator.shallowSizeOf(Node.class) + MemoryEstimator.hashEntryOverhead();
+    }
+
+    public void setRemovalListener(RemovalListener<K, V> removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * Refresh policy by key (applies to entries written from now on); background reloads run
+     * on the executor.
+     */
+    public void setRefreshPolicy(Function<? super K, RefreshPolicy> policies, Executor executor) {
+        this.refreshPolicies = Objects.requireNonNull(policies, "policies");
+        this.refreshExecutor = Objects.requireNonNull(executor, "executor");
+    }
+
+    /**
+     * Value for the key, or null if absent, stale or expired.
+     * Time Complexity: O(1), lock-free
+     */
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        long now = System.nanoTime();
+        if (isStale(node, now)) {
+            misses.increment();
+            if (isExpired(node, now)) expire(node);
+            return null;
+        }
+        hits.increment();
+        recordRead(node);
+        return node.value;
+    }
+
+    /**
+     * Hit for a loading read: serves stale values within their maxStale window and starts a
+     * background refresh once the entry is older than refreshAfter. Null on a miss.
+     */
+    V getOrRefresh(K key, Function<? super K, ? extends V> loader) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        long now = System.nanoTime();
+        if (isExpired(node, now)) {
+            misses.increment();
+            expire(node);
+            return null;
+        }
+        V value = node.value;
+        hits.increment();
+        if (isStale(node, now)) staleHits.increment();
+        recordRead(node);
+        RefreshPolicy refresh = node.refresh;
+        if (refresh.refreshAfterNanos > 0 && now - node.writeTime >= refresh.refreshAfterNanos) {
+            refresh(key, loader);
+        }
+        return value;
+    }
+
+    private void expire(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            if (data.remove(node.key, node)) {
+                expirations.increment();
+                retire(node, RemovalCause.EXPIRED);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Reloads in the background unless a load of the key is already in flight
+    private void refresh(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, future) != null) return;
+        Runnable task = () -> {
+            long start = System.nanoTime();
+            V value;
+            try {
+                value = loader.apply(key);
+            } catch (Throwable t) {
+                refreshFailures.increment();
+                loading.remove(key, future);
+                future.completeExceptionally(t);
+                return;
+            }
+            long elapsed = System.nanoTime() - start;
+            refreshes.increment();
+            totalRefreshNanos.add(elapsed);
+            maxRefreshNanos.accumulateAndGet(elapsed, Math::max);
+            if (value == null) {
+                remove(key); // the loader says it no longer exists
+                future.complete(null);
+                return;
+            }
+            install(key, value, future);
+            future.complete(value);
+        };
+        try {
+            refreshExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            loading.remove(key, future);
+            refreshFailures.increment();
+        }
+    }
+
+    /**
+     * Value for the key without counting a hit or touching its recency/frequency.
+     */
+    public V peek(K key) {
+        Node<K, V> node = data.get(key);
+        return node == null || isStale(node, System.nanoTime()) ? null : node.value;
+    }
+
+    /**
+     * Visits every live entry (weakly consistent; does not count as access).
+     * Time Complexity: O(n)
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        long now = System.nanoTime();
+        for (Node<K, V> node : data.values()) {
+            if (!isStale(node, now)) {
+                action.accept(node.key, node.value);
+            }
+        }
+    }
+
+    /**
+     * Visits every live entry with the access frequency the admission policy sees for it
+     * (0-15, halved as the sketch ages). Buffered reads are replayed first; the visitor runs
+     * outside the eviction lock.
+     * Time Complexity: O(n)
+     */
+    void forEachWithFrequency(FrequencyVisitor<? super K, ? super V> visitor) {
+        List<Node<K, V>> nodes = new ArrayList<>(data.size());
+        int[] frequencies;
+        long now = System.nanoTime();
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            for (Node<K, V> node : data.values()) {
+                if (!isStale(node, now)) nodes.add(node);
+            }
+            frequencies = new int[nodes.size()];
+            for (int i = 0; i < frequencies.length; i++) {
+                frequencies[i] = sketch.frequency(nodes.get(i).key);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        for (int i = 0; i < frequencies.length; i++) {
+            Node<K, V> node = nodes.get(i);
+            visitor.accept(node.key, node.value, frequencies[i]);
+        }
+    }
+
+    /**
+     * Credits the key with accesses made before it was cached (a warm start restoring it), so
+     * admission ranks it as hot as it was.
+     * Time Complexity: O(accesses), at most 15
+     */
+    void recordAccesses(K key, int accesses) {
+        evictionLock.lock();
+        try {
+            for (int i = 0; i < Math.min(accesses, 15); i++) {
+                sketch.increment(key);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Stores the value, then evicts until the cache is within its maximum weight.
+     * Time Complexity: O(1) amortized (plus the buffered reads it replays)
+     * @return the value replaced, or null if the key was not cached
+     */
+    public V put(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        int weight = weigh(key, value);
+        long now = System.nanoTime();
+
+        evictionLock.lock();
+        try {
+            loading.remove(key); // a load in flight must not overwrite this value
+            return putLocked(key, value, weight, now);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Value for the key, computing it with the loader on a miss. Concurrent callers that miss
+     * on the same key wait for the one computation in flight. The loader must not load the
+     * same key again (it would wait for itself).
+     * Time Complexity: O(1) on a hit; otherwise the loader's cost, paid once per key
+     * @return the cached or loaded value; null if the loader returned null
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Objects.requireNonNull(loader, "loader");
+        V value = getOrRefresh(key, loader);
+        if (value != null) return value;
+        return join(load(key, loader, null));
+    }
+
+    /**
+     * Like get(key, loader), but a miss runs the loader on the executor. A hit returns a
+     * completed future.
+     */
+    public CompletableFuture<V> getAsync(K key, Function<? super K, ? extends V> loader, Executor executor) {
+        Objects.requireNonNull(loader, "loader");
+        Objects.requireNonNull(executor, "executor");
+        V value = getOrRefresh(key, loader);
+        if (value != null) return CompletableFuture.completedFuture(value);
+        return load(key, loader, executor);
+    }
+
+    /**
+     * Values for all keys. Keys that are missing and not already loading are passed to the
+     * bulk loader in one call; keys another caller is loading are waited for.
+     * Keys absent from the loader's result are not cached and not returned.
+     * Time Complexity: O(k) plus one bulk load
+     * @return present values, in the iteration order of keys
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys,
+                            Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader) {
+        Objects.requireNonNull(bulkLoader, "bulkLoader");
+        Map<K, V> result = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (result.containsKey(key) || pending.containsKey(key)) continue;
+            V value = getOrRefresh(key, k -> {
+                Map<? extends K, ? extends V> loaded = bulkLoader.apply(Collections.singleton(k));
+                return loaded == null ? null : loaded.get(k);
+            });
+            if (value != null) {
+                result.put(key, value);
+                continue;
+            }
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = loading.putIfAbsent(key, future);
+            if (existing != null) {
+                loadWaits.increment();
+                pending.put(key, existing);
+            } else {
+                pending.put(key, future);
+                owned.put(key, future);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            long start = System.nanoTime();
+            Map<? extends K, ? extends V> loaded;
+            try {
+                loaded = bulkLoader.apply(Collections.unmodifiableSet(owned.keySet()));
+            } catch (RuntimeException | Error e) {
+                loadFailures.increment();
+                owned.forEach((key, future) -> {
+                    loading.remove(key, future);
+                    future.completeExceptionally(e);
+                });
+                throw e;
+            }
+            loadSuccesses.increment();
+            totalLoadNanos.add(System.nanoTime() - start);
+            owned.forEach((key, future) -> {
+                V value = loaded == null ? null : loaded.get(key);
+                install(key, value, future);
+                future.complete(value);
+            });
+        }
+
+        for (Map.Entry<K, CompletableFuture<V>> entry : pending.entrySet()) {
+            V value = join(entry.getValue());
+            if (value != null) result.put(entry.getKey(), value);
+        }
+        if (pending.isEmpty()) return result;
+        Map<K, V> ordered = new LinkedHashMap<>(); // hits and loads in the caller's key order
+        for (K key : keys) {
+            V value = result.get(key);
+            if (value != null) ordered.put(key, value);
+        }
+        return ordered;
+    }
+
+    /**
+     * Single-flight load for a caller that has just missed (skips the second lookup, so the
+     * miss is counted once). Blocks until the value is loaded when executor is null.
+     */
+    CompletableFuture<V> loadAfterMiss(K key, Function<? super K, ? extends V> loader, Executor executor) {
+        return load(key, loader, executor);
+    }
+
+    V loadAfterMiss(K key, Function<? super K, ? extends V> loader) {
+        return join(load(key, loader, null));
+    }
+
+    // Joins the single load of the key, starting it if nobody else has
+    private CompletableFuture<V> load(K key, Function<? super K, ? extends V> loader, Executor executor) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            loadWaits.increment();
+            return existing;
+        }
+        Runnable task = () -> {
+            long start = System.nanoTime();
+            V value;
+            try {
+                value = loader.apply(key);
+            } catch (Throwable t) {
+                loadFailures.increment();
+                loading.remove(key, future);
+                future.completeExceptionally(t);
+                return;
+            }
+            loadSuccesses.increment();
+            totalLoadNanos.add(System.nanoTime() - start);
+            install(key, value, future);
+            future.complete(value);
+        };
+        if (executor == null) {
+            task.run();
+        } else {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                loading.remove(key, future);
+                future.completeExceptionally(e);
+            }
+        }
+        return future;
+    }
+
+    // Stores a loaded value unless the key was written, removed or cleared while it loaded
+    private void install(K key, V value, CompletableFuture<V> future) {
+        if (value == null) {
+            loading.remove(key, future);
+            return;
+        }
+        int weight = weigh(key, value);
+        evictionLock.lock();
+        try {
+            if (loading.remove(key, future)) {
+                putLocked(key, value, weight, System.nanoTime());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    private int weigh(K key, V value) {
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must not be negative: " + weight);
+        }
+        return weight;
+    }
+
+    private V putLocked(K key, V value, int weight, long now) {
+        drainReadBuffer();
+        Node<K, V> node = data.get(key);
+        V previous = null;
+        if (node != null) {
+            previous = node.value;
+            node.value = value;
+            node.writeTime = now;
+            node.refresh = refreshPolicies.apply(key);
+            reweigh(node, weight);
+            onAccess(node);
+            schedule(node, now);
+            notifyRemoval(key, previous, RemovalCause.REPLACED);
+        } else {
+            node = new Node<>(key, value, weight, now, refreshPolicies.apply(key));
+            data.put(key, node);
+            schedule(node, now);
+            // Sized by entry count, not weight: a byte budget says little about how many keys fit
+            sketch.ensureCapacity(Math.min(maximumWeight, data.size()));
+            sketch.increment(key);
+            if (policy == Policy.SLRU) {
+                addTo(probation, node, PROBATION);
+            } else {
+                addTo(window, node, WINDOW);
+            }
+        }
+        evict();
+        return previous;
+    }
+
+    /**
+     * @return the removed value, or null
+     */
+    public V remove(K key) {
+        evictionLock.lock();
+        try {
+            loading.remove(key);
+            Node<K, V> node = data.remove(key);
+            if (node == null) return null;
+            retire(node, RemovalCause.EXPLICIT);
+            return node.value;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void clear() {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            loading.clear();
+            for (Node<K, V> node : data.values()) {
+                retire(node, RemovalCause.EXPLICIT);
+            }
+            data.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entries that have expired since the last call and replays buffered reads.
+     * Time Complexity: O(expired entries + wheel buckets passed), independent of the cache size
+     * @return number of entries expired
+     */
+    public int cleanUp() {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            return expireEntries(System.nanoTime());
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Changes the budget; shrinking evicts right away.
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        evictionLock.lock();
+        try {
+            this.maximumWeight = maximumWeight;
+            switch (policy) {
+                case LRU:
+                    windowMaximum = maximumWeight;
+                    break;
+                case SLRU:
+                    windowMaximum = 0;
+                    break;
+                default:
+                    windowMaximum = Math.min(maximumWeight, Math.max(1, (long) (maximumWeight * WINDOW_FRACTION)));
+            }
+            mainMaximum = maximumWeight - windowMaximum;
+            protectedMaximum = (long) (mainMaximum * PROTECTED_FRACTION);
+            sketch.ensureCapacity(Math.min(maximumWeight, Math.max(data.size(), SKETCH_INITIAL_SIZE)));
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Statistics
+
+    public long getMaximumWeight() {
+        evictionLock.lock();
+        try {
+            return maximumWeight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Total weight of the entries (bytes, for a byte weigher).
+     */
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            return windowWeight + probationWeight + protectedWeight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public Policy getPolicy() { return policy; }
+    public long hitCount() { return hits.sum(); }
+    public long missCount() { return misses.sum(); }
+    public long evictionCount() { return evictions.sum(); }
+    public long evictionWeight() { return evictedWeight.sum(); }
+    public long expirationCount() { return expirations.sum(); }
+    public long loadSuccessCount() { return loadSuccesses.sum(); }
+    public long loadFailureCount() { return loadFailures.sum(); }
+    /** Misses that waited for another caller's load instead of loading themselves. */
+    public long loadWaitCount() { return loadWaits.sum(); }
+
+    public long refreshCount() { return refreshes.sum(); }
+    public long refreshFailureCount() { return refreshFailures.sum(); }
+    /** Loading reads served a value past its TTL (within the maxStale window). */
+    public long staleHitCount() { return staleHits.sum(); }
+
+    public double averageRefreshMillis() {
+        long count = refreshes.sum();
+        return count > 0 ? totalRefreshNanos.sum() / 1_000_000.0 / count : 0.0;
+    }
+
+    public double maxRefreshMillis() {
+        return maxRefreshNanos.get() / 1_000_000.0;
+    }
+
+    public double averageLoadMillis() {
+        long loads = loadSuccesses.sum();
+        return loads > 0 ? totalLoadNanos.sum() / 1_000_000.0 / loads : 0.0;
+    }
+
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total > 0 ? (double) hitCount / total : 0.0;
+    }
+
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        evictedWeight.reset();
+        expirations.reset();
+        loadSuccesses.reset();
+        loadFailures.reset();
+        loadWaits.reset();
+        totalLoadNanos.reset();
+        refreshes.reset();
+        refreshFailures.reset();
+        staleHits.reset();
+        totalRefreshNanos.reset();
+        maxRefreshNanos.set(0);
+    }
+
+    // Policy bookkeeping (caller holds evictionLock unless noted)
+
+    // Past expireAfterWrite: only loading reads may still serve it
+    private boolean isStale(Node<K, V> node, long now) {
+        return expireAfterWriteNanos > 0 && now - node.writeTime >= expireAfterWriteNanos;
+    }
+
+    // Past expireAfterWrite and the maxStale window: removed
+    private boolean isExpired(Node<K, V> node, long now) {
+        return expireAfterWriteNanos > 0 && now - node.writeTime >= expireAfterWriteNanos + node.refresh.maxStaleNanos;
+    }
+
+    // Lock-free: claims a slot in the ring buffer, or drops the access when it is full
+    private void recordRead(Node<K, V> node) {
+        long writes = readBufferWrites.get();
+        long pending = writes - readBufferReads;
+        if (pending < READ_BUFFER_SIZE && readBufferWrites.compareAndSet(writes, writes + 1)) {
+            readBuffer.lazySet((int) writes & READ_BUFFER_MASK, node);
+            pending++;
+        }
+        if (pending >= READ_BUFFER_SIZE / 2 && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+                expireEntries(System.nanoTime());
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        long writes = readBufferWrites.get();
+        long reads = readBufferReads;
+        for (; reads < writes; reads++) {
+            int index = (int) reads & READ_BUFFER_MASK;
+            Node<K, V> node = readBuffer.get(index);
+            if (node == null) break; // claimed but not yet stored; picked up next drain
+            readBuffer.lazySet(index, null);
+            onAccess(node);
+        }
+        readBufferReads = reads;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        sketch.increment(node.key);
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                // Second access: promote to the protected segment
+                probation.remove(node);
+                probationWeight -= node.weight;
+                addTo(protectedQueue, node, PROTECTED);
+                demoteProtectedOverflow();
+                break;
+            case PROTECTED:
+                protectedQueue.moveToBack(node);
+                break;
+            default:
+                break; // already removed
+        }
+    }
+
+    private void addTo(AccessOrderDeque<K, V> deque, Node<K, V> node, byte queue) {
+        node.queue = queue;
+        deque.addLast(node);
+        if (queue == WINDOW) windowWeight += node.weight;
+        else if (queue == PROBATION) probationWeight += node.weight;
+        else protectedWeight += node.weight;
+    }
+
+    private void reweigh(Node<K, V> node, int weight) {
+        int delta = weight - node.weight;
+        node.weight = weight;
+        if (node.queue == WINDOW) windowWeight += delta;
+        else if (node.queue == PROBATION) probationWeight += delta;
+        else if (node.queue == PROTECTED) protectedWeight += delta;
+    }
+
+    private void demoteProtectedOverflow() {
+        while (protectedWeight > protectedMaximum) {
+            Node<K, V> demoted = protectedQueue.pollFirst();
+            if (demoted == null) break;
+            protectedWeight -= demoted.weight;
+            addTo(probation, demoted, PROBATION);
+        }
+    }
+
+    private void evict() {
+        // Window overflow: LRU evicts outright; W-TinyLFU lets the candidate compete for the main space
+        while (windowWeight > windowMaximum) {
+            Node<K, V> candidate = window.pollFirst();
+            windowWeight -= candidate.weight;
+            if (policy == Policy.LRU) {
+                evictNode(candidate);
+            } else {
+                admit(candidate);
+            }
+        }
+        // Main space overflow (SLRU inserts, weight growth, a smaller maximum)
+        while (probationWeight + protectedWeight > mainMaximum) {
+            Node<K, V> victim = probation.isEmpty() ? protectedQueue.pollFirst() : probation.pollFirst();
+            if (victim == null) break;
+            if (victim.queue == PROBATION) probationWeight -= victim.weight;
+            else protectedWeight -= victim.weight;
+            evictNode(victim);
+        }
+    }
+
+    // TinyLFU admission: the candidate replaces probation victims only while it is used more
+    // often than each of them; ties keep the incumbent
+    private void admit(Node<K, V> candidate) {
+        int candidateFrequency = sketch.frequency(candidate.key);
+        while (probationWeight + protectedWeight + candidate.weight > mainMaximum) {
+            Node<K, V> victim = probation.isEmpty() ? protectedQueue.peekFirst() : probation.peekFirst();
+            if (victim == null || candidateFrequency <= sketch.frequency(victim.key)) {
+                evictNode(candidate);
+                return;
+            }
+            if (victim.queue == PROBATION) {
+                probation.remove(victim);
+                probationWeight -= victim.weight;
+            } else {
+                protectedQueue.remove(victim);
+                protectedWeight -= victim.weight;
+            }
+            evictNode(victim);
+        }
+        addTo(probation, candidate, PROBATION);
+    }
+
+    // Node is already unlinked from its queue
+    private void evictNode(Node<K, V> node) {
+        node.queue = DEAD;
+        if (timerWheel != null) timerWheel.deschedule(node);
+        if (data.remove(node.key, node)) {
+            evictions.increment();
+            evictedWeight.add(node.weight);
+            notifyRemoval(node.key, node.value, RemovalCause.SIZE);
+        }
+    }
+
+    // Unlinks a node that was removed from the map
+    private void retire(Node<K, V> node, RemovalCause cause) {
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                windowWeight -= node.weight;
+                break;
+            case PROBATION:
+                probation.remove(node);
+                probationWeight -= node.weight;
+                break;
+            case PROTECTED:
+                protectedQueue.remove(node);
+                protectedWeight -= node.weight;
+                break;
+            default:
+                return;
+        }
+        node.queue = DEAD;
+        if (timerWheel != null) timerWheel.deschedule(node);
+        notifyRemoval(node.key, node.value, cause);
+    }
+
+    private void schedule(Node<K, V> node, long writeTime) {
+        if (timerWheel == null) return;
+        node.expiresAt = writeTime + expireAfterWriteNanos + node.refresh.maxStaleNanos;
+        timerWheel.deschedule(node);
+        timerWheel.schedule(node);
+    }
+
+    private int expireEntries(long now) {
+        if (timerWheel == null) return 0;
+        int[] expired = new int[1];
+        timerWheel.advance(now, node -> {
+            if (!isExpired(node, now)) return false;
+            if (data.remove(node.key, node)) {
+                expirations.increment();
+                retire(node, RemovalCause.EXPIRED);
+                expired[0]++;
+            }
+            return true;
+        });
+        return expired[0];
+    }
+
+    private void notifyRemoval(K key, V value, RemovalCause cause) {
+        RemovalListener<K, V> listener = removalListener;
+        if (listener != null) {
+            listener.onRemoval(key, value, cause);
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list in access order (least recent first).
+     */
+    private static final class AccessOrderDeque<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+
+        boolean isEmpty() {
+            return head == null;
+        }
+
+        Node<K, V> peekFirst() {
+            return head;
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> first = head;
+            if (first != null) remove(first);
+            return first;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) head = node.next; else node.prev.next = node.next;
+            if (node.next == null) tail = node.prev; else node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (tail != node) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * Hierarchical timing wheel of expiry times. Level i has 64 buckets of 2^SHIFTS[i] ns
+     * (about 1 ms, 67 ms, 4.3 s, 4.6 min and 4.9 h), so each level spans one bucket of the
+     * next. An entry goes into the finest level whose span covers its remaining time. When
+     * the wheel turns past its bucket it is either expired or rescheduled into a finer level.
+     * schedule/deschedule are O(1); advance() only visits the buckets whose time has passed.
+     * Guarded by the eviction lock.
+     */
+    private static final class TimerWheel<K, V> {
+        private static final int[] SHIFTS = { 20, 26, 32, 38, 44 };
+        private static final int BUCKETS = 64;
+        private static final int BUCKET_MASK = BUCKETS - 1;
+
+        private final Node<K, V>[][] wheel;
+        private long nanos;
+
+        @SuppressWarnings("unchecked")
+        TimerWheel(long now) {
+            nanos = now;
+            wheel = (Node<K, V>[][]) new Node<?, ?>[SHIFTS.length][BUCKETS];
+            for (Node<K, V>[] level : wheel) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    Node<K, V> sentinel = new Node<>(null, null, 0, 0, RefreshPolicy.NONE);
+                    sentinel.timerPrev = sentinel;
+                    sentinel.timerNext = sentinel;
+                    level[i] = sentinel;
+                }
+            }
+        }
+
+        void schedule(Node<K, V> node) {
+            Node<K, V> sentinel = bucketFor(node.expiresAt);
+            node.timerPrev = sentinel.timerPrev;
+            node.timerNext = sentinel;
+            sentinel.timerPrev.timerNext = node;
+            sentinel.timerPrev = node;
+        }
+
+        void deschedule(Node<K, V> node) {
+            if (node.timerNext == null) return;
+            node.timerPrev.timerNext = node.timerNext;
+            node.timerNext.timerPrev = node.timerPrev;
+            node.timerPrev = null;
+            node.timerNext = null;
+        }
+
+        /**
+         * Turns the wheel to now. Entries in the buckets passed are offered to expirer; the
+         * ones it does not remove (not due yet) are rescheduled.
+         */
+        void advance(long now, Predicate<Node<K, V>> expirer) {
+            long previous = nanos;
+            if (now - previous <= 0) return;
+            nanos = now;
+            for (int level = 0; level < SHIFTS.length; level++) {
+                long previousTicks = previous >>> SHIFTS[level];
+                long delta = (now >>> SHIFTS[level]) - previousTicks;
+                if (delta <= 0) break;
+                int steps = (int) Math.min(delta + 1, BUCKETS);
+                for (int step = 0; step < steps; step++) {
+                    expireBucket(wheel[level][(int) ((previousTicks + step) & BUCKET_MASK)], now, expirer);
+                }
+            }
+        }
+
+        private void expireBucket(Node<K, V> sentinel, long now, Predicate<Node<K, V>> expirer) {
+            Node<K, V> node = sentinel.timerNext;
+            sentinel.timerPrev = sentinel;
+            sentinel.timerNext = sentinel;
+            while (node != sentinel) {
+                Node<K, V> next = node.timerNext;
+                node.timerPrev = null;
+                node.timerNext = null;
+                if (node.expiresAt - now > 0 || !expirer.test(node)) {
+                    schedule(node);
+                }
+                node = next;
+            }
+        }
+
+        private Node<K, V> bucketFor(long time) {
+            long remaining = Math.max(0, time - nanos);
+            int last = SHIFTS.length - 1;
+            for (int level = 0; level < last; level++) {
+                if (remaining < (1L << SHIFTS[level + 1])) {
+                    return wheel[level][(int) ((time >>> SHIFTS[level]) & BUCKET_MASK)];
+                }
+            }
+            return wheel[last][(int) ((time >>> SHIFTS[last]) & BUCKET_MASK)];
+        }
+    }
+}
@@ -22,7 +22,7 @@ public class BulkImportService {
 
     // Regex patterns for validation
     private static final Pattern GRADE_PATTERN = Pattern.compile("^(100|[1-9]?[0-9])$"); // 0-100
-    private static final Pattern STUDENT_ID_PATTERN = Pattern.compile("^STU\\d{3}$"); // STU followed by 3 digits
+    private static final Pattern STUDENT_ID_PATTERN = IdAllocator.STUDENTS.getPattern(); // STU + 3 or more digits
     private static final Pattern SUBJECT_TYPE_PATTERN = Pattern.compile("^(Core|Elective)$", Pattern.CASE_INSENSITIVE);
 
     // Expected CSV format from PDF: gradeId, studentId, subjectName, subjectType, grade
@@ -147,9 +147,11 @@ public class BulkImportService {
             return;
         }
 
+        long importStart = System.nanoTime();
         try (Stream<String> lines = Files.lines(filePath);
              PrintWriter logWriter = new PrintWriter(Files.newBufferedWriter(
-                     Paths.get("imports", logFilename), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))) {
+                     Paths.get("imports", logFilename), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING));
+             GradeBatch batch = gradeManager.beginBatch()) {
 
             logWriter.println("BULK IMPORT LOG");
             logWriter.println("Timestamp: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
@@ -175,7 +177,7 @@ public class BulkImportService {
                 }
 
                 int currentRow = totalRows.incrementAndGet();
-                boolean success = processCSVRow(line, logWriter, currentRow, expectedColumns, finalHasGradeId);
+                boolean success = processCSVRow(line, logWriter, currentRow, expectedColumns, finalHasGradeId, batch);
                 if (success) {
                     successfulImports.incrementAndGet();
                 } else {
@@ -183,6 +185,10 @@ public class BulkImportService {
                 }
             });
 
+            // Apply the remaining buffered grades before reporting
+            batch.flush();
+            double elapsedSeconds = (System.nanoTime() - importStart) / 1_000_000_000.0;
+
             // Write import summary to log
             logWriter.println();
             logWriter.println("=== IMPORT SUMMARY ===");
@@ -222,6 +228,8 @@ public class BulkImportService {
                 System.out.printf("] %.1f%%%n", successRate);
             }
 
+            System.out.printf("Import time: %.2f s (%,.0f rows/sec, batched)%n",
+                    elapsedSeconds, totalRows.get() / Math.max(elapsedSeconds, 1e-9));
             System.out.println("\n✓ Log saved to: imports/" + logFilename);
             System.out.println("✓ NIO.2 streaming completed successfully");
             System.out.println("✓ " + successfulImports.get() + " grades added to system");
@@ -233,7 +241,8 @@ public class BulkImportService {
         }
     }
 
-    private boolean processCSVRow(String line, PrintWriter logWriter, int rowNumber, int expectedColumns, boolean hasGradeId) {
+    private boolean processCSVRow(String line, PrintWriter logWriter, int rowNumber, int expectedColumns,
+                                  boolean hasGradeId, GradeBatch batch) {
         // Clean the line
         line = line.trim();
         if (line.isEmpty()) {
@@ -288,8 +297,8 @@ public class BulkImportService {
             if (!STUDENT_ID_PATTERN.matcher(studentId).matches()) {
                 logWriter.println("Row " + rowNumber + ": FAILED - Invalid Student ID format");
                 logWriter.println("  Input: " + studentId);
-                logWriter.println("  Expected pattern: STU### (STU followed by exactly 3 digits)");
-                logWriter.println("  Examples: STU001, STU042, STU999");
+                logWriter.println("  Expected pattern: " + IdAllocator.STUDENTS.describeFormat());
+                logWriter.println("  Examples: STU001, STU042, STU1234");
                 return false;
             }
 
@@ -344,17 +353,12 @@ public class BulkImportService {
                 return false;
             }
 
-            // Create subject object
-            Subject subject;
-            if (subjectType.equalsIgnoreCase("Core")) {
-                subject = new CoreSubject(subjectName, getSubjectCode(subjectName));
-            } else { // Elective
-                subject = new ElectiveSubject(subjectName, getSubjectCode(subjectName));
-            }
+            // Shared subject instance from the catalog (one per code/name/type, not one per row)
+            Subject subject = SubjectRegistry.getInstance().of(subjectType, subjectName, getSubjectCode(subjectName));
 
-            // Create and add grade
+            // Create and queue grade (applied in bulk: no per-row console output or GPA recompute)
             Grade newGrade = new Grade(gradeId, studentId, subject, grade);
-            gradeManager.addGrade(newGrade);
+            batch.add(newGrade);
 
             logWriter.println("Row " + rowNumber + ": SUCCESS - " +
                     (hasGradeId ? gradeId + ", " : "(auto) " + gradeId + ", ") +
@@ -369,10 +373,8 @@ public class BulkImportService {
     }
 
     private String generateGradeId() {
-        // Generate a unique grade ID: GRD + timestamp + random number
-        String timestamp = new SimpleDateFormat("HHmmssSSS").format(new Date());
-        int random = new Random().nextInt(1000);
-        return String.format("GRD%s%03d", timestamp, random);
+        // Same allocator as interactively recorded grades, so imported ids never collide
+        return IdAllocator.GRADES.nextId();
     }
 
     // Helper method to parse CSV line with quoted fields
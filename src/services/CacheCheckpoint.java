@@ -0,0 +1,446 @@
+package services;
+
+import models.*;
+import utils.MemoryEstimator;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Saves CacheManager's hot keys so the caches start warm after a restart.
+ *
+ * Checkpoint (save): the entries of the shared student cache and of the regions keyed by
+ * student ID, hottest first by the access frequency W-TinyLFU keeps for them, written to one
+ * compact file through a temp file and an atomic rename. Averages, subject averages and GPAs
+ * (Double and Map&lt;String, Double&gt; values) are written with their values, each stamped with
+ * the student's data version (GradeManager.getStudentDataVersion); everything else (students,
+ * grade lists) is written as a key only. start() checkpoints in the background every period,
+ * and close() writes a last one.
+ *
+ * Warm start: reads the file on the checkpoint thread and restores the entries hottest first,
+ * so the keys used most are cached soonest, each credited with its past accesses; once a cache
+ * is full its colder entries are skipped rather than loaded only to be evicted. A persisted
+ * value is reused only while the student's data version still matches and is discarded
+ * otherwise; a key-only entry is recomputed from the managers (named regions need a loader,
+ * see setLoader). Keys cached meanwhile and students that no longer exist are skipped too.
+ *
+ * File: [int magic "CCKP"][int format][long saved at][int count], per entry
+ * [byte kind][byte region ordinal | UTF region name][UTF id][byte frequency][byte value kind]
+ * [value, long data version], then a CRC32 of everything before it.
+ */
+public class CacheCheckpoint implements Closeable {
+    public static final long DEFAULT_PERIOD_MILLIS = 60_000;
+
+    private static final int MAGIC = 0x43434B50; // "CCKP"
+    private static final int FORMAT = 1;
+
+    private static final byte BUILT_IN_REGION = 0;
+    private static final byte NAMED_REGION = 1;
+
+    private static final byte KEY_ONLY = 0;
+    private static final byte DOUBLE_VALUE = 1;
+    private static final byte DOUBLE_MAP_VALUE = 2;
+
+    /**
+     * A cached entry as checkpointed and restored.
+     */
+    static final class Entry {
+        final CacheManager.Region region; // null for a named region
+        final String regionName;
+        final String id;
+        final int frequency;
+        Object value;                     // null when only the key is kept
+        long dataVersion;
+
+        // Where a live entry was read from, to check it is still cached before it is saved
+        private final BoundedCache<?, ?> source;
+        private final Object sourceKey;
+
+        Entry(CacheManager.Region region, String regionName, String id, int frequency, Object value,
+              BoundedCache<?, ?> source, Object sourceKey) {
+            this.region = region;
+            this.regionName = region != null ? region.name() : regionName;
+            this.id = id;
+            this.frequency = frequency;
+            this.value = value;
+            this.source = source;
+            this.sourceKey = sourceKey;
+        }
+
+        @SuppressWarnings("unchecked")
+        boolean isStillCached() {
+            return source == null || ((BoundedCache<Object, ?>) source).peek(sourceKey) == value;
+        }
+    }
+
+    private final CacheManager cacheManager;
+    private final StudentManager studentManager;
+    private final GradeManager gradeManager;
+    private final Path file;
+    private final boolean persistValues;
+    private final Map<String, Function<String, ?>> loaders = new ConcurrentHashMap<>(); // named regions
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Cache-Checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+    private ScheduledFuture<?> periodic; // guarded by this
+
+    // Guarded by this
+    private long checkpoints;
+    private int lastEntries;
+    private long lastBytes;
+    private double lastMillis;
+
+    public CacheCheckpoint(CacheManager cacheManager, StudentManager studentManager, GradeManager gradeManager,
+                           Path file) {
+        this(cacheManager, studentManager, gradeManager, file, true);
+    }
+
+    /**
+     * @param persistValues false to write keys only (every restored entry is then recomputed)
+     */
+    public CacheCheckpoint(CacheManager cacheManager, StudentManager studentManager, GradeManager gradeManager,
+                           Path file, boolean persistValues) {
+        this.cacheManager = Objects.requireNonNull(cacheManager, "cacheManager");
+        this.studentManager = Objects.requireNonNull(studentManager, "studentManager");
+        this.gradeManager = Objects.requireNonNull(gradeManager, "gradeManager");
+        this.file = Objects.requireNonNull(file, "file");
+        this.persistValues = persistValues;
+    }
+
+    /**
+     * Recomputes key-only and discarded entries of a named region on warm start (without one,
+     * they are skipped). The loader gets a student ID and returns the region's value.
+     */
+    public void setLoader(String regionName, Function<String, ?> loader) {
+        loaders.put(regionName, Objects.requireNonNull(loader, "loader"));
+    }
+
+    /**
+     * Checkpoints every periodMillis on the checkpoint thread (after any warm start queued
+     * before it).
+     */
+    public synchronized void start(long periodMillis) {
+        if (periodic != null) periodic.cancel(false);
+        periodic = executor.scheduleWithFixedDelay(() -> {
+            try {
+                save();
+            } catch (IOException e) {
+                System.err.println("✗ Cache checkpoint failed: " + e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the current hot entries. Value entries are stamped with the student's data
+     * version, and kept only if still cached once every change published before the stamp has
+     * been delivered (so a value computed before a change is never saved with the new version).
+     *
+     * @return entries written
+     * Time Complexity: O(n log n) for the n cached entries, plus O(g) per value for its student's grades
+     */
+    public synchronized int save() throws IOException {
+        long start = System.nanoTime();
+        List<Entry> entries = cacheManager.checkpointEntries();
+        entries.sort((a, b) -> Integer.compare(b.frequency, a.frequency));
+        for (Entry entry : entries) {
+            if (persistValues && isPersistable(entry.value)) {
+                entry.dataVersion = gradeManager.getStudentDataVersion(entry.id);
+            } else {
+                entry.value = null;
+            }
+        }
+        studentManager.getChangeFeed().awaitDelivered();
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024), new CRC32())) {
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                if (entry.value != null && !entry.isStillCached()) {
+                    entry.value = null; // invalidated since it was read: the key is still hot
+                }
+                writeEntry(out, entry);
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        checkpoints++;
+        lastEntries = entries.size();
+        lastBytes = Files.size(file);
+        lastMillis = (System.nanoTime() - start) / 1_000_000.0;
+        return entries.size();
+    }
+
+    private static boolean isPersistable(Object value) {
+        if (value instanceof Double) return true;
+        if (!(value instanceof Map)) return false;
+        for (Map.Entry<?, ?> mapping : ((Map<?, ?>) value).entrySet()) {
+            if (!(mapping.getKey() instanceof String) || !(mapping.getValue() instanceof Double)) return false;
+        }
+        return true;
+    }
+
+    private static void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+        if (entry.region != null) {
+            out.writeByte(BUILT_IN_REGION);
+            out.writeByte(entry.region.ordinal());
+        } else {
+            out.writeByte(NAMED_REGION);
+            out.writeUTF(entry.regionName);
+        }
+        out.writeUTF(entry.id);
+        out.writeByte(entry.frequency);
+        if (entry.value instanceof Double) {
+            out.writeByte(DOUBLE_VALUE);
+            out.writeDouble((Double) entry.value);
+        } else if (entry.value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) entry.value;
+            out.writeByte(DOUBLE_MAP_VALUE);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> mapping : map.entrySet()) {
+                out.writeUTF((String) mapping.getKey());
+                out.writeDouble((Double) mapping.getValue());
+            }
+        } else {
+            out.writeByte(KEY_ONLY);
+            return;
+        }
+        out.writeLong(entry.dataVersion);
+    }
+
+    private static Entry readEntry(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        CacheManager.Region region = null;
+        String regionName = null;
+        if (kind == BUILT_IN_REGION) {
+            int ordinal = in.readUnsignedByte();
+            CacheManager.Region[] regions = CacheManager.Region.values();
+            if (ordinal >= regions.length) throw new IOException("Unknown cache region " + ordinal);
+            region = regions[ordinal];
+        } else if (kind == NAMED_REGION) {
+            regionName = in.readUTF();
+        } else {
+            throw new IOException("Unknown region kind " + kind);
+        }
+        String id = in.readUTF();
+        int frequency = in.readUnsignedByte();
+        byte valueKind = in.readByte();
+        Object value;
+        switch (valueKind) {
+            case KEY_ONLY:
+                value = null;
+                break;
+            case DOUBLE_VALUE:
+                value = in.readDouble();
+                break;
+            case DOUBLE_MAP_VALUE:
+                int size = in.readInt();
+                Map<String, Double> map = new HashMap<>(Math.max(16, size * 2));
+                for (int i = 0; i < size; i++) {
+                    map.put(in.readUTF(), in.readDouble());
+                }
+                value = map;
+                break;
+            default:
+                throw new IOException("Unknown value kind " + valueKind);
+        }
+        Entry entry = new Entry(region, regionName, id, frequency, value, null, null);
+        if (value != null) entry.dataVersion = in.readLong();
+        return entry;
+    }
+
+    // Entries in file order (hottest first); empty if there is no checkpoint yet
+    List<Entry> read() throws IOException {
+        if (!Files.exists(file)) return Collections.emptyList();
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 64 * 1024), new CRC32())) {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC) throw new IOException("Not a cache checkpoint: " + file);
+            int format = in.readInt();
+            if (format != FORMAT) throw new IOException("Unsupported cache checkpoint format " + format + ": " + file);
+            in.readLong(); // saved at
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(Math.min(count, 1 << 16));
+            for (int i = 0; i < count; i++) {
+                entries.add(readEntry(in));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) throw new IOException("Cache checkpoint checksum mismatch: " + file);
+            return entries;
+        } catch (EOFException e) {
+            throw new IOException("Truncated cache checkpoint: " + file, e);
+        }
+    }
+
+    /**
+     * Restores the last checkpoint in the background, hottest entries first. A missing or
+     * unreadable file gives an empty report (the caches then fill on demand as before).
+     */
+    public CompletableFuture<WarmStartReport> warmStart() {
+        return CompletableFuture.supplyAsync(this::restoreAll, executor);
+    }
+
+    private WarmStartReport restoreAll() {
+        long start = System.nanoTime();
+        WarmStartReport report = new WarmStartReport();
+        List<Entry> entries;
+        try {
+            entries = read();
+        } catch (IOException e) {
+            report.error = e.getMessage();
+            return report;
+        }
+        entries.sort((a, b) -> Integer.compare(b.frequency, a.frequency)); // stable: file order within a frequency
+        report.read = entries.size();
+        for (Entry entry : entries) {
+            restore(entry, report);
+        }
+        report.totalMillis = (System.nanoTime() - start) / 1_000_000.0;
+        return report;
+    }
+
+    private void restore(Entry entry, WarmStartReport report) {
+        if (studentManager.findStudent(entry.id) == null) {
+            report.skipped++;
+            return;
+        }
+        if (entry.value != null) {
+            // Checked inside the load, so a change committed after the check invalidates it
+            boolean[] stale = new boolean[1];
+            boolean restored = cacheManager.restore(entry.region, entry.regionName, entry.id, entry.frequency, id -> {
+                if (gradeManager.getStudentDataVersion(id) == entry.dataVersion) return entry.value;
+                stale[0] = true;
+                return null;
+            });
+            if (restored) report.restoredValues++;
+            else if (stale[0]) report.discarded++;
+            else report.skipped++;
+            return;
+        }
+        Function<String, ?> loader = entry.region != null ? builtInLoader(entry.region) : loaders.get(entry.regionName);
+        if (loader != null && cacheManager.restore(entry.region, entry.regionName, entry.id, entry.frequency, loader)) {
+            report.recomputed++;
+        } else {
+            report.skipped++;
+        }
+    }
+
+    private Function<String, ?> builtInLoader(CacheManager.Region region) {
+        switch (region) {
+            case STUDENT:
+                return studentManager::findStudent;
+            case GRADES:
+                return id -> new ArrayList<>(gradeManager.getGradesByStudent(id));
+            case AVERAGE:
+                return gradeManager::calculateOverallAverage;
+            default:
+                return id -> new HashMap<>(gradeManager.getGradesByStudent(id).stream()
+                        .collect(SubjectAccumulator.averagingByName()));
+        }
+    }
+
+    /**
+     * Stops the periodic checkpoints and writes a last one.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (periodic != null) periodic.cancel(false);
+            periodic = null;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS); // a warm start or save in progress
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        save();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public synchronized long getCheckpointCount() {
+        return checkpoints;
+    }
+
+    public synchronized void displayStatistics() {
+        System.out.println("\n=== CACHE CHECKPOINT ===");
+        System.out.printf("File:                %s%n", file);
+        System.out.printf("Checkpoints:         %7d%n", checkpoints);
+        if (checkpoints > 0) {
+            System.out.printf("Last Checkpoint:     %,7d entries, %s in %.1f ms%n",
+                    lastEntries, MemoryEstimator.formatBytes(lastBytes), lastMillis);
+        }
+    }
+
+    /**
+     * Outcome of a warm start.
+     */
+    public static class WarmStartReport {
+        int read;
+        int restoredValues;
+        int recomputed;
+        int discarded;
+        int skipped;
+        String error;
+        double totalMillis;
+
+        /** True when there was no checkpoint to restore. */
+        public boolean isEmpty() {
+            return read == 0 && error == null;
+        }
+
+        public int getRead() { return read; }
+        public int getRestoredValues() { return restoredValues; }
+        public int getRecomputed() { return recomputed; }
+        public int getDiscarded() { return discarded; }
+        public int getSkipped() { return skipped; }
+        public String getError() { return error; }
+        public double getTotalMillis() { return totalMillis; }
+
+        public void display() {
+            if (error != null) {
+                System.err.println("⚠ Could not warm the caches: " + error);
+                return;
+            }
+            if (isEmpty()) {
+                System.out.println("✓ No cache checkpoint to warm from (first start)");
+                return;
+            }
+            System.out.printf("✓ Caches warmed in %.1f ms: %,d entries read%n", totalMillis, read);
+            System.out.printf("  %,d values reused, %,d recomputed, %,d stale discarded, %,d skipped%n",
+                    restoredValues, recomputed, discarded, skipped);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("WarmStartReport[read=%d, reused=%d, recomputed=%d, discarded=%d, skipped=%d, %.1f ms]",
+                    read, restoredValues, recomputed, discarded, skipped, totalMillis);
+        }
+    }
+}
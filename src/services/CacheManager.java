@@ -1,179 +1,638 @@
 package services;
 
+import interfaces.MemoryPressureListener;
 import models.*;
+import utils.MemoryEstimator;
+import java.lang.ref.WeakReference;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-
-public class CacheManager {
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache for students and their derived grade data, backed by one BoundedCache.
+ *
+ * - All four kinds of entry (student, grades, average, subject averages) share a single
+ *   budget of MAX_CACHE_BYTES, so a burst of one kind evicts cold entries of the others
+ *   instead of each map growing on its own. Entries are weighed by their retained size
+ *   (MemoryEstimator): the cache's own per-entry overhead plus the copies it makes. Students
+ *   and grades are shared with the managers and cost only the entry.
+ * - Eviction is W-TinyLFU by default: frequently used students stay cached while one-off
+ *   lookups and full scans (warmCache, reports) pass through the admission window.
+ * - Entries expire CACHE_TTL after they were cached. A shared "Cache-Maintenance" thread
+ *   advances the cache's expiry wheel (every TTL/10, at most every second), which removes
+ *   just the entries that came due instead of scanning every cache.
+ * - Derived regions (grades, averages) are refreshed ahead: a getOrLoad read in the last fifth of the TTL returns the cached value
+ *   and recomputes it in the background, and for up to another fifth of the TTL a stale value
+ *   is served while that happens. setRefreshPolicy() changes this per region.
+ *
+ * The getOrLoad, load...Async and getAll methods compute a missing value once: callers that miss
+ * on the same student wait for the computation in flight instead of repeating it.
+ *
+ * Hit/miss/eviction counts are kept per region. startTrace()/stopTrace() record the keys
+ * read, so a workload can be replayed against other policies and sizes.
+ *
+ * Services keep their own caches (GPAs, compiled patterns) in named regions made by
+ * createRegion(), each with its own bound, TTL and policy. The manager holds them weakly: a
+ * region lives as long as its service, and while it does it shows up in the statistics and
+ * is cleared by invalidateAll() (and by invalidateStudent(), if keyed by student ID).
+ *
+ * Under memory pressure (MemoryPressureMonitor; the shared instance watches it) the manager
+ * sheds in priority order: each pressure report halves the budgets of the lowest-priority
+ * caches still above an eighth of their configured size (LOW regions, then NORMAL, then the
+ * HIGH student cache), so their coldest entries go first. Each relief report doubles the
+ * budgets back, highest priority first, until every cache is at its configured size.
+ *
+ * CacheCheckpoint saves the hot entries with their access frequencies and restores them,
+ * hottest first, after a restart.
+ */
+public class CacheManager implements MemoryPressureListener {
 
     private static CacheManager instance;
 
     // Cache configuration
-    private static final int MAX_CACHE_SIZE = 150;
+    private static final long MAX_CACHE_BYTES = 1024 * 1024; // shared by all regions
     private static final long CACHE_TTL = 300000; // 5 minutes in milliseconds
 
-    // Caches using ConcurrentHashMap for thread safety
-    private ConcurrentHashMap<String, CacheEntry<Student>> studentCache;
-    private ConcurrentHashMap<String, CacheEntry<List<Grade>>> studentGradesCache;
-    private ConcurrentHashMap<String, CacheEntry<Double>> studentAverageCache;
-    private ConcurrentHashMap<String, CacheEntry<Map<String, Double>>> subjectAverageCache;
+    private static final long MAX_MAINTENANCE_PERIOD = 1000; // milliseconds
+    private static final int MAX_SHED_STEPS = 3; // budgets shrink to no less than 1/8
+
+    // Advances the expiry wheels of all cache managers
+    private static final ScheduledExecutorService MAINTENANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Cache-Maintenance");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Runs load*Async loaders
+    private static final AtomicInteger LOADER_THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService LOADER_POOL = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+                Thread t = new Thread(r, "Cache-Loader-" + LOADER_THREAD_COUNT.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+
+    public enum Region {
+        STUDENT("Student"),
+        GRADES("Grades"),
+        AVERAGE("Average"),
+        SUBJECT_AVERAGE("Subject Average");
+
+        private final String displayName;
+
+        Region(String displayName) {
+            this.displayName = displayName;
+        }
 
-    // LRU tracking
-    private LinkedHashMap<String, Long> accessTimes;
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
 
-    // Statistics
-    private AtomicInteger cacheHits = new AtomicInteger(0);
-    private AtomicInteger cacheMisses = new AtomicInteger(0);
-    private AtomicInteger evictions = new AtomicInteger(0);
+    private static final class CacheKey {
+        final Region region;
+        final String id;
 
-    private static class CacheEntry<T> {
-        T data;
-        long timestamp;
-        long accessCount;
+        CacheKey(Region region, String id) {
+            this.region = region;
+            this.id = id;
+        }
 
-        CacheEntry(T data) {
-            this.data = data;
-            this.timestamp = System.currentTimeMillis();
-            this.accessCount = 1;
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CacheKey)) return false;
+            CacheKey other = (CacheKey) o;
+            return region == other.region && id.equals(other.id);
         }
 
-        boolean isExpired() {
-            return System.currentTimeMillis() - timestamp > CACHE_TTL;
+        @Override
+        public int hashCode() {
+            return 31 * region.hashCode() + id.hashCode();
         }
 
-        void recordAccess() {
-            accessCount++;
+        @Override
+        public String toString() {
+            return region.name() + ":" + id;
         }
     }
 
+    private final BoundedCache<CacheKey, Object> cache;
+
+    private static final long ENTRY_OVERHEAD =
+            BoundedCache.entryOverheadBytes() + MemoryEstimator.shallowSizeOf(CacheKey.class);
+
+    // Per-region statistics, indexed by Region.ordinal()
+    private final LongAdder[] hits = newAdders();
+    private final LongAdder[] misses = newAdders();
+    private final LongAdder[] evictions = newAdders();
+
+    private final long ttlMillis;
+    private final AtomicReferenceArray<BoundedCache.RefreshPolicy> refreshPolicies =
+            new AtomicReferenceArray<>(Region.values().length);
+
+    private volatile List<String> trace; // null unless recording
+
+    // Memory pressure shedding
+    private final long maximumBytes; // configured budget of the student cache
+    private final Object pressureLock = new Object();
+    private final LongAdder pressureEvents = new LongAdder();
+    private final LongAdder reliefSteps = new LongAdder();
+    private final LongAdder shedEntries = new LongAdder();
+    private final LongAdder reclaimedBytes = new LongAdder();
+
+    // Named regions of the services using this manager, in creation order
+    private final List<WeakReference<CacheRegion<?, ?>>> regions = new CopyOnWriteArrayList<>();
+
     public CacheManager() {
-        studentCache = new ConcurrentHashMap<>();
-        studentGradesCache = new ConcurrentHashMap<>();
-        studentAverageCache = new ConcurrentHashMap<>();
-        subjectAverageCache = new ConcurrentHashMap<>();
-
-        // LRU tracking with access order
-        accessTimes = new LinkedHashMap<>(16, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
-                return size() > MAX_CACHE_SIZE;
+        this(MAX_CACHE_BYTES, BoundedCache.Policy.W_TINYLFU);
+    }
+
+    public CacheManager(long maximumBytes, BoundedCache.Policy policy) {
+        this(maximumBytes, policy, CACHE_TTL);
+    }
+
+    public CacheManager(long maximumBytes, BoundedCache.Policy policy, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.maximumBytes = maximumBytes;
+        cache = new BoundedCache<>(maximumBytes, policy, ttlMillis, CacheManager::weigh);
+        BoundedCache.RefreshPolicy derived = new BoundedCache.RefreshPolicy(ttlMillis * 4 / 5, ttlMillis / 5);
+        refreshPolicies.set(Region.STUDENT.ordinal(), BoundedCache.RefreshPolicy.NONE); // kept current by the change feed
+        refreshPolicies.set(Region.GRADES.ordinal(), derived);
+        refreshPolicies.set(Region.AVERAGE.ordinal(), derived);
+        refreshPolicies.set(Region.SUBJECT_AVERAGE.ordinal(), derived);
+        cache.setRefreshPolicy(key -> refreshPolicies.get(key.region.ordinal()), LOADER_POOL);
+        cache.setRemovalListener((key, value, cause) -> {
+            if (cause == BoundedCache.RemovalCause.SIZE || cause == BoundedCache.RemovalCause.EXPIRED) {
+                evictions[key.region.ordinal()].increment();
             }
-        };
+        });
 
-        // Start background cleanup thread
-        startCleanupThread();
+        // Reclaim expired entries in the background, close to when they expire
+        if (ttlMillis > 0) {
+            scheduleMaintenance(cache, Math.max(10, Math.min(MAX_MAINTENANCE_PERIOD, ttlMillis / 10)));
+        }
     }
 
     public static synchronized CacheManager getInstance() {
         if (instance == null) {
             instance = new CacheManager();
+            MemoryPressureMonitor.getInstance().addListener(instance);
         }
         return instance;
     }
 
+    /**
+     * Retained bytes of one entry: the cache's node and table slot, the key, and what the
+     * cache copied (grade lists, subject-average maps, boxed averages).
+     * Time Complexity: O(1)
+     */
+    private static int weigh(CacheKey key, Object value) {
+        long bytes = ENTRY_OVERHEAD;
+        switch (key.region) {
+            case GRADES:
+                @SuppressWarnings("unchecked")
+                List<Grade> grades = (List<Grade>) value;
+                bytes += MemoryEstimator.sizeOfGradeList(grades, false);
+                break;
+            case AVERAGE:
+                bytes += MemoryEstimator.sizeOfBoxedDouble();
+                break;
+            case SUBJECT_AVERAGE:
+                @SuppressWarnings("unchecked")
+                Map<String, Double> averages = (Map<String, Double>) value;
+                bytes += MemoryEstimator.sizeOfDoubleMap(averages, false);
+                break;
+            default:
+                break; // the Student is StudentManager's
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[Region.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
     // Student caching
     public Student getStudent(String studentId) {
-        CacheEntry<Student> entry = studentCache.get(studentId);
-        if (entry != null && !entry.isExpired()) {
-            entry.recordAccess();
-            cacheHits.incrementAndGet();
-            updateAccessTime("student:" + studentId);
-            return entry.data;
-        }
-        cacheMisses.incrementAndGet();
-        return null;
+        return (Student) lookup(Region.STUDENT, studentId);
     }
 
     public void cacheStudent(Student student) {
         if (student == null) return;
-
-        ensureCacheSpace();
-        studentCache.put(student.getStudentId(), new CacheEntry<>(student));
-        updateAccessTime("student:" + student.getStudentId());
+        store(Region.STUDENT, student.getStudentId(), student);
     }
 
     // Student grades caching
+    @SuppressWarnings("unchecked")
     public List<Grade> getStudentGrades(String studentId) {
-        CacheEntry<List<Grade>> entry = studentGradesCache.get(studentId);
-        if (entry != null && !entry.isExpired()) {
-            entry.recordAccess();
-            cacheHits.incrementAndGet();
-            updateAccessTime("grades:" + studentId);
-            return new ArrayList<>(entry.data); // Return copy for safety
-        }
-        cacheMisses.incrementAndGet();
-        return null;
+        List<Grade> grades = (List<Grade>) lookup(Region.GRADES, studentId);
+        return grades != null ? new ArrayList<>(grades) : null; // Return copy for safety
     }
 
     public void cacheStudentGrades(String studentId, List<Grade> grades) {
         if (grades == null) return;
-
-        ensureCacheSpace();
-        studentGradesCache.put(studentId, new CacheEntry<>(new ArrayList<>(grades)));
-        updateAccessTime("grades:" + studentId);
+        store(Region.GRADES, studentId, new ArrayList<>(grades));
     }
 
     // Student average caching
     public Double getStudentAverage(String studentId) {
-        CacheEntry<Double> entry = studentAverageCache.get(studentId);
-        if (entry != null && !entry.isExpired()) {
-            entry.recordAccess();
-            cacheHits.incrementAndGet();
-            updateAccessTime("average:" + studentId);
-            return entry.data;
-        }
-        cacheMisses.incrementAndGet();
-        return null;
+        return (Double) lookup(Region.AVERAGE, studentId);
     }
 
     public void cacheStudentAverage(String studentId, Double average) {
         if (average == null) return;
-
-        ensureCacheSpace();
-        studentAverageCache.put(studentId, new CacheEntry<>(average));
-        updateAccessTime("average:" + studentId);
+        store(Region.AVERAGE, studentId, average);
     }
 
     // Subject average caching
+    @SuppressWarnings("unchecked")
     public Map<String, Double> getSubjectAverages(String studentId) {
-        CacheEntry<Map<String, Double>> entry = subjectAverageCache.get(studentId);
-        if (entry != null && !entry.isExpired()) {
-            entry.recordAccess();
-            cacheHits.incrementAndGet();
-            updateAccessTime("subjectAvg:" + studentId);
-            return new HashMap<>(entry.data);
-        }
-        cacheMisses.incrementAndGet();
-        return null;
+        Map<String, Double> averages = (Map<String, Double>) lookup(Region.SUBJECT_AVERAGE, studentId);
+        return averages != null ? new HashMap<>(averages) : null;
     }
 
     public void cacheSubjectAverages(String studentId, Map<String, Double> averages) {
         if (averages == null) return;
+        store(Region.SUBJECT_AVERAGE, studentId, new HashMap<>(averages));
+    }
+
+    private Object lookup(Region region, String id) {
+        recordTrace(region, id);
+        Object value = cache.get(new CacheKey(region, id));
+        (value != null ? hits : misses)[region.ordinal()].increment();
+        return value;
+    }
+
+    private void store(Region region, String id, Object value) {
+        cache.put(new CacheKey(region, id), value);
+    }
+
+    // Loading (single computation per key in flight)
+
+    public Student getOrLoadStudent(String studentId, Function<String, Student> loader) {
+        return (Student) getOrLoad(Region.STUDENT, studentId, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Grade> getOrLoadStudentGrades(String studentId, Function<String, List<Grade>> loader) {
+        List<Grade> grades = (List<Grade>) getOrLoad(Region.GRADES, studentId,
+                id -> { List<Grade> loaded = loader.apply(id); return loaded != null ? new ArrayList<>(loaded) : null; });
+        return grades != null ? new ArrayList<>(grades) : null;
+    }
+
+    public Double getOrLoadStudentAverage(String studentId, Function<String, Double> loader) {
+        return (Double) getOrLoad(Region.AVERAGE, studentId, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Double> getOrLoadSubjectAverages(String studentId, Function<String, Map<String, Double>> loader) {
+        Map<String, Double> averages = (Map<String, Double>) getOrLoad(Region.SUBJECT_AVERAGE, studentId,
+                id -> { Map<String, Double> loaded = loader.apply(id); return loaded != null ? new HashMap<>(loaded) : null; });
+        return averages != null ? new HashMap<>(averages) : null;
+    }
+
+    /**
+     * Average from the cache, or computed on the cache's loader threads.
+     */
+    public CompletableFuture<Double> loadStudentAverageAsync(String studentId, Function<String, Double> loader) {
+        return loadAsync(Region.AVERAGE, studentId, loader).thenApply(value -> (Double) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Map<String, Double>> loadSubjectAveragesAsync(String studentId,
+                                                                         Function<String, Map<String, Double>> loader) {
+        return loadAsync(Region.SUBJECT_AVERAGE, studentId, id -> {
+            Map<String, Double> loaded = loader.apply(id);
+            return loaded != null ? new HashMap<>(loaded) : null;
+        }).thenApply(value -> value != null ? new HashMap<>((Map<String, Double>) value) : null);
+    }
+
+    /**
+     * Averages for all students; the missing ones are computed in one call of bulkLoader.
+     * @return averages by student ID, for the students that have one
+     */
+    public Map<String, Double> getAllStudentAverages(Collection<String> studentIds,
+                                                     Function<Set<String>, Map<String, Double>> bulkLoader) {
+        Map<String, Double> averages = new LinkedHashMap<>();
+        getAll(Region.AVERAGE, studentIds, bulkLoader).forEach((id, value) -> averages.put(id, (Double) value));
+        return averages;
+    }
+
+    /**
+     * Subject averages for all students; the missing ones are computed in one call of bulkLoader.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<String, Double>> getAllSubjectAverages(Collection<String> studentIds,
+                                                                  Function<Set<String>, Map<String, Map<String, Double>>> bulkLoader) {
+        Map<String, Map<String, Double>> averages = new LinkedHashMap<>();
+        getAll(Region.SUBJECT_AVERAGE, studentIds, bulkLoader)
+                .forEach((id, value) -> averages.put(id, new HashMap<>((Map<String, Double>) value)));
+        return averages;
+    }
+
+    private Object getOrLoad(Region region, String id, Function<String, ?> loader) {
+        recordTrace(region, id);
+        CacheKey key = new CacheKey(region, id);
+        Function<CacheKey, Object> keyLoader = k -> loader.apply(k.id);
+        Object value = cache.getOrRefresh(key, keyLoader);
+        if (value != null) {
+            hits[region.ordinal()].increment();
+            return value;
+        }
+        misses[region.ordinal()].increment();
+        return cache.loadAfterMiss(key, keyLoader);
+    }
+
+    private CompletableFuture<Object> loadAsync(Region region, String id, Function<String, ?> loader) {
+        recordTrace(region, id);
+        CacheKey key = new CacheKey(region, id);
+        Function<CacheKey, Object> keyLoader = k -> loader.apply(k.id);
+        Object value = cache.getOrRefresh(key, keyLoader);
+        if (value != null) {
+            hits[region.ordinal()].increment();
+            return CompletableFuture.completedFuture(value);
+        }
+        misses[region.ordinal()].increment();
+        return cache.loadAfterMiss(key, keyLoader, LOADER_POOL);
+    }
+
+    /**
+     * Refresh-ahead for one region, for entries cached from now on.
+     * @param refreshAfterMillis age at which a getOrLoad read recomputes in the background (0 = off)
+     * @param maxStaleMillis     how long past the TTL such reads may still serve the old value
+     */
+    public void setRefreshPolicy(Region region, long refreshAfterMillis, long maxStaleMillis) {
+        refreshPolicies.set(region.ordinal(), new BoundedCache.RefreshPolicy(refreshAfterMillis, maxStaleMillis));
+    }
+
+    public BoundedCache.RefreshPolicy getRefreshPolicy(Region region) {
+        return refreshPolicies.get(region.ordinal());
+    }
+
+    public long getRefreshCount() {
+        return cache.refreshCount();
+    }
+
+    public long getRefreshFailureCount() {
+        return cache.refreshFailureCount();
+    }
+
+    public long getStaleHitCount() {
+        return cache.staleHitCount();
+    }
+
+    public double getAverageRefreshMillis() {
+        return cache.averageRefreshMillis();
+    }
+
+    public double getMaxRefreshMillis() {
+        return cache.maxRefreshMillis();
+    }
+
+    private Map<String, Object> getAll(Region region, Collection<String> ids,
+                                       Function<Set<String>, ? extends Map<String, ?>> bulkLoader) {
+        List<CacheKey> keys = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            recordTrace(region, id);
+            keys.add(new CacheKey(region, id));
+        }
+        int[] loadedCount = new int[1];
+        Map<CacheKey, Object> found = cache.getAll(keys, missing -> {
+            loadedCount[0] = missing.size();
+            Set<String> missingIds = new LinkedHashSet<>();
+            for (CacheKey key : missing) {
+                missingIds.add(key.id);
+            }
+            Map<String, ?> loaded = bulkLoader.apply(missingIds);
+            Map<CacheKey, Object> byKey = new HashMap<>();
+            if (loaded != null) {
+                loaded.forEach((id, value) -> byKey.put(new CacheKey(region, id), value));
+            }
+            return byKey;
+        });
+        // Keys another caller was already loading count as hits
+        misses[region.ordinal()].add(loadedCount[0]);
+        hits[region.ordinal()].add(keys.size() - loadedCount[0]);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        found.forEach((key, value) -> result.put(key.id, value));
+        return result;
+    }
+
+    /**
+     * Keeps the cache in step with the model: a grade added or corrected drops that student's
+     * grades, average and subject averages (the student entry itself is still valid), and the
+     * student's entries in regions keyed by student ID.
+     */
+    public void attachTo(ChangeFeed feed) {
+        feed.subscribe(batch -> {
+            for (ChangeEvent event : batch) {
+                if (event.getType() == ChangeEvent.Type.GRADE_ADDED || event.getType() == ChangeEvent.Type.GRADE_UPDATED) {
+                    invalidateGradeData(event.getStudentId());
+                }
+            }
+        });
+    }
 
-        ensureCacheSpace();
-        subjectAverageCache.put(studentId, new CacheEntry<>(new HashMap<>(averages)));
-        updateAccessTime("subjectAvg:" + studentId);
+    /**
+     * Drops the student's grades, average, subject averages and entries in regions keyed by
+     * student ID; the student entry stays (used for grade changes made elsewhere, see
+     * InvalidationBus).
+     */
+    public void invalidateGradeData(String studentId) {
+        cache.remove(new CacheKey(Region.GRADES, studentId));
+        cache.remove(new CacheKey(Region.AVERAGE, studentId));
+        cache.remove(new CacheKey(Region.SUBJECT_AVERAGE, studentId));
+        for (CacheRegion<?, ?> region : getRegions()) {
+            region.invalidateStudent(studentId);
+        }
     }
 
     // Cache invalidation
     public void invalidateStudent(String studentId) {
-        studentCache.remove(studentId);
-        studentGradesCache.remove(studentId);
-        studentAverageCache.remove(studentId);
-        subjectAverageCache.remove(studentId);
-
-        // Remove from LRU tracking
-        accessTimes.keySet().removeIf(key -> key.contains(studentId));
+        cache.remove(new CacheKey(Region.STUDENT, studentId));
+        invalidateGradeData(studentId);
     }
 
     public void invalidateAll() {
-        studentCache.clear();
-        studentGradesCache.clear();
-        studentAverageCache.clear();
-        subjectAverageCache.clear();
-        accessTimes.clear();
-        evictions.set(0);
+        cache.clear();
+        for (LongAdder adder : evictions) {
+            adder.reset();
+        }
+        for (CacheRegion<?, ?> region : getRegions()) {
+            region.invalidateAll();
+        }
+    }
+
+    // Memory pressure
+
+    // A cache with the budget it was configured with
+    private static final class Budget {
+        final BoundedCache<?, ?> cache;
+        final long configured;
+        final boolean bytes;
+
+        Budget(BoundedCache<?, ?> cache, long configured, boolean bytes) {
+            this.cache = cache;
+            this.configured = configured;
+            this.bytes = bytes;
+        }
+    }
+
+    // Budgets of one priority tier
+    private List<Budget> budgets(CacheRegion.Priority priority) {
+        List<Budget> budgets = new ArrayList<>();
+        if (priority == CacheRegion.Priority.HIGH) {
+            budgets.add(new Budget(cache, maximumBytes, true));
+        }
+        for (CacheRegion<?, ?> region : getRegions()) {
+            CacheRegion.Spec<?, ?> spec = region.getSpec();
+            if (spec.getPriority() == priority) {
+                budgets.add(new Budget(region.cache(), spec.getMaximumWeight(), spec.isWeighed()));
+            }
+        }
+        return budgets;
+    }
+
+    /**
+     * Halves the budgets of the lowest-priority tier that can still shrink; shrinking evicts
+     * each cache's coldest entries at once.
+     * Time Complexity: O(e) for the e entries evicted
+     */
+    @Override
+    public void onMemoryPressure(String poolName, long usedBytes, long maxBytes) {
+        synchronized (pressureLock) {
+            pressureEvents.increment();
+            for (CacheRegion.Priority priority : CacheRegion.Priority.values()) {
+                boolean shed = false;
+                for (Budget budget : budgets(priority)) {
+                    long floor = budget.configured >> MAX_SHED_STEPS;
+                    long current = budget.cache.getMaximumWeight();
+                    if (current <= floor) continue;
+                    int sizeBefore = budget.cache.size();
+                    long weightBefore = budget.cache.weightedSize();
+                    budget.cache.setMaximumWeight(Math.max(floor, current / 2));
+                    shedEntries.add(Math.max(0, sizeBefore - budget.cache.size()));
+                    if (budget.bytes) {
+                        reclaimedBytes.add(Math.max(0, weightBefore - budget.cache.weightedSize()));
+                    }
+                    shed = true;
+                }
+                if (shed) return;
+            }
+        }
+    }
+
+    /**
+     * Doubles back the budgets of the highest-priority tier still below its configured size.
+     */
+    @Override
+    public void onMemoryRelief(String poolName, long usedBytes, long maxBytes) {
+        CacheRegion.Priority[] priorities = CacheRegion.Priority.values();
+        synchronized (pressureLock) {
+            for (int i = priorities.length - 1; i >= 0; i--) {
+                boolean grown = false;
+                for (Budget budget : budgets(priorities[i])) {
+                    long current = budget.cache.getMaximumWeight();
+                    if (current >= budget.configured) continue;
+                    budget.cache.setMaximumWeight(Math.min(budget.configured, Math.max(1, current * 2)));
+                    grown = true;
+                }
+                if (grown) {
+                    reliefSteps.increment();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * True while any cache is below its configured budget.
+     */
+    public boolean isShedding() {
+        synchronized (pressureLock) {
+            for (CacheRegion.Priority priority : CacheRegion.Priority.values()) {
+                for (Budget budget : budgets(priority)) {
+                    if (budget.cache.getMaximumWeight() < budget.configured) return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public long getPressureEventCount() {
+        return pressureEvents.sum();
+    }
+
+    public long getShedEntryCount() {
+        return shedEntries.sum();
+    }
+
+    /**
+     * Bytes evicted by shedding from the byte-bounded caches (the student cache and regions
+     * made with ofBytes()).
+     */
+    public long getReclaimedBytes() {
+        return reclaimedBytes.sum();
+    }
+
+    // Named regions
+
+    /**
+     * New region with its own bound, TTL and policy. Names are for display and lookup; a
+     * service that is created again gets a fresh region under the same name.
+     */
+    public <K, V> CacheRegion<K, V> createRegion(String name, CacheRegion.Spec<K, V> spec) {
+        CacheRegion<K, V> region = new CacheRegion<>(name, spec);
+        if (spec.getTtlMillis() > 0) {
+            scheduleMaintenance(region.cache(),
+                    Math.max(10, Math.min(MAX_MAINTENANCE_PERIOD, spec.getTtlMillis() / 10)));
+        }
+        regions.add(new WeakReference<>(region));
+        return region;
+    }
+
+    /**
+     * Live regions in creation order (regions of collected services are dropped).
+     * Time Complexity: O(r)
+     */
+    public List<CacheRegion<?, ?>> getRegions() {
+        List<CacheRegion<?, ?>> live = new ArrayList<>();
+        for (WeakReference<CacheRegion<?, ?>> reference : regions) {
+            CacheRegion<?, ?> region = reference.get();
+            if (region != null) {
+                live.add(region);
+            } else {
+                regions.remove(reference);
+            }
+        }
+        return live;
+    }
+
+    /**
+     * @return the most recently created live region with this name, or null
+     */
+    public CacheRegion<?, ?> getRegion(String name) {
+        CacheRegion<?, ?> found = null;
+        for (CacheRegion<?, ?> region : getRegions()) {
+            if (region.getName().equals(name)) found = region;
+        }
+        return found;
     }
 
     // Cache warming
@@ -186,111 +645,236 @@ public class CacheManager {
         System.out.println("✓ Cache warming complete");
     }
 
+    // Checkpointing (CacheCheckpoint)
+
+    /**
+     * Entries of the shared cache and of the regions keyed by student ID, with the access
+     * frequency eviction ranks them by.
+     * Time Complexity: O(n) over the cached entries
+     */
+    List<CacheCheckpoint.Entry> checkpointEntries() {
+        List<CacheCheckpoint.Entry> entries = new ArrayList<>();
+        cache.forEachWithFrequency((key, value, frequency) -> entries.add(
+                new CacheCheckpoint.Entry(key.region, null, key.id, frequency, value, cache, key)));
+        for (CacheRegion<?, ?> region : getRegions()) {
+            if (region.getSpec().isKeyedByStudent()) {
+                addCheckpointEntries(region, entries);
+            }
+        }
+        return entries;
+    }
+
+    private static <K, V> void addCheckpointEntries(CacheRegion<K, V> region, List<CacheCheckpoint.Entry> entries) {
+        BoundedCache<K, V> regionCache = region.cache();
+        regionCache.forEachWithFrequency((key, value, frequency) -> entries.add(
+                new CacheCheckpoint.Entry(null, region.getName(), (String) key, frequency, value, regionCache, key)));
+    }
+
+    /**
+     * Caches a checkpointed entry of a built-in region (or of the named region, if region is
+     * null) unless the key is already cached or the cache is full, and credits it with its past
+     * accesses. The loader runs as a cache load: an invalidation while it runs discards the result.
+     * @return true if the loaded value was cached
+     */
+    boolean restore(Region region, String regionName, String id, int frequency, Function<String, ?> loader) {
+        if (region != null) {
+            return restoreInto(cache, new CacheKey(region, id), frequency, key -> loader.apply(key.id));
+        }
+        CacheRegion<?, ?> target = getRegion(regionName);
+        if (target == null || !target.getSpec().isKeyedByStudent()) return false;
+        @SuppressWarnings("unchecked")
+        BoundedCache<String, Object> regionCache = (BoundedCache<String, Object>) target.cache();
+        return restoreInto(regionCache, id, frequency, loader::apply);
+    }
+
+    private static <K> boolean restoreInto(BoundedCache<K, Object> target, K key, int frequency,
+                                           Function<K, Object> loader) {
+        if (target.peek(key) != null || target.weightedSize() >= target.getMaximumWeight()) return false;
+        Object value = target.loadAfterMiss(key, loader);
+        if (value == null || target.peek(key) != value) return false;
+        target.recordAccesses(key, frequency);
+        return true;
+    }
+
+    // Access trace recording
+
+    /**
+     * Starts recording every key read through this manager (as "REGION:id").
+     */
+    public void startTrace() {
+        trace = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    private void recordTrace(Region region, String id) {
+        List<String> recording = trace;
+        if (recording != null) {
+            recording.add(region.name() + ":" + id);
+        }
+    }
+
+    /**
+     * @return the keys read since startTrace(), in order (empty if not recording)
+     */
+    public List<String> stopTrace() {
+        List<String> recorded = trace;
+        trace = null;
+        if (recorded == null) return Collections.emptyList();
+        synchronized (recorded) {
+            return new ArrayList<>(recorded);
+        }
+    }
+
     // Statistics
     public void displayCacheStatistics() {
         System.out.println("\n=== CACHE STATISTICS ===");
-        System.out.println("Cache Type           | Entries | Memory (est)");
-        System.out.println("----------------------------------------------");
-
-        System.out.printf("Student Cache        | %7d | %6.1f KB%n",
-                studentCache.size(), estimateMemory(studentCache) / 1024.0);
-        System.out.printf("Grades Cache         | %7d | %6.1f KB%n",
-                studentGradesCache.size(), estimateMemory(studentGradesCache) / 1024.0);
-        System.out.printf("Average Cache        | %7d | %6.1f KB%n",
-                studentAverageCache.size(), estimateMemory(studentAverageCache) / 1024.0);
-        System.out.printf("Subject Average Cache| %7d | %6.1f KB%n",
-                subjectAverageCache.size(), estimateMemory(subjectAverageCache) / 1024.0);
+        System.out.println("Cache Type           | Entries |   Hits | Misses | Evicted | Memory    | Bytes/entry");
+        System.out.println("-----------------------------------------------------------------------------------");
+
+        long[][] totals = regionTotals();
+        for (Region region : Region.values()) {
+            int i = region.ordinal();
+            long entries = totals[0][i];
+            System.out.printf("%-21s| %7d | %6d | %6d | %7d | %9s | %6d%n",
+                    region.getDisplayName() + " Cache", entries, hits[i].sum(), misses[i].sum(), evictions[i].sum(),
+                    MemoryEstimator.formatBytes(totals[1][i]), entries > 0 ? totals[1][i] / entries : 0);
+        }
 
         System.out.println("\nPerformance Metrics:");
-        int totalRequests = cacheHits.get() + cacheMisses.get();
+        long hitCount = sum(hits);
+        long totalRequests = hitCount + sum(misses);
         if (totalRequests > 0) {
-            double hitRate = (cacheHits.get() * 100.0) / totalRequests;
+            double hitRate = (hitCount * 100.0) / totalRequests;
             System.out.printf("Hit Rate:            %6.1f%% (%d/%d)%n",
-                    hitRate, cacheHits.get(), totalRequests);
+                    hitRate, hitCount, totalRequests);
             System.out.printf("Miss Rate:           %6.1f%% (%d/%d)%n",
-                    100 - hitRate, cacheMisses.get(), totalRequests);
+                    100 - hitRate, totalRequests - hitCount, totalRequests);
         }
 
-        System.out.printf("Evictions:           %7d (LRU policy)%n", evictions.get());
-        System.out.printf("Total Memory:        %6.1f KB%n",
-                (estimateMemory(studentCache) + estimateMemory(studentGradesCache) +
-                        estimateMemory(studentAverageCache) + estimateMemory(subjectAverageCache)) / 1024.0);
+        System.out.printf("Evictions:           %7d (%s policy)%n", sum(evictions), cache.getPolicy());
+        System.out.printf("Total Memory:        %9s%n", MemoryEstimator.formatBytes(cache.weightedSize()));
 
-        System.out.println("\nLRU Status:");
-        System.out.printf("Max Size:            %7d entries%n", MAX_CACHE_SIZE);
-        System.out.printf("Current Size:        %7d entries%n", accessTimes.size());
-        System.out.printf("TTL:                 %7d minutes%n", CACHE_TTL / 60000);
-    }
+        System.out.println("\nBound Status:");
+        long maximum = cache.getMaximumWeight();
+        System.out.printf("Max Size:            %9s (shared by all caches)%n", MemoryEstimator.formatBytes(maximum));
+        System.out.printf("Current Size:        %9s in %d entries (%.1f%% of the budget)%n",
+                MemoryEstimator.formatBytes(cache.weightedSize()), cache.size(),
+                maximum > 0 ? cache.weightedSize() * 100.0 / maximum : 0.0);
+        System.out.printf("TTL:                 %7d minutes%n", ttlMillis / 60000);
 
-    private void ensureCacheSpace() {
-        if (accessTimes.size() >= MAX_CACHE_SIZE * 0.8) { // 80% threshold
-            cleanupExpiredEntries();
+        System.out.println("\nRefresh-Ahead:");
+        for (Region region : Region.values()) {
+            System.out.printf("%-21s| %s%n", region.getDisplayName(), refreshPolicies.get(region.ordinal()));
+        }
+        System.out.printf("Refreshes:           %7d (%d failed)%n", cache.refreshCount(), cache.refreshFailureCount());
+        System.out.printf("Refresh Latency:     %7.2f ms avg, %.2f ms max%n",
+                cache.averageRefreshMillis(), cache.maxRefreshMillis());
+        System.out.printf("Stale Served:        %7d%n", cache.staleHitCount());
+        System.out.printf("Loads:               %7d (%d waited on another caller's load, %.2f ms avg)%n",
+                cache.loadSuccessCount(), cache.loadWaitCount(), cache.averageLoadMillis());
+
+        System.out.println("\nMemory Pressure:");
+        System.out.printf("Pressure Events:     %7d (%d relief steps)%n", pressureEvents.sum(), reliefSteps.sum());
+        System.out.printf("Shed:                %7d entries, %s reclaimed%n",
+                shedEntries.sum(), MemoryEstimator.formatBytes(reclaimedBytes.sum()));
+        System.out.printf("Student Cache Budget: %s of %s%s%n", MemoryEstimator.formatBytes(cache.getMaximumWeight()),
+                MemoryEstimator.formatBytes(maximumBytes), isShedding() ? " (shedding)" : "");
+
+        List<CacheRegion<?, ?>> live = getRegions();
+        if (!live.isEmpty()) {
+            System.out.println("\nService Regions:");
+            System.out.println("Region               | Entries |   Hits | Misses | Evicted | Hit Rate | Bound");
+            System.out.println("--------------------------------------------------------------------------------------------");
+            for (CacheRegion<?, ?> region : live) {
+                long bound = region.getMaximumWeight();
+                System.out.printf("%-21s| %7d | %6d | %6d | %7d | %7.1f%% | %s%s%n",
+                        region.getName(), region.size(), region.hitCount(), region.missCount(),
+                        region.evictionCount(), region.hitRate(), region.getSpec(),
+                        bound < region.getSpec().getMaximumWeight() ? " (shrunk to " + bound + ")" : "");
+            }
         }
     }
 
     public double getCacheHitRate() {
-        int total = cacheHits.get() + cacheMisses.get();
-        return total > 0 ? (cacheHits.get() * 100.0) / total : 0.0;
+        long hitCount = sum(hits);
+        long total = hitCount + sum(misses);
+        return total > 0 ? (hitCount * 100.0) / total : 0.0;
     }
 
-    private void cleanupExpiredEntries() {
-        int evicted = 0;
+    public long getHitCount(Region region) {
+        return hits[region.ordinal()].sum();
+    }
 
-        // Clean expired entries from all caches
-        evicted += cleanupCache(studentCache, "student:");
-        evicted += cleanupCache(studentGradesCache, "grades:");
-        evicted += cleanupCache(studentAverageCache, "average:");
-        evicted += cleanupCache(subjectAverageCache, "subjectAvg:");
+    public long getMissCount(Region region) {
+        return misses[region.ordinal()].sum();
+    }
 
-        evictions.addAndGet(evicted);
+    public long getEvictionCount(Region region) {
+        return evictions[region.ordinal()].sum();
+    }
 
-        if (evicted > 0) {
-            System.out.println("Cleaned up " + evicted + " expired cache entries");
-        }
+    /**
+     * Time Complexity: O(n) over the cached entries
+     */
+    public long getEntryCount(Region region) {
+        return regionTotals()[0][region.ordinal()];
     }
 
-    private <T> int cleanupCache(ConcurrentHashMap<String, CacheEntry<T>> cache, String prefix) {
-        int evicted = 0;
-        List<String> toRemove = new ArrayList<>();
+    /**
+     * Retained bytes of the region's entries.
+     * Time Complexity: O(n) over the cached entries
+     */
+    public long getMemoryBytes(Region region) {
+        return regionTotals()[1][region.ordinal()];
+    }
 
-        for (Map.Entry<String, CacheEntry<T>> entry : cache.entrySet()) {
-            if (entry.getValue().isExpired()) {
-                toRemove.add(entry.getKey());
-            }
-        }
+    /**
+     * Retained bytes of all cached entries (never above the budget).
+     */
+    public long getTotalMemoryBytes() {
+        return cache.weightedSize();
+    }
 
-        for (String key : toRemove) {
-            cache.remove(key);
-            accessTimes.remove(prefix + key);
-            evicted++;
-        }
+    public long getMaximumBytes() {
+        return cache.getMaximumWeight();
+    }
 
-        return evicted;
+    // { entry counts, bytes } by region
+    private long[][] regionTotals() {
+        long[][] totals = new long[2][Region.values().length];
+        cache.forEach((key, value) -> {
+            totals[0][key.region.ordinal()]++;
+            totals[1][key.region.ordinal()] += weigh(key, value);
+        });
+        return totals;
     }
 
-    private void updateAccessTime(String key) {
-        accessTimes.put(key, System.currentTimeMillis());
+    /**
+     * Entries currently cached across all regions.
+     */
+    public int size() {
+        return cache.size();
     }
 
-    private long estimateMemory(ConcurrentHashMap<?, ?> map) {
-        // Rough estimation: 100 bytes per entry
-        return map.size() * 100L;
+    private static long sum(LongAdder[] adders) {
+        long total = 0;
+        for (LongAdder adder : adders) {
+            total += adder.sum();
+        }
+        return total;
     }
 
-    private void startCleanupThread() {
-        Thread cleanupThread = new Thread(() -> {
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    Thread.sleep(CACHE_TTL / 2); // Clean every half TTL
-                    cleanupExpiredEntries();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+    // Advances the cache's expiry wheel every maintenance period until the cache is collected
+    private static void scheduleMaintenance(BoundedCache<?, ?> cache, long periodMillis) {
+        WeakReference<BoundedCache<?, ?>> reference = new WeakReference<>(cache);
+        AtomicReference<ScheduledFuture<?>> handle = new AtomicReference<>();
+        handle.set(MAINTENANCE.scheduleWithFixedDelay(() -> {
+            BoundedCache<?, ?> target = reference.get();
+            if (target == null) {
+                ScheduledFuture<?> self = handle.get();
+                if (self != null) self.cancel(false);
+                return;
             }
-        });
-        cleanupThread.setDaemon(true);
-        cleanupThread.setName("Cache-Cleanup-Thread");
-        cleanupThread.start();
+            target.cleanUp();
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS));
     }
-}
\ No newline at end of file
+}
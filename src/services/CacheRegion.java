@@ -0,0 +1,251 @@
+package services;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A named cache owned by one service, created through CacheManager.createRegion().
+ *
+ * Each region has its own bound, TTL and eviction policy (Spec) and its own BoundedCache, so a
+ * burst in one service never evicts another's entries. CacheManager keeps track of the live
+ * regions for shared statistics and central invalidation: invalidateAll() clears every region,
+ * and invalidateStudent() drops the student from the regions keyed by student ID.
+ *
+ * Under memory pressure CacheManager shrinks regions in Priority order, lowest first.
+ *
+ * Thread-safe; getOrLoad computes a missing value once per key even under concurrent callers.
+ */
+public final class CacheRegion<K, V> {
+
+    /**
+     * Order in which caches give up memory under pressure: LOW first, HIGH last.
+     */
+    public enum Priority {
+        /** Cheap to rebuild (compiled patterns) */
+        LOW,
+        NORMAL,
+        /** Costly to lose (the students and averages served to every screen) */
+        HIGH
+    }
+
+    /**
+     * Bound, expiry and policy of a region. Immutable; the with... methods return a copy.
+     */
+    public static final class Spec<K, V> {
+        private final long maximumWeight;
+        private final BoundedCache.Weigher<? super K, ? super V> weigher; // null = one per entry
+        private final BoundedCache.Policy policy;
+        private final long ttlMillis;
+        private final boolean keyedByStudent;
+        private final Priority priority;
+
+        private Spec(long maximumWeight, BoundedCache.Weigher<? super K, ? super V> weigher,
+                     BoundedCache.Policy policy, long ttlMillis, boolean keyedByStudent, Priority priority) {
+            if (maximumWeight < 0) {
+                throw new IllegalArgumentException("maximum must not be negative: " + maximumWeight);
+            }
+            if (ttlMillis < 0) {
+                throw new IllegalArgumentException("ttlMillis must not be negative: " + ttlMillis);
+            }
+            this.maximumWeight = maximumWeight;
+            this.weigher = weigher;
+            this.policy = Objects.requireNonNull(policy, "policy");
+            this.ttlMillis = ttlMillis;
+            this.keyedByStudent = keyedByStudent;
+            this.priority = Objects.requireNonNull(priority, "priority");
+        }
+
+        /**
+         * At most maximumSize entries, W-TinyLFU, no expiry.
+         */
+        public static <K, V> Spec<K, V> ofSize(long maximumSize) {
+            return new Spec<>(maximumSize, null, BoundedCache.Policy.W_TINYLFU, 0, false, Priority.NORMAL);
+        }
+
+        /**
+         * At most maximumBytes as measured by the weigher, W-TinyLFU, no expiry.
+         */
+        public static <K, V> Spec<K, V> ofBytes(long maximumBytes, BoundedCache.Weigher<? super K, ? super V> weigher) {
+            return new Spec<>(maximumBytes, Objects.requireNonNull(weigher, "weigher"),
+                    BoundedCache.Policy.W_TINYLFU, 0, false, Priority.NORMAL);
+        }
+
+        public Spec<K, V> withPolicy(BoundedCache.Policy policy) {
+            return new Spec<>(maximumWeight, weigher, policy, ttlMillis, keyedByStudent, priority);
+        }
+
+        /**
+         * Entries expire this long after they were written (0 = never).
+         */
+        public Spec<K, V> withTtl(long ttlMillis) {
+            return new Spec<>(maximumWeight, weigher, policy, ttlMillis, keyedByStudent, priority);
+        }
+
+        /**
+         * Keys are student IDs: CacheManager.invalidateStudent() reaches this region.
+         */
+        public Spec<K, V> keyedByStudent() {
+            return new Spec<>(maximumWeight, weigher, policy, ttlMillis, true, priority);
+        }
+
+        /**
+         * Shedding order under memory pressure (NORMAL by default).
+         */
+        public Spec<K, V> withPriority(Priority priority) {
+            return new Spec<>(maximumWeight, weigher, policy, ttlMillis, keyedByStudent, priority);
+        }
+
+        public long getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public boolean isWeighed() {
+            return weigher != null;
+        }
+
+        public BoundedCache.Policy getPolicy() {
+            return policy;
+        }
+
+        public long getTtlMillis() {
+            return ttlMillis;
+        }
+
+        public boolean isKeyedByStudent() {
+            return keyedByStudent;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        BoundedCache<K, V> newCache() {
+            BoundedCache.Weigher<? super K, ? super V> entryWeigher = weigher != null ? weigher : (key, value) -> 1;
+            return new BoundedCache<>(maximumWeight, policy, ttlMillis, entryWeigher);
+        }
+
+        @Override
+        public String toString() {
+            String bound = weigher != null ? maximumWeight + " bytes" : maximumWeight + " entries";
+            return bound + ", " + policy + (ttlMillis > 0 ? ", TTL " + ttlMillis + " ms" : ", no TTL")
+                    + (priority != Priority.NORMAL ? ", " + priority + " priority" : "");
+        }
+    }
+
+    private final String name;
+    private final Spec<K, V> spec;
+    private final BoundedCache<K, V> cache;
+
+    CacheRegion(String name, Spec<K, V> spec) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.spec = Objects.requireNonNull(spec, "spec");
+        this.cache = spec.newCache();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Spec<K, V> getSpec() {
+        return spec;
+    }
+
+    BoundedCache<K, V> cache() {
+        return cache;
+    }
+
+    /**
+     * @return the cached value, or null
+     * Time Complexity: O(1)
+     */
+    public V get(K key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Cached value, or the loader's result (cached unless null). Concurrent callers missing on
+     * the same key wait for one load; an invalidation during the load discards its result.
+     */
+    public V getOrLoad(K key, Function<? super K, ? extends V> loader) {
+        return cache.get(key, loader);
+    }
+
+    public void put(K key, V value) {
+        cache.put(key, value);
+    }
+
+    public void invalidate(K key) {
+        cache.remove(key);
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    void invalidateStudent(String studentId) {
+        if (spec.keyedByStudent) {
+            cache.remove((K) studentId);
+        }
+    }
+
+    /**
+     * Visits the live entries (expired ones are skipped).
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        cache.forEach(action);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Entry count, or bytes for a region bounded with ofBytes().
+     */
+    public long weightedSize() {
+        return cache.weightedSize();
+    }
+
+    /**
+     * Current bound: the Spec's, or less while CacheManager has shrunk the region under
+     * memory pressure.
+     */
+    public long getMaximumWeight() {
+        return cache.getMaximumWeight();
+    }
+
+    public long hitCount() {
+        return cache.hitCount();
+    }
+
+    public long missCount() {
+        return cache.missCount();
+    }
+
+    /**
+     * Entries dropped for size or expiry.
+     */
+    public long evictionCount() {
+        return cache.evictionCount() + cache.expirationCount();
+    }
+
+    /**
+     * Hit rate in percent (0 before any request).
+     */
+    public double hitRate() {
+        long hits = hitCount();
+        long total = hits + missCount();
+        return total > 0 ? hits * 100.0 / total : 0.0;
+    }
+
+    public void resetStatistics() {
+        cache.resetStatistics();
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + spec + ")";
+    }
+}
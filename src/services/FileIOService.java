@@ -71,7 +71,7 @@ public class FileIOService {
                                 grade.getSubject().getSubjectType(),
                                 grade.getGrade(),
                                 grade.getDate(),
-                                grade.getLetterGrade()));
+                                grade.getLetterGrade(student.getGradingScale())));
                         writer.newLine();
                     }
                 } else if ("transcript".equalsIgnoreCase(reportType)) {
@@ -94,7 +94,7 @@ public class FileIOService {
                         String subjectName = grade.getSubject().getSubjectName();
                         String subjectType = grade.getSubject().getSubjectType();
                         double gradeValue = grade.getGrade();
-                        String letterGrade = grade.getLetterGrade();
+                        String letterGrade = grade.getLetterGrade(student.getGradingScale());
                         String date = grade.getDate();
 
                         writer.write(String.format("%-20s   %-8s %6.1f   %-6s  %s",
@@ -176,7 +176,7 @@ public class FileIOService {
                                     grade.getSubject().getSubjectType(),
                                     grade.getGrade(),
                                     grade.getDate(),
-                                    grade.getLetterGrade(),
+                                    grade.getLetterGrade(student.getGradingScale()),
                                     grade.getTimestampString()))
                             .collect(Collectors.joining(",\n"));
 
@@ -203,58 +203,42 @@ public class FileIOService {
         }
     }
 
+    /**
+     * Writes the student and grades as a MappedGradeBook image (fixed-width records, one
+     * string dictionary), replacing the Java-serialized map used by format 2.0.
+     * Time Complexity: O(k) for k grades
+     */
     public String exportToBinary(Student student, List<Grade> grades, String baseFilename, String reportType) throws ExportException, IOException {
         synchronized (getFileLock(baseFilename)) {
             String filename = baseFilename + ".dat";
             Path filePath = Paths.get("reports", "binary", filename);
             ensureDirectoryExists(filePath.getParent());
 
-            try (ObjectOutputStream oos = new ObjectOutputStream(
-                    new BufferedOutputStream(Files.newOutputStream(filePath)))) {
-
-                Map<String, Object> report = new HashMap<>();
-
-                // Add report type
-                report.put("reportType", reportType);
-
-                // Create serializable student data
-                Map<String, String> studentData = new HashMap<>();
-                studentData.put("id", student.getStudentId());
-                studentData.put("name", student.getName());
-                studentData.put("email", student.getEmail());
-                studentData.put("phone", student.getPhone());
-                studentData.put("type", student.getStudentType());
-                studentData.put("enrollmentDate", student.getEnrollmentDateString());
-                studentData.put("status", student.getStatus());
-                studentData.put("age", String.valueOf(student.getAge()));
-//                studentData.put("gpa", String.format("%.2f", student.getGPA()));
-
-                report.put("student", studentData);
-
-                // Create serializable grade data
-                List<Map<String, Object>> gradeDataList = new ArrayList<>();
-                for (Grade grade : grades) {
-                    Map<String, Object> gradeData = new HashMap<>();
-                    gradeData.put("id", grade.getGradeId());
-                    gradeData.put("studentId", grade.getStudentId());
-                    gradeData.put("subjectName", grade.getSubject().getSubjectName());
-                    gradeData.put("subjectType", grade.getSubject().getSubjectType());
-                    gradeData.put("subjectCode", grade.getSubject().getSubjectCode());
-                    gradeData.put("grade", grade.getGrade());
-                    gradeData.put("date", grade.getDate());
-                    gradeData.put("letterGrade", grade.getLetterGrade());
-                    gradeData.put("timestamp", grade.getTimestamp().toString());
-                    gradeDataList.add(gradeData);
+            // Grades recorded under another student ID are kept in detached rows
+            String studentId = student.getStudentId();
+            List<Grade> own = new ArrayList<>(grades.size());
+            Map<String, List<Grade>> others = new LinkedHashMap<>();
+            for (Grade grade : grades) {
+                if (studentId.equals(grade.getStudentId())) {
+                    own.add(grade);
+                } else {
+                    others.computeIfAbsent(grade.getStudentId(), id -> new ArrayList<>()).add(grade);
                 }
+            }
 
-                report.put("grades", gradeDataList);
-                report.put("exportTimestamp", LocalDateTime.now().toString());
-                report.put("totalGrades", grades.size());
-                report.put("formatVersion", "2.0");
-
-                oos.writeObject(report);
-                oos.flush();
-
+            try (MappedGradeBook.Writer writer = new MappedGradeBook.Writer(filePath, 1 + others.size(), grades.size(), 0)) {
+                writer.setProperty("reportType", reportType);
+                writer.setProperty("status", student.getStatus());
+                writer.setProperty("exportTimestamp", LocalDateTime.now().toString());
+                writer.setProperty("formatVersion", "3.0");
+                writer.addStudent(student, own, Grade::getGrade);
+                for (Map.Entry<String, List<Grade>> entry : others.entrySet()) {
+                    writer.addDetachedStudent(entry.getKey(), entry.getValue().size());
+                    for (Grade grade : entry.getValue()) {
+                        writer.addGrade(grade.getGradeId(), grade.getSubject(), grade.getGrade(), grade.getTimestamp());
+                    }
+                }
+                writer.finish();
             } catch (IOException e) {
                 System.err.println("Binary export error: " + e.getClass().getName() + ": " + e.getMessage());
                 throw new ExportException("Binary export failed: " + e.getMessage());
@@ -309,6 +293,11 @@ public class FileIOService {
         }
     }
 
+    /**
+     * Reads grades back from a binary export as new grades (fresh IDs). Images are mapped;
+     * files from format 2.0 and earlier are deserialized.
+     * Time Complexity: O(k) for k grades
+     */
     public List<Grade> importFromBinary(String filename) throws ExportException {
         Path filePath = Paths.get("reports/binary", filename + ".dat");
 
@@ -316,6 +305,23 @@ public class FileIOService {
             throw new ExportException("File not found: " + filePath);
         }
 
+        if (MappedGradeBook.isImage(filePath)) {
+            try {
+                MappedGradeBook image = MappedGradeBook.open(filePath);
+                image.verifyChecksum();
+                List<Grade> grades = new ArrayList<>(image.getGradeCount());
+                for (int row = 0; row < image.getRowCount(); row++) {
+                    for (Grade stored : image.getGradesAt(row)) {
+                        grades.add(new Grade(stored.getStudentId(), stored.getSubject(), stored.getGrade()));
+                    }
+                }
+                System.out.println("Binary Import completed: " + grades.size() + " grades loaded");
+                return grades;
+            } catch (IOException e) {
+                throw new ExportException("Binary import failed: " + e.getMessage());
+            }
+        }
+
         try (ObjectInputStream ois = new ObjectInputStream(
                 new BufferedInputStream(Files.newInputStream(filePath)))) {
 
@@ -347,12 +353,8 @@ public class FileIOService {
                         gradeValue = Double.parseDouble(gradeObj.toString());
                     }
 
-                    Subject subject;
-                    if ("Core".equalsIgnoreCase(subjectType)) {
-                        subject = new CoreSubject(subjectName, subjectCode != null ? subjectCode : getSubjectCode(subjectName));
-                    } else {
-                        subject = new ElectiveSubject(subjectName, subjectCode != null ? subjectCode : getSubjectCode(subjectName));
-                    }
+                    Subject subject = SubjectRegistry.getInstance().of(subjectType, subjectName,
+                            subjectCode != null ? subjectCode : getSubjectCode(subjectName));
 
                     Grade grade = new Grade(studentId, subject, gradeValue);
                     grades.add(grade);
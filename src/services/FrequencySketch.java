@@ -0,0 +1,112 @@
+package services;
+
+/**
+ * Approximate access frequency of cache keys (count-min sketch, 4-bit counters) for the
+ * TinyLFU admission filter in BoundedCache.
+ *
+ * Each key maps to one counter in each of four rows; its estimate is the smallest of the four.
+ * Counters saturate at 15, and every sampleSize increments all counters are halved, so the
+ * sketch follows recent popularity instead of all-time counts.
+ *
+ * Not thread-safe: BoundedCache only touches it under its eviction lock.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L; // clears the top bit of each 4-bit counter
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private long[] table; // 16 counters per long
+    private int tableMask;
+    private int sampleSize;
+    private int additions;
+
+    FrequencySketch(long maximumSize) {
+        ensureCapacity(maximumSize);
+    }
+
+    /**
+     * Sizes the table for about maximumSize distinct hot keys (resets the counts when it grows).
+     */
+    void ensureCapacity(long maximumSize) {
+        int size = (int) Math.min(Math.max(maximumSize, 16), 1 << 26);
+        int length = Integer.highestOneBit(size - 1) << 1;
+        if (table != null && table.length >= length) return;
+        table = new long[length];
+        tableMask = length - 1;
+        sampleSize = 10 * size;
+        additions = 0;
+    }
+
+    /**
+     * Estimated accesses of the key since the counters were last halved (0-15).
+     * Time Complexity: O(1)
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int row = 0; row < 4; row++) {
+            frequency = Math.min(frequency, counter(hash, row));
+        }
+        return frequency;
+    }
+
+    /**
+     * Records one access. Time Complexity: O(1), plus an O(table) halving every sampleSize calls
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < 4; row++) {
+            added |= incrementAt(hash, row);
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private int counter(int hash, int row) {
+        int index = indexOf(hash, row);
+        int offset = offsetOf(hash, row);
+        return (int) ((table[index] >>> offset) & 0xfL);
+    }
+
+    private boolean incrementAt(int hash, int row) {
+        int index = indexOf(hash, row);
+        int offset = offsetOf(hash, row);
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    // Halves every counter (aging); odd counts lose their remainder
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions = (additions - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    // Bit offset of the row's counter: the hash picks a group of four counters in the long,
+    // the row picks one of them
+    private static int offsetOf(int hash, int row) {
+        return (((hash & 3) << 2) + row) << 2;
+    }
+
+    private static int spread(int h) {
+        h = ((h >>> 16) ^ h) * 0x45d9f3b;
+        h = ((h >>> 16) ^ h) * 0x45d9f3b;
+        return (h >>> 16) ^ h;
+    }
+}
@@ -1,165 +1,129 @@
 package services;
 
 import interfaces.Calculate;
+import interfaces.ChangeListener;
 import models.*;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
-public class GPACalculator implements Calculate {
+public class GPACalculator implements Calculate, AutoCloseable {
     private StudentManager studentManager;
     private GradeManager gradeManager;
 
-    // Caches for performance (US-8)
-    private Map<String, Double> gpaCache;
-    private Map<String, Integer> classRankCache;
-    private Map<String, Map<String, Double>> subjectAveragesCache;
-
-    // Performance tracking
-    private int cacheHits = 0;
-    private int cacheMisses = 0;
+    // Caches for performance (US-8), regions of the shared CacheManager
+    private static final long GPA_CACHE_SIZE = 10_000;
+    private static final long SUBJECT_AVERAGES_CACHE_SIZE = 2_000;
+    private final CacheRegion<String, Double> gpaCache;
+    private final CacheRegion<String, Map<String, Double>> subjectAveragesCache;
+    private final ChangeListener changeListener = this::onChanges; // one instance, so close() can unsubscribe it
 
     public GPACalculator(StudentManager studentManager, GradeManager gradeManager) {
+        this(studentManager, gradeManager, CacheManager.getInstance());
+    }
+
+    public GPACalculator(StudentManager studentManager, GradeManager gradeManager, CacheManager cacheManager) {
         this.studentManager = studentManager;
         this.gradeManager = gradeManager;
 
-        // Initialize caches
-        this.gpaCache = new ConcurrentHashMap<>();
-        this.classRankCache = new ConcurrentHashMap<>();
-        this.subjectAveragesCache = new ConcurrentHashMap<>();
+        this.gpaCache = cacheManager.createRegion("GPA",
+                CacheRegion.Spec.<String, Double>ofSize(GPA_CACHE_SIZE).keyedByStudent());
+        this.subjectAveragesCache = cacheManager.createRegion("GPA Subject Averages",
+                CacheRegion.Spec.<String, Map<String, Double>>ofSize(SUBJECT_AVERAGES_CACHE_SIZE).keyedByStudent());
+
+        // Drop only the affected student's entries when grades change
+        studentManager.getChangeFeed().subscribe(changeListener);
+    }
+
+    /**
+     * Stops following the change feed. Cached GPAs are no longer invalidated afterwards, so
+     * call it only when the calculator is being discarded.
+     */
+    @Override
+    public void close() {
+        studentManager.getChangeFeed().unsubscribe(changeListener);
+    }
+
+    /**
+     * Change feed listener. Entries are filled with getOrLoad, so a removal that races a
+     * computation discards its result instead of letting a stale value stay.
+     */
+    private void onChanges(List<ChangeEvent> batch) {
+        for (ChangeEvent event : batch) {
+            if (event.getType() == ChangeEvent.Type.GRADE_ADDED || event.getType() == ChangeEvent.Type.GRADE_UPDATED) {
+                gpaCache.invalidate(event.getStudentId());
+                subjectAveragesCache.invalidate(event.getStudentId());
+            }
+        }
     }
 
+    /**
+     * Grade points on the standard scale; a student's own scale is used by the per-student methods.
+     */
     public double convertToGPA(double percentage) {
-        if (percentage >= 93) return 4.0;
-        else if (percentage >= 90) return 3.7;
-        else if (percentage >= 87) return 3.3;
-        else if (percentage >= 83) return 3.0;
-        else if (percentage >= 80) return 2.7;
-        else if (percentage >= 77) return 2.3;
-        else if (percentage >= 73) return 2.0;
-        else if (percentage >= 70) return 1.7;
-        else if (percentage >= 67) return 1.3;
-        else if (percentage >= 60) return 1.0;
-        else return 0.0;
+        return GradingScale.STANDARD.points(percentage);
     }
 
     public String getLetterGrade(double percentage) {
-        if (percentage >= 93) return "A";
-        else if (percentage >= 90) return "A-";
-        else if (percentage >= 87) return "B+";
-        else if (percentage >= 83) return "B";
-        else if (percentage >= 80) return "B-";
-        else if (percentage >= 77) return "C+";
-        else if (percentage >= 73) return "C";
-        else if (percentage >= 70) return "C-";
-        else if (percentage >= 67) return "D+";
-        else if (percentage >= 60) return "D";
-        else return "F";
+        return GradingScale.STANDARD.letter(percentage);
+    }
+
+    // Letters for the breakdown table: the detailed letters on the standard scale, else the student's own
+    private static String breakdownLetter(GradingScale scale, double percentage) {
+        return scale == GradingScale.STANDARD ? GradingScale.DETAILED.letter(percentage) : scale.letter(percentage);
     }
 
     public String getDetailedLetterGrade(double percentage) {
-        if (percentage >= 97) return "A+";
-        else if (percentage >= 93) return "A";
-        else if (percentage >= 90) return "A-";
-        else if (percentage >= 87) return "B+";
-        else if (percentage >= 83) return "B";
-        else if (percentage >= 80) return "B-";
-        else if (percentage >= 77) return "C+";
-        else if (percentage >= 73) return "C";
-        else if (percentage >= 70) return "C-";
-        else if (percentage >= 67) return "D+";
-        else if (percentage >= 63) return "D";
-        else if (percentage >= 60) return "D-";
-        else return "F";
+        return GradingScale.DETAILED.letter(percentage);
     }
 
     @Override
     public double calculateGPA(String studentId) {
-        // Check cache first
-        if (gpaCache.containsKey(studentId)) {
-            cacheHits++;
-            return gpaCache.get(studentId);
-        }
-
-        cacheMisses++;
+        return gpaCache.getOrLoad(studentId, this::computeGPA);
+    }
 
-        // Calculate using streams
+    private double computeGPA(String studentId) {
         List<Grade> grades = gradeManager.getGradesByStudent(studentId);
 
         if (grades.isEmpty()) {
-            gpaCache.put(studentId, 0.0);
             return 0.0;
         }
 
-        double totalGPA = grades.stream()
-                .mapToDouble(grade -> convertToGPA(grade.getGrade()))
-                .sum();
-
-        double gpa = totalGPA / grades.size();
-        gpaCache.put(studentId, gpa);
-
-        return gpa;
+        // One pass over the values on the student's scale
+        double[] percentages = new double[grades.size()];
+        for (int i = 0; i < percentages.length; i++) {
+            percentages[i] = grades.get(i).getGrade();
+        }
+        return studentManager.getGradingScale(studentId).averagePoints(percentages, percentages.length);
     }
 
     // Overloaded method with caching control
     public double calculateGPA(String studentId, boolean useCache) {
         if (!useCache) {
-            gpaCache.remove(studentId);
+            gpaCache.invalidate(studentId);
         }
         return calculateGPA(studentId);
     }
 
+    /**
+     * Class rank from StudentManager's ranking index (GPA, then average; ties share a rank)
+     * Time Complexity: O(log n) - replaces the O(n) per-call scan over every student's GPA
+     */
     @Override
     public double calculateClassRank(String studentId) {
-        // Check cache first
-        if (classRankCache.containsKey(studentId)) {
-            cacheHits++;
-            return classRankCache.get(studentId);
-        }
-
-        cacheMisses++;
-
-        double studentGPA = calculateGPA(studentId);
-        List<Student> students = studentManager.getStudents();
-
-        long betterStudents = students.stream()
-                .filter(s -> {
-                    double otherGPA = calculateGPA(s.getStudentId());
-                    return otherGPA > 0 && otherGPA > studentGPA;
-                })
-                .count();
-
-        long totalWithGrades = students.stream()
-                .filter(s -> calculateGPA(s.getStudentId()) > 0)
-                .count();
-
-        int rank = totalWithGrades > 0 ? (int) betterStudents + 1 : 1;
-        classRankCache.put(studentId, rank);
+        return studentManager.getClassRank(studentId);
+    }
 
-        return rank;
+    public double calculatePercentile(String studentId) {
+        return studentManager.getPercentile(studentId);
     }
 
     @Override
     public Map<String, Double> calculateSubjectAverages(String studentId) {
-        // Check cache first
-        if (subjectAveragesCache.containsKey(studentId)) {
-            cacheHits++;
-            return new HashMap<>(subjectAveragesCache.get(studentId));
-        }
-
-        cacheMisses++;
-
-        List<Grade> grades = gradeManager.getGradesByStudent(studentId);
-
-        Map<String, Double> subjectAverages = grades.stream()
-                .collect(Collectors.groupingBy(
-                        grade -> grade.getSubject().getSubjectName(),
-                        Collectors.averagingDouble(Grade::getGrade)
-                ));
-
-        subjectAveragesCache.put(studentId, new HashMap<>(subjectAverages));
-        return subjectAverages;
+        Map<String, Double> subjectAverages = subjectAveragesCache.getOrLoad(studentId, id ->
+                gradeManager.getGradesByStudent(id).stream()
+                        .collect(SubjectAccumulator.averagingByName()));
+        return new HashMap<>(subjectAverages); // the cached map is shared
     }
 
     // New method: Calculate weighted GPA (if credits are implemented)
@@ -168,13 +132,14 @@ public class GPACalculator implements Calculate {
 
         if (grades.isEmpty()) return 0.0;
 
+        GradingScale scale = studentManager.getGradingScale(studentId);
         double totalQualityPoints = 0;
         int totalCreditHours = 0;
 
         for (Grade grade : grades) {
             String subject = grade.getSubject().getSubjectName();
             int credits = creditHours.getOrDefault(subject, 3); // Default 3 credits
-            double gpaPoints = convertToGPA(grade.getGrade());
+            double gpaPoints = scale.points(grade.getGrade());
 
             totalQualityPoints += gpaPoints * credits;
             totalCreditHours += credits;
@@ -183,23 +148,33 @@ public class GPACalculator implements Calculate {
         return totalCreditHours > 0 ? totalQualityPoints / totalCreditHours : 0.0;
     }
 
-    // New method: Calculate semester GPA
+    /**
+     * GPA per term (keys "yyyy-S1"/"yyyy-S2", chronological when sorted) on the student's scale.
+     * Scales with whole-percent cutoffs are read from the pre-aggregated term histograms, whose
+     * bins are whole percentages; others are computed from the grade values.
+     * Time Complexity: O(terms) for whole-percent scales, otherwise O(grades of the student)
+     */
     public Map<String, Double> calculateSemesterGPAs(String studentId) {
-        List<Grade> grades = gradeManager.getGradesByStudent(studentId);
+        GradingScale scale = studentManager.getGradingScale(studentId);
+        Map<String, Double> semesterGPAs = new LinkedHashMap<>();
+        if (scale.hasWholePercentCutoffs()) {
+            for (GradeTimeIndex.TimeRollup term : gradeManager.getStudentTermRollups(studentId)) {
+                if (term.getCount() > 0) {
+                    semesterGPAs.put(term.getLabel(), term.meanOf(scale::points));
+                }
+            }
+            return semesterGPAs;
+        }
 
-        return grades.stream()
-                .collect(Collectors.groupingBy(
-                        Grade::getDate, // Assuming date represents semester
-                        Collectors.collectingAndThen(
-                                Collectors.toList(),
-                                semesterGrades -> {
-                                    double totalGPA = semesterGrades.stream()
-                                            .mapToDouble(grade -> convertToGPA(grade.getGrade()))
-                                            .sum();
-                                    return totalGPA / semesterGrades.size();
-                                }
-                        )
-                ));
+        Map<String, List<Double>> valuesByTerm = new TreeMap<>(); // labels sort chronologically
+        gradeManager.forEachGrade(studentId, grade -> valuesByTerm
+                .computeIfAbsent(GradeTimeIndex.termLabelOf(grade.getRecordedDay()), k -> new ArrayList<>())
+                .add(grade.getGrade()));
+        valuesByTerm.forEach((label, values) -> {
+            double[] percentages = values.stream().mapToDouble(Double::doubleValue).toArray();
+            semesterGPAs.put(label, scale.averagePoints(percentages, percentages.length));
+        });
+        return semesterGPAs;
     }
 
     public void displayGPABreakdown(String studentId) {
@@ -221,6 +196,7 @@ public class GPACalculator implements Calculate {
         System.out.println("--------------------------------------------------------");
 
         List<Grade> grades = gradeManager.getGradesByStudent(studentId);
+        GradingScale scale = student.getGradingScale();
         double totalGPA = 0.0;
         int count = 0;
 
@@ -228,8 +204,8 @@ public class GPACalculator implements Calculate {
         grades.sort(Comparator.comparing(g -> g.getSubject().getSubjectName()));
 
         for (Grade grade : grades) {
-            double gpaPoints = convertToGPA(grade.getGrade());
-            String letterGrade = getDetailedLetterGrade(grade.getGrade());
+            double gpaPoints = scale.points(grade.getGrade());
+            String letterGrade = breakdownLetter(scale, grade.getGrade());
             String gradeValue = String.format("%.1f%%", grade.getGrade());
 
             System.out.printf("%-15s | %-10s | %-8s | %-6.2f | %s%n",
@@ -254,8 +230,9 @@ public class GPACalculator implements Calculate {
             System.out.println("Total Courses: " + count);
             System.out.printf("Percentage Average: %6.1f%%%n", percentageAverage);
             System.out.printf("Cumulative GPA:     %6.2f / 4.0%n", cumulativeGPA);
-            System.out.printf("Letter Grade:       %6s%n", getLetterGrade(percentageAverage));
+            System.out.printf("Letter Grade:       %6s%n", scale.letter(percentageAverage));
             System.out.println("Class Rank:         " + classRank + " of " + totalStudents);
+            System.out.printf("Percentile:         %6.1f%%%n", calculatePercentile(studentId));
             System.out.println();
 
             displayPerformanceAnalysis(student, cumulativeGPA, percentageAverage);
@@ -320,13 +297,14 @@ public class GPACalculator implements Calculate {
 
     private void displayCachePerformance() {
         System.out.println("\nCACHE PERFORMANCE");
-        int totalRequests = cacheHits + cacheMisses;
+        long cacheHits = cacheHits();
+        long totalRequests = cacheHits + cacheMisses();
         if (totalRequests > 0) {
             double hitRate = (cacheHits * 100.0) / totalRequests;
             System.out.printf("Hit Rate: %.1f%% (%d/%d requests)%n", hitRate, cacheHits, totalRequests);
         }
         System.out.printf("Cached GPAs: %d students%n", gpaCache.size());
-        System.out.printf("Cached Ranks: %d students%n", classRankCache.size());
+        System.out.printf("Ranked students: %d (O(log n) index)%n", studentManager.getStudentCount());
     }
 
     public double calculateClassAverageGPA() {
@@ -377,21 +355,27 @@ public class GPACalculator implements Calculate {
 
     // Cache management methods
     public void clearCache() {
-        gpaCache.clear();
-        classRankCache.clear();
-        subjectAveragesCache.clear();
-        cacheHits = 0;
-        cacheMisses = 0;
+        gpaCache.invalidateAll();
+        subjectAveragesCache.invalidateAll();
+        gpaCache.resetStatistics();
+        subjectAveragesCache.resetStatistics();
         System.out.println("✓ GPA calculator cache cleared");
     }
 
+    private long cacheHits() {
+        return gpaCache.hitCount() + subjectAveragesCache.hitCount();
+    }
+
+    private long cacheMisses() {
+        return gpaCache.missCount() + subjectAveragesCache.missCount();
+    }
+
     public void warmCache() {
         System.out.println("Warming GPA cache...");
         List<Student> students = studentManager.getStudents();
 
         students.parallelStream().forEach(student -> {
             calculateGPA(student.getStudentId());
-            calculateClassRank(student.getStudentId());
             calculateSubjectAverages(student.getStudentId());
         });
 
@@ -400,11 +384,12 @@ public class GPACalculator implements Calculate {
 
     public void displayCacheStatistics() {
         System.out.println("\n=== GPA CALCULATOR CACHE STATISTICS ===");
-        System.out.printf("GPA Cache:         %d entries%n", gpaCache.size());
-        System.out.printf("Rank Cache:        %d entries%n", classRankCache.size());
-        System.out.printf("Subject Avg Cache: %d entries%n", subjectAveragesCache.size());
+        System.out.printf("GPA Cache:         %d entries (%s)%n", gpaCache.size(), gpaCache.getSpec());
+        System.out.printf("Subject Avg Cache: %d entries (%s)%n", subjectAveragesCache.size(),
+                subjectAveragesCache.getSpec());
 
-        int totalRequests = cacheHits + cacheMisses;
+        long cacheHits = cacheHits();
+        long totalRequests = cacheHits + cacheMisses();
         if (totalRequests > 0) {
             double hitRate = (cacheHits * 100.0) / totalRequests;
             System.out.printf("Cache Hit Rate:    %.1f%%%n", hitRate);
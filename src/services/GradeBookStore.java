@@ -0,0 +1,582 @@
+package services;
+
+import exceptions.DataDirectoryLockedException;
+import interfaces.GradeBookJournal;
+import models.*;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Durable grade book: a write-ahead log of every student add, grade add and grade correction,
+ * plus periodic compact snapshots that let old log segments be deleted.
+ *
+ * Startup (recover): load the newest snapshot, replay the log records after it through the
+ * managers' bulk paths (which rebuild every index and aggregate), then attach this store as
+ * the managers' journal. Replay skips students and grades that are already present, so a
+ * record that is also in the snapshot is harmless.
+ *
+ * Checkpoint: sync the log up to its last LSN, pin a ModelSnapshot (O(1), writers keep going),
+ * write it to snapshot-&lt;LSN&gt;.dat through a temp file and an atomic rename, then delete
+ * older snapshots and fully covered log segments. The managers apply a change before logging
+ * it, so every record at or below the LSN is already visible to the snapshot. One runs in
+ * the background every checkpointInterval records and one runs on close.
+ *
+ * Snapshot file: a MappedGradeBook image (value of each grade as of the pinned version),
+ * so the newest one can also be mapped and queried before recovery finishes
+ * (openSnapshotImage). Snapshots in the older stream format are still read.
+ *
+ * Ownership: recover() takes an exclusive lock on a .lock file in the directory and close()
+ * releases it (the OS drops it if the process dies). A second store on the same directory,
+ * in this process or another, fails with DataDirectoryLockedException instead of appending to
+ * the same log segment and reusing its LSNs.
+ */
+public class GradeBookStore implements GradeBookJournal, Closeable {
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 100_000;
+
+    static final byte STUDENT_ADDED = 1;
+    static final byte GRADE_ADDED = 2;
+    static final byte GRADE_CORRECTED = 3;
+
+    private static final int SNAPSHOT_MAGIC = 0x47424B53; // "GBKS", the stream format before MappedGradeBook
+    private static final int SNAPSHOT_FORMAT = 1;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".dat";
+    private static final String LOCK_FILE = ".lock";
+
+    private final Path directory;
+    private final WriteAheadLog log;
+    private final long checkpointInterval;
+    private final boolean fsync;
+
+    private StudentManager studentManager;
+    private GradeManager gradeManager;
+
+    private final Object checkpointMonitor = new Object();
+    private final AtomicBoolean checkpointPending = new AtomicBoolean(false);
+    private final ExecutorService checkpointer;
+    private volatile long lastCheckpointLsn;
+    private volatile boolean closed;
+    private FileChannel lockChannel;
+    private FileLock directoryLock;
+
+    // Statistics
+    private final AtomicLong snapshotBytesWritten = new AtomicLong();
+    private final AtomicLong checkpoints = new AtomicLong();
+    private volatile long lastCheckpointMillis;
+
+    public GradeBookStore(Path directory) {
+        this(directory, WriteAheadLog.DEFAULT_SEGMENT_BYTES, DEFAULT_CHECKPOINT_INTERVAL, true);
+    }
+
+    /**
+     * @param segmentBytes       log segment size
+     * @param checkpointInterval records between background checkpoints (0 disables them)
+     * @param fsync              force each group commit and snapshot to the device
+     */
+    public GradeBookStore(Path directory, int segmentBytes, long checkpointInterval, boolean fsync) {
+        this.directory = directory;
+        this.log = new WriteAheadLog(directory.resolve("wal"), segmentBytes, fsync);
+        this.checkpointInterval = checkpointInterval;
+        this.fsync = fsync;
+        this.checkpointer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "GradeBook-Checkpointer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Rebuilds the managers from the newest snapshot and the log tail, then starts journaling
+     * their changes. The managers should be empty.
+     * Time Complexity: O(snapshot + log tail)
+     */
+    public RecoveryReport recover(StudentManager studentManager, GradeManager gradeManager) throws IOException {
+        if (this.studentManager != null) throw new IllegalStateException("Grade book already recovered");
+        Files.createDirectories(directory);
+        lockDirectory();
+        this.studentManager = studentManager;
+        this.gradeManager = gradeManager;
+
+        RecoveryReport report = new RecoveryReport();
+        long start = System.nanoTime();
+        Map<String, Grade> restoredGrades = new HashMap<>();
+
+        Path snapshotFile = latestSnapshot();
+        long snapshotLsn = 0;
+        if (snapshotFile != null) {
+            snapshotLsn = loadSnapshot(snapshotFile, restoredGrades, report);
+            report.snapshotFile = snapshotFile.getFileName().toString();
+        }
+        long loaded = System.nanoTime();
+
+        ReplayApplier applier = new ReplayApplier(restoredGrades, report);
+        report.replayedRecords = log.recover(snapshotLsn, applier);
+        applier.flush();
+        long replayed = System.nanoTime();
+
+        lastCheckpointLsn = snapshotLsn;
+        studentManager.setJournal(this);
+        gradeManager.setJournal(this);
+
+        report.snapshotLsn = snapshotLsn;
+        report.lastLsn = log.getLastLsn();
+        report.truncatedBytes = log.getTruncatedBytes();
+        report.snapshotMillis = (loaded - start) / 1_000_000.0;
+        report.replayMillis = (replayed - loaded) / 1_000_000.0;
+        report.totalMillis = (replayed - start) / 1_000_000.0;
+        return report;
+    }
+
+    private void lockDirectory() throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // held by another store in this JVM
+        }
+        if (lock == null) {
+            channel.close();
+            throw new DataDirectoryLockedException(directory.toString());
+        }
+        lockChannel = channel;
+        directoryLock = lock;
+    }
+
+    private void unlockDirectory() throws IOException {
+        if (lockChannel != null) {
+            directoryLock.release();
+            lockChannel.close();
+            lockChannel = null;
+            directoryLock = null;
+        }
+    }
+
+    // Journal (called by the managers)
+
+    @Override
+    public long studentAdded(Student student) {
+        return append(STUDENT_ADDED, encode(out -> writeStudent(out, student)));
+    }
+
+    @Override
+    public long gradeAdded(Grade grade) {
+        return append(GRADE_ADDED, encode(out -> writeGrade(out, grade, grade.getGrade())));
+    }
+
+    @Override
+    public long gradeCorrected(Grade grade) {
+        return append(GRADE_CORRECTED, encode(out -> {
+            out.writeUTF(grade.getGradeId());
+            out.writeDouble(grade.getGrade());
+        }));
+    }
+
+    @Override
+    public void awaitDurable(long position) {
+        try {
+            log.sync(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Write-ahead log sync failed", e);
+        }
+    }
+
+    private long append(byte type, byte[] payload) {
+        long lsn = log.append(type, payload);
+        if (checkpointInterval > 0 && lsn - lastCheckpointLsn >= checkpointInterval
+                && checkpointPending.compareAndSet(false, true)) {
+            checkpointer.submit(() -> {
+                try {
+                    checkpoint();
+                } catch (IOException e) {
+                    System.err.println("⚠ Grade book checkpoint failed: " + e.getMessage());
+                } finally {
+                    checkpointPending.set(false);
+                }
+            });
+        }
+        return lsn;
+    }
+
+    /**
+     * Writes a snapshot covering every record logged so far and deletes the log segments and
+     * snapshots it makes redundant. Writers are not blocked.
+     *
+     * @return LSN the snapshot covers
+     */
+    public long checkpoint() throws IOException {
+        synchronized (checkpointMonitor) {
+            if (gradeManager == null) throw new IllegalStateException("recover() must run first");
+            long start = System.nanoTime();
+            long lsn = log.getLastLsn();
+            log.sync(lsn);
+            Path target = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, lsn, SNAPSHOT_SUFFIX));
+            Path temp = directory.resolve(target.getFileName() + ".tmp");
+            try (ModelSnapshot snapshot = gradeManager.snapshot()) { // pinned after every record <= lsn was applied
+                MappedGradeBook.write(temp, snapshot, lsn);
+            }
+            if (fsync) {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            snapshotBytesWritten.addAndGet(Files.size(target));
+            for (Path old : listSnapshots()) {
+                if (!old.equals(target)) Files.deleteIfExists(old);
+            }
+            log.truncateThrough(lsn);
+            lastCheckpointLsn = lsn;
+            checkpoints.incrementAndGet();
+            lastCheckpointMillis = (System.nanoTime() - start) / 1_000_000;
+            return lsn;
+        }
+    }
+
+    private long loadSnapshot(Path file, Map<String, Grade> restoredGrades, RecoveryReport report) throws IOException {
+        if (!MappedGradeBook.isImage(file)) {
+            return loadStreamSnapshot(file, restoredGrades, report);
+        }
+        MappedGradeBook image = MappedGradeBook.open(file);
+        image.verifyChecksum(); // apply only once the whole file has checked out
+        image.loadInto(studentManager, gradeManager, grade -> restoredGrades.put(grade.getGradeId(), grade));
+        report.snapshotStudents = image.getStudentCount();
+        report.snapshotGrades = image.getGradeCount();
+        return image.getLsn();
+    }
+
+    // Snapshots written before the mapped format (magic GBKS, DataOutputStream records)
+    private long loadStreamSnapshot(Path file, Map<String, Grade> restoredGrades, RecoveryReport report) throws IOException {
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 64 * 1024), new CRC32())) {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("Not a grade book snapshot: " + file);
+            int format = in.readInt();
+            if (format != SNAPSHOT_FORMAT) throw new IOException("Unsupported snapshot format " + format + ": " + file);
+            long lsn = in.readLong();
+
+            int studentCount = in.readInt();
+            List<Student> students = new ArrayList<>(studentCount);
+            for (int i = 0; i < studentCount; i++) {
+                students.add(readStudent(in));
+            }
+            int gradeCount = in.readInt();
+            List<Grade> grades = new ArrayList<>(gradeCount);
+            for (int i = 0; i < gradeCount; i++) {
+                grades.add(readGrade(in));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) throw new IOException("Snapshot checksum mismatch: " + file);
+
+            // Apply only once the whole file has checked out
+            for (Student student : students) {
+                studentManager.addStudent(student, false);
+            }
+            for (Grade grade : grades) {
+                restoredGrades.put(grade.getGradeId(), grade);
+            }
+            gradeManager.addGrades(grades);
+            report.snapshotStudents = studentCount;
+            report.snapshotGrades = gradeCount;
+            return lsn;
+        }
+    }
+
+    // Applies replayed records in order; consecutive grade adds go through one addGrades call
+    private final class ReplayApplier implements WriteAheadLog.RecordHandler {
+        private final Map<String, Grade> restoredGrades;
+        private final RecoveryReport report;
+        private final List<Grade> pendingGrades = new ArrayList<>();
+
+        ReplayApplier(Map<String, Grade> restoredGrades, RecoveryReport report) {
+            this.restoredGrades = restoredGrades;
+            this.report = report;
+        }
+
+        @Override
+        public void accept(long lsn, byte type, byte[] payload) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            switch (type) {
+                case GRADE_ADDED:
+                    Grade grade = readGrade(in);
+                    if (restoredGrades.putIfAbsent(grade.getGradeId(), grade) == null) {
+                        pendingGrades.add(grade);
+                        report.replayedGrades++;
+                    }
+                    break;
+                case STUDENT_ADDED:
+                    flush();
+                    Student student = readStudent(in);
+                    if (studentManager.findStudent(student.getStudentId()) == null
+                            && studentManager.addStudent(student, false)) {
+                        report.replayedStudents++;
+                    }
+                    break;
+                case GRADE_CORRECTED:
+                    flush();
+                    Grade corrected = restoredGrades.get(in.readUTF());
+                    if (corrected != null) {
+                        corrected.recordGrade(in.readDouble());
+                        report.replayedCorrections++;
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown record type " + type + " at LSN " + lsn);
+            }
+        }
+
+        void flush() {
+            if (!pendingGrades.isEmpty()) {
+                gradeManager.addGrades(pendingGrades);
+                pendingGrades.clear();
+            }
+        }
+    }
+
+    // Record encoding (shared by log payloads and snapshot bodies)
+
+    @FunctionalInterface
+    private interface Encoder {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            encoder.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeStudent(DataOutputStream out, Student student) throws IOException {
+        out.writeUTF(student.getStudentType());
+        out.writeUTF(student.getStudentId());
+        out.writeUTF(student.getName());
+        out.writeInt(student.getAge());
+        out.writeUTF(student.getEmail());
+        out.writeUTF(student.getPhone());
+        out.writeUTF(student.getEnrollmentDateString());
+    }
+
+    private static Student readStudent(DataInputStream in) throws IOException {
+        String type = in.readUTF();
+        String studentId = in.readUTF();
+        String name = in.readUTF();
+        int age = in.readInt();
+        String email = in.readUTF();
+        String phone = in.readUTF();
+        String enrollmentDate = in.readUTF();
+        return "Honors".equals(type)
+                ? new HonorsStudent(studentId, name, age, email, phone, enrollmentDate)
+                : new RegularStudent(studentId, name, age, email, phone, enrollmentDate);
+    }
+
+    private static void writeGrade(DataOutputStream out, Grade grade, double value) throws IOException {
+        Subject subject = grade.getSubject();
+        out.writeUTF(grade.getGradeId());
+        out.writeUTF(grade.getStudentId());
+        out.writeUTF(subject.getSubjectType());
+        out.writeUTF(subject.getSubjectName());
+        out.writeUTF(subject.getSubjectCode());
+        out.writeDouble(value);
+        LocalDateTime timestamp = grade.getTimestamp();
+        out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(timestamp.getNano());
+    }
+
+    private static Grade readGrade(DataInputStream in) throws IOException {
+        String gradeId = in.readUTF();
+        String studentId = in.readUTF();
+        String subjectType = in.readUTF();
+        String subjectName = in.readUTF();
+        String subjectCode = in.readUTF();
+        double value = in.readDouble();
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        Subject subject = "Core".equals(subjectType)
+                ? new CoreSubject(subjectName, subjectCode)
+                : new ElectiveSubject(subjectName, subjectCode);
+        return new Grade(gradeId, studentId, subject, value, timestamp);
+    }
+
+    /**
+     * Maps the newest snapshot without loading it, so lookups can be served (as of the
+     * snapshot's LSN, without the log tail) while recover() rebuilds the managers.
+     *
+     * @return the image, or null if there is no snapshot in the mapped format
+     */
+    public MappedGradeBook openSnapshotImage() throws IOException {
+        Path file = latestSnapshot();
+        return file != null && MappedGradeBook.isImage(file) ? MappedGradeBook.open(file) : null;
+    }
+
+    // Files
+
+    private Path latestSnapshot() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+    }
+
+    // Oldest first (the zero-padded LSN in the name sorts numerically)
+    private List<Path> listSnapshots() throws IOException {
+        if (!Files.isDirectory(directory)) return Collections.emptyList();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Takes a final checkpoint (so the next start loads a snapshot with an empty log tail)
+     * and closes the log. The managers are detached first.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (studentManager != null) {
+            studentManager.setJournal(null);
+            gradeManager.setJournal(null);
+        }
+        checkpointer.shutdown();
+        try {
+            checkpointer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (studentManager != null && log.getLastLsn() > lastCheckpointLsn) {
+                checkpoint();
+            }
+            log.close();
+        } finally {
+            unlockDirectory();
+        }
+    }
+
+    // Statistics
+
+    /**
+     * Physical bytes written (log segments + snapshots) per logical byte of change records.
+     * Group commit does not change it: a batch is written once, whatever its size.
+     */
+    public double getWriteAmplification() {
+        long logical = log.getPayloadBytes();
+        return logical == 0 ? 0.0 : (double) (log.getBytesWritten() + snapshotBytesWritten.get()) / logical;
+    }
+
+    public WriteAheadLog getLog() {
+        return log;
+    }
+
+    public long getCheckpointCount() {
+        return checkpoints.get();
+    }
+
+    public long getSnapshotBytesWritten() {
+        return snapshotBytesWritten.get();
+    }
+
+    public long getLastCheckpointLsn() {
+        return lastCheckpointLsn;
+    }
+
+    public void displayStatistics() {
+        long records = log.getRecordsAppended();
+        long syncs = log.getSyncCount();
+        System.out.println("\n=== GRADE BOOK PERSISTENCE ===");
+        System.out.println("Directory:            " + directory.toAbsolutePath());
+        System.out.printf("Log records:          %,d (LSN %,d, durable through %,d)%n",
+                records, log.getLastLsn(), log.getDurableLsn());
+        System.out.printf("Group commits:        %,d (%.1f records per sync)%n",
+                syncs, syncs == 0 ? 0.0 : (double) records / syncs);
+        System.out.printf("Log segments:         %d%n", log.getSegmentCount());
+        System.out.printf("Checkpoints:          %,d (last at LSN %,d, %d ms)%n",
+                checkpoints.get(), lastCheckpointLsn, lastCheckpointMillis);
+        System.out.printf("Logical bytes:        %,d%n", log.getPayloadBytes());
+        System.out.printf("Physical bytes:       %,d log + %,d snapshot%n",
+                log.getBytesWritten(), snapshotBytesWritten.get());
+        System.out.printf("Write amplification:  %.2fx%n", getWriteAmplification());
+    }
+
+    /**
+     * What recover() loaded and how long it took.
+     */
+    public static class RecoveryReport {
+        String snapshotFile;
+        long snapshotLsn;
+        long lastLsn;
+        int snapshotStudents;
+        int snapshotGrades;
+        long replayedRecords;
+        int replayedStudents;
+        int replayedGrades;
+        int replayedCorrections;
+        long truncatedBytes;
+        double snapshotMillis;
+        double replayMillis;
+        double totalMillis;
+
+        /** True on a first start (nothing was persisted). */
+        public boolean isEmpty() {
+            return snapshotFile == null && replayedRecords == 0;
+        }
+
+        public long getSnapshotLsn() { return snapshotLsn; }
+        public long getLastLsn() { return lastLsn; }
+        public int getSnapshotStudents() { return snapshotStudents; }
+        public int getSnapshotGrades() { return snapshotGrades; }
+        public long getReplayedRecords() { return replayedRecords; }
+        public int getReplayedStudents() { return replayedStudents; }
+        public int getReplayedGrades() { return replayedGrades; }
+        public int getReplayedCorrections() { return replayedCorrections; }
+        public long getTruncatedBytes() { return truncatedBytes; }
+        public double getTotalMillis() { return totalMillis; }
+
+        public void display() {
+            if (isEmpty()) {
+                System.out.println("✓ Grade book store is empty (first start)");
+                return;
+            }
+            System.out.printf("✓ Grade book restored in %.1f ms%n", totalMillis);
+            if (snapshotFile != null) {
+                System.out.printf("  Snapshot %s: %,d students, %,d grades (%.1f ms)%n",
+                        snapshotFile, snapshotStudents, snapshotGrades, snapshotMillis);
+            }
+            System.out.printf("  Log replay: %,d records -> %,d students, %,d grades, %,d corrections (%.1f ms)%n",
+                    replayedRecords, replayedStudents, replayedGrades, replayedCorrections, replayMillis);
+            if (truncatedBytes > 0) {
+                System.out.printf("  ⚠ Dropped a torn log tail of %,d bytes%n", truncatedBytes);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("RecoveryReport[snapshotLsn=%d, lastLsn=%d, snapshot=%d/%d, replayed=%d, %.1f ms]",
+                    snapshotLsn, lastLsn, snapshotStudents, snapshotGrades, replayedRecords, totalMillis);
+        }
+    }
+}
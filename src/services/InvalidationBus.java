@@ -0,0 +1,527 @@
+package services;
+
+import models.ChangeEvent;
+import models.ChangeFeed;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Carries cache invalidations between application instances on one machine, so a grade
+ * recorded on one node drops the averages and GPAs the other nodes cached for that student.
+ *
+ * - Transport: UDP datagrams on the loopback interface, sent to each configured peer in turn
+ *   (multicast is often not enabled on loopback). Datagrams may be lost; sequence numbers
+ *   recover them.
+ * - Every invalidation gets the sending node's next sequence number. publish() queues it
+ *   (dropping a repeat of one already queued); the queue is sent once MAX_BATCH invalidations
+ *   are waiting or BATCH_DELAY_MILLIS after the first, in as few datagrams as fit.
+ * - Receivers track the next sequence they expect from each node (a random node ID, so a
+ *   restarted instance is a new node). Invalidations are idempotent, so a batch is applied as
+ *   soon as it arrives; if it skips ahead, the receiver also asks the sender to resend the
+ *   missing range. The sender retransmits it from its history of recent invalidations, or,
+ *   if they have been overwritten, answers RESET and the receiver clears its caches.
+ * - A heartbeat with the last sequence sent lets receivers notice a lost final batch.
+ *
+ * Remote invalidations are applied to the CacheManager directly, not through the change feed,
+ * so they are never broadcast again.
+ *
+ * The bus invalidates caches only; it does not replicate data. A node that drops an entry
+ * recomputes it from its own managers, which never see grades recorded on another node. Each
+ * instance owns its grade book directory (GradeBookStore locks it), so the bus suits instances
+ * whose data is fed from a common source, such as the same imports, not a shared data store.
+ *
+ * Datagram: [int magic "CINV"][byte type][long node ID], then
+ * BATCH [long first sequence][int count] count x [byte scope][UTF student ID];
+ * HEARTBEAT [long last sequence sent]; RESYNC_REQUEST [long node asked][long first missing];
+ * RESET [long next sequence].
+ */
+public class InvalidationBus implements Closeable {
+    public static final int DEFAULT_HISTORY = 4096;
+    public static final long DEFAULT_HEARTBEAT_MILLIS = 1000;
+
+    private static final int MAGIC = 0x43494E56; // "CINV"
+    private static final byte BATCH = 1;
+    private static final byte HEARTBEAT = 2;
+    private static final byte RESYNC_REQUEST = 3;
+    private static final byte RESET = 4;
+
+    private static final int MAX_BATCH = 256;
+    private static final long BATCH_DELAY_MILLIS = 5;
+    private static final int MAX_DATAGRAM = 8 * 1024;
+    private static final long RESYNC_INTERVAL_MILLIS = 100; // between requests for the same gap
+
+    /**
+     * What a remote node drops from its caches.
+     */
+    public enum Scope {
+        /** The student's grades changed: grades, averages and student-keyed regions (GPA) */
+        GRADE_DATA,
+        /** Everything cached for the student, the student included */
+        STUDENT,
+        /** Every cache (the ID is ignored) */
+        ALL
+    }
+
+    private static final class Invalidation {
+        final long sequence;
+        final Scope scope;
+        final String id;
+
+        Invalidation(long sequence, Scope scope, String id) {
+            this.sequence = sequence;
+            this.scope = scope;
+            this.id = id;
+        }
+    }
+
+    // A remote node's stream as seen here
+    private static final class RemoteNode {
+        long expected;                // next sequence not yet received in order; guarded by this
+        long lastResyncRequestMillis; // guarded by this
+
+        RemoteNode(long expected) {
+            this.expected = expected;
+        }
+    }
+
+    private final CacheManager cacheManager;
+    private final DatagramChannel channel;
+    private final InetSocketAddress localAddress;
+    private final long nodeId = ThreadLocalRandom.current().nextLong();
+    private final List<InetSocketAddress> peers = new CopyOnWriteArrayList<>();
+    private final Map<Long, RemoteNode> remoteNodes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sender;
+    private final Thread receiver;
+
+    // Guarded by this
+    private final Invalidation[] history; // by sequence modulo its length
+    private final List<Invalidation> pending = new ArrayList<>();
+    private final Set<String> pendingKeys = new HashSet<>();
+    private long lastSequence;
+    private long lastSentSequence;
+    private boolean flushScheduled;
+    private boolean closed;
+
+    private final LongAdder sentInvalidations = new LongAdder();
+    private final LongAdder sentDatagrams = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder receivedInvalidations = new LongAdder();
+    private final LongAdder resyncRequests = new LongAdder();
+    private final LongAdder retransmitted = new LongAdder();
+    private final LongAdder resetsReceived = new LongAdder();
+    private final LongAdder failedSends = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+
+    /**
+     * Bus on 127.0.0.1:port (0 = any free port) with the default history and heartbeat.
+     */
+    public InvalidationBus(CacheManager cacheManager, int port) throws IOException {
+        this(cacheManager, new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                DEFAULT_HISTORY, DEFAULT_HEARTBEAT_MILLIS);
+    }
+
+    /**
+     * @param historySize     invalidations kept for retransmission; a peer further behind is reset
+     * @param heartbeatMillis how often the last sequence sent is announced
+     */
+    public InvalidationBus(CacheManager cacheManager, InetSocketAddress bindAddress, int historySize,
+                           long heartbeatMillis) throws IOException {
+        if (historySize < 1) {
+            throw new IllegalArgumentException("historySize must be positive: " + historySize);
+        }
+        this.cacheManager = Objects.requireNonNull(cacheManager, "cacheManager");
+        this.history = new Invalidation[historySize];
+        this.channel = DatagramChannel.open();
+        channel.bind(bindAddress);
+        this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+
+        String name = "Invalidation-Bus-" + localAddress.getPort();
+        sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, name + "-Sender");
+            t.setDaemon(true);
+            return t;
+        });
+        sender.scheduleWithFixedDelay(this::sendHeartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        receiver = new Thread(this::receiveLoop, name + "-Receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    public void addPeer(InetSocketAddress peer) {
+        if (!peer.equals(localAddress) && !peers.contains(peer)) peers.add(peer);
+    }
+
+    public void removePeer(InetSocketAddress peer) {
+        peers.remove(peer);
+    }
+
+    /**
+     * Broadcasts this node's grade changes: every grade added or corrected invalidates the
+     * student's grade data on the peers.
+     */
+    public void attachTo(ChangeFeed feed) {
+        feed.subscribe(batch -> {
+            for (ChangeEvent event : batch) {
+                if (event.getType() == ChangeEvent.Type.GRADE_ADDED || event.getType() == ChangeEvent.Type.GRADE_UPDATED) {
+                    publish(Scope.GRADE_DATA, event.getStudentId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Queues an invalidation for the peers (the local caches are not touched).
+     * Time Complexity: O(1)
+     */
+    public void publish(Scope scope, String studentId) {
+        String id = scope == Scope.ALL ? "" : Objects.requireNonNull(studentId, "studentId");
+        synchronized (this) {
+            if (closed) return;
+            if (!pendingKeys.add(scope.ordinal() + ":" + id)) {
+                coalesced.increment(); // the queued one covers it
+                return;
+            }
+            Invalidation invalidation = new Invalidation(++lastSequence, scope, id);
+            history[(int) (invalidation.sequence % history.length)] = invalidation;
+            pending.add(invalidation);
+            try {
+                if (pending.size() >= MAX_BATCH) {
+                    sender.execute(this::sendPending);
+                } else if (!flushScheduled) {
+                    flushScheduled = true;
+                    sender.schedule(this::sendPending, BATCH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } catch (RejectedExecutionException e) {
+                // closing: close() sends what is queued
+            }
+        }
+    }
+
+    /**
+     * Sends the queued invalidations now and waits until they are on the wire.
+     */
+    public void flush() {
+        try {
+            sender.submit(this::sendPending).get();
+        } catch (RejectedExecutionException e) {
+            sendPending(); // closed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Invalidation flush failed", e.getCause());
+        }
+    }
+
+    // On the sender thread, so batches leave in sequence order
+    private void sendPending() {
+        List<Invalidation> batch;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) return;
+            batch = new ArrayList<>(pending);
+            pending.clear();
+            pendingKeys.clear();
+        }
+        for (ByteBuffer datagram : encodeBatches(batch)) {
+            for (InetSocketAddress peer : peers) {
+                send(datagram, peer);
+            }
+        }
+        synchronized (this) {
+            lastSentSequence = batch.get(batch.size() - 1).sequence;
+        }
+        sentInvalidations.add(batch.size());
+    }
+
+    private void sendHeartbeat() {
+        if (peers.isEmpty()) return;
+        long lastSent;
+        synchronized (this) {
+            lastSent = lastSentSequence;
+        }
+        ByteBuffer datagram = encode(HEARTBEAT, out -> out.writeLong(lastSent));
+        for (InetSocketAddress peer : peers) {
+            send(datagram, peer);
+        }
+    }
+
+    // Consecutive invalidations in datagrams of up to MAX_BATCH entries and about MAX_DATAGRAM bytes
+    private List<ByteBuffer> encodeBatches(List<Invalidation> invalidations) {
+        List<ByteBuffer> datagrams = new ArrayList<>();
+        int start = 0;
+        while (start < invalidations.size()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            DataOutputStream entries = new DataOutputStream(body);
+            int end = start;
+            try {
+                while (end < invalidations.size() && end - start < MAX_BATCH && body.size() < MAX_DATAGRAM - 512) {
+                    Invalidation invalidation = invalidations.get(end++);
+                    entries.writeByte(invalidation.scope.ordinal());
+                    entries.writeUTF(invalidation.id);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // in-memory stream
+            }
+            long first = invalidations.get(start).sequence;
+            int count = end - start;
+            datagrams.add(encode(BATCH, out -> {
+                out.writeLong(first);
+                out.writeInt(count);
+                body.writeTo(out);
+            }));
+            start = end;
+        }
+        return datagrams;
+    }
+
+    private interface Payload {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private ByteBuffer encode(byte type, Payload payload) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(type);
+            out.writeLong(nodeId);
+            payload.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private void send(ByteBuffer datagram, SocketAddress target) {
+        try {
+            channel.send(datagram.duplicate(), target);
+            sentDatagrams.increment();
+        } catch (IOException e) {
+            failedSends.increment(); // peer down or channel closed: resync covers it
+        }
+    }
+
+    // Receiving
+
+    private void receiveLoop() {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        while (channel.isOpen()) {
+            buffer.clear();
+            SocketAddress source;
+            try {
+                source = channel.receive(buffer);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                continue;
+            }
+            buffer.flip();
+            try {
+                handle(new DataInputStream(new ByteArrayInputStream(buffer.array(), 0, buffer.limit())), source);
+            } catch (IOException | RuntimeException e) {
+                malformed.increment();
+            }
+        }
+    }
+
+    private void handle(DataInputStream in, SocketAddress source) throws IOException {
+        if (in.readInt() != MAGIC) {
+            malformed.increment();
+            return;
+        }
+        byte type = in.readByte();
+        long sender = in.readLong();
+        if (sender == nodeId) return;
+        switch (type) {
+            case BATCH:
+                onBatch(sender, in, source);
+                break;
+            case HEARTBEAT:
+                long lastSent = in.readLong();
+                RemoteNode node = remoteNodes.computeIfAbsent(sender, k -> new RemoteNode(lastSent + 1));
+                boolean behind;
+                synchronized (node) {
+                    behind = lastSent >= node.expected;
+                }
+                if (behind) requestResync(sender, node, source);
+                break;
+            case RESYNC_REQUEST:
+                long target = in.readLong();
+                long from = in.readLong();
+                if (target == nodeId) retransmit(from, source);
+                break;
+            case RESET:
+                long next = in.readLong();
+                cacheManager.invalidateAll();
+                resetsReceived.increment();
+                RemoteNode reset = remoteNodes.computeIfAbsent(sender, k -> new RemoteNode(next));
+                synchronized (reset) {
+                    reset.expected = Math.max(reset.expected, next);
+                }
+                break;
+            default:
+                malformed.increment();
+        }
+    }
+
+    private void onBatch(long sender, DataInputStream in, SocketAddress source) throws IOException {
+        long first = in.readLong();
+        int count = in.readInt();
+        Scope[] scopes = Scope.values();
+        for (int i = 0; i < count; i++) {
+            Scope scope = scopes[in.readUnsignedByte()];
+            apply(scope, in.readUTF());
+        }
+        receivedInvalidations.add(count);
+
+        RemoteNode node = remoteNodes.computeIfAbsent(sender, k -> new RemoteNode(first)); // first contact
+        boolean gap;
+        synchronized (node) {
+            gap = first > node.expected;
+            if (!gap) node.expected = Math.max(node.expected, first + count);
+        }
+        if (gap) requestResync(sender, node, source);
+    }
+
+    private void apply(Scope scope, String id) {
+        switch (scope) {
+            case GRADE_DATA:
+                cacheManager.invalidateGradeData(id);
+                break;
+            case STUDENT:
+                cacheManager.invalidateStudent(id);
+                break;
+            default:
+                cacheManager.invalidateAll();
+        }
+    }
+
+    // Asks the sender for everything from the first sequence missing (at most every RESYNC_INTERVAL_MILLIS)
+    private void requestResync(long sender, RemoteNode node, SocketAddress source) {
+        long from;
+        synchronized (node) {
+            long now = System.currentTimeMillis();
+            if (now - node.lastResyncRequestMillis < RESYNC_INTERVAL_MILLIS) return;
+            node.lastResyncRequestMillis = now;
+            from = node.expected;
+        }
+        resyncRequests.increment();
+        send(encode(RESYNC_REQUEST, out -> {
+            out.writeLong(sender);
+            out.writeLong(from);
+        }), source);
+    }
+
+    private void retransmit(long from, SocketAddress requester) {
+        List<Invalidation> missing = new ArrayList<>();
+        long next;
+        synchronized (this) {
+            next = lastSentSequence + 1;
+            if (from >= next) return;
+            if (from <= lastSequence - history.length) {
+                missing = null; // overwritten
+            } else {
+                for (long sequence = Math.max(1, from); sequence < next; sequence++) {
+                    missing.add(history[(int) (sequence % history.length)]);
+                }
+            }
+        }
+        if (missing == null) {
+            send(encode(RESET, out -> out.writeLong(next)), requester);
+            return;
+        }
+        for (ByteBuffer datagram : encodeBatches(missing)) {
+            send(datagram, requester);
+        }
+        retransmitted.add(missing.size());
+    }
+
+    /**
+     * Sends what is queued, then stops the bus.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        flush();
+        sender.shutdown();
+        channel.close();
+        try {
+            receiver.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public InetSocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    public List<InetSocketAddress> getPeers() {
+        return new ArrayList<>(peers);
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getSentInvalidationCount() {
+        return sentInvalidations.sum();
+    }
+
+    public long getSentDatagramCount() {
+        return sentDatagrams.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getReceivedInvalidationCount() {
+        return receivedInvalidations.sum();
+    }
+
+    public long getResyncRequestCount() {
+        return resyncRequests.sum();
+    }
+
+    public long getRetransmittedCount() {
+        return retransmitted.sum();
+    }
+
+    public long getResetCount() {
+        return resetsReceived.sum();
+    }
+
+    public void displayStatistics() {
+        System.out.println("\n=== CACHE INVALIDATION BUS ===");
+        System.out.printf("Node:                %016x on %s, %d peers%n", nodeId, localAddress, peers.size());
+        System.out.printf("Sent:                %7d invalidations in %d datagrams (%d coalesced, %d failed sends)%n",
+                sentInvalidations.sum(), sentDatagrams.sum(), coalesced.sum(), failedSends.sum());
+        System.out.printf("Received:            %7d invalidations from %d nodes (%d malformed datagrams)%n",
+                receivedInvalidations.sum(), remoteNodes.size(), malformed.sum());
+        System.out.printf("Resync:              %7d requests sent, %d invalidations retransmitted, %d resets%n",
+                resyncRequests.sum(), retransmitted.sum(), resetsReceived.sum());
+    }
+}
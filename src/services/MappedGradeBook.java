@@ -0,0 +1,735 @@
+package services;
+
+import models.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Whole-dataset binary image of the grade book, read through FileChannel.map.
+ *
+ * open() maps the file and checks the header: O(1) in the data size. findStudent and
+ * getGradesByStudent are then served straight from the mapping (binary search on the ID index,
+ * then one contiguous grade range), so a cold start can answer queries before the in-memory
+ * indexes are rebuilt with loadInto(). Pages are faulted in on first touch.
+ *
+ * Layout (little-endian, format version 1):
+ * <pre>
+ * header      128 bytes: magic "GBKM", version, LSN, creation time, counts, section offsets,
+ *             file length, CRC32 of everything after the header, detached rows
+ * students    40 bytes each: id, name, email, phone (dictionary ids), age, enrollment epoch
+ *             day, first grade, grade count, type, flags. A detached row holds the grades of a
+ *             student ID that is not registered (GradeManager accepts those); it is never
+ *             returned by findStudent or registered by loadInto.
+ * grades      32 bytes each, grouped by student in insertion order: grade ordinal (or
+ *             dictionary id of a non-standard grade ID), timestamp epoch second (UTC),
+ *             value, timestamp nanos, subject index, flags
+ * id index    8 bytes per student: (studentId.hashCode() &lt;&lt; 32 | student row), sorted
+ * subjects    12 bytes each: name, code (dictionary ids), type
+ * properties  8 bytes each: key, value (dictionary ids)
+ * dictionary  count, count + 1 offsets, UTF-8 bytes (each distinct string stored once)
+ * </pre>
+ *
+ * Every section is fixed-width except the dictionary, so any record is one multiplication
+ * away. Each section is mapped separately and must stay under 2 GB (about 67M grades).
+ * Values and timestamps round-trip exactly. Readers may be used from several threads.
+ */
+public final class MappedGradeBook {
+    public static final int FORMAT_VERSION = 1;
+    static final int MAGIC = 0x4D4B4247; // "GBKM" read little-endian
+
+    private static final int HEADER_BYTES = 128;
+    private static final int STUDENT_BYTES = 40;
+    private static final int GRADE_BYTES = 32;
+    private static final int INDEX_BYTES = 8;
+    private static final int SUBJECT_BYTES = 12;
+    private static final int PROPERTY_BYTES = 8;
+
+    private static final byte TYPE_REGULAR = 0;
+    private static final byte TYPE_HONORS = 1;
+    private static final byte SUBJECT_CORE = 0;
+    private static final byte SUBJECT_ELECTIVE = 1;
+    private static final byte STUDENT_DETACHED = 1;
+    private static final short GRADE_ID_IN_DICTIONARY = 1;
+
+    // Header field offsets
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_LSN = 8;
+    private static final int H_CREATED = 16;
+    private static final int H_STUDENTS = 24;
+    private static final int H_GRADES = 28;
+    private static final int H_SUBJECTS = 32;
+    private static final int H_PROPERTIES = 36;
+    private static final int H_STUDENT_OFFSET = 40;
+    private static final int H_GRADE_OFFSET = 48;
+    private static final int H_INDEX_OFFSET = 56;
+    private static final int H_SUBJECT_OFFSET = 64;
+    private static final int H_PROPERTY_OFFSET = 72;
+    private static final int H_DICTIONARY_OFFSET = 80;
+    private static final int H_DICTIONARY_LENGTH = 88;
+    private static final int H_FILE_LENGTH = 96;
+    private static final int H_CHECKSUM = 104;
+    private static final int H_DETACHED = 112;
+
+    private final Path file;
+    private final long lsn;
+    private final long createdAtMillis;
+    private final int studentCount; // rows, including detached ones
+    private final int detachedCount;
+    private final int gradeCount;
+    private final ByteBuffer students;
+    private final ByteBuffer grades;
+    private final ByteBuffer index;
+    private final ByteBuffer dictionary;
+    private final int dictionaryCount;
+    private final int dictionaryBlobStart;
+    private final Subject[] subjects;
+    private final Map<String, String> properties;
+    private final long checksum;
+    private final long fileLength;
+
+    private MappedGradeBook(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        long size = channel.size();
+        if (size < HEADER_BYTES) throw new IOException("Not a grade book image (too short): " + file);
+        ByteBuffer header = map(channel, 0, HEADER_BYTES);
+        if (header.getInt(H_MAGIC) != MAGIC) throw new IOException("Not a grade book image: " + file);
+        int version = header.getInt(H_VERSION);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported grade book image version " + version + ": " + file);
+        }
+        fileLength = header.getLong(H_FILE_LENGTH);
+        if (fileLength != size) {
+            throw new IOException("Truncated grade book image (" + size + " of " + fileLength + " bytes): " + file);
+        }
+        lsn = header.getLong(H_LSN);
+        createdAtMillis = header.getLong(H_CREATED);
+        studentCount = header.getInt(H_STUDENTS);
+        detachedCount = header.getInt(H_DETACHED);
+        gradeCount = header.getInt(H_GRADES);
+        int subjectCount = header.getInt(H_SUBJECTS);
+        int propertyCount = header.getInt(H_PROPERTIES);
+        checksum = header.getLong(H_CHECKSUM);
+
+        students = mapSection(channel, header.getLong(H_STUDENT_OFFSET), (long) studentCount * STUDENT_BYTES);
+        grades = mapSection(channel, header.getLong(H_GRADE_OFFSET), (long) gradeCount * GRADE_BYTES);
+        index = mapSection(channel, header.getLong(H_INDEX_OFFSET), (long) studentCount * INDEX_BYTES);
+        ByteBuffer subjectSection = mapSection(channel, header.getLong(H_SUBJECT_OFFSET), (long) subjectCount * SUBJECT_BYTES);
+        ByteBuffer propertySection = mapSection(channel, header.getLong(H_PROPERTY_OFFSET), (long) propertyCount * PROPERTY_BYTES);
+        dictionary = mapSection(channel, header.getLong(H_DICTIONARY_OFFSET), header.getLong(H_DICTIONARY_LENGTH));
+        dictionaryCount = dictionary.getInt(0);
+        dictionaryBlobStart = 4 + (dictionaryCount + 1) * 4;
+        if (dictionaryBlobStart > dictionary.capacity()) throw new IOException("Corrupt dictionary: " + file);
+
+        // Small tables are decoded up front
+        SubjectRegistry registry = SubjectRegistry.getInstance();
+        subjects = new Subject[subjectCount];
+        for (int i = 0; i < subjectCount; i++) {
+            int at = i * SUBJECT_BYTES;
+            String name = string(subjectSection.getInt(at));
+            String code = string(subjectSection.getInt(at + 4));
+            subjects[i] = subjectSection.get(at + 8) == SUBJECT_CORE ? registry.core(name, code) : registry.elective(name, code);
+        }
+        Map<String, String> props = new LinkedHashMap<>();
+        for (int i = 0; i < propertyCount; i++) {
+            props.put(string(propertySection.getInt(i * PROPERTY_BYTES)), string(propertySection.getInt(i * PROPERTY_BYTES + 4)));
+        }
+        properties = Collections.unmodifiableMap(props);
+    }
+
+    /**
+     * Maps an image and validates its header and section bounds.
+     * Time Complexity: O(subjects + properties), independent of students and grades
+     */
+    public static MappedGradeBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MappedGradeBook(file, channel); // mappings stay valid after the channel closes
+        }
+    }
+
+    /**
+     * True if the file starts with this format's magic number (cheap format sniffing).
+     */
+    public static boolean isImage(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            return channel.read(magic, 0) == 4 && magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private ByteBuffer mapSection(FileChannel channel, long offset, long length) throws IOException {
+        if (offset < HEADER_BYTES || length < 0 || offset + length > fileLength) {
+            throw new IOException("Corrupt section table in " + file);
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Section too large to map (" + length + " bytes) in " + file);
+        }
+        return map(channel, offset, length);
+    }
+
+    // Queries served from the mapping
+
+    /**
+     * Row of a student in the image, or -1.
+     * Time Complexity: O(log n)
+     */
+    public int findStudentRow(String studentId) {
+        long key = (long) studentId.hashCode() << 32;
+        int low = 0;
+        int high = studentCount;
+        while (low < high) { // first entry >= key
+            int mid = (low + high) >>> 1;
+            if (index.getLong(mid * INDEX_BYTES) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < studentCount; i++) {
+            long entry = index.getLong(i * INDEX_BYTES);
+            if ((entry & 0xFFFFFFFF00000000L) != key) break;
+            int row = (int) entry;
+            if (studentId.equals(string(students.getInt(row * STUDENT_BYTES)))) return row;
+        }
+        return -1;
+    }
+
+    /**
+     * Materializes a student from the image (a fresh, detached instance), or null.
+     * Time Complexity: O(log n)
+     */
+    public Student findStudent(String studentId) {
+        int row = findStudentRow(studentId);
+        return row < 0 || isDetached(row) ? null : studentAt(row);
+    }
+
+    /**
+     * A student's grades in insertion order, materialized from one contiguous range.
+     * Time Complexity: O(log n + k)
+     */
+    public List<Grade> getGradesByStudent(String studentId) {
+        int row = findStudentRow(studentId);
+        return row < 0 ? Collections.emptyList() : getGradesAt(row);
+    }
+
+    /**
+     * Grades of the student (or detached ID) in a row.
+     * Time Complexity: O(k)
+     */
+    public List<Grade> getGradesAt(int row) {
+        Objects.checkIndex(row, studentCount);
+        String studentId = string(students.getInt(row * STUDENT_BYTES));
+        int first = students.getInt(row * STUDENT_BYTES + 24);
+        int count = students.getInt(row * STUDENT_BYTES + 28);
+        List<Grade> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(gradeAt(first + i, studentId));
+        }
+        return result;
+    }
+
+    /**
+     * Average grade of a student, read from the mapping without creating objects.
+     * Time Complexity: O(log n + k)
+     */
+    public double calculateOverallAverage(String studentId) {
+        int row = findStudentRow(studentId);
+        if (row < 0) return 0.0;
+        int first = students.getInt(row * STUDENT_BYTES + 24);
+        int count = students.getInt(row * STUDENT_BYTES + 28);
+        double sum = 0;
+        for (int i = first; i < first + count; i++) {
+            sum += grades.getDouble(i * GRADE_BYTES + 16);
+        }
+        return count > 0 ? sum / count : 0.0;
+    }
+
+    /**
+     * Sum of every grade value, scanning the grade section sequentially.
+     * Time Complexity: O(g)
+     */
+    public double sumAllGrades() {
+        double sum = 0;
+        for (int i = 0; i < gradeCount; i++) {
+            sum += grades.getDouble(i * GRADE_BYTES + 16);
+        }
+        return sum;
+    }
+
+    private boolean isDetached(int row) {
+        return students.get(row * STUDENT_BYTES + 33) == STUDENT_DETACHED;
+    }
+
+    /**
+     * Materializes the student in a row (0 .. getRowCount() - 1), or null for a detached row.
+     */
+    public Student studentAt(int row) {
+        Objects.checkIndex(row, studentCount);
+        if (isDetached(row)) return null;
+        int at = row * STUDENT_BYTES;
+        String studentId = string(students.getInt(at));
+        String name = string(students.getInt(at + 4));
+        String email = string(students.getInt(at + 8));
+        String phone = string(students.getInt(at + 12));
+        int age = students.getInt(at + 16);
+        String enrolled = LocalDate.ofEpochDay(students.getInt(at + 20)).toString();
+        return students.get(at + 32) == TYPE_HONORS
+                ? new HonorsStudent(studentId, name, age, email, phone, enrolled)
+                : new RegularStudent(studentId, name, age, email, phone, enrolled);
+    }
+
+    private Grade gradeAt(int gradeRow, String studentId) {
+        int at = gradeRow * GRADE_BYTES;
+        long id = grades.getLong(at);
+        String gradeId = grades.getShort(at + 30) == GRADE_ID_IN_DICTIONARY
+                ? string((int) id)
+                : IdAllocator.GRADES.format(id);
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(grades.getLong(at + 8), grades.getInt(at + 24), ZoneOffset.UTC);
+        return new Grade(gradeId, studentId, subjects[grades.getShort(at + 28)], grades.getDouble(at + 16), timestamp);
+    }
+
+    // Dictionary strings are decoded on demand
+    private String string(int id) {
+        if (id < 0 || id >= dictionaryCount) throw new IllegalStateException("Bad dictionary id " + id + " in " + file);
+        int start = dictionary.getInt(4 + id * 4);
+        int end = dictionary.getInt(8 + id * 4);
+        byte[] bytes = new byte[end - start];
+        dictionary.get(dictionaryBlobStart + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Rebuilds the full in-memory model from the image: students in order, then their grades
+     * through GradeManager's bulk path in batches. onGrade (may be null) sees each grade.
+     * Time Complexity: O(n + g)
+     */
+    public void loadInto(StudentManager studentManager, GradeManager gradeManager, Consumer<Grade> onGrade) {
+        for (int row = 0; row < studentCount; row++) {
+            Student student = studentAt(row);
+            if (student != null) studentManager.addStudent(student, false);
+        }
+        List<Grade> batch = new ArrayList<>(8_192);
+        for (int row = 0; row < studentCount; row++) {
+            int at = row * STUDENT_BYTES;
+            String studentId = string(students.getInt(at));
+            int first = students.getInt(at + 24);
+            int count = students.getInt(at + 28);
+            for (int i = first; i < first + count; i++) {
+                Grade grade = gradeAt(i, studentId);
+                if (onGrade != null) onGrade.accept(grade);
+                batch.add(grade);
+            }
+            if (batch.size() >= 8_192) {
+                gradeManager.addGrades(batch);
+                batch.clear();
+            }
+        }
+        gradeManager.addGrades(batch);
+    }
+
+    /**
+     * Recomputes the CRC32 of the data sections. Reads the whole file, so open() does not.
+     */
+    public void verifyChecksum() throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            long position = HEADER_BYTES;
+            while (position < fileLength) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read < 0) break;
+                buffer.flip();
+                crc.update(buffer);
+                position += read;
+            }
+        }
+        if (crc.getValue() != checksum) throw new IOException("Grade book image checksum mismatch: " + file);
+    }
+
+    public long getLsn() {
+        return lsn;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(createdAtMillis), ZoneOffset.systemDefault());
+    }
+
+    public int getStudentCount() {
+        return studentCount - detachedCount;
+    }
+
+    public int getRowCount() {
+        return studentCount;
+    }
+
+    public int getGradeCount() {
+        return gradeCount;
+    }
+
+    public String getProperty(String key) {
+        return properties.get(key);
+    }
+
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    public long getFileLength() {
+        return fileLength;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // Writing
+
+    /**
+     * Writes every student and grade of a pinned snapshot (values as of its version). Grades
+     * of unregistered student IDs go to detached rows, so nothing the snapshot holds is lost.
+     * Time Complexity: O(n + g)
+     *
+     * @return file length in bytes
+     */
+    public static long write(Path file, ModelSnapshot snapshot, long lsn) throws IOException {
+        List<Student> students = snapshot.getStudents();
+        Set<String> registered = new HashSet<>(students.size() * 2);
+        for (Student student : students) {
+            registered.add(student.getStudentId());
+        }
+        Map<String, List<Grade>> detached = new LinkedHashMap<>();
+        int gradeCount = 0;
+        for (Grade grade : snapshot.getGrades()) {
+            gradeCount++;
+            if (!registered.contains(grade.getStudentId())) {
+                detached.computeIfAbsent(grade.getStudentId(), id -> new ArrayList<>()).add(grade);
+            }
+        }
+        try (Writer writer = new Writer(file, students.size() + detached.size(), gradeCount, lsn)) {
+            for (Student student : students) {
+                writer.addStudent(student, snapshot.getGradesByStudent(student.getStudentId()), snapshot::valueOf);
+            }
+            for (Map.Entry<String, List<Grade>> entry : detached.entrySet()) {
+                writer.addDetachedStudent(entry.getKey(), entry.getValue().size());
+                for (Grade grade : entry.getValue()) {
+                    writer.addGrade(grade.getGradeId(), grade.getSubject(), snapshot.valueOf(grade), grade.getTimestamp());
+                }
+            }
+            return writer.finish();
+        }
+    }
+
+    /**
+     * Streams an image to disk. Section sizes follow from the counts given up front, so
+     * students and grades are written straight to their final offsets; only the strings are
+     * held in memory (for de-duplication) until finish().
+     *
+     * Call addStudent with its grade count, then addGrade that many times, for each student.
+     */
+    public static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final int studentCount;
+        private final int gradeCount;
+        private final long lsn;
+        private final long studentOffset;
+        private final long gradeOffset;
+        private final long indexOffset;
+        private final SectionWriter studentOut;
+        private final SectionWriter gradeOut;
+        private final long[] indexEntries;
+
+        private final Map<String, Integer> dictionaryIds = new HashMap<>();
+        private final List<byte[]> dictionaryStrings = new ArrayList<>();
+        private long dictionaryBytes;
+        private final Map<Subject, Integer> subjectIds = new LinkedHashMap<>();
+        private final Map<String, String> properties = new LinkedHashMap<>();
+
+        private int studentsWritten;
+        private int detachedCount;
+        private int gradesWritten;
+        private int gradesExpected; // running total of announced per-student counts
+
+        public Writer(Path file, int studentCount, int gradeCount, long lsn) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+            this.studentCount = studentCount;
+            this.gradeCount = gradeCount;
+            this.lsn = lsn;
+            this.studentOffset = HEADER_BYTES;
+            this.gradeOffset = studentOffset + (long) studentCount * STUDENT_BYTES;
+            this.indexOffset = gradeOffset + (long) gradeCount * GRADE_BYTES;
+            this.studentOut = new SectionWriter(channel, studentOffset);
+            this.gradeOut = new SectionWriter(channel, gradeOffset);
+            this.indexEntries = new long[studentCount];
+        }
+
+        public void setProperty(String key, String value) {
+            properties.put(key, value);
+        }
+
+        public void addStudent(Student student, List<Grade> grades, ToDoubleFunction<Grade> valueOf) throws IOException {
+            addStudent(student.getStudentId(), student.getStudentType(), student.getName(), student.getAge(),
+                    student.getEmail(), student.getPhone(), student.getEnrollmentDate(), grades.size());
+            for (Grade grade : grades) {
+                addGrade(grade.getGradeId(), grade.getSubject(), valueOf.applyAsDouble(grade), grade.getTimestamp());
+            }
+        }
+
+        public void addStudent(String studentId, String studentType, String name, int age, String email,
+                               String phone, LocalDate enrollmentDate, int studentGrades) throws IOException {
+            addRow(studentId, "Honors".equals(studentType) ? TYPE_HONORS : TYPE_REGULAR, (byte) 0,
+                    name, age, email, phone, (int) enrollmentDate.toEpochDay(), studentGrades);
+        }
+
+        /**
+         * Starts a detached row: grades recorded under a student ID that is not registered.
+         */
+        public void addDetachedStudent(String studentId, int studentGrades) throws IOException {
+            addRow(studentId, TYPE_REGULAR, STUDENT_DETACHED, studentId, 0, studentId, studentId, 0, studentGrades);
+            detachedCount++;
+        }
+
+        private void addRow(String studentId, byte type, byte flags, String name, int age, String email,
+                            String phone, int enrollmentEpochDay, int studentGrades) throws IOException {
+            if (studentsWritten == studentCount) throw new IllegalStateException("More students than announced");
+            if (gradesWritten != gradesExpected) throw new IllegalStateException("Previous student is missing grades");
+            int row = studentsWritten++;
+            indexEntries[row] = ((long) studentId.hashCode() << 32) | row;
+
+            ByteBuffer out = studentOut.reserve(STUDENT_BYTES);
+            out.putInt(intern(studentId));
+            out.putInt(intern(name));
+            out.putInt(intern(email));
+            out.putInt(intern(phone));
+            out.putInt(age);
+            out.putInt(enrollmentEpochDay);
+            out.putInt(gradesExpected);
+            out.putInt(studentGrades);
+            out.put(type);
+            out.put(flags);
+            out.put(new byte[6]);
+            gradesExpected += studentGrades;
+        }
+
+        public void addGrade(String gradeId, Subject subject, double value, LocalDateTime timestamp) throws IOException {
+            long ordinal = IdAllocator.GRADES.parse(gradeId);
+            boolean inDictionary = ordinal < 0;
+            addGrade(inDictionary ? intern(gradeId) : ordinal, inDictionary, subject, value,
+                    timestamp.toEpochSecond(ZoneOffset.UTC), timestamp.getNano());
+        }
+
+        /**
+         * Raw form: a grade ID issued by IdAllocator.GRADES, given as its ordinal.
+         */
+        public void addGrade(long gradeOrdinal, Subject subject, double value, long epochSecond, int nanos) throws IOException {
+            addGrade(gradeOrdinal, false, subject, value, epochSecond, nanos);
+        }
+
+        private void addGrade(long id, boolean inDictionary, Subject subject, double value,
+                              long epochSecond, int nanos) throws IOException {
+            if (gradesWritten == gradesExpected) throw new IllegalStateException("More grades than announced for the student");
+            gradesWritten++;
+            ByteBuffer out = gradeOut.reserve(GRADE_BYTES);
+            out.putLong(id);
+            out.putLong(epochSecond);
+            out.putDouble(value);
+            out.putInt(nanos);
+            out.putShort((short) subjectId(subject));
+            out.putShort(inDictionary ? GRADE_ID_IN_DICTIONARY : 0);
+        }
+
+        private int subjectId(Subject subject) {
+            Integer id = subjectIds.get(subject);
+            if (id == null) {
+                if (subjectIds.size() == Short.MAX_VALUE) throw new IllegalStateException("Too many subjects");
+                id = subjectIds.size();
+                subjectIds.put(subject, id);
+            }
+            return id;
+        }
+
+        private int intern(String value) {
+            Integer id = dictionaryIds.get(value);
+            if (id == null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (dictionaryBytes + bytes.length > Integer.MAX_VALUE) throw new IllegalStateException("Dictionary over 2 GB");
+                id = dictionaryStrings.size();
+                dictionaryIds.put(value, id);
+                dictionaryStrings.add(bytes);
+                dictionaryBytes += bytes.length;
+            }
+            return id;
+        }
+
+        /**
+         * Writes the index, the variable-size sections and the header.
+         *
+         * @return file length in bytes
+         */
+        public long finish() throws IOException {
+            if (studentsWritten != studentCount || gradesWritten != gradeCount || gradesExpected != gradeCount) {
+                throw new IllegalStateException(String.format("Wrote %d/%d students and %d/%d grades",
+                        studentsWritten, studentCount, gradesWritten, gradeCount));
+            }
+            studentOut.flush();
+            gradeOut.flush();
+
+            // Subjects and property strings must be interned before the dictionary is written
+            int[][] subjectStrings = new int[subjectIds.size()][];
+            for (Map.Entry<Subject, Integer> entry : subjectIds.entrySet()) {
+                Subject subject = entry.getKey();
+                subjectStrings[entry.getValue()] = new int[] { intern(subject.getSubjectName()),
+                        intern(subject.getSubjectCode()), subject instanceof CoreSubject ? SUBJECT_CORE : SUBJECT_ELECTIVE };
+            }
+            int[][] propertyStrings = new int[properties.size()][];
+            int p = 0;
+            for (Map.Entry<String, String> entry : properties.entrySet()) {
+                propertyStrings[p++] = new int[] { intern(entry.getKey()), intern(entry.getValue()) };
+            }
+
+            Arrays.sort(indexEntries);
+            SectionWriter out = new SectionWriter(channel, indexOffset);
+            for (long entry : indexEntries) {
+                out.reserve(INDEX_BYTES).putLong(entry);
+            }
+            long subjectOffset = out.position();
+            for (int[] subject : subjectStrings) {
+                out.reserve(SUBJECT_BYTES).putInt(subject[0]).putInt(subject[1]).put((byte) subject[2]).put(new byte[3]);
+            }
+            long propertyOffset = out.position();
+            for (int[] property : propertyStrings) {
+                out.reserve(PROPERTY_BYTES).putInt(property[0]).putInt(property[1]);
+            }
+            long dictionaryOffset = out.position();
+            out.reserve(4).putInt(dictionaryStrings.size());
+            int offset = 0;
+            for (byte[] bytes : dictionaryStrings) {
+                out.reserve(4).putInt(offset);
+                offset += bytes.length;
+            }
+            out.reserve(4).putInt(offset);
+            for (byte[] bytes : dictionaryStrings) {
+                out.write(bytes);
+            }
+            long fileLength = out.position();
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(H_MAGIC, MAGIC)
+                    .putInt(H_VERSION, FORMAT_VERSION)
+                    .putLong(H_LSN, lsn)
+                    .putLong(H_CREATED, System.currentTimeMillis())
+                    .putInt(H_STUDENTS, studentCount)
+                    .putInt(H_GRADES, gradeCount)
+                    .putInt(H_SUBJECTS, subjectStrings.length)
+                    .putInt(H_PROPERTIES, propertyStrings.length)
+                    .putLong(H_STUDENT_OFFSET, studentOffset)
+                    .putLong(H_GRADE_OFFSET, gradeOffset)
+                    .putLong(H_INDEX_OFFSET, indexOffset)
+                    .putLong(H_SUBJECT_OFFSET, subjectOffset)
+                    .putLong(H_PROPERTY_OFFSET, propertyOffset)
+                    .putLong(H_DICTIONARY_OFFSET, dictionaryOffset)
+                    .putLong(H_DICTIONARY_LENGTH, fileLength - dictionaryOffset)
+                    .putLong(H_FILE_LENGTH, fileLength)
+                    .putLong(H_CHECKSUM, checksum(fileLength))
+                    .putInt(H_DETACHED, detachedCount);
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            return fileLength;
+        }
+
+        // The data sections were written out of order, so the CRC is taken by reading them back
+        private long checksum(long fileLength) throws IOException {
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            long position = HEADER_BYTES;
+            while (position < fileLength) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read < 0) break;
+                buffer.flip();
+                crc.update(buffer);
+                position += read;
+            }
+            return crc.getValue();
+        }
+
+        /**
+         * Forces the file to the device (call after finish when it must survive a power loss).
+         */
+        public void force() throws IOException {
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // An unfinished image keeps a zeroed header, which open() rejects
+            channel.close();
+        }
+    }
+
+    // Buffered sequential writer for one region of the file
+    private static final class SectionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long flushedTo;
+
+        SectionWriter(FileChannel channel, long start) {
+            this.channel = channel;
+            this.flushedTo = start;
+        }
+
+        ByteBuffer reserve(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+            return buffer;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) flush();
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        long position() {
+            return flushedTo + buffer.position();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushedTo += channel.write(buffer, flushedTo);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package services;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import interfaces.MemoryPressureListener;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Watches the old generation and tells listeners (CacheManager) when to shed and when to grow
+ * back.
+ *
+ * - The tenured heap pool gets a usage threshold and a collection usage threshold at the high
+ *   watermark (85% of its maximum by default). Crossing either reports pressure.
+ * - GC notifications give the pool's usage after every collection: at or above the high
+ *   watermark is pressure again (the threshold notifications fire only on crossing), below the
+ *   low watermark (70%) is relief.
+ * - Pressure is reported at most once per cooldown, since shed entries are only reclaimed by
+ *   a later collection; relief waits out the cooldown as well.
+ *
+ * One monitor per JVM (getInstance()). Where the pool or the notifications are not available
+ * isSupported() is false and listeners are never called.
+ */
+public final class MemoryPressureMonitor {
+    public static final double DEFAULT_HIGH_WATERMARK = 0.85;
+    public static final double DEFAULT_LOW_WATERMARK = 0.70;
+
+    private static final long COOLDOWN_MILLIS = 1000;
+    private static final int RECENT_EVENTS = 16;
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private static MemoryPressureMonitor instance;
+
+    /**
+     * A pressure or relief report.
+     */
+    public static final class Event {
+        public enum Kind { PRESSURE, RELIEF }
+
+        private final Kind kind;
+        private final LocalDateTime time;
+        private final String poolName;
+        private final long usedBytes;
+        private final long maxBytes;
+
+        Event(Kind kind, String poolName, long usedBytes, long maxBytes) {
+            this.kind = kind;
+            this.time = LocalDateTime.now();
+            this.poolName = poolName;
+            this.usedBytes = usedBytes;
+            this.maxBytes = maxBytes;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public LocalDateTime getTime() {
+            return time;
+        }
+
+        public long getUsedBytes() {
+            return usedBytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s %s at %.1f%% (%.1f / %.1f MB)", time.format(TIME_FORMATTER), kind,
+                    poolName, maxBytes > 0 ? usedBytes * 100.0 / maxBytes : 0.0,
+                    usedBytes / (1024.0 * 1024.0), maxBytes / (1024.0 * 1024.0));
+        }
+    }
+
+    private final MemoryPoolMXBean pool; // null if unsupported
+    private final boolean supported;
+    private final List<MemoryPressureListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder pressureEvents = new LongAdder();
+    private final LongAdder reliefEvents = new LongAdder();
+    private final Deque<Event> recentEvents = new ArrayDeque<>(); // guarded by this
+
+    // Guarded by this
+    private double highWatermark = DEFAULT_HIGH_WATERMARK;
+    private double lowWatermark = DEFAULT_LOW_WATERMARK;
+    private long lastPressureMillis = Long.MIN_VALUE / 2;
+    private boolean underPressure;
+    private boolean pressureReported; // relief is only passed on after the first pressure
+
+    private MemoryPressureMonitor() {
+        pool = findTenuredPool();
+        supported = pool != null && register();
+        if (supported) {
+            applyThresholds();
+        }
+    }
+
+    public static synchronized MemoryPressureMonitor getInstance() {
+        if (instance == null) {
+            instance = new MemoryPressureMonitor();
+        }
+        return instance;
+    }
+
+    // The heap pool objects are promoted into: the only heap pool with a usage threshold
+    // (eden and survivor spaces have none)
+    private static MemoryPoolMXBean findTenuredPool() {
+        MemoryPoolMXBean found = null;
+        for (MemoryPoolMXBean candidate : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (candidate.getType() == MemoryType.HEAP && candidate.isUsageThresholdSupported()
+                    && candidate.isCollectionUsageThresholdSupported() && candidate.getUsage().getMax() > 0) {
+                found = candidate;
+            }
+        }
+        return found;
+    }
+
+    private boolean register() {
+        try {
+            NotificationListener listener = this::handleNotification;
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(listener, null, null);
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter) {
+                    ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+                }
+            }
+            return true;
+        } catch (RuntimeException | LinkageError e) {
+            return false; // no notification support: the monitor stays idle
+        }
+    }
+
+    private synchronized void applyThresholds() {
+        long max = pool.getUsage().getMax();
+        long threshold = Math.max(1, (long) (max * highWatermark));
+        pool.setUsageThreshold(threshold);
+        pool.setCollectionUsageThreshold(threshold);
+    }
+
+    /**
+     * @param high fraction of the old generation at which pressure is reported (0-1]
+     * @param low  fraction below which a collection reports relief; below high
+     */
+    public void setWatermarks(double high, double low) {
+        if (!(high > 0 && high <= 1) || !(low > 0 && low < high)) {
+            throw new IllegalArgumentException("Watermarks must satisfy 0 < low < high <= 1: " + low + ", " + high);
+        }
+        synchronized (this) {
+            highWatermark = high;
+            lowWatermark = low;
+            if (supported) applyThresholds();
+        }
+    }
+
+    public synchronized double getHighWatermark() {
+        return highWatermark;
+    }
+
+    public synchronized double getLowWatermark() {
+        return lowWatermark;
+    }
+
+    public boolean isSupported() {
+        return supported;
+    }
+
+    public String getPoolName() {
+        return pool != null ? pool.getName() : "none";
+    }
+
+    /**
+     * Listeners are held until removed.
+     */
+    public void addListener(MemoryPressureListener listener) {
+        if (!listeners.contains(listener)) listeners.add(listener);
+    }
+
+    public void removeListener(MemoryPressureListener listener) {
+        listeners.remove(listener);
+    }
+
+    public long getPressureEventCount() {
+        return pressureEvents.sum();
+    }
+
+    public long getReliefEventCount() {
+        return reliefEvents.sum();
+    }
+
+    public synchronized boolean isUnderPressure() {
+        return underPressure;
+    }
+
+    /**
+     * Latest pressure and relief reports, oldest first.
+     */
+    public synchronized List<Event> getRecentEvents() {
+        return new ArrayList<>(recentEvents);
+    }
+
+    private void handleNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)
+                || MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)) {
+            MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+            if (info.getPoolName().equals(pool.getName())) {
+                onUsage(info.getUsage(), false);
+            }
+        } else if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(type)) {
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            MemoryUsage after = info.getGcInfo().getMemoryUsageAfterGc().get(pool.getName());
+            if (after != null) {
+                onUsage(after, true);
+            }
+        }
+    }
+
+    // afterCollection: the usage excludes garbage, so it can also report relief
+    private void onUsage(MemoryUsage usage, boolean afterCollection) {
+        long used = usage.getUsed();
+        long max = usage.getMax() > 0 ? usage.getMax() : pool.getUsage().getMax();
+        Event.Kind kind = null;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            boolean coolingDown = now - lastPressureMillis < COOLDOWN_MILLIS;
+            if (used >= max * highWatermark) {
+                if (!coolingDown) {
+                    kind = Event.Kind.PRESSURE;
+                    lastPressureMillis = now;
+                    underPressure = true;
+                    pressureReported = true;
+                }
+            } else if (afterCollection && used < max * lowWatermark && pressureReported && !coolingDown) {
+                kind = Event.Kind.RELIEF;
+                if (underPressure) {
+                    underPressure = false;
+                    record(new Event(kind, pool.getName(), used, max)); // only the transition is an event
+                    reliefEvents.increment();
+                }
+            }
+            if (kind == Event.Kind.PRESSURE) {
+                record(new Event(kind, pool.getName(), used, max));
+                pressureEvents.increment();
+            }
+        }
+        if (kind == null) return;
+        for (MemoryPressureListener listener : listeners) {
+            try {
+                if (kind == Event.Kind.PRESSURE) {
+                    listener.onMemoryPressure(pool.getName(), used, max);
+                } else {
+                    listener.onMemoryRelief(pool.getName(), used, max);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("✗ Memory pressure listener failed on " + kind + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void record(Event event) {
+        if (recentEvents.size() == RECENT_EVENTS) recentEvents.removeFirst();
+        recentEvents.addLast(event);
+    }
+}
@@ -2,7 +2,6 @@ package services;
 
 import models.*;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
@@ -11,8 +10,9 @@ public class PatternSearchService {
     private StudentManager studentManager;
     private GradeManager gradeManager;
 
-    // Cache compiled patterns for performance (US-8)
-    private Map<String, Pattern> patternCache;
+    // Cache compiled patterns for performance (US-8), a region of the shared CacheManager
+    private static final long PATTERN_CACHE_SIZE = 500;
+    private final CacheRegion<String, Pattern> patternCache;
 
     // Search statistics
     private int totalSearches = 0;
@@ -20,9 +20,14 @@ public class PatternSearchService {
     private Map<String, Integer> searchTypeCounts;
 
     public PatternSearchService(StudentManager studentManager, GradeManager gradeManager) {
+        this(studentManager, gradeManager, CacheManager.getInstance());
+    }
+
+    public PatternSearchService(StudentManager studentManager, GradeManager gradeManager, CacheManager cacheManager) {
         this.studentManager = studentManager;
         this.gradeManager = gradeManager;
-        this.patternCache = new ConcurrentHashMap<>();
+        this.patternCache = cacheManager.createRegion("Pattern Search",
+                CacheRegion.Spec.<String, Pattern>ofSize(PATTERN_CACHE_SIZE).withPriority(CacheRegion.Priority.LOW));
         this.searchTypeCounts = new HashMap<>();
     }
 
@@ -335,13 +340,14 @@ public class PatternSearchService {
             for (Student student : studentManager.getStudents()) {
                 totalScanned++;
                 List<Grade> grades = gradeManager.getGradesByStudent(student.getStudentId());
+                GradingScale scale = student.getGradingScale();
 
                 boolean matchFound = false;
                 String matchedGrade = "";
 
                 for (Grade grade : grades) {
                     double gradeValue = grade.getGrade();
-                    String letterGrade = getLetterGrade(gradeValue);
+                    String letterGrade = scale.letter(gradeValue);
 
                     if (pattern.matches("[ABCDF][+-]?")) {
                         // Letter grade search
@@ -422,21 +428,6 @@ public class PatternSearchService {
         }
     }
 
-    // Helper method to get letter grade
-    private String getLetterGrade(double percentage) {
-        if (percentage >= 93) return "A";
-        else if (percentage >= 90) return "A-";
-        else if (percentage >= 87) return "B+";
-        else if (percentage >= 83) return "B";
-        else if (percentage >= 80) return "B-";
-        else if (percentage >= 77) return "C+";
-        else if (percentage >= 73) return "C";
-        else if (percentage >= 70) return "C-";
-        else if (percentage >= 67) return "D+";
-        else if (percentage >= 60) return "D";
-        else return "F";
-    }
-
     // Helper method to analyze email domains
     private Map<String, Integer> analyzeEmailDomains(List<Map<String, String>> matches) {
         Map<String, Integer> distribution = new HashMap<>();
@@ -473,7 +464,7 @@ public class PatternSearchService {
 
     // Pattern compilation with caching
     private Pattern compilePattern(String key, String regex, boolean caseInsensitive) {
-        return patternCache.computeIfAbsent(key, k -> {
+        return patternCache.getOrLoad(key, k -> {
             try {
                 return caseInsensitive ?
                         Pattern.compile(regex, Pattern.CASE_INSENSITIVE) :
@@ -622,7 +613,7 @@ public class PatternSearchService {
 
     // Clear pattern cache
     public void clearPatternCache() {
-        patternCache.clear();
+        patternCache.invalidateAll();
         System.out.println("Pattern cache cleared.");
     }
 
@@ -635,7 +626,7 @@ public class PatternSearchService {
         System.out.printf("Total Searches: %d%n", totalSearches);
         System.out.printf("Successful Searches: %d (%.1f%%)%n",
                 successfulSearches, totalSearches > 0 ? (successfulSearches * 100.0 / totalSearches) : 0);
-        System.out.printf("Cached Patterns: %d%n", patternCache.size());
+        System.out.printf("Cached Patterns: %d (%.1f%% hit rate)%n", patternCache.size(), patternCache.hitRate());
 
         if (!searchTypeCounts.isEmpty()) {
             System.out.println("\nSEARCH TYPE DISTRIBUTION:");
@@ -649,7 +640,7 @@ public class PatternSearchService {
         }
 
         // Display cache contents
-        if (!patternCache.isEmpty()) {
+        if (patternCache.size() > 0) {
             System.out.println("\nCACHED PATTERNS:");
             patternCache.forEach((key, pattern) -> {
                 String shortKey = key.length() > 30 ? key.substring(0, 27) + "..." : key;
@@ -16,7 +16,6 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.function.BiConsumer;
-import java.util.stream.Collectors;
 
 public class ReportGenerator implements Exportable {
     private StudentManager studentManager;
@@ -32,15 +31,29 @@ public class ReportGenerator implements Exportable {
         this.gradeManager = gradeManager;
     }
 
+    /**
+     * Pins the current data version; pass it to the snapshot overloads so a multi-file run
+     * reports one consistent state.
+     */
+    public ModelSnapshot snapshot() {
+        return gradeManager.snapshot();
+    }
+
     @Override
     public void exportSummaryReport(String studentId, String filename) throws ExportException {
+        try (ModelSnapshot snapshot = gradeManager.snapshot()) {
+            exportSummaryReport(snapshot, studentId, filename);
+        }
+    }
+
+    public void exportSummaryReport(ModelSnapshot snapshot, String studentId, String filename) throws ExportException {
         ensureReportsDirectory();
         Path filePath = Paths.get("reports/text", filename + "_summary.txt");
 
         try (BufferedWriter writer = Files.newBufferedWriter(filePath,
                 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
 
-            Student student = studentManager.findStudent(studentId);
+            Student student = snapshot.findStudent(studentId);
             if (student == null) {
                 throw new ExportException("Student not found: " + studentId);
             }
@@ -49,6 +62,8 @@ public class ReportGenerator implements Exportable {
             writer.newLine();
             writer.write("Generated: " + LocalDateTime.now().format(TIMESTAMP_FORMATTER));
             writer.newLine();
+            writer.write(snapshot.stamp());
+            writer.newLine();
             writer.write("=========================================");
             writer.newLine();
             writer.newLine();
@@ -68,9 +83,9 @@ public class ReportGenerator implements Exportable {
             writer.newLine();
             writer.newLine();
 
-            double overallAvg = gradeManager.calculateOverallAverage(studentId);
-            double coreAvg = gradeManager.calculateCoreAverage(studentId);
-            double electiveAvg = gradeManager.calculateElectiveAverage(studentId);
+            double overallAvg = snapshot.calculateOverallAverage(studentId);
+            double coreAvg = snapshot.calculateCoreAverage(studentId);
+            double electiveAvg = snapshot.calculateElectiveAverage(studentId);
 
             writer.write("PERFORMANCE SUMMARY");
             writer.newLine();
@@ -105,13 +120,19 @@ public class ReportGenerator implements Exportable {
 
     @Override
     public void exportDetailedReport(String studentId, String filename) throws ExportException {
+        try (ModelSnapshot snapshot = gradeManager.snapshot()) {
+            exportDetailedReport(snapshot, studentId, filename);
+        }
+    }
+
+    public void exportDetailedReport(ModelSnapshot snapshot, String studentId, String filename) throws ExportException {
         ensureReportsDirectory();
         Path filePath = Paths.get("reports/text", filename + "_detailed.txt");
 
         try (BufferedWriter writer = Files.newBufferedWriter(filePath,
                 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
 
-            Student student = studentManager.findStudent(studentId);
+            Student student = snapshot.findStudent(studentId);
             if (student == null) {
                 throw new ExportException("Student not found: " + studentId);
             }
@@ -120,6 +141,8 @@ public class ReportGenerator implements Exportable {
             writer.newLine();
             writer.write("Generated: " + LocalDateTime.now().format(TIMESTAMP_FORMATTER));
             writer.newLine();
+            writer.write(snapshot.stamp());
+            writer.newLine();
             writer.write("=========================================");
             writer.newLine();
             writer.newLine();
@@ -155,7 +178,7 @@ public class ReportGenerator implements Exportable {
             writer.newLine();
 
             // Use new collection-based method
-            List<Grade> grades = gradeManager.getGradesByStudent(studentId);
+            List<Grade> grades = snapshot.getGradesByStudent(studentId);
             int studentGradeCount = grades.size();
 
             // Sort by date (newest first)
@@ -167,8 +190,8 @@ public class ReportGenerator implements Exportable {
                         grade.getDate(),
                         truncate(grade.getSubject().getSubjectName(), 15),
                         grade.getSubject().getSubjectType(),
-                        grade.getGrade(),
-                        grade.getLetterGrade()));
+                        snapshot.valueOf(grade),
+                        studentManager.getGradingScale(grade.getStudentId()).letter(snapshot.valueOf(grade))));
             }
 
             writer.newLine();
@@ -176,18 +199,18 @@ public class ReportGenerator implements Exportable {
             writer.newLine();
             writer.write("Total Grades: " + studentGradeCount);
             writer.newLine();
-            writer.write("Overall Average: " + String.format("%.1f%%", gradeManager.calculateOverallAverage(studentId)));
+            writer.write("Overall Average: " + String.format("%.1f%%", snapshot.calculateOverallAverage(studentId)));
             writer.newLine();
-            writer.write("Core Subjects Average: " + String.format("%.1f%%", gradeManager.calculateCoreAverage(studentId)));
+            writer.write("Core Subjects Average: " + String.format("%.1f%%", snapshot.calculateCoreAverage(studentId)));
             writer.newLine();
-            writer.write("Elective Subjects Average: " + String.format("%.1f%%", gradeManager.calculateElectiveAverage(studentId)));
+            writer.write("Elective Subjects Average: " + String.format("%.1f%%", snapshot.calculateElectiveAverage(studentId)));
             writer.newLine();
 
             // Add grade distribution
             writer.newLine();
             writer.write("GRADE DISTRIBUTION");
             writer.newLine();
-            Map<String, Long> distribution = getGradeDistribution(grades);
+            Map<String, Long> distribution = getGradeDistribution(snapshot, studentId, grades);
             distribution.forEach((category, count) -> {
                 try {
                     writer.write(category + ": " + count + " grades");
@@ -211,6 +234,12 @@ public class ReportGenerator implements Exportable {
 
     // 1. PDF Summary Report
     public void exportPdfSummary(String studentId, String filename) throws ExportException {
+        try (ModelSnapshot snapshot = gradeManager.snapshot()) {
+            exportPdfSummary(snapshot, studentId, filename);
+        }
+    }
+
+    public void exportPdfSummary(ModelSnapshot snapshot, String studentId, String filename) throws ExportException {
         ensureReportsDirectory("pdf");
         Path filePath = Paths.get("reports/pdf", filename + "_summary.pdf");
 
@@ -218,7 +247,7 @@ public class ReportGenerator implements Exportable {
             PDPage page = new PDPage(PDRectangle.A4);
             document.addPage(page);
 
-            Student student = studentManager.findStudent(studentId);
+            Student student = snapshot.findStudent(studentId);
             if (student == null) {
                 throw new ExportException("Student not found: " + studentId);
             }
@@ -257,7 +286,7 @@ public class ReportGenerator implements Exportable {
                 y[0] -= 20;
 
                 // Performance
-                double overallAvg = gradeManager.calculateOverallAverage(studentId);
+                double overallAvg = snapshot.calculateOverallAverage(studentId);
                 cs.beginText();
                 cs.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 14);
                 cs.newLineAtOffset(margin, y[0]);
@@ -274,6 +303,8 @@ public class ReportGenerator implements Exportable {
                 cs.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_OBLIQUE), 10);
                 cs.newLineAtOffset(margin, 40);
                 cs.showText("Generated: " + LocalDateTime.now().format(TIMESTAMP_FORMATTER));
+                cs.newLineAtOffset(0, -12);
+                cs.showText(snapshot.stamp());
                 cs.endText();
             }
 
@@ -287,18 +318,24 @@ public class ReportGenerator implements Exportable {
 
     // 2. Excel Spreadsheet (CSV format for Excel)
     public void exportExcelSpreadsheet(String studentId, String filename) throws ExportException {
+        try (ModelSnapshot snapshot = gradeManager.snapshot()) {
+            exportExcelSpreadsheet(snapshot, studentId, filename);
+        }
+    }
+
+    public void exportExcelSpreadsheet(ModelSnapshot snapshot, String studentId, String filename) throws ExportException {
         ensureReportsDirectory("excel");
         Path filePath = Paths.get("reports/excel", filename + ".csv");
 
         try (BufferedWriter writer = Files.newBufferedWriter(filePath,
                 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
 
-            Student student = studentManager.findStudent(studentId);
+            Student student = snapshot.findStudent(studentId);
             if (student == null) {
                 throw new ExportException("Student not found: " + studentId);
             }
 
-            List<Grade> grades = gradeManager.getGradesByStudent(studentId);
+            List<Grade> grades = snapshot.getGradesByStudent(studentId);
 
             // Excel-friendly CSV with UTF-8 BOM for Excel compatibility
             writer.write("\uFEFF"); // UTF-8 BOM for Excel
@@ -309,6 +346,8 @@ public class ReportGenerator implements Exportable {
             writer.newLine();
             writer.write("Field,Value");
             writer.newLine();
+            writer.write("Data Version,\"" + snapshot.stamp() + "\"");
+            writer.newLine();
             writer.write("Student ID," + student.getStudentId());
             writer.newLine();
             writer.write("Name,\"" + escapeCSV(student.getName()) + "\"");
@@ -325,7 +364,7 @@ public class ReportGenerator implements Exportable {
             writer.newLine();
             writer.write("Passing Grade," + student.getPassingGrade());
             writer.newLine();
-            writer.write("Overall Average," + String.format("%.2f", gradeManager.calculateOverallAverage(studentId)));
+            writer.write("Overall Average," + String.format("%.2f", snapshot.calculateOverallAverage(studentId)));
             writer.newLine();
             writer.newLine();
 
@@ -341,8 +380,8 @@ public class ReportGenerator implements Exportable {
                         grade.getStudentId(),
                         escapeCSV(grade.getSubject().getSubjectName()),
                         grade.getSubject().getSubjectType(),
-                        grade.getGrade(),
-                        grade.getLetterGrade(),
+                        snapshot.valueOf(grade),
+                        studentManager.getGradingScale(grade.getStudentId()).letter(snapshot.valueOf(grade)),
                         grade.getDate(),
                         grade.getTimestampString()));
                 writer.newLine();
@@ -356,15 +395,15 @@ public class ReportGenerator implements Exportable {
             writer.newLine();
             writer.write("Total Grades," + grades.size());
             writer.newLine();
-            writer.write("Overall Average," + String.format("%.2f", gradeManager.calculateOverallAverage(studentId)));
+            writer.write("Overall Average," + String.format("%.2f", snapshot.calculateOverallAverage(studentId)));
             writer.newLine();
-            writer.write("Core Subjects Average," + String.format("%.2f", gradeManager.calculateCoreAverage(studentId)));
+            writer.write("Core Subjects Average," + String.format("%.2f", snapshot.calculateCoreAverage(studentId)));
             writer.newLine();
-            writer.write("Elective Subjects Average," + String.format("%.2f", gradeManager.calculateElectiveAverage(studentId)));
+            writer.write("Elective Subjects Average," + String.format("%.2f", snapshot.calculateElectiveAverage(studentId)));
             writer.newLine();
 
             // Grade Distribution
-            Map<String, Long> distribution = getGradeDistribution(grades);
+            Map<String, Long> distribution = getGradeDistribution(snapshot, studentId, grades);
             writer.newLine();
             writer.write("GRADE DISTRIBUTION");
             writer.newLine();
@@ -387,7 +426,7 @@ public class ReportGenerator implements Exportable {
             writer.write("Indicator,Value,Status");
             writer.newLine();
 
-            double overallAvg = gradeManager.calculateOverallAverage(studentId);
+            double overallAvg = snapshot.calculateOverallAverage(studentId);
             writer.write(String.format("Passing Status,%.2f,%s",
                     overallAvg,
                     overallAvg >= student.getPassingGrade() ? "PASS" : "FAIL"));
@@ -413,6 +452,12 @@ public class ReportGenerator implements Exportable {
 
     // 3. Batch Report Generation (All 3 formats)
     public void generateBatchReport(String studentId, String baseFilename) throws ExportException {
+        try (ModelSnapshot snapshot = gradeManager.snapshot()) {
+            generateBatchReport(snapshot, studentId, baseFilename);
+        }
+    }
+
+    public void generateBatchReport(ModelSnapshot snapshot, String studentId, String baseFilename) throws ExportException {
         String timestamp = LocalDateTime.now().format(FILENAME_FORMATTER);
         String filename = baseFilename + "_" + studentId + "_" + timestamp;
 
@@ -420,17 +465,18 @@ public class ReportGenerator implements Exportable {
         System.out.println("Student: " + studentId);
         System.out.println("Formats: PDF Summary, Detailed Text, Excel Spreadsheet");
         System.out.println("Timestamp: " + timestamp);
+        System.out.println(snapshot.stamp());
 
-        // Generate all three formats
+        // Generate all three formats from the same data version
         try {
             System.out.println("\n1. Generating PDF Summary...");
-            exportPdfSummary(studentId, filename);
+            exportPdfSummary(snapshot, studentId, filename);
 
             System.out.println("2. Generating Detailed Text Report...");
-            exportDetailedReport(studentId, filename);
+            exportDetailedReport(snapshot, studentId, filename);
 
             System.out.println("3. Generating Excel Spreadsheet...");
-            exportExcelSpreadsheet(studentId, filename);
+            exportExcelSpreadsheet(snapshot, studentId, filename);
 
             System.out.println("\n BATCH REPORT GENERATION COMPLETE");
             System.out.println("All 3 formats generated successfully:");
@@ -445,32 +491,39 @@ public class ReportGenerator implements Exportable {
 
     // 4. Class-wide Batch Reports (All students)
     public void generateClassBatchReports() throws ExportException {
-        List<Student> allStudents = studentManager.getStudents();
+        // One pinned version for the whole class, however long the run takes
+        ModelSnapshot snapshot = gradeManager.snapshot();
+        List<Student> allStudents = snapshot.getStudents();
         String timestamp = LocalDateTime.now().format(FILENAME_FORMATTER);
 
         System.out.println("\n=== CLASS-WIDE BATCH REPORT GENERATION ===");
         System.out.println("Total Students: " + allStudents.size());
         System.out.println("Timestamp: " + timestamp);
+        System.out.println(snapshot.stamp());
         System.out.println("=".repeat(50));
 
         int successCount = 0;
         int failCount = 0;
 
-        for (Student student : allStudents) {
-            try {
-                System.out.print("\nProcessing " + student.getStudentId() + " - " +
-                        truncate(student.getName(), 20) + "... ");
+        try {
+            for (Student student : allStudents) {
+                try {
+                    System.out.print("\nProcessing " + student.getStudentId() + " - " +
+                            truncate(student.getName(), 20) + "... ");
 
-                generateBatchReport(student.getStudentId(),
-                        "class_report_" + timestamp);
+                    generateBatchReport(snapshot, student.getStudentId(),
+                            "class_report_" + timestamp);
 
-                System.out.println("✓ Done");
-                successCount++;
+                    System.out.println("✓ Done");
+                    successCount++;
 
-            } catch (ExportException e) {
-                System.out.println("✗ Failed: " + e.getMessage());
-                failCount++;
+                } catch (ExportException e) {
+                    System.out.println("✗ Failed: " + e.getMessage());
+                    failCount++;
+                }
             }
+        } finally {
+            snapshot.close();
         }
 
         System.out.println("\n" + "=".repeat(50));
@@ -489,19 +542,17 @@ public class ReportGenerator implements Exportable {
     // EXISTING METHODS (keep these)
     // ============================
 
-    private Map<String, Long> getGradeDistribution(List<Grade> grades) {
-        return grades.stream()
-                .collect(Collectors.groupingBy(
-                        grade -> {
-                            double g = grade.getGrade();
-                            if (g >= 90) return "A (90-100)";
-                            else if (g >= 80) return "B (80-89)";
-                            else if (g >= 70) return "C (70-79)";
-                            else if (g >= 60) return "D (60-69)";
-                            else return "F (0-59)";
-                        },
-                        Collectors.counting()
-                ));
+    /**
+     * Band counts on the student's grading scale, highest band first; empty bands are left out
+     */
+    private Map<String, Long> getGradeDistribution(ModelSnapshot snapshot, String studentId, List<Grade> grades) {
+        double[] values = new double[grades.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = snapshot.valueOf(grades.get(i));
+        }
+        Map<String, Long> distribution = studentManager.getGradingScale(studentId).distribution(values);
+        distribution.values().removeIf(count -> count == 0);
+        return distribution;
     }
 
     @Override
@@ -531,6 +582,12 @@ public class ReportGenerator implements Exportable {
 
     // New method for exporting to multiple formats
     public void exportToMultipleFormats(String studentId, String baseFilename) throws ExportException {
+        try (ModelSnapshot snapshot = gradeManager.snapshot()) {
+            exportToMultipleFormats(snapshot, studentId, baseFilename);
+        }
+    }
+
+    public void exportToMultipleFormats(ModelSnapshot snapshot, String studentId, String baseFilename) throws ExportException {
         String timestamp = LocalDateTime.now().format(FILENAME_FORMATTER);
         String filename = baseFilename + "_" + timestamp;
 
@@ -538,29 +595,35 @@ public class ReportGenerator implements Exportable {
         System.out.println("Student: " + studentId);
         System.out.println("Base filename: " + filename);
 
-        // Export to all formats
-        exportSummaryReport(studentId, filename + "_summary");
-        exportDetailedReport(studentId, filename + "_detailed");
-        exportToCSV(studentId, filename + "_data");
-        exportToJSON(studentId, filename + "_data");
+        // Export to all formats from the same data version
+        exportSummaryReport(snapshot, studentId, filename + "_summary");
+        exportDetailedReport(snapshot, studentId, filename + "_detailed");
+        exportToCSV(snapshot, studentId, filename + "_data");
+        exportToJSON(snapshot, studentId, filename + "_data");
 
         System.out.println("✓ All format exports completed!");
     }
 
     // New method: CSV export
     public void exportToCSV(String studentId, String filename) throws ExportException {
+        try (ModelSnapshot snapshot = gradeManager.snapshot()) {
+            exportToCSV(snapshot, studentId, filename);
+        }
+    }
+
+    public void exportToCSV(ModelSnapshot snapshot, String studentId, String filename) throws ExportException {
         ensureReportsDirectory("csv");
         Path filePath = Paths.get("reports/csv", filename + ".csv");
 
         try (BufferedWriter writer = Files.newBufferedWriter(filePath,
                 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
 
-            Student student = studentManager.findStudent(studentId);
+            Student student = snapshot.findStudent(studentId);
             if (student == null) {
                 throw new ExportException("Student not found: " + studentId);
             }
 
-            List<Grade> grades = gradeManager.getGradesByStudent(studentId);
+            List<Grade> grades = snapshot.getGradesByStudent(studentId);
 
             // Write CSV header
             writer.write("StudentID,Name,Email,Phone,Type,EnrollmentDate,Status,OverallAverage");
@@ -575,7 +638,7 @@ public class ReportGenerator implements Exportable {
                     student.getStudentType(),
                     student.getEnrollmentDateString(),
                     student.getStatus(),
-                    gradeManager.calculateOverallAverage(studentId)));
+                    snapshot.calculateOverallAverage(studentId)));
             writer.newLine();
             writer.newLine();
 
@@ -589,12 +652,15 @@ public class ReportGenerator implements Exportable {
                         grade.getGradeId(),
                         escapeCSV(grade.getSubject().getSubjectName()),
                         grade.getSubject().getSubjectType(),
-                        grade.getGrade(),
+                        snapshot.valueOf(grade),
                         grade.getDate(),
-                        grade.getLetterGrade(),
+                        studentManager.getGradingScale(grade.getStudentId()).letter(snapshot.valueOf(grade)),
                         grade.getTimestampString()));
                 writer.newLine();
             }
+            writer.newLine();
+            writer.write("DataVersion,\"" + snapshot.stamp() + "\"");
+            writer.newLine();
 
             System.out.println("✓ CSV export completed: " + filePath.getFileName());
             System.out.println("  Format: Comma-Separated Values");
@@ -607,25 +673,33 @@ public class ReportGenerator implements Exportable {
 
     // New method: JSON export
     public void exportToJSON(String studentId, String filename) throws ExportException {
+        try (ModelSnapshot snapshot = gradeManager.snapshot()) {
+            exportToJSON(snapshot, studentId, filename);
+        }
+    }
+
+    public void exportToJSON(ModelSnapshot snapshot, String studentId, String filename) throws ExportException {
         ensureReportsDirectory("json");
         Path filePath = Paths.get("reports/json", filename + ".json");
 
         try (BufferedWriter writer = Files.newBufferedWriter(filePath,
                 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
 
-            Student student = studentManager.findStudent(studentId);
+            Student student = snapshot.findStudent(studentId);
             if (student == null) {
                 throw new ExportException("Student not found: " + studentId);
             }
 
-            List<Grade> grades = gradeManager.getGradesByStudent(studentId);
+            List<Grade> grades = snapshot.getGradesByStudent(studentId);
 
             StringBuilder json = new StringBuilder();
             json.append("{");
             json.append("\n  \"metadata\": {");
             json.append("\n    \"exportDate\": \"").append(LocalDateTime.now().format(TIMESTAMP_FORMATTER)).append("\",");
             json.append("\n    \"format\": \"JSON\",");
-            json.append("\n    \"version\": \"1.0\"");
+            json.append("\n    \"version\": \"1.0\",");
+            json.append("\n    \"dataVersion\": ").append(snapshot.getVersion()).append(",");
+            json.append("\n    \"dataSnapshot\": \"").append(escapeJSON(snapshot.stamp())).append("\"");
             json.append("\n  },");
             json.append("\n  \"student\": {");
             json.append("\n    \"id\": \"").append(student.getStudentId()).append("\",");
@@ -646,9 +720,9 @@ public class ReportGenerator implements Exportable {
                 json.append("\n      \"id\": \"").append(grade.getGradeId()).append("\",");
                 json.append("\n      \"subject\": \"").append(escapeJSON(grade.getSubject().getSubjectName())).append("\",");
                 json.append("\n      \"type\": \"").append(grade.getSubject().getSubjectType()).append("\",");
-                json.append("\n      \"grade\": ").append(grade.getGrade()).append(",");
+                json.append("\n      \"grade\": ").append(snapshot.valueOf(grade)).append(",");
                 json.append("\n      \"date\": \"").append(grade.getDate()).append("\",");
-                json.append("\n      \"letterGrade\": \"").append(grade.getLetterGrade()).append("\",");
+                json.append("\n      \"letterGrade\": \"").append(studentManager.getGradingScale(grade.getStudentId()).letter(snapshot.valueOf(grade))).append("\",");
                 json.append("\n      \"timestamp\": \"").append(grade.getTimestampString()).append("\"");
                 json.append("\n    }");
                 if (i < grades.size() - 1) {
@@ -659,9 +733,9 @@ public class ReportGenerator implements Exportable {
             json.append("\n  ],");
             json.append("\n  \"statistics\": {");
             json.append("\n    \"totalGrades\": ").append(grades.size()).append(",");
-            json.append("\n    \"overallAverage\": ").append(gradeManager.calculateOverallAverage(studentId)).append(",");
-            json.append("\n    \"coreAverage\": ").append(gradeManager.calculateCoreAverage(studentId)).append(",");
-            json.append("\n    \"electiveAverage\": ").append(gradeManager.calculateElectiveAverage(studentId));
+            json.append("\n    \"overallAverage\": ").append(snapshot.calculateOverallAverage(studentId)).append(",");
+            json.append("\n    \"coreAverage\": ").append(snapshot.calculateCoreAverage(studentId)).append(",");
+            json.append("\n    \"electiveAverage\": ").append(snapshot.calculateElectiveAverage(studentId));
             json.append("\n  }");
             json.append("\n}");
 
@@ -684,25 +758,31 @@ public class ReportGenerator implements Exportable {
         System.out.println("\n=== BATCH REPORT GENERATION ===");
         System.out.println("Students: " + studentIds.size());
         System.out.println("Directory: reports/batch/" + batchDir);
+        ModelSnapshot snapshot = gradeManager.snapshot();
+        System.out.println(snapshot.stamp());
 
         int successCount = 0;
         int failCount = 0;
 
-        for (String studentId : studentIds) {
-            try {
-                Student student = studentManager.findStudent(studentId);
-                if (student != null) {
-                    String studentFilename = baseFilename + "_" + studentId;
-                    exportToMultipleFormats(studentId, studentFilename);
-                    successCount++;
-                } else {
-                    System.out.println("✗ Student not found: " + studentId);
+        try {
+            for (String studentId : studentIds) {
+                try {
+                    Student student = snapshot.findStudent(studentId);
+                    if (student != null) {
+                        String studentFilename = baseFilename + "_" + studentId;
+                        exportToMultipleFormats(snapshot, studentId, studentFilename);
+                        successCount++;
+                    } else {
+                        System.out.println("✗ Student not found: " + studentId);
+                        failCount++;
+                    }
+                } catch (ExportException e) {
+                    System.out.println("✗ Failed to export " + studentId + ": " + e.getMessage());
                     failCount++;
                 }
-            } catch (ExportException e) {
-                System.out.println("✗ Failed to export " + studentId + ": " + e.getMessage());
-                failCount++;
             }
+        } finally {
+            snapshot.close();
         }
 
         System.out.println("\n=== BATCH EXPORT SUMMARY ===");
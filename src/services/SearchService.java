@@ -5,6 +5,8 @@ import models.*;
 import utils.ValidationUtils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
@@ -13,18 +15,24 @@ public class SearchService implements Searchable {
     private StudentManager studentManager;
     private GradeManager gradeManager;
 
-    // Cache for compiled patterns (US-8)
-    private Map<String, Pattern> patternCache;
+    // Cache for compiled patterns (US-8), a region of the shared CacheManager
+    private static final long PATTERN_CACHE_SIZE = 500;
+    private final CacheRegion<String, Pattern> patternCache;
 
-    // Search statistics
-    private int totalSearches = 0;
-    private Map<String, Integer> searchTypeCounts;
+    // Search statistics (searches may run concurrently)
+    private final AtomicInteger totalSearches = new AtomicInteger();
+    private final Map<String, Integer> searchTypeCounts;
 
     public SearchService(StudentManager studentManager, GradeManager gradeManager) {
+        this(studentManager, gradeManager, CacheManager.getInstance());
+    }
+
+    public SearchService(StudentManager studentManager, GradeManager gradeManager, CacheManager cacheManager) {
         this.studentManager = studentManager;
         this.gradeManager = gradeManager;
-        this.patternCache = new HashMap<>();
-        this.searchTypeCounts = new HashMap<>();
+        this.patternCache = cacheManager.createRegion("Search Patterns",
+                CacheRegion.Spec.<String, Pattern>ofSize(PATTERN_CACHE_SIZE).withPriority(CacheRegion.Priority.LOW));
+        this.searchTypeCounts = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -32,7 +40,7 @@ public class SearchService implements Searchable {
         recordSearch("name");
 
         // Use stream for case-insensitive partial match
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .filter(student -> student.getName().toLowerCase().contains(name.toLowerCase()))
                 .collect(Collectors.toList());
     }
@@ -48,7 +56,7 @@ public class SearchService implements Searchable {
         }
 
         // Use stream with parallel processing for large datasets
-        return studentManager.getStudents().parallelStream()
+        return studentManager.viewStudents().parallelStream()
                 .filter(student -> {
                     double avg = gradeManager.calculateOverallAverage(student.getStudentId());
                     return avg >= minGrade && avg <= maxGrade;
@@ -65,7 +73,7 @@ public class SearchService implements Searchable {
             return new ArrayList<>();
         }
 
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .filter(student -> student.getStudentType().equalsIgnoreCase(type))
                 .collect(Collectors.toList());
     }
@@ -73,7 +81,7 @@ public class SearchService implements Searchable {
     public List<Student> searchByStudentId(String studentId) {
         recordSearch("student_id");
 
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .filter(student -> student.getStudentId().equals(studentId))
                 .collect(Collectors.toList());
     }
@@ -85,7 +93,7 @@ public class SearchService implements Searchable {
         String regex = ".*@" + Pattern.quote(domain) + "$";
         Pattern pattern = compilePattern("email_domain:" + domain, regex, true);
 
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .filter(student -> pattern.matcher(student.getEmail()).matches())
                 .collect(Collectors.toList());
     }
@@ -97,7 +105,7 @@ public class SearchService implements Searchable {
         String regex = ".*" + Pattern.quote(areaCode) + ".*";
         Pattern pattern = compilePattern("phone_area:" + areaCode, regex, false);
 
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .filter(student -> pattern.matcher(student.getPhone()).matches())
                 .collect(Collectors.toList());
     }
@@ -109,7 +117,7 @@ public class SearchService implements Searchable {
         try {
             Pattern pattern = compilePattern("name_pattern:" + regexPattern, regexPattern, true);
 
-            return studentManager.getStudents().stream()
+            return studentManager.viewStudents().stream()
                     .filter(student -> pattern.matcher(student.getName()).matches())
                     .collect(Collectors.toList());
 
@@ -127,7 +135,7 @@ public class SearchService implements Searchable {
         String regex = pattern.replace("*", ".*").replace("?", ".");
         Pattern compiledPattern = compilePattern("id_pattern:" + pattern, regex, false);
 
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .filter(student -> compiledPattern.matcher(student.getStudentId()).matches())
                 .collect(Collectors.toList());
     }
@@ -136,7 +144,7 @@ public class SearchService implements Searchable {
     public List<Student> searchByMultipleCriteria(Map<String, String> criteria) {
         recordSearch("multi_criteria");
 
-        List<Student> results = new ArrayList<>(studentManager.getStudents());
+        List<Student> results = new ArrayList<>(studentManager.viewStudents());
 
         for (Map.Entry<String, String> entry : criteria.entrySet()) {
             String field = entry.getKey();
@@ -179,7 +187,7 @@ public class SearchService implements Searchable {
         try {
             Pattern pattern = compilePattern("custom:" + field + ":" + regex, regex, true);
 
-            return studentManager.getStudents().stream()
+            return studentManager.viewStudents().stream()
                     .filter(student -> {
                         switch (field.toLowerCase()) {
                             case "id": return pattern.matcher(student.getStudentId()).matches();
@@ -207,10 +215,10 @@ public class SearchService implements Searchable {
             return new ArrayList<>();
         }
 
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .filter(student -> {
                     double avg = gradeManager.calculateOverallAverage(student.getStudentId());
-                    String studentLetterGrade = getLetterGrade(avg);
+                    String studentLetterGrade = student.getGradingScale().letter(avg);
                     return studentLetterGrade.startsWith(letterGrade.toUpperCase());
                 })
                 .collect(Collectors.toList());
@@ -235,7 +243,7 @@ public class SearchService implements Searchable {
             return new ArrayList<>();
         }
 
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .filter(student -> {
                     String enrollmentDate = student.getEnrollmentDateString();
                     return enrollmentDate.compareTo(startDate) >= 0 &&
@@ -248,7 +256,7 @@ public class SearchService implements Searchable {
     public List<Student> searchByHonorsEligibility(boolean eligible) {
         recordSearch("honors_eligibility");
 
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .filter(student -> {
                     if (student instanceof HonorsStudent) {
                         HonorsStudent honorsStudent = (HonorsStudent) student;
@@ -378,7 +386,7 @@ public class SearchService implements Searchable {
 
     private void displaySearchStatistics(List<Student> results) {
         System.out.println("\n=== SEARCH STATISTICS ===");
-        System.out.println("Total searches performed: " + totalSearches);
+        System.out.println("Total searches performed: " + totalSearches.get());
 
         if (!searchTypeCounts.isEmpty()) {
             System.out.println("\nSearch type distribution:");
@@ -402,7 +410,7 @@ public class SearchService implements Searchable {
 
     // Helper methods
     private Pattern compilePattern(String key, String regex, boolean caseInsensitive) {
-        return patternCache.computeIfAbsent(key, k -> {
+        return patternCache.getOrLoad(key, k -> {
             try {
                 return caseInsensitive ?
                         Pattern.compile(regex, Pattern.CASE_INSENSITIVE) :
@@ -426,42 +434,30 @@ public class SearchService implements Searchable {
         return new ArrayList<>(union);
     }
 
-    private String getLetterGrade(double percentage) {
-        if (percentage >= 93) return "A";
-        else if (percentage >= 90) return "A-";
-        else if (percentage >= 87) return "B+";
-        else if (percentage >= 83) return "B";
-        else if (percentage >= 80) return "B-";
-        else if (percentage >= 77) return "C+";
-        else if (percentage >= 73) return "C";
-        else if (percentage >= 70) return "C-";
-        else if (percentage >= 67) return "D+";
-        else if (percentage >= 60) return "D";
-        else return "F";
-    }
-
     private String truncate(String text, int maxLength) {
         if (text.length() <= maxLength) return text;
         return text.substring(0, maxLength - 3) + "...";
     }
 
     private void recordSearch(String searchType) {
-        totalSearches++;
+        totalSearches.incrementAndGet();
         searchTypeCounts.merge(searchType, 1, Integer::sum);
     }
 
     // Cache management methods
     public void clearPatternCache() {
-        patternCache.clear();
+        patternCache.invalidateAll();
         System.out.println("Pattern cache cleared.");
     }
 
     public void displayCacheStatistics() {
         System.out.println("\n=== SEARCH SERVICE CACHE ===");
         System.out.println("Cached patterns: " + patternCache.size());
-        System.out.println("Total searches: " + totalSearches);
+        System.out.printf("Hit rate: %.1f%% (%d hits, %d misses)%n",
+                patternCache.hitRate(), patternCache.hitCount(), patternCache.missCount());
+        System.out.println("Total searches: " + totalSearches.get());
 
-        if (!patternCache.isEmpty()) {
+        if (patternCache.size() > 0) {
             System.out.println("\nCached patterns:");
             patternCache.forEach((key, pattern) ->
                     System.out.printf("  %-30s: %s%n", key, pattern.pattern()));
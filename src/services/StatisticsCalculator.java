@@ -5,6 +5,16 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class StatisticsCalculator {
+    // Class-wide views use the standard scale, labelled e.g. "90-92% (A-)", highest band first
+    private static final GradingScale SCALE = GradingScale.STANDARD;
+    private static final String[] GRADE_CATEGORIES = new String[SCALE.getBandCount()];
+
+    static {
+        for (int band = 0; band < GRADE_CATEGORIES.length; band++) {
+            GRADE_CATEGORIES[band] = SCALE.getRange(band) + "% (" + SCALE.getLetter(band) + ")";
+        }
+    }
+
     private StudentManager studentManager;
     private GradeManager gradeManager;
 
@@ -42,13 +52,17 @@ public class StatisticsCalculator {
         System.out.println("                  GPA RANKINGS (TreeMap Auto-Sorted)");
         System.out.println("=".repeat(100));
         System.out.println("📊 TreeMap automatically maintains sorted order by GPA (highest first)");
-        System.out.println("📈 GPA Scale: 90-100% = 4.0 | 80-89% = 3.0 | 70-79% = 2.0 | 60-69% = 1.0 | <60% = 0.0");
+        StringJoiner gpaScale = new StringJoiner(" | ", "📈 GPA Scale: ", "");
+        for (int band = 0; band < SCALE.getBandCount(); band++) {
+            gpaScale.add(String.format("%s%% = %.1f", SCALE.getRange(band), SCALE.getPoints(band)));
+        }
+        System.out.println(gpaScale);
         System.out.println("🏆 Honors Eligibility: Requires ≥85% average grade");
         System.out.println("✓ Passing: ≥60% for Honors students, ≥50% for Regular students");
         System.out.println("=".repeat(100));
 
         // Get all students sorted by GPA using the existing TreeMap
-        List<Student> allStudents = studentManager.getStudents();
+        List<Student> allStudents = studentManager.viewStudents();
 
         if (allStudents.isEmpty()) {
             System.out.println("\n⚠️ No students available for GPA rankings.");
@@ -129,7 +143,7 @@ public class StatisticsCalculator {
         System.out.println("GPA DISTRIBUTION ANALYSIS");
         System.out.println("=".repeat(60));
 
-        List<Student> allStudents = studentManager.getStudents();
+        List<Student> allStudents = studentManager.viewStudents();
         Map<String, Integer> gpaDistribution = new LinkedHashMap<>();
         gpaDistribution.put("4.0 (A - Excellent)", 0);
         gpaDistribution.put("3.0-3.9 (B - Good)", 0);
@@ -164,7 +178,7 @@ public class StatisticsCalculator {
         System.out.println("HONORS STUDENT STATISTICS");
         System.out.println("=".repeat(60));
 
-        List<Student> allStudents = studentManager.getStudents();
+        List<Student> allStudents = studentManager.viewStudents();
 
         // Count honors eligible students
         long honorsEligibleCount = allStudents.stream()
@@ -210,7 +224,7 @@ public class StatisticsCalculator {
         System.out.println("GRADE DISTRIBUTION (Using Streams)");
         System.out.println();
 
-        List<Grade> allGrades = gradeManager.getGradesByStudent("all");
+        List<Grade> allGrades = gradeManager.viewAllGrades();
 
         Map<String, Long> distribution = allGrades.stream()
                 .collect(Collectors.groupingBy(
@@ -218,8 +232,7 @@ public class StatisticsCalculator {
                         Collectors.counting()
                 ));
 
-        String[] categories = {"90-100% (A)", "80-89% (B)", "70-79% (C)", "60-69% (D)", "0-59% (F)"};
-        for (String category : categories) {
+        for (String category : GRADE_CATEGORIES) {
             distribution.putIfAbsent(category, 0L);
         }
 
@@ -227,7 +240,7 @@ public class StatisticsCalculator {
                 .max(Long::compare)
                 .orElse(1L);
 
-        for (String category : categories) {
+        for (String category : GRADE_CATEGORIES) {
             long count = distribution.get(category);
             double percentage = allGrades.size() > 0 ? (count * 100.0) / allGrades.size() : 0;
 
@@ -244,30 +257,25 @@ public class StatisticsCalculator {
     }
 
     private String getGradeCategory(double grade) {
-        if (grade >= 90) return "90-100% (A)";
-        else if (grade >= 80) return "80-89% (B)";
-        else if (grade >= 70) return "70-79% (C)";
-        else if (grade >= 60) return "60-69% (D)";
-        else return "0-59% (F)";
+        return GRADE_CATEGORIES[SCALE.classify(grade)];
     }
 
     public void displayStatisticalAnalysis() {
         System.out.println("STATISTICAL ANALYSIS (Using Streams)");
         System.out.println();
 
-        List<Grade> allGrades = gradeManager.getGradesByStudent("all");
+        List<Grade> allGrades = gradeManager.viewAllGrades();
 
         if (allGrades.isEmpty()) {
             System.out.println("No grades available for analysis.");
             return;
         }
 
-        DoubleSummaryStatistics stats = allGrades.stream()
-                .mapToDouble(Grade::getGrade)
-                .summaryStatistics();
+        // Count, mean, variance, min and max come from the running aggregate (O(1))
+        RunningGradeStats stats = gradeManager.getClassStatistics();
 
-        double mean = stats.getAverage();
-        long gradeCount = stats.getCount();
+        double mean = stats.getMean();
+        long gradeCount = allGrades.size();
 
         List<Double> sortedGrades = allGrades.stream()
                 .map(Grade::getGrade)
@@ -288,11 +296,7 @@ public class StatisticsCalculator {
                 .map(Map.Entry::getKey)
                 .orElse(0.0);
 
-        double variance = allGrades.stream()
-                .mapToDouble(grade -> Math.pow(grade.getGrade() - mean, 2))
-                .average()
-                .orElse(0.0);
-        double stdDev = Math.sqrt(variance);
+        double stdDev = stats.getStandardDeviation();
 
         double range = stats.getMax() - stats.getMin();
 
@@ -308,7 +312,7 @@ public class StatisticsCalculator {
     }
 
     private void displayHighestLowestGrades() {
-        List<Grade> allGrades = gradeManager.getGradesByStudent("all");
+        List<Grade> allGrades = gradeManager.viewAllGrades();
 
         if (allGrades.isEmpty()) return;
 
@@ -342,13 +346,7 @@ public class StatisticsCalculator {
         System.out.println("SUBJECT PERFORMANCE (Using Streams)");
         System.out.println();
 
-        List<Grade> allGrades = gradeManager.getGradesByStudent("all");
-
-        Map<String, Double> subjectAverages = allGrades.stream()
-                .collect(Collectors.groupingBy(
-                        grade -> grade.getSubject().getSubjectName(),
-                        Collectors.averagingDouble(Grade::getGrade)
-                ));
+        Map<String, Double> subjectAverages = gradeManager.calculateAverageBySubject();
 
         List<String> coreSubjects = Arrays.asList("Mathematics", "English", "Science");
         List<String> electiveSubjects = Arrays.asList("Music", "Art", "Physical Education");
@@ -392,7 +390,7 @@ public class StatisticsCalculator {
         System.out.println("STUDENT TYPE COMPARISON (Using Streams)");
         System.out.println();
 
-        List<Student> allStudents = studentManager.getStudents();
+        List<Student> allStudents = studentManager.viewStudents();
 
         Map<String, List<Double>> gradesByType = allStudents.stream()
                 .collect(Collectors.groupingBy(
@@ -423,25 +421,22 @@ public class StatisticsCalculator {
     public Map<String, Object> getRealTimeStatistics() {
         Map<String, Object> stats = new HashMap<>();
 
-        List<Student> allStudents = studentManager.getStudents();
-        List<Grade> allGrades = gradeManager.getGradesByStudent("all");
+        List<Student> allStudents = studentManager.viewStudents();
 
-        stats.put("totalStudents", allStudents.size());
-        stats.put("totalGrades", allGrades.size());
-        stats.put("timestamp", new Date());
-
-        Map<String, Long> distribution = allGrades.stream()
-                .collect(Collectors.groupingBy(
+        // Scatter-gather on a ShardedGradeManager; totalGrades is taken from the same pass
+        Map<String, Long> distribution = gradeManager.collectGrades(
+                Collectors.groupingBy(
                         grade -> getGradeCategory(grade.getGrade()),
                         Collectors.counting()
                 ));
+        long totalGrades = distribution.values().stream().mapToLong(Long::longValue).sum();
+
+        stats.put("totalStudents", allStudents.size());
+        stats.put("totalGrades", (int) totalGrades);
+        stats.put("timestamp", new Date());
         stats.put("gradeDistribution", distribution);
 
-        double averageGrade = allGrades.stream()
-                .mapToDouble(Grade::getGrade)
-                .average()
-                .orElse(0.0);
-        stats.put("averageGrade", averageGrade);
+        stats.put("averageGrade", gradeManager.calculateClassAverage());
 
         List<Student> topPerformers = allStudents.stream()
                 .sorted((s1, s2) -> {
@@ -466,8 +461,8 @@ public class StatisticsCalculator {
     public void displayPerformanceMetrics() {
         System.out.println("\n=== PERFORMANCE METRICS ===");
 
-        List<Student> students = studentManager.getStudents();
-        List<Grade> grades = gradeManager.getGradesByStudent("all");
+        List<Student> students = studentManager.viewStudents();
+        List<Grade> grades = gradeManager.viewAllGrades();
 
         System.out.println("Processing " + students.size() + " students and " +
                 grades.size() + " grades...");
@@ -1,16 +1,22 @@
 package services;
 
+import interfaces.ChangeListener;
 import models.*;
+import utils.MemoryEstimator;
 import java.util.*;
 import java.util.concurrent.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
 
 public class StatisticsDashboard {
     private final StudentManager studentManager;
@@ -24,6 +30,11 @@ public class StatisticsDashboard {
     private static ScheduledExecutorService dashboardScheduler;
     private static ExecutorService commandExecutor;
 
+    // Counts change events while running; a refresh with no new changes reuses the grade figures
+    private final AtomicLong changesSeen = new AtomicLong();
+    private final ChangeListener changeCounter = batch -> changesSeen.addAndGet(batch.size());
+    private volatile long changesAtLastRefresh = -1;
+
     private ScheduledFuture<?> updateTask;
     private volatile boolean shouldStop = false;
     private BufferedReader commandReader;
@@ -35,6 +46,7 @@ public class StatisticsDashboard {
 
     private static class DashboardData {
         LocalDateTime timestamp;
+        long dataVersion;
         int totalStudents;
         int totalGrades;
         double averageGrade;
@@ -46,6 +58,7 @@ public class StatisticsDashboard {
         SystemMetrics systemMetrics;
         int activeThreads;
         double cacheHitRate;
+        CachePressure cachePressure;
         List<TaskStatus> activeTasks;
 
         DashboardData() {
@@ -54,10 +67,38 @@ public class StatisticsDashboard {
             this.topPerformers = new ArrayList<>();
             this.subjectAverages = new HashMap<>();
             this.systemMetrics = new SystemMetrics();
+            this.cachePressure = new CachePressure(null);
             this.activeTasks = new ArrayList<>();
         }
     }
 
+    // Old generation pressure reports and what the caches gave up for them
+    private static class CachePressure {
+        boolean supported;
+        double highWatermark;
+        long pressureEvents;
+        long reliefEvents;
+        String lastEvent;
+        long shedEntries;
+        long reclaimedBytes;
+        boolean shedding;
+
+        CachePressure(CacheManager cacheManager) {
+            MemoryPressureMonitor monitor = MemoryPressureMonitor.getInstance();
+            this.supported = monitor.isSupported();
+            this.highWatermark = monitor.getHighWatermark();
+            this.pressureEvents = monitor.getPressureEventCount();
+            this.reliefEvents = monitor.getReliefEventCount();
+            List<MemoryPressureMonitor.Event> events = monitor.getRecentEvents();
+            this.lastEvent = events.isEmpty() ? "none" : events.get(events.size() - 1).toString();
+            if (cacheManager != null) {
+                this.shedEntries = cacheManager.getShedEntryCount();
+                this.reclaimedBytes = cacheManager.getReclaimedBytes();
+                this.shedding = cacheManager.isShedding();
+            }
+        }
+    }
+
     private static class StudentPerformance {
         String studentId;
         String name;
@@ -76,12 +117,22 @@ public class StatisticsDashboard {
         long usedMemory;
         long maxMemory;
         int availableProcessors;
+        long directMemory;    // direct ByteBuffers (off-heap grade columns among them)
+        long gcCount;
+        long gcTimeMillis;    // total collection time since JVM start
 
         SystemMetrics() {
             Runtime runtime = Runtime.getRuntime();
             this.usedMemory = runtime.totalMemory() - runtime.freeMemory();
             this.maxMemory = runtime.maxMemory();
             this.availableProcessors = runtime.availableProcessors();
+            for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+                if ("direct".equals(pool.getName())) directMemory = pool.getMemoryUsed();
+            }
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount += Math.max(0, gc.getCollectionCount());
+                gcTimeMillis += Math.max(0, gc.getCollectionTime());
+            }
         }
     }
 
@@ -133,6 +184,7 @@ public class StatisticsDashboard {
         shouldStop = false;
         isRunning.set(true);
         isPaused.set(false);
+        studentManager.getChangeFeed().subscribe(changeCounter);
 
         System.out.println("\n" + "=".repeat(100));
         System.out.println("              REAL-TIME STATISTICS DASHBOARD v3.0");
@@ -300,50 +352,76 @@ public class StatisticsDashboard {
         DashboardData data = new DashboardData();
         data.timestamp = LocalDateTime.now();
 
-        List<Student> students = studentManager.getStudents();
-        List<Grade> allGrades = getAllGrades();
+        if (isRunning.get()) {
+            // Subscribed: skip the O(n log n) rebuild when no student/grade/GPA change came in
+            studentManager.getChangeFeed().awaitDelivered();
+            long changes = changesSeen.get();
+            if (changes == changesAtLastRefresh) {
+                copyGradeFigures(currentData.get(), data);
+                updateSystemFigures(data);
+                currentData.set(data);
+                return;
+            }
+            changesAtLastRefresh = changes;
+        }
 
-        data.totalStudents = students.size();
-        data.totalGrades = allGrades.size();
+        // Every figure on one refresh comes from the same data version, even while writers run
+        try (ModelSnapshot snapshot = gradeManager.snapshot()) {
+            List<Grade> allGrades = snapshot.getGrades();
 
-        if (!allGrades.isEmpty()) {
-            List<Double> grades = allGrades.stream()
-                    .map(Grade::getGrade)
-                    .sorted()
-                    .collect(Collectors.toList());
+            data.dataVersion = snapshot.getVersion();
+            data.totalStudents = snapshot.getStudentCount();
+            data.totalGrades = allGrades.size();
 
-            data.averageGrade = grades.stream()
-                    .mapToDouble(Double::doubleValue)
-                    .average()
-                    .orElse(0.0);
+            if (!allGrades.isEmpty()) {
+                double[] grades = new double[allGrades.size()];
+                for (int i = 0; i < grades.length; i++) {
+                    grades[i] = snapshot.valueOf(allGrades.get(i));
+                }
+                Arrays.sort(grades);
 
-            if (grades.size() % 2 == 0) {
-                data.medianGrade = (grades.get(grades.size() / 2 - 1) + grades.get(grades.size() / 2)) / 2.0;
-            } else {
-                data.medianGrade = grades.get(grades.size() / 2);
+                RunningGradeStats classStats = snapshot.getClassStatistics();
+                data.averageGrade = classStats.getMean();
+                data.stdDeviation = classStats.getStandardDeviation();
+
+                if (grades.length % 2 == 0) {
+                    data.medianGrade = (grades[grades.length / 2 - 1] + grades[grades.length / 2]) / 2.0;
+                } else {
+                    data.medianGrade = grades[grades.length / 2];
+                }
+
+                data.gradeDistribution = calculateGradeDistribution(grades);
             }
 
-            double variance = grades.stream()
-                    .mapToDouble(g -> Math.pow(g - data.averageGrade, 2))
-                    .average()
-                    .orElse(0.0);
-            data.stdDeviation = Math.sqrt(variance);
+            // Ranking index is ordered by GPA then average, so the top 5 come out pre-sorted (O(log n + 5))
+            data.topPerformers = studentManager.getTopPerformers(5).stream()
+                    .map(s -> {
+                        double avg = snapshot.calculateOverallAverage(s.getStudentId());
+                        double gpa = s.getGradingScale().points(avg);
+                        return new StudentPerformance(s.getStudentId(), s.getName(), avg, gpa);
+                    })
+                    .filter(sp -> sp.averageGrade > 0)
+                    .collect(Collectors.toList());
 
-            data.gradeDistribution = calculateGradeDistribution(allGrades);
+            data.subjectAverages = snapshot.calculateAverageBySubject();
         }
+        updateSystemFigures(data);
+        currentData.set(data);
+    }
 
-        data.topPerformers = students.stream()
-                .map(s -> {
-                    double avg = gradeManager.calculateOverallAverage(s.getStudentId());
-                    double gpa = convertToGPA(avg);
-                    return new StudentPerformance(s.getStudentId(), s.getName(), avg, gpa);
-                })
-                .filter(sp -> sp.averageGrade > 0)
-                .sorted((a, b) -> Double.compare(b.averageGrade, a.averageGrade))
-                .limit(5)
-                .collect(Collectors.toList());
+    private void copyGradeFigures(DashboardData from, DashboardData to) {
+        to.dataVersion = from.dataVersion;
+        to.totalStudents = from.totalStudents;
+        to.totalGrades = from.totalGrades;
+        to.averageGrade = from.averageGrade;
+        to.medianGrade = from.medianGrade;
+        to.stdDeviation = from.stdDeviation;
+        to.gradeDistribution = from.gradeDistribution;
+        to.topPerformers = from.topPerformers;
+        to.subjectAverages = from.subjectAverages;
+    }
 
-        data.subjectAverages = calculateSubjectAverages(allGrades);
+    private void updateSystemFigures(DashboardData data) {
         data.systemMetrics = new SystemMetrics();
         data.activeThreads = Thread.activeCount();
 
@@ -352,62 +430,16 @@ public class StatisticsDashboard {
         } else {
             data.cacheHitRate = Math.random() * 30 + 70;
         }
+        data.cachePressure = new CachePressure(cacheManager);
 
         data.activeTasks = simulateActiveTasks();
-        currentData.set(data);
-    }
-
-    private List<Grade> getAllGrades() {
-        List<Grade> allGrades = new ArrayList<>();
-        for (Student student : studentManager.getStudents()) {
-            List<Grade> grades = gradeManager.getGradesByStudent(student.getStudentId());
-            if (grades != null) {
-                allGrades.addAll(grades);
-            }
-        }
-        return allGrades;
-    }
-
-    private Map<String, Long> calculateGradeDistribution(List<Grade> grades) {
-        Map<String, Long> distribution = new LinkedHashMap<>();
-        distribution.put("A (90-100)", 0L);
-        distribution.put("B (80-89)", 0L);
-        distribution.put("C (70-79)", 0L);
-        distribution.put("D (60-69)", 0L);
-        distribution.put("F (0-59)", 0L);
-
-        for (Grade grade : grades) {
-            double g = grade.getGrade();
-            if (g >= 90) distribution.put("A (90-100)", distribution.get("A (90-100)") + 1);
-            else if (g >= 80) distribution.put("B (80-89)", distribution.get("B (80-89)") + 1);
-            else if (g >= 70) distribution.put("C (70-79)", distribution.get("C (70-79)") + 1);
-            else if (g >= 60) distribution.put("D (60-69)", distribution.get("D (60-69)") + 1);
-            else distribution.put("F (0-59)", distribution.get("F (0-59)") + 1);
-        }
-
-        return distribution;
     }
 
-    private Map<String, Double> calculateSubjectAverages(List<Grade> grades) {
-        return grades.stream()
-                .collect(Collectors.groupingBy(
-                        g -> g.getSubject().getSubjectName(),
-                        Collectors.averagingDouble(Grade::getGrade)
-                ));
-    }
-
-    private double convertToGPA(double percentage) {
-        if (percentage >= 93) return 4.0;
-        else if (percentage >= 90) return 3.7;
-        else if (percentage >= 87) return 3.3;
-        else if (percentage >= 83) return 3.0;
-        else if (percentage >= 80) return 2.7;
-        else if (percentage >= 77) return 2.3;
-        else if (percentage >= 73) return 2.0;
-        else if (percentage >= 70) return 1.7;
-        else if (percentage >= 67) return 1.3;
-        else if (percentage >= 60) return 1.0;
-        else return 0.0;
+    /**
+     * Class-wide distribution on the standard scale, so the bands match Grade.getLetterGrade()
+     */
+    private Map<String, Long> calculateGradeDistribution(double[] grades) {
+        return GradingScale.STANDARD.distribution(grades);
     }
 
     private List<TaskStatus> simulateActiveTasks() {
@@ -447,8 +479,8 @@ public class StatisticsDashboard {
         System.out.println("SYSTEM STATUS");
         System.out.println("-".repeat(50));
 
-        System.out.printf("Total Students: %-5d | Total Grades: %-6d%n",
-                data.totalStudents, data.totalGrades);
+        System.out.printf("Total Students: %-5d | Total Grades: %-6d | Data Version: v%d%n",
+                data.totalStudents, data.totalGrades, data.dataVersion);
 
         double memoryPercent = (data.systemMetrics.usedMemory * 100.0) / data.systemMetrics.maxMemory;
         int memoryBarLength = (int) Math.round(memoryPercent / 2.5);
@@ -467,6 +499,17 @@ public class StatisticsDashboard {
         System.out.printf("Cache Hit Rate: %.1f%%%n", data.cacheHitRate);
         System.out.printf("  [%s]%n", cacheBar);
 
+        CachePressure pressure = data.cachePressure;
+        if (pressure.supported) {
+            System.out.printf("Memory Pressure: %d events, %d relieved (watermark %.0f%%) | Last: %s%n",
+                    pressure.pressureEvents, pressure.reliefEvents, pressure.highWatermark * 100, pressure.lastEvent);
+            System.out.printf("  Caches %s | Shed %d entries, %s reclaimed%n",
+                    pressure.shedding ? "✗ SHEDDING" : "✓ at full size", pressure.shedEntries,
+                    MemoryEstimator.formatBytes(pressure.reclaimedBytes));
+        } else {
+            System.out.println("Memory Pressure: not monitored on this JVM");
+        }
+
         System.out.printf("Active Threads: %d | Available Processors: %d%n",
                 data.activeThreads, data.systemMetrics.availableProcessors);
         System.out.println();
@@ -663,14 +706,20 @@ public class StatisticsDashboard {
             System.out.println("✗ Significant portion of students are struggling");
         }
 
-        long failingCount = data.gradeDistribution.getOrDefault("F (0-59)", 0L);
+        GradingScale scale = GradingScale.STANDARD;
+        long failingCount = data.gradeDistribution.getOrDefault(scale.getLabel(scale.getBandCount() - 1), 0L);
         if (failingCount > data.totalGrades * 0.1) {
             System.out.println("\n⚠️  RECOMMENDATION:");
             System.out.println("  - " + failingCount + " students are failing (F grade)");
             System.out.println("  - Consider additional support or review sessions");
         }
 
-        long aCount = data.gradeDistribution.getOrDefault("A (90-100)", 0L);
+        long aCount = 0;
+        for (int band = 0; band < scale.getBandCount(); band++) {
+            if (scale.getLetter(band).startsWith("A")) {
+                aCount += data.gradeDistribution.getOrDefault(scale.getLabel(band), 0L);
+            }
+        }
         if (aCount > data.totalGrades * 0.3) {
             System.out.println("\n✓ POSITIVE INDICATOR:");
             System.out.println("  - " + aCount + " students achieving A grades");
@@ -707,6 +756,13 @@ public class StatisticsDashboard {
         System.out.printf("[%s%s]%n", usedBar, freeBar);
         System.out.printf("├ Used ┤%s Free%n", " ".repeat(Math.max(0, usedBars - 4)));
 
+        System.out.println("\nOutside the Heap / Collector:");
+        System.out.println("-".repeat(40));
+        System.out.printf("Direct Memory:      %8.1f MB (grade columns %.1f MB)%n",
+                data.systemMetrics.directMemory / (1024.0 * 1024.0), gradeManager.getOffHeapBytes() / (1024.0 * 1024.0));
+        System.out.printf("GC Collections:     %8d (%,d ms total)%n",
+                data.systemMetrics.gcCount, data.systemMetrics.gcTimeMillis);
+
         System.out.println("\nMemory Status:");
         System.out.println("-".repeat(40));
         if (usedPercent < 50) {
@@ -728,7 +784,9 @@ public class StatisticsDashboard {
         if (usedPercent > 80) {
             System.out.println("1. Consider increasing JVM heap size with -Xmx flag");
             System.out.println("2. Review memory-intensive operations");
-            System.out.println("3. Implement object pooling for frequently created objects");
+            if (!gradeManager.isOffHeap()) {
+                System.out.println("3. Keep large grade histories off the heap (GradeManager.Storage.OFF_HEAP)");
+            }
         } else {
             System.out.println("✓ Memory configuration appears optimal");
             System.out.println("✓ No immediate action required");
@@ -796,6 +854,8 @@ public class StatisticsDashboard {
         shouldStop = true;
         isRunning.set(false);
         isPaused.set(false);
+        studentManager.getChangeFeed().unsubscribe(changeCounter);
+        changesAtLastRefresh = -1;
 
         if (updateTask != null) {
             updateTask.cancel(false);
@@ -18,23 +18,19 @@ public class StreamProcessor {
     // US-10: Stream processing methods
 
     public Map<String, Double> calculateAverageBySubject() {
-        return gradeManager.getGradesByStudent("all").stream()
-                .collect(Collectors.groupingBy(
-                        grade -> grade.getSubject().getSubjectName(),
-                        Collectors.averagingDouble(Grade::getGrade)
-                ));
+        return gradeManager.calculateAverageBySubject();
     }
 
     public Map<String, Long> countGradesByLetterGrade() {
-        return gradeManager.getGradesByStudent("all").stream()
+        return gradeManager.gradeStream()
                 .collect(Collectors.groupingBy(
-                        Grade::getLetterGrade,
+                        grade -> grade.getLetterGrade(studentManager.getGradingScale(grade.getStudentId())),
                         Collectors.counting()
                 ));
     }
 
     public List<Student> getTopStudents(int count, String sortBy) {
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .sorted((s1, s2) -> {
                     double avg1 = gradeManager.calculateOverallAverage(s1.getStudentId());
                     double avg2 = gradeManager.calculateOverallAverage(s2.getStudentId());
@@ -45,7 +41,7 @@ public class StreamProcessor {
     }
 
     public Map<String, List<Grade>> getGradesByPerformanceCategory() {
-        return gradeManager.getGradesByStudent("all").stream()
+        return gradeManager.gradeStream()
                 .collect(Collectors.groupingBy(grade -> {
                     double g = grade.getGrade();
                     if (g >= 90) return "Excellent";
@@ -57,7 +53,7 @@ public class StreamProcessor {
     }
 
     public double calculateOverallClassAverage() {
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .mapToDouble(s -> gradeManager.calculateOverallAverage(s.getStudentId()))
                 .filter(avg -> avg > 0)
                 .average()
@@ -65,33 +61,16 @@ public class StreamProcessor {
     }
 
     public Map<String, Double> calculateStandardDeviationBySubject() {
-        Map<String, List<Double>> gradesBySubject = gradeManager.getGradesByStudent("all").stream()
-                .collect(Collectors.groupingBy(
-                        grade -> grade.getSubject().getSubjectName(),
-                        Collectors.mapping(Grade::getGrade, Collectors.toList())
-                ));
-
-        return gradesBySubject.entrySet().stream()
+        // Read from GradeManager's per-subject running aggregates instead of regrouping every grade
+        return gradeManager.getUniqueCourses().stream()
                 .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> calculateStandardDeviation(entry.getValue())
+                        subject -> subject,
+                        subject -> gradeManager.getSubjectStatistics(subject).getStandardDeviation()
                 ));
     }
 
-    private double calculateStandardDeviation(List<Double> values) {
-        if (values.isEmpty()) return 0.0;
-
-        double mean = values.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        double variance = values.stream()
-                .mapToDouble(v -> Math.pow(v - mean, 2))
-                .average()
-                .orElse(0.0);
-
-        return Math.sqrt(variance);
-    }
-
     public List<Map<String, Object>> generateStudentPerformanceReport() {
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .map(student -> {
                     Map<String, Object> report = new HashMap<>();
                     report.put("studentId", student.getStudentId());
@@ -100,9 +79,9 @@ public class StreamProcessor {
 
                     double overallAvg = gradeManager.calculateOverallAverage(student.getStudentId());
                     report.put("overallAverage", overallAvg);
-                    report.put("letterGrade", getLetterGrade(overallAvg));
+                    report.put("letterGrade", student.getGradingScale().letter(overallAvg));
 
-                    List<Grade> grades = gradeManager.getGradesByStudent(student.getStudentId());
+                    List<Grade> grades = gradeManager.viewGradesByStudent(student.getStudentId());
                     report.put("totalGrades", grades.size());
 
                     long coreCount = grades.stream()
@@ -128,67 +107,81 @@ public class StreamProcessor {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Min/max/average, letter-band counts and subject averages in one pass over the grades.
+     * Runs through GradeManager.collectGrades, so a ShardedGradeManager accumulates each
+     * partition in parallel and merges the partial results.
+     */
     public Map<String, Object> analyzeGradeDistribution() {
-        List<Grade> allGrades = gradeManager.getGradesByStudent("all");
+        GradeDistribution result = gradeManager.collectGrades(
+                Collector.of(GradeDistribution::new, GradeDistribution::add, GradeDistribution::combine));
+        DoubleSummaryStatistics stats = result.stats;
 
         Map<String, Object> analysis = new HashMap<>();
-        analysis.put("totalGrades", allGrades.size());
-
-        DoubleSummaryStatistics stats = allGrades.stream()
-                .mapToDouble(Grade::getGrade)
-                .summaryStatistics();
-
+        analysis.put("totalGrades", (int) stats.getCount());
         analysis.put("min", stats.getMin());
         analysis.put("max", stats.getMax());
         analysis.put("average", stats.getAverage());
         analysis.put("sum", stats.getSum());
-
-        // Grade distribution
-        Map<String, Long> distribution = allGrades.stream()
-                .collect(Collectors.groupingBy(
-                        grade -> {
-                            double g = grade.getGrade();
-                            if (g >= 90) return "A (90-100)";
-                            else if (g >= 80) return "B (80-89)";
-                            else if (g >= 70) return "C (70-79)";
-                            else if (g >= 60) return "D (60-69)";
-                            else return "F (0-59)";
-                        },
-                        Collectors.counting()
-                ));
-        analysis.put("distribution", distribution);
-
-        // Subject performance
-        Map<String, Double> subjectAverages = allGrades.stream()
-                .collect(Collectors.groupingBy(
-                        grade -> grade.getSubject().getSubjectName(),
-                        Collectors.averagingDouble(Grade::getGrade)
-                ));
-        analysis.put("subjectAverages", subjectAverages);
-
+        analysis.put("distribution", result.bandCounts());
+        analysis.put("subjectAverages", result.subjects.averageByName());
         return analysis;
     }
 
+    // Mergeable partial result of analyzeGradeDistribution
+    private static final class GradeDistribution {
+        final DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
+        final long[] bands = new long[GradingScale.STANDARD.getBandCount()];
+        final SubjectAccumulator subjects = new SubjectAccumulator();
+
+        void add(Grade grade) {
+            double g = grade.getGrade();
+            stats.accept(g);
+            bands[GradingScale.STANDARD.classify(g)]++;
+            subjects.add(grade);
+        }
+
+        GradeDistribution combine(GradeDistribution other) {
+            stats.combine(other.stats);
+            for (int band = 0; band < bands.length; band++) {
+                bands[band] += other.bands[band];
+            }
+            subjects.combine(other.subjects);
+            return this;
+        }
+
+        // Letter bands present in the grades, keyed like "A- (90-92)", highest first
+        Map<String, Long> bandCounts() {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (int band = 0; band < bands.length; band++) {
+                if (bands[band] > 0) {
+                    counts.put(GradingScale.STANDARD.getLabel(band), bands[band]);
+                }
+            }
+            return counts;
+        }
+    }
+
     public List<Student> filterStudents(Predicate<Student> predicate) {
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .filter(predicate)
                 .collect(Collectors.toList());
     }
 
     public List<Grade> filterGrades(Predicate<Grade> predicate) {
-        return gradeManager.getGradesByStudent("all").stream()
+        return gradeManager.gradeStream()
                 .filter(predicate)
                 .collect(Collectors.toList());
     }
 
     public <T> List<T> transformStudents(Function<Student, T> transformer) {
-        return studentManager.getStudents().stream()
+        return studentManager.viewStudents().stream()
                 .map(transformer)
                 .collect(Collectors.toList());
     }
 
     public <T> List<T> transformGrades(Function<Grade, T> transformer) {
-        return gradeManager.getGradesByStudent("all").stream()
+        return gradeManager.gradeStream()
                 .map(transformer)
                 .collect(Collectors.toList());
     }
@@ -196,15 +189,12 @@ public class StreamProcessor {
     // Parallel stream processing methods
 
     public Map<String, Double> calculateAverageBySubjectParallel() {
-        return gradeManager.getGradesByStudent("all").parallelStream()
-                .collect(Collectors.groupingByConcurrent(
-                        grade -> grade.getSubject().getSubjectName(),
-                        Collectors.averagingDouble(Grade::getGrade)
-                ));
+        return gradeManager.parallelGradeStream()
+                .collect(SubjectAccumulator.averagingByName());
     }
 
     public List<Student> processInParallel(int batchSize, Consumer<List<Student>> processor) {
-        List<Student> students = studentManager.getStudents();
+        List<Student> students = studentManager.viewStudents();
         AtomicInteger counter = new AtomicInteger(0);
 
         return IntStream.range(0, (students.size() + batchSize - 1) / batchSize)
@@ -222,7 +212,7 @@ public class StreamProcessor {
     }
 
     public void benchmarkStreamPerformance() {
-        List<Grade> grades = gradeManager.getGradesByStudent("all");
+        List<Grade> grades = gradeManager.viewAllGrades();
 
         System.out.println("\n=== STREAM PROCESSING BENCHMARK ===");
         System.out.println("Dataset size: " + grades.size() + " grades");
@@ -230,19 +220,13 @@ public class StreamProcessor {
         // Sequential benchmark
         long startTime = System.nanoTime();
         Map<String, Double> seqResult = grades.stream()
-                .collect(Collectors.groupingBy(
-                        grade -> grade.getSubject().getSubjectName(),
-                        Collectors.averagingDouble(Grade::getGrade)
-                ));
+                .collect(SubjectAccumulator.averagingByName());
         long seqTime = System.nanoTime() - startTime;
 
         // Parallel benchmark
         startTime = System.nanoTime();
         Map<String, Double> parResult = grades.parallelStream()
-                .collect(Collectors.groupingByConcurrent(
-                        grade -> grade.getSubject().getSubjectName(),
-                        Collectors.averagingDouble(Grade::getGrade)
-                ));
+                .collect(SubjectAccumulator.averagingByName());
         long parTime = System.nanoTime() - startTime;
 
         System.out.printf("Sequential processing: %8.2f ms%n", seqTime / 1_000_000.0);
@@ -256,10 +240,7 @@ public class StreamProcessor {
         long beforeMemory = runtime.totalMemory() - runtime.freeMemory();
 
         grades.stream()
-                .collect(Collectors.groupingBy(
-                        grade -> grade.getSubject().getSubjectName(),
-                        Collectors.averagingDouble(Grade::getGrade)
-                ));
+                .collect(SubjectAccumulator.averagingByName());
 
         long afterMemory = runtime.totalMemory() - runtime.freeMemory();
         long seqMemory = afterMemory - beforeMemory;
@@ -268,10 +249,7 @@ public class StreamProcessor {
         beforeMemory = runtime.totalMemory() - runtime.freeMemory();
 
         grades.parallelStream()
-                .collect(Collectors.groupingByConcurrent(
-                        grade -> grade.getSubject().getSubjectName(),
-                        Collectors.averagingDouble(Grade::getGrade)
-                ));
+                .collect(SubjectAccumulator.averagingByName());
 
         afterMemory = runtime.totalMemory() - runtime.freeMemory();
         long parMemory = afterMemory - beforeMemory;
@@ -282,20 +260,6 @@ public class StreamProcessor {
                 (parMemory - seqMemory) * 100.0 / seqMemory);
     }
 
-    private String getLetterGrade(double percentage) {
-        if (percentage >= 93) return "A";
-        else if (percentage >= 90) return "A-";
-        else if (percentage >= 87) return "B+";
-        else if (percentage >= 83) return "B";
-        else if (percentage >= 80) return "B-";
-        else if (percentage >= 77) return "C+";
-        else if (percentage >= 73) return "C";
-        else if (percentage >= 70) return "C-";
-        else if (percentage >= 67) return "D+";
-        else if (percentage >= 60) return "D";
-        else return "F";
-    }
-
     public void displayStreamCapabilities() {
         System.out.println("\n=== STREAM PROCESSING CAPABILITIES ===");
         System.out.println("Available Operations:");
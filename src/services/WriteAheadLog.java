@@ -0,0 +1,457 @@
+package services;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented, checksummed write-ahead log with group commit.
+ *
+ * Records are numbered by a log sequence number (LSN) starting at 1. Each one is written as
+ * [int payload length][int CRC32][long LSN][byte type][payload], with the CRC covering LSN,
+ * type and payload. Segments are files named wal-&lt;first LSN&gt;.log; a new one is started
+ * once the current segment reaches the configured size.
+ *
+ * Group commit: append() only copies the record into an in-memory buffer under a short
+ * monitor. sync(lsn) makes it durable: the first caller to take the flush lock writes
+ * everything buffered so far (its own record and every other thread's) with one write and
+ * one fsync, and callers whose LSN is already covered return immediately. While one batch is
+ * being forced, the next one accumulates.
+ *
+ * Recovery: recover() must be called once before the first append. It checks every record;
+ * a torn or corrupt record at the tail of the last segment (a crash mid-write) is cut off,
+ * corruption anywhere else is reported as an IOException.
+ *
+ * Failure: if writing or forcing a batch throws, the log stops. The partly written batch is
+ * cut back off the segment and every later sync() and append() fails, because writing later
+ * records after the missing batch would leave a gap that recovery treats as a torn tail (it
+ * would drop everything after it). Reopen the log with recover() once the cause is fixed.
+ */
+public class WriteAheadLog implements Closeable {
+    public static final int DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+    static final int HEADER_BYTES = 4 + 4 + 8 + 1;
+    private static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean fsync;
+
+    // Append side (guarded by this)
+    private byte[] buffer = new byte[64 * 1024];
+    private int bufferLength;
+    private long bufferFirstLsn;
+    private long nextLsn = 1;
+    private boolean recovered;
+    private boolean closed;
+    private final CRC32 crc = new CRC32();
+
+    // Flush side (guarded by flushLock)
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final NavigableMap<Long, Path> segments = new TreeMap<>(); // first LSN -> file
+    private FileChannel channel;
+    private long channelSize;
+    private byte[] spare = new byte[64 * 1024];
+    private volatile long durableLsn;
+    private volatile IOException failure; // set once a batch could not be written
+
+    // Statistics
+    private final AtomicLong recordsAppended = new AtomicLong();
+    private final AtomicLong payloadBytes = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private long truncatedBytes;
+
+    /**
+     * @param segmentBytes size at which a new segment is started
+     * @param fsync        force every group commit to the device; false leaves flushing to the OS
+     *                     (survives a process crash, not a power loss)
+     */
+    public WriteAheadLog(Path directory, int segmentBytes, boolean fsync) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+    }
+
+    public WriteAheadLog(Path directory) {
+        this(directory, DEFAULT_SEGMENT_BYTES, true);
+    }
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        void accept(long lsn, byte type, byte[] payload) throws IOException;
+    }
+
+    /**
+     * Validates the log, hands every record after afterLsn to the handler in LSN order and
+     * opens the log for appending. Records at or below afterLsn are already covered by a
+     * snapshot and are only checked.
+     * Time Complexity: O(log size)
+     *
+     * @return number of records handed to the handler
+     */
+    public long recover(long afterLsn, RecordHandler handler) throws IOException {
+        flushLock.lock();
+        try {
+            synchronized (this) {
+                if (recovered) throw new IllegalStateException("Log already recovered");
+            }
+            Files.createDirectories(directory);
+            segments.clear();
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> {
+                    long firstLsn = parseSegmentName(file.getFileName().toString());
+                    if (firstLsn > 0) segments.put(firstLsn, file);
+                });
+            }
+
+            long lastLsn = 0;
+            long replayed = 0;
+            long expected = 0; // next LSN the last segment would hold
+            for (Iterator<Map.Entry<Long, Path>> it = segments.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Long, Path> segment = it.next();
+                boolean lastSegment = !it.hasNext();
+                // A gap is only harmless if the snapshot already covers it
+                if (lastLsn > 0 && segment.getKey() != lastLsn + 1 && segment.getKey() > afterLsn + 1) {
+                    throw new IOException("Gap in write-ahead log before " + segment.getValue().getFileName());
+                }
+                expected = segment.getKey();
+                long validEnd = 0;
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                        Files.newInputStream(segment.getValue()), 64 * 1024))) {
+                    byte[][] record = new byte[1][];
+                    byte[] type = new byte[1];
+                    while (true) {
+                        long lsn = readRecord(in, expected, type, record);
+                        if (lsn < 0) break;
+                        if (lsn > afterLsn && handler != null) {
+                            handler.accept(lsn, type[0], record[0]);
+                            replayed++;
+                        }
+                        validEnd += HEADER_BYTES + record[0].length;
+                        lastLsn = lsn;
+                        expected = lsn + 1;
+                    }
+                }
+                long size = Files.size(segment.getValue());
+                if (validEnd < size) {
+                    if (!lastSegment) {
+                        throw new IOException("Corrupt record in " + segment.getValue().getFileName()
+                                + " at offset " + validEnd);
+                    }
+                    // Torn tail from a crash mid-write: drop it
+                    try (FileChannel tail = FileChannel.open(segment.getValue(), StandardOpenOption.WRITE)) {
+                        tail.truncate(validEnd);
+                        tail.force(true);
+                    }
+                    truncatedBytes += size - validEnd;
+                }
+            }
+
+            long next = Math.max(lastLsn + 1, afterLsn + 1);
+            Map.Entry<Long, Path> last = segments.lastEntry();
+            if (last != null && expected == next) {
+                channel = openChannel(last.getValue(), StandardOpenOption.WRITE);
+                channelSize = channel.size();
+                channel.position(channelSize);
+            } else {
+                openSegment(next);
+            }
+            durableLsn = next - 1;
+            synchronized (this) {
+                nextLsn = next;
+                bufferFirstLsn = next;
+                recovered = true;
+            }
+            return replayed;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Reads one record; returns -1 at a clean end of segment or at a torn/corrupt record
+    private long readRecord(DataInputStream in, long expectedLsn, byte[] type, byte[][] payload) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length < 0 || length > MAX_PAYLOAD_BYTES) return -1;
+            int checksum = in.readInt();
+            long lsn = in.readLong();
+            type[0] = in.readByte();
+            byte[] data = new byte[length];
+            in.readFully(data);
+            if (lsn != expectedLsn || checksum != checksum(lsn, type[0], data, 0, length)) return -1;
+            payload[0] = data;
+            return lsn;
+        } catch (EOFException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Buffers a record and returns its LSN; it is durable once sync(lsn) returns.
+     * Time Complexity: O(payload)
+     */
+    public synchronized long append(byte type, byte[] payload) {
+        if (!recovered) throw new IllegalStateException("recover() must run before the first append");
+        if (closed) throw new IllegalStateException("Log is closed");
+        if (failure != null) throw new IllegalStateException("Log failed: " + failure.getMessage(), failure);
+        if (payload.length > MAX_PAYLOAD_BYTES) throw new IllegalArgumentException("Record too large: " + payload.length);
+
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (bufferLength + recordBytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, bufferLength + recordBytes));
+        }
+        long lsn = nextLsn++;
+        ByteBuffer out = ByteBuffer.wrap(buffer, bufferLength, recordBytes);
+        out.putInt(payload.length);
+        out.putInt(checksum(lsn, type, payload, 0, payload.length));
+        out.putLong(lsn);
+        out.put(type);
+        out.put(payload);
+        bufferLength += recordBytes;
+
+        recordsAppended.incrementAndGet();
+        payloadBytes.addAndGet(payload.length);
+        return lsn;
+    }
+
+    /**
+     * Blocks until every record up to lsn is written (and forced, if fsync is on).
+     * Concurrent callers are served by one write.
+     */
+    public void sync(long lsn) throws IOException {
+        if (durableLsn >= lsn) return;
+        flushLock.lock();
+        try {
+            if (durableLsn >= lsn) return; // a concurrent leader covered it
+            checkNotFailed();
+            flushBuffered();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Makes everything appended so far durable.
+     */
+    public void sync() throws IOException {
+        sync(getLastLsn());
+    }
+
+    // Caller holds flushLock
+    private void flushBuffered() throws IOException {
+        byte[] batch;
+        int length;
+        long firstLsn;
+        long lastLsn;
+        synchronized (this) {
+            if (bufferLength == 0) return;
+            batch = buffer;
+            length = bufferLength;
+            firstLsn = bufferFirstLsn;
+            lastLsn = nextLsn - 1;
+            buffer = spare;
+            bufferLength = 0;
+            bufferFirstLsn = nextLsn;
+        }
+
+        try {
+            if (channelSize >= segmentBytes) {
+                closeChannel();
+                openSegment(firstLsn);
+            }
+            ByteBuffer out = ByteBuffer.wrap(batch, 0, length);
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            fail(e, firstLsn, lastLsn);
+        }
+        channelSize += length;
+        spare = batch;
+        bytesWritten.addAndGet(length);
+        syncs.incrementAndGet();
+        durableLsn = lastLsn;
+    }
+
+    // Caller holds flushLock. Stops the log and cuts a partly written batch back off the segment.
+    private void fail(IOException cause, long firstLsn, long lastLsn) throws IOException {
+        failure = new IOException("Write of LSN " + firstLsn + "-" + lastLsn + " failed: " + cause.getMessage(), cause);
+        if (channel != null) {
+            try {
+                channel.truncate(channelSize);
+            } catch (IOException e) {
+                cause.addSuppressed(e); // recovery cuts the torn record instead
+            }
+        }
+        throw failure;
+    }
+
+    private void checkNotFailed() throws IOException {
+        IOException failed = failure;
+        if (failed != null) {
+            throw new IOException("Write-ahead log failed; reopen it to recover", failed);
+        }
+    }
+
+    /**
+     * Deletes whole segments whose records are all at or below lsn (covered by a snapshot).
+     * The active segment is always kept.
+     *
+     * @return number of segments deleted
+     */
+    public int truncateThrough(long lsn) throws IOException {
+        flushLock.lock();
+        try {
+            int deleted = 0;
+            while (segments.size() > 1) {
+                Map.Entry<Long, Path> first = segments.firstEntry();
+                long nextFirst = segments.higherKey(first.getKey());
+                if (nextFirst - 1 > lsn) break;
+                Files.deleteIfExists(first.getValue());
+                segments.pollFirstEntry();
+                deleted++;
+            }
+            return deleted;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Caller holds flushLock
+    private void openSegment(long firstLsn) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+        channel = openChannel(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channelSize = 0;
+        segments.put(firstLsn, file);
+    }
+
+    /**
+     * Opens a segment for writing; tests override it to inject I/O failures.
+     */
+    protected FileChannel openChannel(Path file, OpenOption... options) throws IOException {
+        return FileChannel.open(file, options);
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            if (fsync) channel.force(true);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private int checksum(long lsn, byte type, byte[] payload, int offset, int length) {
+        CRC32 checksum = Thread.holdsLock(this) ? crc : new CRC32();
+        checksum.reset();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            checksum.update((int) (lsn >>> shift));
+        }
+        checksum.update(type);
+        checksum.update(payload, offset, length);
+        return (int) checksum.getValue();
+    }
+
+    private static long parseSegmentName(String name) {
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushLock.lock();
+        try {
+            synchronized (this) {
+                if (closed || !recovered) {
+                    closed = true;
+                    return;
+                }
+            }
+            if (failure != null) {
+                // Nothing more may be written; just release the segment
+                synchronized (this) {
+                    closed = true;
+                }
+                if (channel != null) {
+                    channel.close();
+                    channel = null;
+                }
+                return;
+            }
+            flushBuffered();
+            synchronized (this) {
+                closed = true;
+            }
+            closeChannel();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Statistics
+
+    public synchronized long getLastLsn() {
+        return nextLsn - 1;
+    }
+
+    public long getDurableLsn() {
+        return durableLsn;
+    }
+
+    /** The write failure that stopped the log, or null. */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    public long getRecordsAppended() {
+        return recordsAppended.get();
+    }
+
+    /** Caller payload bytes appended (the logical data volume). */
+    public long getPayloadBytes() {
+        return payloadBytes.get();
+    }
+
+    /** Bytes written to segment files, headers included. */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /** Group commits performed; records per sync = getRecordsAppended() / getSyncCount(). */
+    public long getSyncCount() {
+        return syncs.get();
+    }
+
+    public int getSegmentCount() {
+        flushLock.lock();
+        try {
+            return segments.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Bytes cut off a torn tail during recovery. */
+    public long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,850 @@
+package test;
+
+import models.CoreSubject;
+import models.Grade;
+import models.GradeManager;
+import models.RegularStudent;
+import models.Student;
+import models.StudentManager;
+import models.Subject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import services.BoundedCache;
+import services.CacheManager;
+import services.CacheRegion;
+import services.GPACalculator;
+import services.SearchService;
+import utils.MemoryEstimator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Bounded Cache Test Suite")
+public class BoundedCacheTest {
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    // Replays a trace read-through style (miss -> load -> put) and returns the hit rate
+    private static double replay(List<String> trace, long maximumSize, BoundedCache.Policy policy) {
+        BoundedCache<String, String> cache = new BoundedCache<>(maximumSize, policy, 0, (key, value) -> 1);
+        for (String key : trace) {
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+        return cache.hitRate();
+    }
+
+    @Nested
+    @DisplayName("Eviction")
+    class EvictionTests {
+
+        @Test
+        @DisplayName("Every policy stays within its maximum size")
+        void testBound() {
+            for (BoundedCache.Policy policy : BoundedCache.Policy.values()) {
+                BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, policy, 0, (key, value) -> 1);
+                Random random = new Random(3);
+                for (int i = 0; i < 20_000; i++) {
+                    int key = random.nextInt(1_000);
+                    if (cache.get(key) == null) {
+                        cache.put(key, key);
+                    }
+                    assertTrue(cache.size() <= 100, policy + " grew to " + cache.size());
+                }
+                assertEquals(cache.size(), cache.weightedSize());
+                assertTrue(cache.evictionCount() > 0);
+            }
+        }
+
+        @Test
+        @DisplayName("A one-pass scan flushes LRU but not W-TinyLFU's hot set")
+        void testScanResistance() {
+            Map<BoundedCache.Policy, Integer> hotSurvivors = new EnumMap<>(BoundedCache.Policy.class);
+            for (BoundedCache.Policy policy : BoundedCache.Policy.values()) {
+                BoundedCache<String, String> cache = new BoundedCache<>(100, policy, 0, (key, value) -> 1);
+                for (int round = 0; round < 5; round++) {
+                    for (int i = 0; i < 50; i++) {
+                        String key = "hot" + i;
+                        if (cache.get(key) == null) cache.put(key, key);
+                    }
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    String key = "scan" + i;
+                    if (cache.get(key) == null) cache.put(key, key);
+                }
+                int survivors = 0;
+                for (int i = 0; i < 50; i++) {
+                    if (cache.peek("hot" + i) != null) survivors++;
+                }
+                hotSurvivors.put(policy, survivors);
+            }
+            assertEquals(0, hotSurvivors.get(BoundedCache.Policy.LRU).intValue());
+            assertEquals(50, hotSurvivors.get(BoundedCache.Policy.SLRU).intValue());
+            assertEquals(50, hotSurvivors.get(BoundedCache.Policy.W_TINYLFU).intValue());
+        }
+
+        @Test
+        @DisplayName("Weights count against the maximum; replacing re-weighs the entry")
+        void testWeigher() {
+            BoundedCache<String, String> cache = new BoundedCache<>(100, BoundedCache.Policy.LRU, 0,
+                    (key, value) -> value.length());
+            for (int i = 0; i < 50; i++) {
+                cache.put("k" + i, "x".repeat(10));
+                assertTrue(cache.weightedSize() <= 100);
+            }
+            assertEquals(10, cache.size());
+            String survivor = "k49";
+            assertNotNull(cache.peek(survivor));
+            assertEquals("x".repeat(10), cache.put(survivor, "y"));
+            assertEquals(91, cache.weightedSize());
+            assertNull(cache.put("huge", "z".repeat(200)));
+            assertNull(cache.peek("huge"), "An entry heavier than the whole cache is not kept");
+            assertThrows(IllegalArgumentException.class, () -> new BoundedCache<String, String>(-1));
+        }
+
+        @Test
+        @DisplayName("Entries expire after write; removal listener sees each cause")
+        void testExpiryAndRemovalCauses() throws InterruptedException {
+            BoundedCache<String, String> cache = new BoundedCache<>(2, BoundedCache.Policy.LRU, 30, (key, value) -> 1);
+            List<BoundedCache.RemovalCause> causes = new ArrayList<>();
+            cache.setRemovalListener((key, value, cause) -> causes.add(cause));
+            cache.put("a", "1");
+            cache.put("a", "2");
+            cache.put("b", "1");
+            cache.put("c", "1");
+            cache.remove("b");
+            assertEquals(List.of(BoundedCache.RemovalCause.REPLACED, BoundedCache.RemovalCause.SIZE,
+                    BoundedCache.RemovalCause.EXPLICIT), causes);
+
+            Thread.sleep(60);
+            assertNull(cache.get("c"));
+            assertEquals(BoundedCache.RemovalCause.EXPIRED, causes.get(causes.size() - 1));
+            assertEquals(0, cache.size());
+            assertEquals(1, cache.expirationCount());
+        }
+
+        @Test
+        @DisplayName("Shrinking the maximum evicts right away")
+        void testSetMaximumWeight() {
+            BoundedCache<Integer, Integer> cache = new BoundedCache<>(1_000);
+            for (int i = 0; i < 1_000; i++) {
+                cache.put(i, i);
+            }
+            assertEquals(1_000, cache.size());
+            cache.setMaximumWeight(100);
+            assertEquals(100, cache.size());
+            assertEquals(900, cache.evictionCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Expiry")
+    class ExpiryTests {
+
+        @Test
+        @DisplayName("cleanUp reclaims exactly the entries that came due, across wheel levels")
+        void testTimerWheelExpiry() throws InterruptedException {
+            BoundedCache<Integer, Integer> cache = new BoundedCache<>(20_000, BoundedCache.Policy.W_TINYLFU, 400,
+                    (key, value) -> 1);
+            cache.setRefreshPolicy(key -> key % 2 == 0 ? BoundedCache.RefreshPolicy.NONE
+                    : new BoundedCache.RefreshPolicy(100, 10_000), Runnable::run);
+            for (int i = 0; i < 10_000; i++) {
+                cache.put(i, i);
+            }
+            assertEquals(0, cache.cleanUp());
+
+            Thread.sleep(100);
+            cache.put(0, 0); // rewritten: rescheduled from now
+            Thread.sleep(350);
+            assertEquals(4_999, cache.cleanUp(), "Even keys expire at the TTL; odd keys keep their stale window");
+            assertEquals(5_001, cache.size());
+            assertEquals(0, cache.peek(0).intValue());
+            assertEquals(0, cache.cleanUp());
+
+            Thread.sleep(150);
+            assertEquals(1, cache.cleanUp());
+            assertEquals(5_000, cache.size());
+            assertEquals(5_000, cache.expirationCount());
+        }
+
+        @Test
+        @DisplayName("Expiry work is proportional to the entries due, not to the cache size")
+        void testCleanUpCost() {
+            BoundedCache<Integer, Integer> cache = new BoundedCache<>(200_000, BoundedCache.Policy.W_TINYLFU,
+                    60_000, (key, value) -> 1);
+            for (int i = 0; i < 200_000; i++) {
+                cache.put(i, i);
+            }
+            cache.cleanUp(); // warm-up
+            long start = System.nanoTime();
+            for (int i = 0; i < 1_000; i++) {
+                assertEquals(0, cache.cleanUp());
+            }
+            double perCall = (System.nanoTime() - start) / 1_000.0 / 1_000;
+            System.out.printf("%n=== TIMER WHEEL: cleanUp() over %,d live entries: %.1f µs/call ===%n", cache.size(), perCall);
+            assertTrue(perCall < 1_000, "cleanUp should not scan the map: " + perCall + " µs");
+        }
+
+        @Test
+        @DisplayName("CacheManager reclaims expired entries in the background without any cache calls")
+        void testBackgroundReclaim() throws InterruptedException {
+            CacheManager cacheManager = new CacheManager(1 << 20, BoundedCache.Policy.W_TINYLFU, 100);
+            for (int i = 0; i < 200; i++) {
+                cacheManager.cacheStudentAverage("STU" + i, 70.0);
+            }
+            assertEquals(200, cacheManager.size());
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (cacheManager.size() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, cacheManager.size());
+            assertEquals(200, cacheManager.getEvictionCount(CacheManager.Region.AVERAGE));
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrency")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("Concurrent readers and writers keep the map, queues and weights consistent")
+        void testConcurrentAccess() throws Exception {
+            BoundedCache<Integer, Integer> cache = new BoundedCache<>(500);
+            int threads = 4;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                futures.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 100_000; i++) {
+                        int key = (int) Math.abs(random.nextGaussian() * 400);
+                        Integer value = cache.get(key);
+                        if (value == null) {
+                            cache.put(key, key);
+                        } else {
+                            assertEquals(key, value.intValue());
+                        }
+                        if (i % 1_000 == 0) cache.remove(random.nextInt(2_000));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+
+            cache.cleanUp();
+            assertTrue(cache.size() <= 500);
+            assertEquals(cache.size(), cache.weightedSize());
+            assertEquals(threads * 100_000L, cache.hitCount() + cache.missCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Loading")
+    class LoadingTests {
+
+        private void awaitWaiters(BoundedCache<?, ?> cache, long waiters) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (cache.loadWaitCount() < waiters && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(waiters, cache.loadWaitCount());
+        }
+
+        @Test
+        @DisplayName("Concurrent misses on one key run the loader once and share its value")
+        void testSingleFlight() throws Exception {
+            BoundedCache<String, Double> cache = new BoundedCache<>(100);
+            AtomicInteger loads = new AtomicInteger();
+            CountDownLatch release = new CountDownLatch(1);
+            int threads = 8;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<Double>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> cache.get("STU001", key -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 87.5;
+                })));
+            }
+            awaitWaiters(cache, threads - 1);
+            release.countDown();
+            for (Future<Double> future : futures) {
+                assertEquals(87.5, future.get(10, TimeUnit.SECONDS), 1e-9);
+            }
+            pool.shutdown();
+
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.loadSuccessCount());
+            assertEquals(87.5, cache.get("STU001", key -> { throw new AssertionError("should be cached"); }), 1e-9);
+        }
+
+        @Test
+        @DisplayName("A failed load reaches every waiter, caches nothing, and the next call retries")
+        void testLoadFailure() throws Exception {
+            BoundedCache<String, Double> cache = new BoundedCache<>(100);
+            CountDownLatch entered = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            Future<Double> owner = pool.submit(() -> cache.get("STU002", key -> {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("grade store offline");
+            }));
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+            Future<Double> waiter = pool.submit(() -> cache.get("STU002", key -> 1.0));
+            awaitWaiters(cache, 1);
+            release.countDown();
+            for (Future<Double> future : List.of(owner, waiter)) {
+                Exception e = assertThrows(Exception.class, () -> future.get(10, TimeUnit.SECONDS));
+                assertTrue(e.getCause() instanceof IllegalStateException, String.valueOf(e.getCause()));
+            }
+            pool.shutdown();
+
+            assertEquals(1, cache.loadFailureCount());
+            assertNull(cache.peek("STU002"));
+            assertEquals(2.0, cache.get("STU002", key -> 2.0), 1e-9);
+        }
+
+        @Test
+        @DisplayName("An invalidation during a load wins over the loaded value; null loads cache nothing")
+        void testInvalidateDuringLoad() {
+            BoundedCache<String, Double> cache = new BoundedCache<>(100);
+            Double loaded = cache.get("STU003", key -> {
+                cache.remove(key); // e.g. a grade was added while the average was computed
+                return 70.0;
+            });
+            assertEquals(70.0, loaded, 1e-9);
+            assertNull(cache.peek("STU003"));
+
+            assertNull(cache.get("STU004", key -> null));
+            assertNull(cache.peek("STU004"));
+            assertEquals(0, cache.size());
+        }
+
+        @Test
+        @DisplayName("getAsync loads on the executor and completes immediately on a hit")
+        void testGetAsync() throws Exception {
+            BoundedCache<String, Double> cache = new BoundedCache<>(100);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            CompletableFuture<Double> first = cache.getAsync("STU005", key -> 64.0, executor);
+            assertEquals(64.0, first.get(10, TimeUnit.SECONDS), 1e-9);
+            CompletableFuture<Double> second = cache.getAsync("STU005", key -> 0.0, executor);
+            assertTrue(second.isDone());
+            assertEquals(64.0, second.join(), 1e-9);
+            executor.shutdown();
+        }
+
+        @Test
+        @DisplayName("getAll loads only the missing keys, in one bulk call, in key order")
+        void testGetAll() {
+            BoundedCache<String, Double> cache = new BoundedCache<>(100);
+            cache.put("A", 1.0);
+            cache.put("C", 3.0);
+            List<Set<String>> calls = new ArrayList<>();
+            Map<String, Double> values = cache.getAll(List.of("D", "A", "B", "C", "E", "B"), missing -> {
+                calls.add(new HashSet<>(missing));
+                return Map.of("B", 2.0, "D", 4.0); // nothing for E
+            });
+            assertEquals(List.of(Set.of("B", "D", "E")), calls);
+            assertEquals(List.of("D", "A", "B", "C"), new ArrayList<>(values.keySet()));
+            assertEquals(4.0, values.get("D"), 1e-9);
+            assertEquals(4, cache.size());
+            assertNull(cache.peek("E"));
+
+            cache.getAll(List.of("A", "B", "D"), missing -> { throw new AssertionError("all cached: " + missing); });
+        }
+    }
+
+    @Nested
+    @DisplayName("Refresh-Ahead")
+    class RefreshTests {
+
+        private BoundedCache<String, Integer> refreshingCache(long ttlMillis, long refreshAfterMillis, long maxStaleMillis,
+                                                              Executor executor) {
+            BoundedCache<String, Integer> cache = new BoundedCache<>(100, BoundedCache.Policy.W_TINYLFU, ttlMillis,
+                    (key, value) -> 1);
+            cache.setRefreshPolicy(key -> new BoundedCache.RefreshPolicy(refreshAfterMillis, maxStaleMillis), executor);
+            return cache;
+        }
+
+        @Test
+        @DisplayName("A read near the TTL serves the cached value and reloads it in the background")
+        void testRefreshAhead() throws Exception {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            BoundedCache<String, Integer> cache = refreshingCache(10_000, 50, 0, executor);
+            assertEquals(1, cache.get("top", key -> 1).intValue());
+            assertEquals(1, cache.get("top", key -> { throw new AssertionError("not due yet"); }).intValue());
+
+            Thread.sleep(80);
+            CountDownLatch release = new CountDownLatch(1);
+            long start = System.nanoTime();
+            Integer served = cache.get("top", key -> {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 2;
+            });
+            assertEquals(1, served.intValue());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "The read must not wait for the refresh");
+            assertEquals(1, cache.get("top", key -> 3).intValue(), "Refresh in flight: no second reload");
+
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(2, cache.peek("top").intValue());
+            assertEquals(1, cache.refreshCount());
+            assertTrue(cache.averageRefreshMillis() > 0);
+            assertTrue(cache.maxRefreshMillis() >= cache.averageRefreshMillis());
+        }
+
+        @Test
+        @DisplayName("Past the TTL, loading reads serve the stale value within maxStale; plain reads miss")
+        void testStaleWhileRevalidate() throws Exception {
+            List<Runnable> refreshes = new ArrayList<>();
+            BoundedCache<String, Integer> cache = refreshingCache(50, 40, 300, refreshes::add);
+            cache.get("top", key -> 1);
+            Thread.sleep(80);
+
+            assertNull(cache.get("top"));
+            assertNull(cache.peek("top"));
+            assertEquals(1, cache.get("top", key -> 2).intValue());
+            assertEquals(1, cache.staleHitCount());
+            assertEquals(1, refreshes.size());
+
+            refreshes.get(0).run();
+            assertEquals(2, cache.peek("top").intValue());
+            assertEquals(2, cache.get("top").intValue());
+        }
+
+        @Test
+        @DisplayName("Beyond the stale window the next read blocks on a fresh load")
+        void testStaleWindowBound() throws Exception {
+            List<Runnable> refreshes = new ArrayList<>();
+            BoundedCache<String, Integer> cache = refreshingCache(30, 20, 30, refreshes::add);
+            cache.get("top", key -> 1);
+            Thread.sleep(90);
+            assertEquals(5, cache.get("top", key -> 5).intValue());
+            assertTrue(refreshes.isEmpty());
+            assertEquals(1, cache.expirationCount());
+        }
+
+        @Test
+        @DisplayName("A failed refresh keeps the current value; an invalidation during refresh wins")
+        void testRefreshFailureAndInvalidation() throws Exception {
+            List<Runnable> refreshes = new ArrayList<>();
+            BoundedCache<String, Integer> cache = refreshingCache(10_000, 20, 0, refreshes::add);
+            cache.get("a", key -> 1);
+            cache.get("b", key -> 1);
+            Thread.sleep(40);
+
+            cache.get("a", key -> { throw new IllegalStateException("store offline"); });
+            refreshes.remove(0).run();
+            assertEquals(1, cache.refreshFailureCount());
+            assertEquals(1, cache.peek("a").intValue());
+
+            cache.get("b", key -> 2);
+            cache.remove("b");
+            refreshes.remove(0).run();
+            assertNull(cache.peek("b"));
+
+            assertEquals(1, cache.get("a", key -> 7).intValue(), "Failure cleared the in-flight marker; retry scheduled");
+            refreshes.remove(0).run();
+            assertEquals(7, cache.peek("a").intValue());
+        }
+
+        @Test
+        @DisplayName("CacheManager refreshes derived regions ahead of the TTL and reports refresh latency")
+        void testCacheManagerPolicies() throws Exception {
+            CacheManager cacheManager = new CacheManager(1 << 20, BoundedCache.Policy.W_TINYLFU, 200);
+            assertEquals(160, cacheManager.getRefreshPolicy(CacheManager.Region.AVERAGE).getRefreshAfterMillis());
+            assertEquals(40, cacheManager.getRefreshPolicy(CacheManager.Region.AVERAGE).getMaxStaleMillis());
+            assertSame(BoundedCache.RefreshPolicy.NONE, cacheManager.getRefreshPolicy(CacheManager.Region.STUDENT));
+
+            cacheManager.setRefreshPolicy(CacheManager.Region.AVERAGE, 20, 1_000);
+            AtomicInteger version = new AtomicInteger();
+            Function<String, Double> loader = id -> (double) version.incrementAndGet();
+            assertEquals(1.0, cacheManager.getOrLoadStudentAverage("STU020", loader), 1e-9);
+            Thread.sleep(40);
+            assertEquals(1.0, cacheManager.getOrLoadStudentAverage("STU020", loader), 1e-9);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (cacheManager.getRefreshCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, cacheManager.getRefreshCount());
+            assertEquals(2.0, cacheManager.getStudentAverage("STU020"), 1e-9);
+            assertTrue(cacheManager.getMaxRefreshMillis() >= 0);
+            assertThrows(IllegalArgumentException.class,
+                    () -> cacheManager.setRefreshPolicy(CacheManager.Region.GRADES, -1, 0));
+        }
+    }
+
+    @Nested
+    @DisplayName("CacheManager")
+    class CacheManagerTests {
+
+        private List<Student> students(int count) {
+            List<Student> students = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                students.add(new RegularStudent("Cached " + i, 18, "cached" + i + "@school.edu", "555-0000", "2024-09-01"));
+            }
+            return students;
+        }
+
+        @Test
+        @DisplayName("One byte budget is shared by all four caches")
+        void testGlobalBudget() {
+            long budget = 4 * 1024;
+            CacheManager cacheManager = new CacheManager(budget, BoundedCache.Policy.W_TINYLFU);
+            List<Student> students = students(30);
+            runQuietly(() -> cacheManager.warmCache(students));
+            for (Student student : students) {
+                cacheManager.cacheStudentAverage(student.getStudentId(), 80.0);
+                cacheManager.cacheSubjectAverages(student.getStudentId(), Map.of("Mathematics", 80.0));
+            }
+            assertEquals(budget, cacheManager.getMaximumBytes());
+            assertTrue(cacheManager.getTotalMemoryBytes() <= budget, "bytes " + cacheManager.getTotalMemoryBytes());
+            long perRegion = 0;
+            long perRegionBytes = 0;
+            for (CacheManager.Region region : CacheManager.Region.values()) {
+                perRegion += cacheManager.getEntryCount(region);
+                perRegionBytes += cacheManager.getMemoryBytes(region);
+            }
+            assertEquals(cacheManager.size(), perRegion);
+            assertEquals(cacheManager.getTotalMemoryBytes(), perRegionBytes);
+
+            assertTrue(cacheManager.getEvictionCount(CacheManager.Region.STUDENT)
+                    + cacheManager.getEvictionCount(CacheManager.Region.AVERAGE)
+                    + cacheManager.getEvictionCount(CacheManager.Region.SUBJECT_AVERAGE) >= 50);
+        }
+
+        @Test
+        @DisplayName("Entries weigh what the cache retains, not the shared objects they point to")
+        void testEntryWeights() {
+            CacheManager cacheManager = new CacheManager(1 << 20, BoundedCache.Policy.W_TINYLFU);
+            Student student = students(1).get(0);
+            cacheManager.cacheStudent(student);
+            cacheManager.cacheStudentAverage(student.getStudentId(), 80.0);
+            Map<String, Double> averages = new HashMap<>();
+            for (int i = 0; i < 8; i++) {
+                averages.put("Subject " + i, 70.0 + i);
+            }
+            cacheManager.cacheSubjectAverages(student.getStudentId(), averages);
+
+            long studentBytes = cacheManager.getMemoryBytes(CacheManager.Region.STUDENT);
+            assertTrue(studentBytes > BoundedCache.entryOverheadBytes());
+            assertTrue(studentBytes < MemoryEstimator.sizeOf(student), "the student belongs to StudentManager");
+            assertEquals(studentBytes + MemoryEstimator.sizeOfBoxedDouble(),
+                    cacheManager.getMemoryBytes(CacheManager.Region.AVERAGE));
+            assertEquals(studentBytes + MemoryEstimator.sizeOfDoubleMap(averages, false),
+                    cacheManager.getMemoryBytes(CacheManager.Region.SUBJECT_AVERAGE));
+            assertEquals(3 * studentBytes + MemoryEstimator.sizeOfBoxedDouble()
+                    + MemoryEstimator.sizeOfDoubleMap(averages, false), cacheManager.getTotalMemoryBytes());
+        }
+
+        @Test
+        @DisplayName("getOrLoad computes a stampeding student's average once; bulk and async loads share the cache")
+        void testGetOrLoad() throws Exception {
+            CacheManager cacheManager = new CacheManager(1 << 20, BoundedCache.Policy.W_TINYLFU);
+            AtomicInteger computations = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            int threads = 6;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<Double>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return cacheManager.getOrLoadStudentAverage("STU010", id -> {
+                        computations.incrementAndGet();
+                        try {
+                            Thread.sleep(50); // an expensive aggregate
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return 88.0;
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Double> future : futures) {
+                assertEquals(88.0, future.get(10, TimeUnit.SECONDS), 1e-9);
+            }
+            pool.shutdown();
+            assertEquals(1, computations.get());
+            assertEquals(threads, cacheManager.getHitCount(CacheManager.Region.AVERAGE)
+                    + cacheManager.getMissCount(CacheManager.Region.AVERAGE));
+
+            Map<String, Double> averages = cacheManager.getAllStudentAverages(List.of("STU010", "STU011", "STU012"), missing -> {
+                assertEquals(Set.of("STU011", "STU012"), missing);
+                Map<String, Double> loaded = new HashMap<>();
+                missing.forEach(id -> loaded.put(id, 70.0));
+                return loaded;
+            });
+            assertEquals(Map.of("STU010", 88.0, "STU011", 70.0, "STU012", 70.0), averages);
+            assertEquals(70.0, cacheManager.loadStudentAverageAsync("STU011", id -> 0.0).get(10, TimeUnit.SECONDS), 1e-9);
+            assertEquals(Map.of("Art", 90.0), cacheManager.loadSubjectAveragesAsync("STU013",
+                    id -> Map.of("Art", 90.0)).get(10, TimeUnit.SECONDS));
+            assertEquals(Map.of("Art", 90.0), cacheManager.getSubjectAverages("STU013"));
+        }
+
+        @Test
+        @DisplayName("Lookups count per region, return copies, and invalidateStudent drops every entry")
+        void testRegionsAndInvalidation() {
+            CacheManager cacheManager = new CacheManager(1 << 20, BoundedCache.Policy.W_TINYLFU);
+            Student student = students(1).get(0);
+            String id = student.getStudentId();
+            cacheManager.cacheStudent(student);
+            cacheManager.cacheStudentAverage(id, 91.5);
+            cacheManager.cacheSubjectAverages(id, new HashMap<>(Map.of("Art", 91.5)));
+
+            assertSame(student, cacheManager.getStudent(id));
+            assertEquals(91.5, cacheManager.getStudentAverage(id), 1e-9);
+            cacheManager.getSubjectAverages(id).clear();
+            assertEquals(Map.of("Art", 91.5), cacheManager.getSubjectAverages(id));
+            assertNull(cacheManager.getStudentGrades(id));
+            assertEquals(1, cacheManager.getHitCount(CacheManager.Region.STUDENT));
+            assertEquals(2, cacheManager.getHitCount(CacheManager.Region.SUBJECT_AVERAGE));
+            assertEquals(1, cacheManager.getMissCount(CacheManager.Region.GRADES));
+            assertEquals(80.0, cacheManager.getCacheHitRate(), 1e-9);
+
+            cacheManager.invalidateStudent(id);
+            assertEquals(0, cacheManager.size());
+            assertNull(cacheManager.getStudent(id));
+            assertNull(cacheManager.getStudentAverage(id));
+            for (CacheManager.Region region : CacheManager.Region.values()) {
+                assertEquals(0, cacheManager.getEntryCount(region));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Named Regions")
+    class RegionTests {
+
+        @Test
+        @DisplayName("Each region has its own bound, and invalidation reaches only student-keyed regions")
+        void testBoundsAndInvalidation() {
+            CacheManager cacheManager = new CacheManager(1 << 20, BoundedCache.Policy.W_TINYLFU);
+            CacheRegion<String, Double> gpas = cacheManager.createRegion("GPA",
+                    CacheRegion.Spec.<String, Double>ofSize(10).keyedByStudent());
+            CacheRegion<String, String> patterns = cacheManager.createRegion("Patterns",
+                    CacheRegion.Spec.<String, String>ofSize(100).withPolicy(BoundedCache.Policy.LRU));
+            for (int i = 0; i < 50; i++) {
+                gpas.put("STU" + i, 3.0);
+                patterns.put("STU" + i, "p" + i);
+            }
+            assertTrue(gpas.size() <= 10, "size " + gpas.size());
+            assertEquals(50, patterns.size());
+            assertTrue(gpas.evictionCount() >= 40);
+
+            gpas.put("STU7", 2.0);
+            cacheManager.invalidateStudent("STU7");
+            assertNull(gpas.get("STU7"));
+            assertEquals("p7", patterns.get("STU7"), "not keyed by student");
+
+            assertEquals(List.of(gpas, patterns), cacheManager.getRegions());
+            assertSame(patterns, cacheManager.getRegion("Patterns"));
+            runQuietly(cacheManager::displayCacheStatistics);
+
+            cacheManager.invalidateAll();
+            assertEquals(0, gpas.size());
+            assertEquals(0, patterns.size());
+        }
+
+        @Test
+        @DisplayName("A region's TTL expires its entries in the background")
+        void testRegionTtl() throws Exception {
+            CacheManager cacheManager = new CacheManager(1 << 20, BoundedCache.Policy.W_TINYLFU);
+            CacheRegion<String, Integer> region = cacheManager.createRegion("Short-lived",
+                    CacheRegion.Spec.<String, Integer>ofSize(100).withTtl(50));
+            region.put("a", 1);
+            assertEquals(1, region.get("a").intValue());
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (region.size() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, region.size());
+            assertNull(region.get("a"));
+            assertThrows(IllegalArgumentException.class, () -> CacheRegion.Spec.ofSize(-1));
+        }
+
+        @Test
+        @DisplayName("GPACalculator caches through its regions and is invalidated centrally")
+        void testGpaCalculatorRegions() {
+            CacheManager cacheManager = new CacheManager(1 << 20, BoundedCache.Policy.W_TINYLFU);
+            StudentManager studentManager = new StudentManager();
+            GradeManager gradeManager = new GradeManager(studentManager);
+            GPACalculator calculator = new GPACalculator(studentManager, gradeManager, cacheManager);
+            Student student = new RegularStudent("Region Student", 18, "region@school.edu", "555-0000", "2024-09-01");
+            runQuietly(() -> {
+                studentManager.addStudent(student);
+                gradeManager.addGrade(new Grade(student.getStudentId(), new CoreSubject("Mathematics", "MAT101"), 95));
+            });
+
+            assertEquals(4.0, calculator.calculateGPA(student.getStudentId()), 1e-9);
+            assertEquals(4.0, calculator.calculateGPA(student.getStudentId()), 1e-9);
+            CacheRegion<?, ?> gpas = cacheManager.getRegion("GPA");
+            assertEquals(1, gpas.hitCount());
+            assertEquals(1, gpas.missCount());
+            assertEquals(1, gpas.size());
+
+            cacheManager.invalidateStudent(student.getStudentId());
+            assertEquals(0, gpas.size());
+            runQuietly(calculator::clearCache);
+            assertEquals(0, gpas.hitCount());
+        }
+
+        @Test
+        @DisplayName("Concurrent pattern and grade-range searches share the pattern region safely")
+        void testConcurrentSearches() throws Exception {
+            CacheManager cacheManager = new CacheManager(1 << 20, BoundedCache.Policy.W_TINYLFU);
+            StudentManager studentManager = new StudentManager();
+            GradeManager gradeManager = new GradeManager(studentManager);
+            SearchService searchService = new SearchService(studentManager, gradeManager, cacheManager);
+            Subject math = new CoreSubject("Mathematics", "MAT101");
+            runQuietly(() -> {
+                for (int i = 0; i < 200; i++) {
+                    Student student = new RegularStudent("Searched " + i, 18, "searched" + i + "@school.edu",
+                            "555-0000", "2024-09-01");
+                    studentManager.addStudent(student);
+                    gradeManager.addGrade(new Grade(student.getStudentId(), math, i % 2 == 0 ? 90 : 50));
+                }
+            });
+
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<Integer>> results = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    results.add(pool.submit(() -> searchService.searchByGradeRange(80, 100).size()));
+                }
+                for (Future<Integer> result : results) {
+                    assertEquals(100, result.get(30, TimeUnit.SECONDS).intValue());
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+            assertNotNull(cacheManager.getRegion("Search Patterns"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Hit-Rate Simulation")
+    class SimulationTests {
+
+        /**
+         * Records a read-through workload through CacheManager: Zipf-distributed lookups of
+         * students, averages and grades, interrupted by full scans of every student (reports,
+         * exports). The recorded trace is then replayed against each policy and size.
+         * Pass -Dcache.trace=path to also replay a recorded trace file (one key per line).
+         */
+        @Test
+        @DisplayName("Hit rates of LRU, SLRU and W-TinyLFU on recorded traces")
+        void testHitRateSimulation() throws IOException {
+            List<String> recorded = recordTrace(2_000, 200_000, 0.9, 5_000);
+            Map<String, List<String>> traces = new LinkedHashMap<>();
+            traces.put("zipf+scans", recorded);
+            String traceFile = System.getProperty("cache.trace");
+            if (traceFile != null) {
+                traces.put(Paths.get(traceFile).getFileName().toString(), Files.readAllLines(Paths.get(traceFile)));
+            }
+
+            for (Map.Entry<String, List<String>> trace : traces.entrySet()) {
+                System.out.printf("%n=== CACHE HIT RATE: %s, %,d requests, %,d distinct keys ===%n",
+                        trace.getKey(), trace.getValue().size(), new HashSet<>(trace.getValue()).size());
+                System.out.println("  Size |    LRU  |   SLRU  | W-TinyLFU");
+                for (int size : new int[] { 150, 500, 1_000, 2_000 }) {
+                    double lru = replay(trace.getValue(), size, BoundedCache.Policy.LRU);
+                    double slru = replay(trace.getValue(), size, BoundedCache.Policy.SLRU);
+                    double tinyLfu = replay(trace.getValue(), size, BoundedCache.Policy.W_TINYLFU);
+                    System.out.printf("%6d | %6.2f%% | %6.2f%% | %6.2f%%%n", size, lru * 100, slru * 100, tinyLfu * 100);
+                    if (trace.getValue() == recorded) {
+                        assertTrue(tinyLfu > lru, "W-TinyLFU should beat LRU on a skewed trace with scans at size " + size);
+                        assertTrue(slru >= lru - 0.005, "SLRU should not lose to LRU at size " + size);
+                    }
+                }
+            }
+        }
+
+        private List<String> recordTrace(int studentCount, int requests, double skew, int scanEvery) {
+            CacheManager cacheManager = new CacheManager(16 * 1024, BoundedCache.Policy.W_TINYLFU);
+            List<Student> students = students(studentCount);
+            double[] cumulative = new double[studentCount];
+            double total = 0;
+            for (int i = 0; i < studentCount; i++) {
+                total += 1.0 / Math.pow(i + 1, skew);
+                cumulative[i] = total;
+            }
+
+            Random random = new Random(17);
+            cacheManager.startTrace();
+            for (int request = 1; request <= requests; request++) {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+                Student student = students.get(rank < 0 ? -rank - 1 : rank);
+                double kind = random.nextDouble();
+                if (kind < 0.5) {
+                    if (cacheManager.getStudent(student.getStudentId()) == null) cacheManager.cacheStudent(student);
+                } else if (kind < 0.8) {
+                    if (cacheManager.getStudentAverage(student.getStudentId()) == null) {
+                        cacheManager.cacheStudentAverage(student.getStudentId(), 75.0);
+                    }
+                } else if (cacheManager.getStudentGrades(student.getStudentId()) == null) {
+                    cacheManager.cacheStudentGrades(student.getStudentId(), new ArrayList<>());
+                }
+                if (request % scanEvery == 0) {
+                    for (Student scanned : students) {
+                        if (cacheManager.getStudent(scanned.getStudentId()) == null) cacheManager.cacheStudent(scanned);
+                    }
+                }
+            }
+            List<String> trace = cacheManager.stopTrace();
+            assertTrue(cacheManager.stopTrace().isEmpty());
+            return trace;
+        }
+
+        private List<Student> students(int count) {
+            List<Student> students = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                students.add(new RegularStudent("Traced " + i, 18, "traced" + i + "@school.edu", "555-0000", "2024-09-01"));
+            }
+            return students;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Bulk Grade Import Test Suite")
+public class BulkGradeImportTest {
+    private static final Subject[] SUBJECTS = {
+            new CoreSubject("Mathematics", "MAT101"),
+            new CoreSubject("English", "ENG101"),
+            new ElectiveSubject("Art", "ART101"),
+            new ElectiveSubject("Music", "MUS101")
+    };
+
+    private StudentManager perGradeStudents;
+    private StudentManager bulkStudents;
+    private List<String> studentIds;
+
+    @BeforeEach
+    public void setUp() {
+        perGradeStudents = new StudentManager();
+        bulkStudents = new StudentManager();
+        studentIds = new ArrayList<>();
+        runQuietly(() -> {
+            for (int i = 0; i < 50; i++) {
+                Student student = i % 3 == 0
+                        ? new HonorsStudent("Bulk " + i, 19, "bulk" + i + "@school.edu", "555-0404", "2024-09-01")
+                        : new RegularStudent("Bulk " + i, 18, "bulk" + i + "@school.edu", "555-0404", "2024-09-01");
+                perGradeStudents.addStudent(student);
+                bulkStudents.addStudent(student);
+                studentIds.add(student.getStudentId());
+            }
+        });
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private List<Grade> generateGrades(int count, long seed) {
+        Random random = new Random(seed);
+        List<Grade> grades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            grades.add(new Grade("GRD-B" + seed + "-" + i, studentIds.get(random.nextInt(studentIds.size())),
+                    SUBJECTS[random.nextInt(SUBJECTS.length)], 40 + random.nextInt(61)));
+        }
+        return grades;
+    }
+
+    private static List<Grade> copies(List<Grade> grades) {
+        List<Grade> copies = new ArrayList<>(grades.size());
+        for (Grade g : grades) {
+            copies.add(new Grade(g.getGradeId(), g.getStudentId(), g.getSubject(), g.getGrade(), g.getTimestamp()));
+        }
+        return copies;
+    }
+
+    @Nested
+    @DisplayName("Bulk Parity")
+    class BulkParityTests {
+
+        @Test
+        @DisplayName("addGrades leaves the same state as per-grade addGrade")
+        void testBulkMatchesPerGrade() {
+            List<Grade> grades = generateGrades(2_000, 1);
+            GradeManager perGrade = new GradeManager(perGradeStudents);
+            GradeManager bulk = new GradeManager(bulkStudents);
+
+            runQuietly(() -> grades.forEach(perGrade::addGrade));
+
+            // Both managers share the Student objects, so capture per-grade results first
+            Map<String, Double> expectedGpa = new HashMap<>();
+            Map<String, Boolean> expectedHonors = new HashMap<>();
+            for (String studentId : studentIds) {
+                Student student = perGradeStudents.findStudent(studentId);
+                expectedGpa.put(studentId, student.getGpa());
+                if (student instanceof HonorsStudent) {
+                    expectedHonors.put(studentId, ((HonorsStudent) student).checkHonorsEligibility());
+                    ((HonorsStudent) student).setHonorsEligible(!expectedHonors.get(studentId));
+                }
+                student.setGpa(-1);
+            }
+
+            assertEquals(grades.size(), bulk.addGrades(copies(grades)));
+
+            assertEquals(perGrade.getTotalGradeCount(), bulk.getTotalGradeCount());
+            assertEquals(perGrade.calculateClassAverage(), bulk.calculateClassAverage(), 0.001);
+            assertEquals(perGradeStudents.getUniqueCourseCodes(), bulkStudents.getUniqueCourseCodes());
+            for (String studentId : studentIds) {
+                Student actual = bulkStudents.findStudent(studentId);
+                assertEquals(perGrade.calculateOverallAverage(studentId), bulk.calculateOverallAverage(studentId), 0.001);
+                assertEquals(expectedGpa.get(studentId), actual.getGpa(), 0.001);
+                assertEquals(perGradeStudents.getClassRank(studentId), bulkStudents.getClassRank(studentId));
+                if (actual instanceof HonorsStudent) {
+                    assertEquals(expectedHonors.get(studentId), ((HonorsStudent) actual).checkHonorsEligibility());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Bulk insert prints nothing unless asked")
+        void testBulkIsQuiet() {
+            GradeManager bulk = new GradeManager(bulkStudents);
+            PrintStream original = System.out;
+            ByteArrayOutputStream captured = new ByteArrayOutputStream();
+            System.setOut(new PrintStream(captured));
+            try {
+                bulk.addGrades(generateGrades(500, 2));
+                try (GradeBatch batch = bulk.beginBatch(100)) {
+                    generateGrades(250, 3).forEach(batch::add);
+                }
+            } finally {
+                System.setOut(original);
+            }
+
+            assertEquals("", captured.toString());
+            assertEquals(750, bulk.getTotalGradeCount());
+        }
+
+        @Test
+        @DisplayName("Batch session flushes at the threshold and on close")
+        void testBatchSessionFlushes() {
+            GradeManager bulk = new GradeManager(bulkStudents);
+            GradeBatch batch = bulk.beginBatch(100);
+            generateGrades(250, 4).forEach(batch::add);
+
+            assertEquals(200, bulk.getTotalGradeCount());
+            assertEquals(50, batch.getPendingCount());
+            assertEquals(2, batch.getFlushCount());
+
+            batch.close();
+            assertEquals(250, bulk.getTotalGradeCount());
+            assertEquals(250, batch.getAddedCount());
+            assertThrows(IllegalStateException.class, () -> batch.add(generateGrades(1, 5).get(0)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Import Throughput")
+    class ThroughputTests {
+
+        @Test
+        @DisplayName("Per-grade vs bulk import throughput")
+        void testImportThroughput() {
+            int count = 50_000;
+            List<Grade> grades = generateGrades(count, 6);
+            List<Grade> bulkCopy = copies(grades);
+            GradeManager perGrade = new GradeManager(perGradeStudents);
+            GradeManager bulk = new GradeManager(bulkStudents);
+
+            // Console output goes to an in-memory stream so the per-grade figure is not dominated by the terminal
+            PrintStream original = System.out;
+            ByteArrayOutputStream console = new ByteArrayOutputStream();
+            System.setOut(new PrintStream(console));
+            long perGradeNanos;
+            try {
+                long start = System.nanoTime();
+                grades.forEach(perGrade::addGrade);
+                perGradeNanos = System.nanoTime() - start;
+            } finally {
+                System.setOut(original);
+            }
+
+            long start = System.nanoTime();
+            try (GradeBatch batch = bulk.beginBatch()) {
+                bulkCopy.forEach(batch::add);
+            }
+            long bulkNanos = System.nanoTime() - start;
+
+            System.out.println("\n=== GRADE IMPORT THROUGHPUT (" + count + " grades, 50 students) ===");
+            System.out.printf("Per-grade addGrade: %8.1f ms | %,10.0f grades/sec | %,d bytes of console output%n",
+                    perGradeNanos / 1_000_000.0, count / (perGradeNanos / 1e9), console.size());
+            System.out.printf("Batch session:      %8.1f ms | %,10.0f grades/sec | 0 bytes of console output%n",
+                    bulkNanos / 1_000_000.0, count / (bulkNanos / 1e9));
+
+            assertEquals(perGrade.getTotalGradeCount(), bulk.getTotalGradeCount());
+            assertTrue(bulkNanos < perGradeNanos, "Bulk import should be faster than per-grade import");
+        }
+    }
+}
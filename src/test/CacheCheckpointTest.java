@@ -0,0 +1,222 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import services.BoundedCache;
+import services.CacheCheckpoint;
+import services.CacheManager;
+import services.CacheRegion;
+import services.GPACalculator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cache Checkpoint Test Suite")
+public class CacheCheckpointTest {
+    private static final int STUDENTS = 300;
+    private static final int HOT = 50;
+
+    private Path directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("cache-checkpoint");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // One process's managers over the same deterministic grade book
+    private static final class World {
+        final StudentManager studentManager = new StudentManager();
+        final GradeManager gradeManager = new GradeManager(studentManager);
+        final CacheManager cacheManager = new CacheManager(1 << 20, BoundedCache.Policy.W_TINYLFU);
+        final GPACalculator calculator = new GPACalculator(studentManager, gradeManager, cacheManager);
+
+        World() {
+            Subject math = new CoreSubject("Mathematics", "MATH101");
+            Subject art = new ElectiveSubject("Art", "ART101");
+            for (int i = 0; i < STUDENTS; i++) {
+                String id = String.format("STU-W%04d", i);
+                studentManager.addStudent(new RegularStudent(id, "Warm Student " + i, 18,
+                        "warm" + i + "@school.edu", "555-0100", "2024-09-01"), false);
+                gradeManager.addGrade(new Grade(id + "-G1", id, math, 60 + i % 40));
+                gradeManager.addGrade(new Grade(id + "-G2", id, art, 70 + i % 30));
+            }
+            cacheManager.attachTo(studentManager.getChangeFeed());
+        }
+
+        CacheCheckpoint checkpoint(Path file) {
+            return new CacheCheckpoint(cacheManager, studentManager, gradeManager, file);
+        }
+    }
+
+    private static String id(int i) {
+        return String.format("STU-W%04d", i);
+    }
+
+    @Nested
+    @DisplayName("Warm Start")
+    class WarmStartTests {
+
+        @Test
+        @DisplayName("GPAs and averages come back with their values after a restart")
+        void testRoundTrip() throws Exception {
+            Path file = directory.resolve("cache.dat");
+            World before = new World();
+            for (int i = 0; i < STUDENTS; i++) {
+                before.calculator.calculateGPA(id(i));
+                before.calculator.calculateSubjectAverages(id(i));
+                before.cacheManager.getOrLoadStudentAverage(id(i), before.gradeManager::calculateOverallAverage);
+            }
+            int written = before.checkpoint(file).save();
+            assertEquals(3 * STUDENTS, written);
+
+            World after = new World();
+            CacheCheckpoint.WarmStartReport report = after.checkpoint(file).warmStart().join();
+            System.out.println(report);
+            assertNull(report.getError());
+            assertEquals(written, report.getRead());
+            assertEquals(written, report.getRestoredValues());
+            assertEquals(0, report.getDiscarded());
+
+            // Served from the restored entries: hits only, same values
+            for (int i = 0; i < STUDENTS; i++) {
+                assertEquals(before.calculator.calculateGPA(id(i)), after.calculator.calculateGPA(id(i)), 1e-9);
+                assertEquals(before.calculator.calculateSubjectAverages(id(i)),
+                        after.calculator.calculateSubjectAverages(id(i)));
+                assertEquals(after.gradeManager.calculateOverallAverage(id(i)),
+                        after.cacheManager.getStudentAverage(id(i)), 1e-9);
+            }
+            CacheRegion<?, ?> gpa = after.cacheManager.getRegion("GPA");
+            assertEquals(0, gpa.missCount());
+            assertEquals(STUDENTS, gpa.hitCount());
+        }
+
+        @Test
+        @DisplayName("Entries of students whose grades changed since the checkpoint are discarded")
+        void testStaleDiscarded() throws Exception {
+            Path file = directory.resolve("cache.dat");
+            World before = new World();
+            for (int i = 0; i < 20; i++) {
+                before.calculator.calculateGPA(id(i));
+            }
+            before.checkpoint(file).save();
+
+            World after = new World();
+            after.gradeManager.addGrade(new Grade(id(3) + "-G3", id(3), new CoreSubject("Mathematics", "MATH101"), 10));
+            after.studentManager.getChangeFeed().awaitDelivered();
+            CacheCheckpoint.WarmStartReport report = after.checkpoint(file).warmStart().join();
+            assertEquals(1, report.getDiscarded());
+            assertEquals(19, report.getRestoredValues());
+
+            double expected = (after.calculator.convertToGPA(63) + after.calculator.convertToGPA(73)
+                    + after.calculator.convertToGPA(10)) / 3;
+            assertEquals(expected, after.calculator.calculateGPA(id(3)), 1e-9); // recomputed, not the saved value
+        }
+
+        @Test
+        @DisplayName("The hottest entries are restored first; a smaller cache keeps just those")
+        void testFrequencyOrder() throws Exception {
+            Path file = directory.resolve("cache.dat");
+            World before = new World();
+            CacheRegion<String, Double> scores = before.cacheManager.createRegion("Scores",
+                    CacheRegion.Spec.<String, Double>ofSize(STUDENTS).keyedByStudent());
+            for (int i = 0; i < STUDENTS; i++) {
+                scores.put(id(i), (double) i);
+            }
+            for (int round = 0; round < 10; round++) {
+                for (int i = STUDENTS - HOT; i < STUDENTS; i++) {
+                    scores.get(id(i)); // the last students are the hot ones
+                }
+            }
+            before.checkpoint(file).save();
+
+            // Room for the hot students only: the cold ones after them are skipped
+            World after = new World();
+            CacheRegion<String, Double> restored = after.cacheManager.createRegion("Scores",
+                    CacheRegion.Spec.<String, Double>ofSize(HOT).keyedByStudent());
+            CacheCheckpoint.WarmStartReport report = after.checkpoint(file).warmStart().join();
+            assertEquals(HOT, report.getRestoredValues());
+            assertEquals(STUDENTS - HOT, report.getSkipped());
+            int hotCached = 0;
+            for (int i = STUDENTS - HOT; i < STUDENTS; i++) {
+                if (restored.get(id(i)) != null) hotCached++;
+            }
+            System.out.printf("Hot entries kept after warm start: %d of %d%n", hotCached, HOT);
+            assertEquals(HOT, hotCached);
+        }
+    }
+
+    @Nested
+    @DisplayName("Keys Only")
+    class KeyOnlyTests {
+
+        @Test
+        @DisplayName("Without values, built-in regions and regions with a loader are recomputed")
+        void testKeysOnly() throws Exception {
+            Path file = directory.resolve("keys.dat");
+            World before = new World();
+            for (int i = 0; i < 10; i++) {
+                before.cacheManager.getOrLoadStudentAverage(id(i), before.gradeManager::calculateOverallAverage);
+                before.cacheManager.getOrLoadStudentGrades(id(i), before.gradeManager::getGradesByStudent);
+                before.calculator.calculateGPA(id(i));
+            }
+            new CacheCheckpoint(before.cacheManager, before.studentManager, before.gradeManager, file, false).save();
+
+            World after = new World();
+            CacheCheckpoint checkpoint = after.checkpoint(file);
+            CacheCheckpoint.WarmStartReport report = checkpoint.warmStart().join();
+            assertEquals(0, report.getRestoredValues());
+            assertEquals(20, report.getRecomputed());
+            assertEquals(10, report.getSkipped(), "GPA has no loader");
+            assertEquals(after.gradeManager.calculateOverallAverage(id(4)),
+                    after.cacheManager.getStudentAverage(id(4)), 1e-9);
+            assertEquals(2, after.cacheManager.getStudentGrades(id(4)).size());
+
+            World third = new World();
+            CacheCheckpoint withLoader = third.checkpoint(file);
+            withLoader.setLoader("GPA", id -> 3.5);
+            assertEquals(30, withLoader.warmStart().join().getRecomputed());
+            assertEquals(3.5, third.calculator.calculateGPA(id(4)), 1e-9);
+        }
+
+        @Test
+        @DisplayName("A missing or corrupt file leaves the caches cold without failing")
+        void testUnreadable() throws Exception {
+            Path file = directory.resolve("missing.dat");
+            World world = new World();
+            assertTrue(world.checkpoint(file).warmStart().join().isEmpty());
+
+            Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+            CacheCheckpoint.WarmStartReport report = world.checkpoint(file).warmStart().join();
+            assertNotNull(report.getError());
+            assertEquals(0, world.cacheManager.size());
+
+            // Truncated valid file: checksum or EOF error
+            world.calculator.calculateGPA(id(1));
+            CacheCheckpoint checkpoint = world.checkpoint(file);
+            checkpoint.close(); // final save
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+            assertNotNull(new World().checkpoint(file).warmStart().join().getError());
+            assertEquals(1, checkpoint.getCheckpointCount());
+        }
+    }
+}
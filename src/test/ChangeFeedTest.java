@@ -0,0 +1,327 @@
+package test;
+
+import interfaces.ChangeListener;
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import services.GPACalculator;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Change Feed Test Suite")
+public class ChangeFeedTest {
+    private static final Subject MATH = new CoreSubject("Mathematics", "MAT101");
+    private static final Subject ART = new ElectiveSubject("Art", "ART101");
+
+    private StudentManager studentManager;
+    private GradeManager gradeManager;
+    private ChangeFeed feed;
+    private List<ChangeEvent> received;
+    private ChangeListener recorder;
+
+    @BeforeEach
+    public void setUp() {
+        studentManager = new StudentManager();
+        gradeManager = new GradeManager(studentManager);
+        feed = studentManager.getChangeFeed();
+        received = new CopyOnWriteArrayList<>();
+        recorder = received::addAll;
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private List<String> addStudents(int count) {
+        List<String> ids = new ArrayList<>();
+        runQuietly(() -> {
+            for (int i = 0; i < count; i++) {
+                Student student = new RegularStudent("Feed " + i, 18, "feed" + i + "@school.edu", "555-0000", "2024-09-01");
+                studentManager.addStudent(student, false);
+                ids.add(student.getStudentId());
+            }
+        });
+        return ids;
+    }
+
+    @Nested
+    @DisplayName("Events")
+    class EventTests {
+
+        @Test
+        @DisplayName("Each change publishes a typed event with the values at that moment")
+        void testEventTypes() {
+            feed.subscribe(recorder);
+            String studentId = addStudents(1).get(0);
+            Grade grade = new Grade(studentId, MATH, 70);
+            runQuietly(() -> {
+                gradeManager.addGrade(grade);
+                grade.recordGrade(95);
+            });
+            feed.awaitDelivered();
+
+            List<ChangeEvent.Type> types = new ArrayList<>();
+            received.forEach(e -> types.add(e.getType()));
+            assertEquals(List.of(ChangeEvent.Type.STUDENT_ADDED, ChangeEvent.Type.GRADE_ADDED, ChangeEvent.Type.GPA_CHANGED,
+                    ChangeEvent.Type.GRADE_UPDATED, ChangeEvent.Type.GPA_CHANGED), types);
+            for (int i = 0; i < received.size(); i++) {
+                assertEquals(i + 1, received.get(i).getSequence());
+                assertEquals(studentId, received.get(i).getStudentId());
+            }
+
+            ChangeEvent.GradeAdded added = (ChangeEvent.GradeAdded) received.get(1);
+            assertEquals(70, added.getValue(), 1e-9);
+            assertSame(grade, added.getGrade());
+            ChangeEvent.GpaChanged firstGpa = (ChangeEvent.GpaChanged) received.get(2);
+            assertEquals(0.0, firstGpa.getPreviousGpa(), 1e-9);
+            assertEquals(1.7, firstGpa.getGpa(), 1e-9); // C- on the standard scale
+            assertEquals(70, firstGpa.getAverage(), 1e-9);
+            ChangeEvent.GradeUpdated updated = (ChangeEvent.GradeUpdated) received.get(3);
+            assertEquals(70, updated.getPreviousValue(), 1e-9);
+            assertEquals(95, updated.getValue(), 1e-9);
+            ChangeEvent.GpaChanged secondGpa = (ChangeEvent.GpaChanged) received.get(4);
+            assertEquals(4.0, secondGpa.getGpa(), 1e-9);
+            assertEquals(70, secondGpa.getPreviousAverage(), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Nothing is built or queued without subscribers; late subscribers start at their subscription")
+        void testSubscriptionWindow() {
+            List<String> ids = addStudents(3);
+            runQuietly(() -> gradeManager.addGrade(new Grade(ids.get(0), MATH, 80)));
+            assertFalse(feed.isActive());
+            assertEquals(0, feed.getPublishedCount());
+
+            feed.subscribe(recorder);
+            runQuietly(() -> gradeManager.addGrade(new Grade(ids.get(1), ART, 60)));
+            feed.awaitDelivered();
+            assertTrue(received.stream().allMatch(e -> e.getStudentId().equals(ids.get(1))));
+            assertEquals(1, received.get(0).getSequence());
+
+            assertTrue(feed.unsubscribe(recorder));
+            assertFalse(feed.unsubscribe(recorder));
+            assertFalse(feed.isActive());
+            int seen = received.size();
+            runQuietly(() -> gradeManager.addGrade(new Grade(ids.get(2), ART, 90)));
+            feed.awaitDelivered();
+            assertEquals(seen, received.size());
+        }
+
+        @Test
+        @DisplayName("A failing listener does not stop delivery to the others")
+        void testFailingListener() {
+            feed.subscribe(batch -> { throw new IllegalStateException("boom"); });
+            feed.subscribe(recorder);
+            PrintStream originalErr = System.err;
+            System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                addStudents(5);
+                feed.awaitDelivered();
+            } finally {
+                System.setErr(originalErr);
+            }
+            assertEquals(5, received.size());
+            assertEquals(2, feed.getSubscriberCount());
+        }
+
+        @Test
+        @DisplayName("A listener throwing an Error does not stop the dispatcher")
+        void testListenerError() {
+            feed.subscribe(batch -> { throw new AssertionError("boom"); });
+            feed.subscribe(recorder);
+            PrintStream originalErr = System.err;
+            System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                List<String> ids = addStudents(2);
+                feed.awaitDelivered();
+                runQuietly(() -> gradeManager.addGrade(new Grade(ids.get(0), MATH, 80)));
+                feed.awaitDelivered(); // would hang if the Error had ended the dispatcher
+            } finally {
+                System.setErr(originalErr);
+            }
+            assertEquals(feed.getPublishedCount(), feed.getDeliveredCount());
+            assertEquals(feed.getPublishedCount(), received.size());
+            assertTrue(received.size() > 2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Lifecycle")
+    class LifecycleTests {
+
+        @Test
+        @DisplayName("close() delivers what was published, then ignores publishes and refuses subscribers")
+        void testClose() {
+            feed.subscribe(recorder);
+            addStudents(4);
+            feed.close();
+            assertTrue(feed.isClosed());
+            assertEquals(4, received.size());
+            assertEquals(0, feed.getSubscriberCount());
+            assertFalse(feed.isActive());
+
+            addStudents(2);
+            feed.awaitDelivered();
+            assertEquals(4, feed.getPublishedCount());
+            assertThrows(IllegalStateException.class, () -> feed.subscribe(recorder));
+            feed.close(); // idempotent
+        }
+
+        @Test
+        @DisplayName("The dispatcher restarts after the last subscriber leaves; GPACalculator unsubscribes on close")
+        void testResubscribeAndCalculatorClose() {
+            GPACalculator calculator = new GPACalculator(studentManager, gradeManager);
+            assertEquals(1, feed.getSubscriberCount());
+            calculator.close();
+            assertEquals(0, feed.getSubscriberCount());
+            assertFalse(feed.isActive());
+
+            feed.subscribe(recorder);
+            addStudents(3);
+            feed.awaitDelivered();
+            assertEquals(3, received.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Ordering and Batching")
+    class OrderingTests {
+
+        @Test
+        @DisplayName("Concurrent writers: every event delivered once, in sequence, each student in apply order")
+        void testConcurrentOrdering() throws Exception {
+            List<String> ids = addStudents(40);
+            feed.subscribe(recorder);
+
+            int threads = 4;
+            int perThread = 1_500;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                futures.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    List<Grade> batch = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        batch.add(new Grade(ids.get(random.nextInt(ids.size())), MATH, random.nextInt(101)));
+                        if (batch.size() == 50) {
+                            gradeManager.addGrades(batch);
+                            batch = new ArrayList<>();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+            feed.awaitDelivered();
+
+            for (int i = 0; i < received.size(); i++) {
+                assertEquals(i + 1, received.get(i).getSequence(), "gap or reordering at " + i);
+            }
+            assertEquals(threads * perThread,
+                    received.stream().filter(e -> e.getType() == ChangeEvent.Type.GRADE_ADDED).count());
+
+            // Replaying the GradeAdded values per student in feed order reproduces each average,
+            // and every GpaChanged carries the running average at that point
+            Map<String, double[]> running = new ConcurrentHashMap<>();
+            for (ChangeEvent event : received) {
+                double[] sumCount = running.computeIfAbsent(event.getStudentId(), k -> new double[2]);
+                if (event instanceof ChangeEvent.GradeAdded) {
+                    sumCount[0] += ((ChangeEvent.GradeAdded) event).getValue();
+                    sumCount[1]++;
+                } else if (event instanceof ChangeEvent.GpaChanged) {
+                    assertEquals(sumCount[0] / sumCount[1], ((ChangeEvent.GpaChanged) event).getAverage(), 1e-9);
+                }
+            }
+            for (String id : ids) {
+                double[] sumCount = running.get(id);
+                assertEquals(gradeManager.calculateOverallAverage(id), sumCount[0] / sumCount[1], 1e-9);
+            }
+        }
+
+        @Test
+        @DisplayName("Events queued behind a busy listener are delivered in batches of up to maxBatch")
+        void testBatching() throws Exception {
+            List<String> ids = addStudents(20);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            List<Integer> sizes = new CopyOnWriteArrayList<>();
+            feed.subscribe(batch -> {
+                sizes.add(batch.size());
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS); // hold the dispatcher while the bulk add queues up
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            runQuietly(() -> studentManager.addStudent(new RegularStudent("Feed late", 18, "late@school.edu",
+                    "555-0000", "2024-09-01"), false));
+            assertTrue(started.await(10, TimeUnit.SECONDS)); // dispatcher is now busy with the first event
+            Random random = new Random(5);
+            List<Grade> grades = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                grades.add(new Grade(ids.get(random.nextInt(ids.size())), MATH, random.nextInt(101)));
+            }
+            gradeManager.addGrades(grades);
+            long published = feed.getPublishedCount();
+            release.countDown();
+            feed.awaitDelivered();
+
+            assertEquals(published, sizes.stream().mapToInt(Integer::intValue).sum());
+            assertTrue(sizes.stream().allMatch(size -> size <= ChangeFeed.DEFAULT_MAX_BATCH));
+            assertEquals(1 + (published - 1 + ChangeFeed.DEFAULT_MAX_BATCH - 1) / ChangeFeed.DEFAULT_MAX_BATCH,
+                    feed.getBatchCount(), "Queued events should go out in full batches: " + sizes);
+            assertEquals(published, feed.getDeliveredCount());
+            assertThrows(IllegalArgumentException.class, () -> new ChangeFeed(0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Subscribers")
+    class SubscriberTests {
+
+        @Test
+        @DisplayName("GPACalculator drops only the changed student's cached GPA")
+        void testGpaCalculatorInvalidation() {
+            List<String> ids = addStudents(2);
+            GPACalculator calculator = new GPACalculator(studentManager, gradeManager);
+            runQuietly(() -> {
+                gradeManager.addGrade(new Grade(ids.get(0), MATH, 95));
+                gradeManager.addGrade(new Grade(ids.get(1), MATH, 95));
+            });
+            feed.awaitDelivered();
+            assertEquals(4.0, calculator.calculateGPA(ids.get(0)), 1e-9);
+            assertEquals(4.0, calculator.calculateGPA(ids.get(1)), 1e-9);
+            assertEquals(Map.of("Mathematics", 95.0), calculator.calculateSubjectAverages(ids.get(0)));
+
+            runQuietly(() -> gradeManager.addGrade(new Grade(ids.get(0), ART, 55)));
+            feed.awaitDelivered();
+            assertEquals(2.0, calculator.calculateGPA(ids.get(0)), 1e-9);
+            assertEquals(55.0, calculator.calculateSubjectAverages(ids.get(0)).get("Art"), 1e-9);
+            assertEquals(4.0, calculator.calculateGPA(ids.get(1)), 1e-9);
+        }
+    }
+}
@@ -397,4 +397,69 @@ public class CollectionsPerformanceTest {
             assertTrue(passedTests >= totalTests * 0.9, "At least 90% of performance tests should pass");
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Running Grade Aggregates")
+    class RunningAggregateTests {
+
+        @Test
+        @DisplayName("Aggregates match a full recomputation")
+        void testAggregatesMatchRecomputation() {
+            for (Student student : studentManager.getStudents()) {
+                List<Grade> grades = gradeManager.getGradesByStudent(student.getStudentId());
+                DoubleSummaryStatistics expected = grades.stream().mapToDouble(Grade::getGrade).summaryStatistics();
+                RunningGradeStats stats = gradeManager.getStudentStatistics(student.getStudentId());
+
+                assertEquals(expected.getCount(), stats.getCount());
+                assertEquals(expected.getCount() > 0 ? expected.getAverage() : 0.0, stats.getMean(), 0.0001);
+                if (expected.getCount() > 0) {
+                    assertEquals(expected.getMin(), stats.getMin(), 0.0001);
+                    assertEquals(expected.getMax(), stats.getMax(), 0.0001);
+                }
+            }
+
+            double classMean = gradeManager.getGradesByStudent("all").stream()
+                    .mapToDouble(Grade::getGrade).average().orElse(0.0);
+            assertEquals(classMean, gradeManager.calculateClassAverage(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Grade corrections flow into aggregates")
+        void testCorrectionUpdatesAggregates() {
+            Student student = studentManager.getStudents().get(0);
+            String studentId = student.getStudentId();
+            Subject core = new CoreSubject("Aggregate Core", "AGC1");
+            Subject elective = new ElectiveSubject("Aggregate Elective", "AGE1");
+
+            Grade low = new Grade(studentId, core, 50.0);
+            Grade high = new Grade(studentId, elective, 90.0);
+            gradeManager.addGrade(low);
+            gradeManager.addGrade(high);
+
+            assertTrue(low.recordGrade(70.0));
+            assertTrue(high.recordGrade(80.0));
+
+            List<Grade> grades = gradeManager.getGradesByStudent(studentId);
+            double expectedMean = grades.stream().mapToDouble(Grade::getGrade).average().orElse(0.0);
+            RunningGradeStats stats = gradeManager.getStudentStatistics(studentId);
+
+            assertEquals(expectedMean, gradeManager.calculateOverallAverage(studentId), 0.0001);
+            assertEquals(grades.stream().mapToDouble(Grade::getGrade).max().orElse(0.0), stats.getMax(), 0.0001);
+            assertEquals(70.0, gradeManager.getSubjectStatistics("Aggregate Core").getMean(), 0.0001);
+            assertEquals(80.0, gradeManager.getSubjectStatistics("Aggregate Elective").getMax(), 0.0001);
+            assertEquals(gradeManager.calculateCoreAverage(studentId), grades.stream()
+                    .filter(g -> g.getSubject() instanceof CoreSubject)
+                    .mapToDouble(Grade::getGrade).average().orElse(0.0), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Variance matches the two-pass formula")
+        void testVariance() {
+            List<Grade> all = gradeManager.getGradesByStudent("all");
+            double mean = all.stream().mapToDouble(Grade::getGrade).average().orElse(0.0);
+            double variance = all.stream().mapToDouble(g -> Math.pow(g.getGrade() - mean, 2)).average().orElse(0.0);
+
+            assertEquals(variance, gradeManager.getClassStatistics().getVariance(), 0.0001);
+        }
+    }
+}
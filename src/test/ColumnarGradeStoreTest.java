@@ -0,0 +1,223 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Columnar Grade Store Test Suite")
+public class ColumnarGradeStoreTest {
+    private static final Subject[] SUBJECTS = {
+            new CoreSubject("Mathematics", "MAT101"),
+            new CoreSubject("English", "ENG101"),
+            new CoreSubject("Science", "SCI101"),
+            new ElectiveSubject("Art", "ART101"),
+            new ElectiveSubject("Music", "MUS101")
+    };
+
+    private StudentManager objectStudents;
+    private StudentManager columnarStudents;
+    private GradeManager objectManager;
+    private GradeManager columnarManager;
+    private List<String> studentIds;
+
+    @BeforeEach
+    public void setUp() {
+        objectStudents = new StudentManager();
+        columnarStudents = new StudentManager();
+        objectManager = new GradeManager(objectStudents);
+        columnarManager = new GradeManager(columnarStudents, true);
+        studentIds = new ArrayList<>();
+
+        runQuietly(() -> {
+            for (int i = 0; i < 20; i++) {
+                Student student = new RegularStudent("Columnar " + i, 18, "col" + i + "@school.edu",
+                        "555-0000", "2024-09-01");
+                objectStudents.addStudent(student);
+                columnarStudents.addStudent(student);
+                studentIds.add(student.getStudentId());
+            }
+        });
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private void loadBoth(int gradeCount) {
+        Random random = new Random(42);
+        runQuietly(() -> {
+            for (int i = 0; i < gradeCount; i++) {
+                Grade grade = new Grade(studentIds.get(random.nextInt(studentIds.size())),
+                        SUBJECTS[random.nextInt(SUBJECTS.length)], 40 + random.nextInt(61));
+                objectManager.addGrade(grade);
+                columnarManager.addGrade(grade);
+            }
+        });
+    }
+
+    @Nested
+    @DisplayName("Query Parity")
+    class QueryParityTests {
+
+        @Test
+        @DisplayName("Averages match the object layout")
+        void testAveragesMatch() {
+            loadBoth(500);
+
+            for (String studentId : studentIds) {
+                assertEquals(objectManager.calculateOverallAverage(studentId),
+                        columnarManager.calculateOverallAverage(studentId), 0.001);
+                assertEquals(objectManager.calculateCoreAverage(studentId),
+                        columnarManager.calculateCoreAverage(studentId), 0.001);
+                assertEquals(objectManager.calculateElectiveAverage(studentId),
+                        columnarManager.calculateElectiveAverage(studentId), 0.001);
+                assertEquals(objectManager.getGradeCountForStudent(studentId),
+                        columnarManager.getGradeCountForStudent(studentId));
+            }
+
+            assertEquals(objectManager.calculateClassAverage(), columnarManager.calculateClassAverage(), 0.001);
+            Map<String, Double> expected = objectManager.calculateAverageBySubject();
+            Map<String, Double> actual = columnarManager.calculateAverageBySubject();
+            assertEquals(expected.keySet(), actual.keySet());
+            expected.forEach((subject, avg) -> assertEquals(avg, actual.get(subject), 0.001));
+        }
+
+        @Test
+        @DisplayName("Subject and total queries match the object layout")
+        void testGroupingMatches() {
+            loadBoth(300);
+
+            assertEquals(objectManager.getTotalGradeCount(), columnarManager.getTotalGradeCount());
+            assertEquals(objectManager.getUniqueCourses(), columnarManager.getUniqueCourses());
+            for (Subject subject : SUBJECTS) {
+                assertEquals(objectManager.getGradesBySubject(subject.getSubjectName()).size(),
+                        columnarManager.getGradesBySubject(subject.getSubjectName()).size());
+            }
+            assertEquals(300, columnarManager.getGradesByStudent("all").size());
+        }
+
+        @Test
+        @DisplayName("Materialized grades keep id, subject and timestamp")
+        void testMaterializedGrade() {
+            Grade original = new Grade("GRD12345", studentIds.get(0), SUBJECTS[3], 88.5);
+            Grade custom = new Grade("IMPORT-7", studentIds.get(0), SUBJECTS[0], 71.0);
+            runQuietly(() -> {
+                columnarManager.addGrade(original);
+                columnarManager.addGrade(custom);
+            });
+
+            List<Grade> grades = columnarManager.getGradesByStudent(studentIds.get(0));
+            assertEquals(2, grades.size());
+            Grade restored = grades.get(0);
+            assertEquals("GRD12345", restored.getGradeId());
+            assertEquals("IMPORT-7", grades.get(1).getGradeId());
+            assertEquals(88.5, restored.getGrade(), 0.001);
+            assertSame(original.getSubject(), restored.getSubject());
+            assertEquals(original.getDate(), restored.getDate());
+            assertEquals(original.getTimestamp().withNano(0),
+                    restored.getTimestamp().withNano(0));
+        }
+
+        @Test
+        @DisplayName("Corrections on materialized grades are written back")
+        void testCorrectionWriteBack() {
+            String studentId = studentIds.get(1);
+            runQuietly(() -> {
+                columnarManager.addGrade(new Grade(studentId, SUBJECTS[0], 60.0));
+                columnarManager.addGrade(new Grade(studentId, SUBJECTS[1], 80.0));
+            });
+
+            Grade materialized = columnarManager.getGradesByStudent(studentId).get(0);
+            runQuietly(() -> assertTrue(materialized.recordGrade(100.0)));
+
+            assertEquals(100.0, columnarManager.getGradesByStudent(studentId).get(0).getGrade(), 0.001);
+            assertEquals(90.0, columnarManager.calculateOverallAverage(studentId), 0.001);
+            assertEquals(80.0, columnarManager.getStudentStatistics(studentId).getMin(), 0.001);
+        }
+    }
+
+    @Nested
+    @DisplayName("Layout Comparison")
+    class LayoutComparisonTests {
+
+        @Test
+        @DisplayName("Columnar layout uses less memory and scans faster")
+        void testMemoryAndThroughput() {
+            int gradeCount = 50_000;
+
+            long baseline = usedMemory();
+            GradeManager objectLayout = new GradeManager(new StudentManager());
+            runQuietly(() -> generateGrades(gradeCount, objectLayout::addGrade));
+            long objectBytes = usedMemory() - baseline;
+
+            baseline = usedMemory();
+            GradeManager columnarLayout = new GradeManager(new StudentManager(), true);
+            runQuietly(() -> generateGrades(gradeCount, columnarLayout::addGrade));
+            long columnarBytes = usedMemory() - baseline;
+
+            ColumnarGradeStore columns = new ColumnarGradeStore();
+            generateGrades(gradeCount, columns::append);
+            long columnBytes = columns.estimateColumnBytes();
+
+            long objectScan = timeScans(objectLayout);
+            long columnarScan = timeScans(columnarLayout);
+
+            System.out.println("\n=== COLUMNAR VS OBJECT LAYOUT (" + gradeCount + " grades) ===");
+            System.out.printf("Object layout memory:   %8.1f KB (incl. Grade objects)%n", objectBytes / 1024.0);
+            System.out.printf("Columnar layout memory: %8.1f KB (columns + dictionaries)%n", columnarBytes / 1024.0);
+            System.out.printf("Column estimate:        %8.1f KB (%.1f bytes/grade)%n",
+                    columnBytes / 1024.0, (double) columnBytes / gradeCount);
+            System.out.printf("Subject-average scan:   object %6.2f ms | columnar %6.2f ms%n",
+                    objectScan / 1_000_000.0, columnarScan / 1_000_000.0);
+
+            // GC readings are only printed; they vary with collector and heap state. A Grade object
+            // alone is at least 64 bytes (header, three 8-byte and seven reference fields) before
+            // its id, date and timestamp objects, so the columns must stay below that per grade.
+            assertEquals(objectLayout.getTotalGradeCount(), columnarLayout.getTotalGradeCount());
+            assertEquals(gradeCount, columns.size());
+            assertTrue(columnBytes < gradeCount * 64L,
+                    "Columnar layout should take less than a Grade object per grade: " + columnBytes);
+        }
+
+        private void generateGrades(int count, Consumer<Grade> sink) {
+            Random random = new Random(7);
+            for (int i = 0; i < count; i++) {
+                sink.accept(new Grade(String.format("GRD%03d", i), studentIds.get(random.nextInt(studentIds.size())),
+                        SUBJECTS[random.nextInt(SUBJECTS.length)], 40 + random.nextInt(61)));
+            }
+        }
+
+        private long timeScans(GradeManager manager) {
+            manager.calculateAverageBySubject(); // warm-up
+            long start = System.nanoTime();
+            for (int i = 0; i < 20; i++) {
+                manager.calculateAverageBySubject();
+                manager.calculateClassAverage();
+            }
+            return (System.nanoTime() - start) / 20;
+        }
+
+        private long usedMemory() {
+            Runtime runtime = Runtime.getRuntime();
+            for (int i = 0; i < 3; i++) {
+                runtime.gc();
+            }
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package test;
+
+import models.*;
+import services.GPACalculator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("GPA Ranking Index Test Suite")
+public class GpaRankingIndexTest {
+    private static final double[] GPA_SCALE = {0.0, 1.0, 2.0, 3.0, 4.0};
+
+    private GpaRankingIndex index;
+    private List<Student> students;
+    private Map<String, double[]> scores; // studentId -> {gpa, average}
+
+    @BeforeEach
+    public void setUp() {
+        index = new GpaRankingIndex();
+        students = new ArrayList<>();
+        scores = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            students.add(new RegularStudent("Ranked " + i, 18, "ranked" + i + "@school.edu", "555-0202", "2024-09-01"));
+        }
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private void randomUpdates(int count, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            Student student = students.get(random.nextInt(students.size()));
+            double gpa = GPA_SCALE[random.nextInt(GPA_SCALE.length)];
+            double average = random.nextInt(20) * 5.0; // coarse so ties occur
+            index.update(student, gpa, average);
+            scores.put(student.getStudentId(), new double[]{gpa, average});
+        }
+    }
+
+    private int bruteForceRank(String studentId) {
+        double[] own = scores.getOrDefault(studentId, new double[]{0.0, 0.0});
+        return 1 + (int) scores.values().stream()
+                .filter(s -> s[0] > own[0] || (s[0] == own[0] && s[1] > own[1]))
+                .count();
+    }
+
+    private List<String> bruteForceOrder() {
+        return scores.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<String, double[]>>comparingDouble(e -> -e.getValue()[0])
+                        .thenComparingDouble(e -> -e.getValue()[1])
+                        .thenComparing(Map.Entry::getKey))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    @Nested
+    @DisplayName("Order Statistics")
+    class OrderStatisticTests {
+
+        @Test
+        @DisplayName("Rank and percentile match a brute-force count")
+        void testRankAndPercentile() {
+            randomUpdates(2_000, 1);
+
+            assertEquals(scores.size(), index.size());
+            for (String studentId : scores.keySet()) {
+                int expected = bruteForceRank(studentId);
+                assertEquals(expected, index.rankOf(studentId), "rank of " + studentId);
+                assertEquals((scores.size() - expected + 1) * 100.0 / scores.size(),
+                        index.percentileOf(studentId), 0.0001);
+            }
+            assertEquals(0.0, index.percentileOf("UNKNOWN"), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Top-K and GPA range come out in rank order")
+        void testTopKAndRange() {
+            randomUpdates(2_000, 2);
+            List<String> expectedOrder = bruteForceOrder();
+
+            List<String> top = index.topK(25).stream().map(Student::getStudentId).collect(Collectors.toList());
+            assertEquals(expectedOrder.subList(0, 25), top);
+            assertEquals(expectedOrder.size(), index.topK(Integer.MAX_VALUE).size());
+
+            List<String> range = index.rangeByGpa(2.0, 3.0).stream()
+                    .map(Student::getStudentId).collect(Collectors.toList());
+            List<String> expectedRange = expectedOrder.stream()
+                    .filter(id -> scores.get(id)[0] >= 2.0 && scores.get(id)[0] <= 3.0)
+                    .collect(Collectors.toList());
+            assertEquals(expectedRange, range);
+        }
+
+        @Test
+        @DisplayName("Removal and repositioning keep sizes consistent")
+        void testRemoveAndReposition() {
+            Student student = students.get(0);
+            index.update(student, 2.0, 70.0);
+            index.update(student, 4.0, 95.0);
+            index.update(students.get(1), 3.0, 85.0);
+
+            assertEquals(2, index.size());
+            assertEquals(1, index.rankOf(student.getStudentId()));
+            assertTrue(index.remove(student.getStudentId()));
+            assertFalse(index.contains(student.getStudentId()));
+            assertEquals(1, index.rankOf(students.get(1).getStudentId()));
+            assertEquals(1, index.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Manager Integration")
+    class ManagerIntegrationTests {
+
+        @Test
+        @DisplayName("Class rank, top performers and GPA range follow grades")
+        void testServedFromStudentManager() {
+            StudentManager studentManager = new StudentManager();
+            GradeManager gradeManager = new GradeManager(studentManager);
+            GPACalculator calculator = new GPACalculator(studentManager, gradeManager);
+            Subject math = new CoreSubject("Mathematics", "MAT101");
+            Student a = students.get(0);
+            Student b = students.get(1);
+            Student c = students.get(2);
+
+            runQuietly(() -> {
+                studentManager.addStudent(a);
+                studentManager.addStudent(b);
+                studentManager.addStudent(c);
+                gradeManager.addGrade(new Grade("GRD-R1", a.getStudentId(), math, 91.0));
+                gradeManager.addGrade(new Grade("GRD-R2", b.getStudentId(), math, 96.0));
+                gradeManager.addGrade(new Grade("GRD-R3", c.getStudentId(), math, 72.0));
+            });
+
+            // Same 4.0 GPA band: the higher average ranks first
+            assertEquals(1.0, calculator.calculateClassRank(b.getStudentId()), 0.01);
+            assertEquals(2.0, calculator.calculateClassRank(a.getStudentId()), 0.01);
+            assertEquals(3.0, calculator.calculateClassRank(c.getStudentId()), 0.01);
+            assertEquals(List.of(b, a), studentManager.getTopPerformers(2));
+            assertEquals(List.of(c), studentManager.getStudentsByGpaRange(1.0, 2.5));
+            assertEquals(100.0, studentManager.getPercentile(b.getStudentId()), 0.01);
+
+            // A correction moves the student without a rescan
+            Grade grade = gradeManager.getGradesByStudent(c.getStudentId()).get(0);
+            runQuietly(() -> grade.recordGrade(99.0));
+            assertEquals(1.0, calculator.calculateClassRank(c.getStudentId()), 0.01);
+            assertEquals(3.0, calculator.calculateClassRank(a.getStudentId()), 0.01);
+        }
+
+        @Test
+        @DisplayName("Rank follows the GPA calculateGPA reports; unknown students are not ranked")
+        void testRankMatchesReportedGpa() {
+            StudentManager studentManager = new StudentManager();
+            GradeManager gradeManager = new GradeManager(studentManager);
+            GPACalculator calculator = new GPACalculator(studentManager, gradeManager);
+            Subject math = new CoreSubject("Mathematics", "MAT101");
+            Student split = students.get(0);
+            Student steady = students.get(1);
+
+            runQuietly(() -> {
+                studentManager.addStudent(split);
+                studentManager.addStudent(steady);
+                // 82% average (B-, 2.7) but grade points 4.0 and 1.0 average to 2.5
+                gradeManager.addGrade(new Grade("GRD-G1", split.getStudentId(), math, 100.0));
+                gradeManager.addGrade(new Grade("GRD-G2", split.getStudentId(), math, 64.0));
+                gradeManager.addGrade(new Grade("GRD-G3", steady.getStudentId(), math, 81.0));
+                gradeManager.addGrade(new Grade("GRD-G4", steady.getStudentId(), math, 81.0));
+            });
+
+            assertEquals(2.5, calculator.calculateGPA(split.getStudentId()), 1e-9);
+            assertEquals(2.7, calculator.calculateGPA(steady.getStudentId()), 1e-9);
+            assertEquals(calculator.calculateGPA(split.getStudentId()), split.getGpa(), 1e-9);
+            assertEquals(1.0, calculator.calculateClassRank(steady.getStudentId()), 0.01);
+            assertEquals(2.0, calculator.calculateClassRank(split.getStudentId()), 0.01);
+
+            // Corrections move grades between bands of the running tally
+            Grade low = gradeManager.getGradesByStudent(split.getStudentId()).get(1);
+            runQuietly(() -> low.recordGrade(95.0));
+            assertEquals(4.0, split.getGpa(), 1e-9);
+            assertEquals(calculator.calculateGPA(split.getStudentId(), false), split.getGpa(), 1e-9);
+            assertEquals(1.0, calculator.calculateClassRank(split.getStudentId()), 0.01);
+        }
+
+        @Test
+        @DisplayName("Index rank vs full rescan timing")
+        void testRankTiming() {
+            randomUpdates(5_000, 3);
+            List<String> ids = new ArrayList<>(scores.keySet());
+
+            long start = System.nanoTime();
+            long checksum = 0;
+            for (String id : ids) {
+                checksum += bruteForceRank(id);
+            }
+            long scanTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long indexChecksum = 0;
+            for (String id : ids) {
+                indexChecksum += index.rankOf(id);
+            }
+            long indexTime = System.nanoTime() - start;
+
+            System.out.println("\n=== CLASS RANK FOR EVERY STUDENT (" + ids.size() + " students) ===");
+            System.out.printf("Full rescan (O(n) each):  %8.2f ms%n", scanTime / 1_000_000.0);
+            System.out.printf("Ranking index (O(log n)): %8.2f ms%n", indexTime / 1_000_000.0);
+            assertEquals(checksum, indexChecksum);
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package test;
+
+import exceptions.DataDirectoryLockedException;
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import services.GradeBookStore;
+import services.WriteAheadLog;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Write-Ahead Log and Snapshot Persistence Test Suite")
+public class GradeBookStoreTest {
+    private static final Subject[] SUBJECTS = {
+            new CoreSubject("Mathematics", "MAT101"),
+            new CoreSubject("English", "ENG101"),
+            new ElectiveSubject("Art", "ART101")
+    };
+
+    private Path tempDir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("gradebook-store-test");
+        tempDir.toFile().deleteOnExit();
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // What a crash leaves behind: the files on disk, without the dead process's lock
+    private Path crashImage() throws IOException {
+        Path image = Files.createTempDirectory("gradebook-crash");
+        image.toFile().deleteOnExit();
+        try (Stream<Path> paths = Files.walk(tempDir)) {
+            for (Path source : (Iterable<Path>) paths::iterator) {
+                Path target = image.resolve(tempDir.relativize(source).toString());
+                if (Files.isDirectory(source)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        return image;
+    }
+
+    private static List<Path> files(Path dir, String prefix) throws IOException {
+        try (Stream<Path> list = Files.list(dir)) {
+            return list.filter(p -> p.getFileName().toString().startsWith(prefix)).sorted().collect(Collectors.toList());
+        }
+    }
+
+    // Fresh managers restored from dir
+    private static class Book {
+        final StudentManager students = new StudentManager();
+        final GradeManager grades = new GradeManager(students);
+        final GradeBookStore store;
+        final GradeBookStore.RecoveryReport report;
+
+        Book(Path dir, long checkpointInterval) throws IOException {
+            store = new GradeBookStore(dir, 256 * 1024, checkpointInterval, false);
+            report = store.recover(students, grades);
+        }
+
+        List<String> seed(int studentCount, int gradeCount, long seed) {
+            List<String> ids = new ArrayList<>();
+            Random random = new Random(seed);
+            runQuietly(() -> {
+                for (int i = 0; i < studentCount; i++) {
+                    Student student = i % 3 == 0
+                            ? new HonorsStudent("Durable " + seed + "-" + i, 19, "durable" + seed + "-" + i + "@school.edu", "555-0808", "2024-09-01")
+                            : new RegularStudent("Durable " + seed + "-" + i, 18, "durable" + seed + "-" + i + "@school.edu", "555-0808", "2024-09-01");
+                    students.addStudent(student, false);
+                    ids.add(student.getStudentId());
+                }
+                List<Grade> batch = new ArrayList<>();
+                for (int i = 0; i < gradeCount; i++) {
+                    batch.add(new Grade(ids.get(random.nextInt(ids.size())), SUBJECTS[random.nextInt(SUBJECTS.length)],
+                            40 + random.nextInt(61)));
+                }
+                grades.addGrades(batch);
+            });
+            return ids;
+        }
+    }
+
+    private static void assertSameBook(Book expected, Book actual) {
+        assertEquals(expected.students.getStudentCount(), actual.students.getStudentCount());
+        assertEquals(expected.grades.getTotalGradeCount(), actual.grades.getTotalGradeCount());
+        assertEquals(expected.grades.getClassStatistics().getMean(), actual.grades.getClassStatistics().getMean(), 1e-9);
+        for (Student student : expected.students.viewStudents()) {
+            String id = student.getStudentId();
+            Student restored = actual.students.findStudent(id);
+            assertNotNull(restored, id);
+            assertEquals(student.getStudentType(), restored.getStudentType());
+            assertEquals(student.getEmail(), restored.getEmail());
+            assertEquals(expected.grades.calculateOverallAverage(id), actual.grades.calculateOverallAverage(id), 1e-9);
+            assertEquals(student.getGpa(), restored.getGpa(), 1e-9);
+        }
+    }
+
+    @Nested
+    @DisplayName("Write-Ahead Log")
+    class LogTests {
+
+        @Test
+        @DisplayName("Records come back in order with their types after a reopen")
+        void testRoundTrip() throws IOException {
+            try (WriteAheadLog log = new WriteAheadLog(tempDir, 1024, true)) {
+                assertEquals(0, log.recover(0, null));
+                for (int i = 1; i <= 100; i++) {
+                    assertEquals(i, log.append((byte) (i % 3), bytes("record-" + i)));
+                    log.sync(i); // segments roll between commits
+                }
+                assertEquals(100, log.getDurableLsn());
+                assertTrue(log.getSegmentCount() > 1, "Small segments should roll");
+            }
+
+            List<String> seen = new ArrayList<>();
+            try (WriteAheadLog log = new WriteAheadLog(tempDir, 1024, true)) {
+                assertEquals(60, log.recover(40, (lsn, type, payload) -> {
+                    assertEquals(lsn % 3, (long) type);
+                    seen.add(new String(payload, StandardCharsets.UTF_8));
+                }));
+                assertEquals(101, log.append((byte) 0, bytes("after-reopen")));
+            }
+            assertEquals("record-41", seen.get(0));
+            assertEquals("record-100", seen.get(59));
+        }
+
+        @Test
+        @DisplayName("A torn tail is cut off; corruption in an older segment is an error")
+        void testTornTailAndCorruption() throws IOException {
+            try (WriteAheadLog log = new WriteAheadLog(tempDir, 1024, false)) {
+                log.recover(0, null);
+                for (int i = 1; i <= 100; i++) {
+                    log.sync(log.append((byte) 1, bytes("record-" + i)));
+                }
+            }
+            List<Path> segments = files(tempDir, "wal-");
+            Path last = segments.get(segments.size() - 1);
+            Files.write(last, new byte[] { 0, 0, 0, 20, 1, 2, 3 }, java.nio.file.StandardOpenOption.APPEND);
+
+            try (WriteAheadLog log = new WriteAheadLog(tempDir, 1024, false)) {
+                long[] count = new long[1];
+                log.recover(0, (lsn, type, payload) -> count[0]++);
+                assertEquals(100, count[0]);
+                assertEquals(7, log.getTruncatedBytes());
+                assertEquals(101, log.append((byte) 1, bytes("next")));
+            }
+
+            try (RandomAccessFile file = new RandomAccessFile(segments.get(0).toFile(), "rw")) {
+                file.seek(30);
+                file.write(0x7F); // flip a payload byte
+            }
+            WriteAheadLog corrupted = new WriteAheadLog(tempDir, 1024, false);
+            assertThrows(IOException.class, () -> corrupted.recover(0, null));
+        }
+
+        @Test
+        @DisplayName("truncateThrough deletes only fully covered segments")
+        void testTruncate() throws IOException {
+            try (WriteAheadLog log = new WriteAheadLog(tempDir, 512, false)) {
+                log.recover(0, null);
+                for (int i = 1; i <= 200; i++) {
+                    log.append((byte) 1, bytes("record-" + i));
+                    log.sync(i);
+                }
+                int before = log.getSegmentCount();
+                int deleted = log.truncateThrough(150);
+                assertTrue(deleted > 0);
+                assertEquals(before - deleted, log.getSegmentCount());
+            }
+            List<Long> replayed = new ArrayList<>();
+            try (WriteAheadLog log = new WriteAheadLog(tempDir, 512, false)) {
+                log.recover(150, (lsn, type, payload) -> replayed.add(lsn));
+            }
+            assertEquals(50, replayed.size());
+            assertEquals(151L, (long) replayed.get(0));
+        }
+
+        @Test
+        @DisplayName("Concurrent committers share fsyncs (group commit)")
+        void testGroupCommit() throws Exception {
+            int threads = 8;
+            int perThread = 500;
+            try (WriteAheadLog log = new WriteAheadLog(tempDir, WriteAheadLog.DEFAULT_SEGMENT_BYTES, true)) {
+                log.recover(0, null);
+                ExecutorService pool = Executors.newFixedThreadPool(threads);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                long begin = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < perThread; i++) {
+                            log.sync(log.append((byte) 1, bytes("t" + thread + "-" + i)));
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(120, TimeUnit.SECONDS);
+                }
+                double seconds = (System.nanoTime() - begin) / 1e9;
+                pool.shutdown();
+
+                long records = (long) threads * perThread;
+                System.out.printf("%n=== GROUP COMMIT (%d threads, fsync per commit) ===%n", threads);
+                System.out.printf("Commits: %,d | fsyncs: %,d | %.1f records per fsync | %,.0f commits/sec%n",
+                        records, log.getSyncCount(), (double) records / log.getSyncCount(), records / seconds);
+
+                assertEquals(records, log.getDurableLsn());
+                assertTrue(log.getSyncCount() <= records);
+            }
+        }
+
+        @Test
+        @DisplayName("A failed write stops the log instead of writing past the lost batch")
+        void testWriteFailure() throws IOException {
+            AtomicBoolean failWrites = new AtomicBoolean();
+            WriteAheadLog log = new WriteAheadLog(tempDir, WriteAheadLog.DEFAULT_SEGMENT_BYTES, true) {
+                @Override
+                protected FileChannel openChannel(Path file, OpenOption... options) throws IOException {
+                    return new FailingChannel(FileChannel.open(file, options), failWrites);
+                }
+            };
+            log.recover(0, null);
+            for (int i = 1; i <= 10; i++) {
+                log.sync(log.append((byte) 1, bytes("record-" + i)));
+            }
+
+            failWrites.set(true); // half of the next batch reaches the file, then the write throws
+            log.append((byte) 1, bytes("lost-11"));
+            long lost = log.append((byte) 1, bytes("lost-12"));
+            assertThrows(IOException.class, () -> log.sync(lost));
+
+            // The device is back, but nothing may be written after the gap
+            failWrites.set(false);
+            assertThrows(IllegalStateException.class, () -> log.append((byte) 1, bytes("after-gap")));
+            assertThrows(IOException.class, () -> log.sync(lost));
+            assertEquals(10, log.getDurableLsn());
+            assertNotNull(log.getFailure());
+            log.close();
+
+            List<String> seen = new ArrayList<>();
+            try (WriteAheadLog reopened = new WriteAheadLog(tempDir, WriteAheadLog.DEFAULT_SEGMENT_BYTES, true)) {
+                reopened.recover(0, (lsn, type, payload) -> seen.add(new String(payload, StandardCharsets.UTF_8)));
+                assertEquals(0, reopened.getTruncatedBytes(), "partial batch should already be cut off");
+                long next = reopened.append((byte) 1, bytes("after-restart"));
+                assertEquals(11, next);
+                reopened.sync(next);
+            }
+            assertEquals(10, seen.size());
+            assertEquals("record-10", seen.get(9));
+
+            seen.clear();
+            try (WriteAheadLog reopened = new WriteAheadLog(tempDir, WriteAheadLog.DEFAULT_SEGMENT_BYTES, true)) {
+                reopened.recover(0, (lsn, type, payload) -> seen.add(new String(payload, StandardCharsets.UTF_8)));
+            }
+            assertEquals(11, seen.size());
+            assertEquals("after-restart", seen.get(10));
+        }
+    }
+
+    // Segment channel whose writes fail on demand after writing half of the buffer
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        private final AtomicBoolean failWrites;
+
+        FailingChannel(FileChannel delegate, AtomicBoolean failWrites) {
+            this.delegate = delegate;
+            this.failWrites = failWrites;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (!failWrites.get()) return delegate.write(src);
+            ByteBuffer half = src.duplicate();
+            half.limit(half.position() + half.remaining() / 2);
+            src.position(src.position() + delegate.write(half));
+            throw new IOException("Injected write failure");
+        }
+
+        @Override public int read(ByteBuffer dst) throws IOException { return delegate.read(dst); }
+        @Override public long read(ByteBuffer[] dsts, int offset, int length) throws IOException { return delegate.read(dsts, offset, length); }
+        @Override public long write(ByteBuffer[] srcs, int offset, int length) throws IOException { return delegate.write(srcs, offset, length); }
+        @Override public long position() throws IOException { return delegate.position(); }
+        @Override public FileChannel position(long newPosition) throws IOException { delegate.position(newPosition); return this; }
+        @Override public long size() throws IOException { return delegate.size(); }
+        @Override public FileChannel truncate(long size) throws IOException { delegate.truncate(size); return this; }
+        @Override public void force(boolean metaData) throws IOException { delegate.force(metaData); }
+        @Override public long transferTo(long position, long count, WritableByteChannel target) throws IOException { return delegate.transferTo(position, count, target); }
+        @Override public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException { return delegate.transferFrom(src, position, count); }
+        @Override public int read(ByteBuffer dst, long position) throws IOException { return delegate.read(dst, position); }
+        @Override public int write(ByteBuffer src, long position) throws IOException { return delegate.write(src, position); }
+        @Override public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException { return delegate.map(mode, position, size); }
+        @Override public FileLock lock(long position, long size, boolean shared) throws IOException { return delegate.lock(position, size, shared); }
+        @Override public FileLock tryLock(long position, long size, boolean shared) throws IOException { return delegate.tryLock(position, size, shared); }
+        @Override protected void implCloseChannel() throws IOException { delegate.close(); }
+    }
+
+    @Nested
+    @DisplayName("Grade Book Recovery")
+    class RecoveryTests {
+
+        @Test
+        @DisplayName("A restart without a clean shutdown replays the log")
+        void testReplayAfterCrash() throws IOException {
+            Book original = new Book(tempDir, 0);
+            assertTrue(original.report.isEmpty());
+            List<String> ids = original.seed(40, 1_500, 1);
+
+            Grade corrected = original.grades.viewGradesByStudent(ids.get(0)).get(0);
+            runQuietly(() -> corrected.recordGrade(corrected.getGrade() == 100 ? 1 : 100));
+            runQuietly(() -> original.grades.addGrade(new Grade(ids.get(1), SUBJECTS[2], 77)));
+            // No close(): simulates a crash after the last acknowledged write
+
+            Book restored = new Book(crashImage(), 0);
+            assertEquals(0, restored.report.getSnapshotLsn());
+            assertEquals(40, restored.report.getReplayedStudents());
+            assertEquals(1_501, restored.report.getReplayedGrades());
+            assertEquals(1, restored.report.getReplayedCorrections());
+            assertSameBook(original, restored);
+        }
+
+        @Test
+        @DisplayName("Checkpoints truncate the log; restart = snapshot + log tail")
+        void testSnapshotPlusTail() throws IOException {
+            Book original = new Book(tempDir, 0);
+            List<String> ids = original.seed(30, 5_000, 2);
+            long lsn = original.store.checkpoint();
+            assertEquals(5_030, lsn);
+            assertEquals(1, files(tempDir, "snapshot-").size());
+
+            List<String> more = original.seed(5, 200, 3);
+            Grade corrected = original.grades.viewGradesByStudent(ids.get(2)).get(0);
+            runQuietly(() -> corrected.recordGrade(0));
+
+            Path image = crashImage();
+            Book restored = new Book(image, 0);
+            assertEquals(5_030, restored.report.getSnapshotLsn());
+            assertEquals(30, restored.report.getSnapshotStudents());
+            assertEquals(5_000, restored.report.getSnapshotGrades());
+            assertEquals(206, restored.report.getReplayedRecords());
+            assertNotNull(restored.students.findStudent(more.get(4)));
+            assertSameBook(original, restored);
+
+            // Clean shutdown leaves a snapshot with nothing to replay
+            restored.store.close();
+            Book third = new Book(image, 0);
+            assertEquals(0, third.report.getReplayedRecords());
+            assertSameBook(original, third);
+        }
+
+        @Test
+        @DisplayName("Background checkpoints keep the log short while writers run")
+        void testBackgroundCheckpoints() throws Exception {
+            Book book = new Book(tempDir, 2_000);
+            book.seed(20, 0, 4);
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            List<Future<?>> futures = new ArrayList<>();
+            List<String> ids = book.students.viewStudents().stream().map(Student::getStudentId).collect(Collectors.toList());
+            for (int t = 0; t < 4; t++) {
+                int seed = t;
+                futures.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 2_500; i++) {
+                        book.grades.addGrades(List.of(new Grade(ids.get(random.nextInt(ids.size())),
+                                SUBJECTS[random.nextInt(SUBJECTS.length)], random.nextInt(101))));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+            book.store.close();
+
+            assertTrue(book.store.getCheckpointCount() >= 2, "Expected background checkpoints");
+            Book restored = new Book(tempDir, 0);
+            assertEquals(10_020, restored.report.getSnapshotLsn());
+            assertSameBook(book, restored);
+        }
+
+        @Test
+        @DisplayName("Only one store at a time may own a data directory")
+        void testDirectoryLock() throws IOException {
+            Book owner = new Book(tempDir, 0);
+            owner.seed(5, 20, 6);
+            assertThrows(DataDirectoryLockedException.class, () -> new Book(tempDir, 0));
+
+            owner.store.close();
+            Book next = new Book(tempDir, 0);
+            assertEquals(20, next.report.getSnapshotGrades());
+            next.store.close();
+        }
+
+        @Test
+        @DisplayName("Startup time and write amplification: log replay vs snapshot")
+        void testStartupAndWriteAmplification() throws IOException {
+            int students = 500;
+            int grades = 100_000;
+            Book original = new Book(tempDir, 0);
+            original.seed(students, grades, 5);
+            original.store.getLog().sync();
+            double logOnlyAmplification = original.store.getWriteAmplification();
+
+            Path image = crashImage();
+            Book replayed = new Book(image, 0);
+            double replayMillis = replayed.report.getTotalMillis();
+            replayed.store.checkpoint();
+            replayed.store.close();
+
+            Book fromSnapshot = new Book(image, 0);
+            double snapshotMillis = fromSnapshot.report.getTotalMillis();
+
+            long logBytes = original.store.getLog().getBytesWritten();
+            long snapshotBytes = replayed.store.getSnapshotBytesWritten();
+            System.out.printf("%n=== GRADE BOOK STARTUP (%,d students, %,d grades) ===%n", students, grades);
+            System.out.printf("Log replay:     %8.1f ms (%,d records, %,d log bytes)%n",
+                    replayMillis, replayed.report.getReplayedRecords(), logBytes);
+            System.out.printf("Snapshot load:  %8.1f ms (%,d snapshot bytes)%n", snapshotMillis, snapshotBytes);
+            System.out.printf("Write amplification: %.2fx log only (record headers), %.2fx with one checkpoint%n",
+                    logOnlyAmplification, (logBytes + snapshotBytes) / (double) original.store.getLog().getPayloadBytes());
+
+            assertEquals(students + grades, replayed.report.getReplayedRecords());
+            assertEquals(grades, fromSnapshot.report.getSnapshotGrades());
+            assertSameBook(original, fromSnapshot);
+            assertTrue(logOnlyAmplification > 1.0 && logOnlyAmplification < 1.5,
+                    "Log overhead should be the fixed record header: " + logOnlyAmplification);
+        }
+    }
+}
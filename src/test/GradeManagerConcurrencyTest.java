@@ -0,0 +1,271 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("GradeManager Concurrency Stress Test Suite")
+public class GradeManagerConcurrencyTest {
+    private static final Subject[] SUBJECTS = {
+            new CoreSubject("Mathematics", "MAT101"),
+            new CoreSubject("English", "ENG101"),
+            new CoreSubject("Science", "SCI101"),
+            new ElectiveSubject("Art", "ART101"),
+            new ElectiveSubject("Music", "MUS101")
+    };
+    private static final int STUDENTS = 100;
+    private static final int GRADES_PER_THREAD = 2_000;
+
+    private StudentManager studentManager;
+    private List<String> studentIds;
+
+    @BeforeEach
+    public void setUp() {
+        studentManager = new StudentManager();
+        studentIds = new ArrayList<>();
+        runQuietly(() -> {
+            for (int i = 0; i < STUDENTS; i++) {
+                Student student = i % 5 == 0
+                        ? new HonorsStudent("Stress " + i, 19, "stress" + i + "@school.edu", "555-0101", "2024-09-01")
+                        : new RegularStudent("Stress " + i, 18, "stress" + i + "@school.edu", "555-0101", "2024-09-01");
+                studentManager.addStudent(student);
+                studentIds.add(student.getStudentId());
+            }
+        });
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    /**
+     * Runs one ingestion task per thread; returns the grades each thread added.
+     * Grade IDs are explicit ("T<thread>-<n>") so the test does not depend on Grade's counter.
+     */
+    private List<List<Grade>> ingest(GradeManager manager, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Grade>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(thread);
+                List<Grade> added = new ArrayList<>(GRADES_PER_THREAD);
+                start.await();
+                for (int i = 0; i < GRADES_PER_THREAD; i++) {
+                    Grade grade = new Grade("T" + thread + "-" + i,
+                            studentIds.get(random.nextInt(studentIds.size())),
+                            SUBJECTS[random.nextInt(SUBJECTS.length)], 40 + random.nextInt(61));
+                    manager.addGrade(grade);
+                    added.add(grade);
+                }
+                return added;
+            }));
+        }
+        start.countDown();
+
+        List<List<Grade>> results = new ArrayList<>();
+        for (Future<List<Grade>> future : futures) {
+            results.add(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private static void assertNoLostOrDuplicatedGrades(GradeManager manager, List<List<Grade>> added) {
+        Map<String, Integer> expectedCounts = new HashMap<>();
+        Map<String, Double> expectedSums = new HashMap<>();
+        Map<String, Integer> expectedSubjectCounts = new HashMap<>();
+        int expectedTotal = 0;
+        for (List<Grade> grades : added) {
+            for (Grade grade : grades) {
+                expectedCounts.merge(grade.getStudentId(), 1, Integer::sum);
+                expectedSums.merge(grade.getStudentId(), grade.getGrade(), Double::sum);
+                expectedSubjectCounts.merge(grade.getSubject().getSubjectName(), 1, Integer::sum);
+                expectedTotal++;
+            }
+        }
+
+        assertEquals(expectedTotal, manager.getTotalGradeCount());
+        List<Grade> all = manager.getGradesByStudent("all");
+        assertEquals(expectedTotal, all.size());
+        Set<String> ids = new HashSet<>();
+        all.forEach(g -> assertTrue(ids.add(g.getGradeId()), "Duplicated grade " + g.getGradeId()));
+
+        expectedCounts.forEach((studentId, count) -> {
+            assertEquals(count.intValue(), manager.getGradeCountForStudent(studentId));
+            assertEquals(count.intValue(), manager.getGradesByStudent(studentId).size());
+            assertEquals(expectedSums.get(studentId), manager.getStudentStatistics(studentId).getSum(), 0.001);
+        });
+        expectedSubjectCounts.forEach((subject, count) -> {
+            assertEquals(count.intValue(), manager.getGradesBySubject(subject).size());
+            assertEquals(count.intValue(), manager.getSubjectStatistics(subject).getCount());
+        });
+        assertEquals(expectedTotal, manager.getClassStatistics().getCount());
+    }
+
+    @Nested
+    @DisplayName("Concurrent Ingestion")
+    class IngestionTests {
+
+        @Test
+        @DisplayName("No grades are lost or double-counted (object layout)")
+        void testObjectLayoutIngestion() throws Exception {
+            GradeManager manager = new GradeManager(studentManager);
+            AtomicReference<List<List<Grade>>> added = new AtomicReference<>();
+            runQuietly(() -> added.set(uncheck(() -> ingest(manager, 8))));
+
+            assertNoLostOrDuplicatedGrades(manager, added.get());
+        }
+
+        @Test
+        @DisplayName("No grades are lost or double-counted (columnar layout)")
+        void testColumnarLayoutIngestion() throws Exception {
+            GradeManager manager = new GradeManager(studentManager, true);
+            AtomicReference<List<List<Grade>>> added = new AtomicReference<>();
+            runQuietly(() -> added.set(uncheck(() -> ingest(manager, 8))));
+
+            assertNoLostOrDuplicatedGrades(manager, added.get());
+        }
+
+        @Test
+        @DisplayName("GPA ranking holds every student exactly once after concurrent updates")
+        void testRankingConsistency() {
+            GradeManager manager = new GradeManager(studentManager);
+            runQuietly(() -> uncheck(() -> ingest(manager, 8)));
+
+            List<Student> ranked = studentManager.getTopPerformers(Integer.MAX_VALUE);
+            assertEquals(STUDENTS, ranked.size());
+            assertEquals(STUDENTS, new HashSet<>(ranked).size());
+            for (int i = 1; i < ranked.size(); i++) {
+                assertTrue(ranked.get(i - 1).getGpa() >= ranked.get(i).getGpa());
+            }
+            for (Student student : ranked) {
+                double[] totalPoints = new double[1];
+                int[] count = new int[1];
+                manager.forEachGrade(student.getStudentId(), grade -> {
+                    totalPoints[0] += studentManager.calculateGPA(grade.getGrade());
+                    count[0]++;
+                });
+                assertEquals(totalPoints[0] / count[0], student.getGpa(), 0.001);
+            }
+        }
+
+        @Test
+        @DisplayName("Concurrent corrections keep aggregates exact")
+        void testConcurrentCorrections() {
+            GradeManager manager = new GradeManager(studentManager);
+            runQuietly(() -> {
+                List<List<Grade>> added = uncheck(() -> ingest(manager, 4));
+                List<Grade> all = new ArrayList<>();
+                added.forEach(all::addAll);
+                all.parallelStream().forEach(grade -> grade.recordGrade(100 - grade.getGrade() / 2));
+            });
+
+            List<Grade> all = manager.getGradesByStudent("all");
+            for (String studentId : studentIds) {
+                List<Grade> grades = manager.getGradesByStudent(studentId);
+                if (grades.isEmpty()) continue;
+                DoubleSummaryStatistics expected = grades.stream().mapToDouble(Grade::getGrade).summaryStatistics();
+                RunningGradeStats actual = manager.getStudentStatistics(studentId);
+                assertEquals(expected.getAverage(), actual.getMean(), 0.001);
+                assertEquals(expected.getMin(), actual.getMin(), 0.001);
+                assertEquals(expected.getMax(), actual.getMax(), 0.001);
+            }
+            DoubleSummaryStatistics expectedClass = all.stream().mapToDouble(Grade::getGrade).summaryStatistics();
+            RunningGradeStats actualClass = manager.getClassStatistics();
+            assertEquals(expectedClass.getAverage(), actualClass.getMean(), 0.001);
+            assertEquals(expectedClass.getMin(), actualClass.getMin(), 0.001);
+            assertEquals(expectedClass.getMax(), actualClass.getMax(), 0.001);
+        }
+    }
+
+    @Nested
+    @DisplayName("Readers And Writers")
+    class ReaderWriterTests {
+
+        @Test
+        @DisplayName("Index readers run alongside writers without errors")
+        void testReadersDuringIngestion() throws Exception {
+            GradeManager manager = new GradeManager(studentManager);
+            AtomicBoolean done = new AtomicBoolean(false);
+            ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+            long[] reads = new long[1];
+
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        manager.getGradesBySubject("Mathematics");
+                        manager.calculateAverageBySubject();
+                        manager.getGradesByStudent(studentIds.get(0));
+                        studentManager.getTopPerformers(10);
+                        manager.getClassStatistics();
+                        reads[0]++;
+                    }
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            });
+
+            reader.start();
+            runQuietly(() -> uncheck(() -> ingest(manager, 4)));
+            done.set(true);
+            reader.join();
+
+            assertTrue(errors.isEmpty(), () -> "Reader failed: " + errors.peek());
+            assertTrue(reads[0] > 0);
+            assertEquals(4 * GRADES_PER_THREAD, manager.getTotalGradeCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Throughput")
+    class ThroughputTests {
+
+        @Test
+        @DisplayName("Ingestion throughput across thread counts")
+        void testThroughputScaling() {
+            System.out.println("\n=== CONCURRENT INGESTION THROUGHPUT ===");
+            System.out.println("Threads | Grades | Time (ms) | Grades/sec");
+            System.out.println("------------------------------------------");
+            for (int threads : new int[]{1, 2, 4, 8}) {
+                GradeManager manager = new GradeManager(studentManager);
+                long[] elapsed = new long[1];
+                runQuietly(() -> {
+                    long start = System.nanoTime();
+                    uncheck(() -> ingest(manager, threads));
+                    elapsed[0] = System.nanoTime() - start;
+                });
+                int total = threads * GRADES_PER_THREAD;
+                System.out.printf("%7d | %6d | %9.1f | %10.0f%n", threads, total,
+                        elapsed[0] / 1_000_000.0, total / (elapsed[0] / 1_000_000_000.0));
+                assertEquals(total, manager.getTotalGradeCount());
+            }
+        }
+    }
+
+    private static <T> T uncheck(Callable<T> action) {
+        try {
+            return action.call();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package test;
+
+import models.*;
+import services.GPACalculator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Grade Time Index Test Suite")
+public class GradeTimeIndexTest {
+    private static final Subject MATH = new CoreSubject("Mathematics", "MAT101");
+    private static final Subject ART = new ElectiveSubject("Art", "ART101");
+
+    private StudentManager studentManager;
+    private GradeManager gradeManager;
+    private GradeManager columnarManager;
+    private String studentId;
+
+    @BeforeEach
+    public void setUp() {
+        studentManager = new StudentManager();
+        gradeManager = new GradeManager(studentManager);
+        columnarManager = new GradeManager(studentManager, true);
+        Student student = new RegularStudent("Timeline Student", 18, "timeline@school.edu", "555-0303", "2024-09-01");
+        runQuietly(() -> studentManager.addStudent(student));
+        studentId = student.getStudentId();
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private void addAt(String gradeId, Subject subject, double value, LocalDate day) {
+        runQuietly(() -> {
+            LocalDateTime timestamp = day.atTime(10, 0);
+            gradeManager.addGrade(new Grade(gradeId, studentId, subject, value, timestamp));
+            columnarManager.addGrade(new Grade(gradeId, studentId, subject, value, timestamp));
+        });
+    }
+
+    @Nested
+    @DisplayName("Date Range Queries")
+    class DateRangeTests {
+
+        @Test
+        @DisplayName("Ranges are chronological, not lexicographic on dd-MM-yyyy")
+        void testRangeAcrossYearBoundary() {
+            addAt("GRD001", MATH, 70, LocalDate.of(2024, 2, 15));
+            addAt("GRD002", MATH, 80, LocalDate.of(2024, 12, 20));
+            addAt("GRD003", ART, 90, LocalDate.of(2025, 1, 5));
+            addAt("GRD004", ART, 60, LocalDate.of(2025, 3, 1));
+
+            for (GradeManager manager : List.of(gradeManager, columnarManager)) {
+                List<String> ids = manager.getGradesByDateRange("01-12-2024", "31-01-2025").stream()
+                        .map(Grade::getGradeId).collect(Collectors.toList());
+                assertEquals(List.of("GRD003", "GRD002"), ids, "newest first, both grades in range");
+                assertEquals(4, manager.getGradesByDateRange("01-01-2024", "31-12-2025").size());
+                assertTrue(manager.getGradesByDateRange("01-02-2025", "01-01-2025").isEmpty());
+            }
+        }
+
+        @Test
+        @DisplayName("Range summary reads day buckets")
+        void testSummarizeDateRange() {
+            addAt("GRD001", MATH, 70, LocalDate.of(2024, 11, 30));
+            addAt("GRD002", MATH, 80, LocalDate.of(2024, 12, 1));
+            addAt("GRD003", ART, 95, LocalDate.of(2024, 12, 31));
+
+            GradeTimeIndex.TimeRollup december = gradeManager.summarizeDateRange(
+                    LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 31));
+            assertEquals(2, december.getCount());
+            assertEquals(87.5, december.getMean(), 0.001);
+            assertEquals(1, december.countBetween(90, 100));
+        }
+    }
+
+    @Nested
+    @DisplayName("Rollups")
+    class RollupTests {
+
+        @Test
+        @DisplayName("Day, week, month and term rollups match a brute-force grouping")
+        void testRollupsMatchGrades() {
+            Random random = new Random(5);
+            LocalDate start = LocalDate.of(2024, 1, 1);
+            runQuietly(() -> {
+                for (int i = 0; i < 1_500; i++) {
+                    LocalDate day = start.plusDays(random.nextInt(730));
+                    gradeManager.addGrade(new Grade("GRD-T" + i, studentId, MATH, 40 + random.nextInt(61),
+                            day.atTime(9, 0)));
+                }
+            });
+            List<Grade> grades = gradeManager.getGradesByStudent(studentId);
+
+            for (GradeTimeIndex.Granularity granularity : GradeTimeIndex.Granularity.values()) {
+                List<GradeTimeIndex.TimeRollup> rollups = gradeManager.getRollups(granularity);
+                assertEquals(grades.size(), rollups.stream().mapToLong(GradeTimeIndex.TimeRollup::getCount).sum());
+                assertEquals(grades.stream().mapToDouble(Grade::getGrade).sum(),
+                        rollups.stream().mapToDouble(GradeTimeIndex.TimeRollup::getSum).sum(), 0.001);
+                for (int i = 1; i < rollups.size(); i++) {
+                    assertTrue(rollups.get(i - 1).getStart().isBefore(rollups.get(i).getStart()));
+                }
+            }
+
+            LocalDate march = LocalDate.of(2025, 3, 1);
+            List<GradeTimeIndex.TimeRollup> month = gradeManager.getRollups(GradeTimeIndex.Granularity.MONTH,
+                    march, march.plusDays(10));
+            assertEquals(1, month.size());
+            assertEquals("2025-03", month.get(0).getLabel());
+            long expected = grades.stream()
+                    .filter(g -> g.getTimestamp().toLocalDate().getYear() == 2025
+                            && g.getTimestamp().toLocalDate().getMonthValue() == 3)
+                    .count();
+            assertEquals(expected, month.get(0).getCount());
+            assertEquals(4, gradeManager.getRollups(GradeTimeIndex.Granularity.TERM).size());
+        }
+
+        @Test
+        @DisplayName("Corrections move grades between histogram bins")
+        void testCorrectionUpdatesRollups() {
+            addAt("GRD001", MATH, 55, LocalDate.of(2025, 2, 10));
+            Grade grade = gradeManager.getGradesByStudent(studentId).get(0);
+            runQuietly(() -> grade.recordGrade(92));
+
+            GradeTimeIndex.TimeRollup month = gradeManager.getRollups(GradeTimeIndex.Granularity.MONTH).get(0);
+            assertEquals(92.0, month.getMean(), 0.001);
+            assertEquals(0, month.countBetween(0, 59));
+            assertEquals(1, month.countBetween(90, 100));
+        }
+    }
+
+    @Nested
+    @DisplayName("Semester GPA")
+    class SemesterGpaTests {
+
+        @Test
+        @DisplayName("Semester GPAs come from term histograms and sort chronologically")
+        void testSemesterGPAs() {
+            addAt("GRD001", MATH, 95, LocalDate.of(2024, 3, 1));
+            addAt("GRD002", ART, 85, LocalDate.of(2024, 5, 1));
+            addAt("GRD003", MATH, 72.5, LocalDate.of(2024, 10, 1));
+            addAt("GRD004", ART, 91, LocalDate.of(2025, 2, 1));
+
+            GPACalculator calculator = new GPACalculator(studentManager, gradeManager);
+            Map<String, Double> semesters = calculator.calculateSemesterGPAs(studentId);
+
+            assertEquals(List.of("2024-S1", "2024-S2", "2025-S1"), new ArrayList<>(semesters.keySet()));
+            assertEquals((calculator.convertToGPA(95) + calculator.convertToGPA(85)) / 2, semesters.get("2024-S1"), 0.001);
+            assertEquals(calculator.convertToGPA(72.5), semesters.get("2024-S2"), 0.001);
+            assertEquals(semesters.get("2025-S1") - semesters.get("2024-S1"),
+                    calculator.calculateGPATrend(studentId), 0.001);
+        }
+    }
+}
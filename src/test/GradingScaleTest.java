@@ -0,0 +1,233 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import services.GPACalculator;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Grading Scale Test Suite")
+public class GradingScaleTest {
+
+    // The if-chain every component used to carry its own copy of
+    private static String referenceLetter(double percentage) {
+        if (percentage >= 93) return "A";
+        else if (percentage >= 90) return "A-";
+        else if (percentage >= 87) return "B+";
+        else if (percentage >= 83) return "B";
+        else if (percentage >= 80) return "B-";
+        else if (percentage >= 77) return "C+";
+        else if (percentage >= 73) return "C";
+        else if (percentage >= 70) return "C-";
+        else if (percentage >= 67) return "D+";
+        else if (percentage >= 60) return "D";
+        else return "F";
+    }
+
+    private static double[] sample(int count) {
+        Random random = new Random(42);
+        double[] percentages = new double[count];
+        for (int i = 0; i < count; i++) {
+            percentages[i] = random.nextDouble() * 110 - 5;
+        }
+        return percentages;
+    }
+
+    @Nested
+    @DisplayName("Lookup Table")
+    class LookupTests {
+
+        @Test
+        @DisplayName("The table agrees with the if-chain everywhere, including next to each cutoff")
+        void testMatchesReference() {
+            for (int i = -5_000; i <= 105_000; i++) {
+                double percentage = i / 1000.0;
+                assertEquals(referenceLetter(percentage), GradingScale.STANDARD.letter(percentage), "at " + percentage);
+            }
+            for (int band = 0; band < GradingScale.STANDARD.getBandCount() - 1; band++) {
+                double cutoff = GradingScale.STANDARD.getMinimum(band);
+                for (double percentage : new double[] { Math.nextDown(cutoff), cutoff, Math.nextUp(cutoff) }) {
+                    assertEquals(referenceLetter(percentage), GradingScale.STANDARD.letter(percentage), "at " + percentage);
+                }
+            }
+            assertEquals("F", GradingScale.STANDARD.letter(Double.NaN));
+            assertEquals("A", GradingScale.STANDARD.letter(Double.POSITIVE_INFINITY));
+            assertEquals("F", GradingScale.STANDARD.letter(Double.NEGATIVE_INFINITY));
+        }
+
+        @Test
+        @DisplayName("Cutoffs at 0.1 resolution are exact on both sides")
+        void testTenthCutoffs() {
+            GradingScale scale = GradingScale.builder("Tenths")
+                    .band(89.5, "A", 4.0)
+                    .band(59.9, "P", 2.0)
+                    .band(0, "F", 0.0)
+                    .build();
+            assertEquals("A", scale.letter(89.5));
+            assertEquals("P", scale.letter(Math.nextDown(89.5)));
+            assertEquals("P", scale.letter(59.9));
+            assertEquals("F", scale.letter(Math.nextDown(59.9)));
+            assertEquals(2.0, scale.points(75.0), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Components share the scale: GPA, letters and the detailed letters line up")
+        void testComponentsAgree() {
+            GPACalculator calculator = new GPACalculator(new StudentManager(), new GradeManager(new StudentManager()));
+            StudentManager studentManager = new StudentManager();
+            for (double percentage : sample(2_000)) {
+                assertEquals(calculator.convertToGPA(percentage), studentManager.calculateGPA(percentage), 1e-9);
+                assertEquals(calculator.getLetterGrade(percentage), Grade.letterGradeFor(percentage));
+                String detailed = calculator.getDetailedLetterGrade(percentage);
+                assertTrue(detailed.startsWith(Grade.letterGradeFor(percentage).substring(0, 1)), detailed);
+            }
+            assertEquals("A+", GradingScale.DETAILED.letter(97));
+            assertEquals("D-", GradingScale.DETAILED.letter(62.9));
+        }
+
+        @Test
+        @DisplayName("Invalid scales are rejected")
+        void testValidation() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> GradingScale.builder("Ascending").band(60, "D", 1.0).band(90, "A", 4.0));
+            assertThrows(IllegalArgumentException.class,
+                    () -> GradingScale.builder("Hundredths").band(89.95, "A", 4.0));
+            assertThrows(IllegalArgumentException.class,
+                    () -> GradingScale.builder("No floor").band(60, "P", 1.0).build());
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch")
+    class BatchTests {
+
+        @Test
+        @DisplayName("Classifying an array matches classifying each value")
+        void testBatchMatchesScalar() {
+            double[] percentages = sample(100_000);
+            int[] bands = GradingScale.STANDARD.classify(percentages);
+            int[] counts = GradingScale.STANDARD.countByBand(percentages);
+            int[] expectedCounts = new int[GradingScale.STANDARD.getBandCount()];
+            double totalPoints = 0;
+            for (int i = 0; i < percentages.length; i++) {
+                assertEquals(GradingScale.STANDARD.classify(percentages[i]), bands[i]);
+                assertEquals(referenceLetter(percentages[i]), GradingScale.STANDARD.getLetter(bands[i]));
+                expectedCounts[bands[i]]++;
+                totalPoints += GradingScale.STANDARD.points(percentages[i]);
+            }
+            for (int band = 0; band < counts.length; band++) {
+                assertEquals(expectedCounts[band], counts[band]);
+            }
+            assertEquals(totalPoints / percentages.length,
+                    GradingScale.STANDARD.averagePoints(percentages, percentages.length), 1e-9);
+            assertEquals(0.0, GradingScale.STANDARD.averagePoints(percentages, 0), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Distributions are labelled with the scale's own cutoffs, highest band first")
+        void testDistributionLabels() {
+            Map<String, Long> distribution = GradingScale.STANDARD.distribution(new double[]{95, 92.5, 90, 59.9, 0});
+            assertEquals(GradingScale.STANDARD.getBandCount(), distribution.size());
+            assertEquals("A (93-100)", distribution.keySet().iterator().next());
+            assertEquals(Long.valueOf(1), distribution.get("A (93-100)"));
+            assertEquals(Long.valueOf(2), distribution.get("A- (90-92)"));
+            assertEquals(Long.valueOf(0), distribution.get("B+ (87-89)"));
+            assertEquals(Long.valueOf(2), distribution.get("F (0-59)"));
+
+            GradingScale tenths = GradingScale.builder("Tenths")
+                    .band(89.5, "A", 4.0)
+                    .band(0, "F", 0.0)
+                    .build();
+            assertEquals("A (89.5-100.0)", tenths.getLabel(0));
+            assertEquals("F (0.0-89.4)", tenths.getLabel(1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Student Types")
+    class StudentTypeTests {
+
+        @Test
+        @DisplayName("Honors students can be graded on their own scale")
+        void testHonorsScale() {
+            GradingScale honors = GradingScale.builder("Honors")
+                    .band(90, "H", 4.0)
+                    .band(80, "P", 3.0)
+                    .band(0, "F", 0.0)
+                    .build();
+            GradingScale.configure("Honors", honors);
+            try {
+                assertHonorsGradedOn(honors);
+            } finally {
+                GradingScale.configure("Honors", null); // the registry is process-wide
+            }
+            assertSame(GradingScale.STANDARD, GradingScale.forStudentType("Honors"));
+        }
+
+        private void assertHonorsGradedOn(GradingScale honors) {
+            StudentManager studentManager = new StudentManager();
+            GradeManager gradeManager = new GradeManager(studentManager);
+            GPACalculator calculator = new GPACalculator(studentManager, gradeManager);
+            Student regular = new RegularStudent("STU-S0001", "Regular Scale", 18, "regular@school.edu",
+                    "555-0100", "2024-09-01");
+            Student honorsStudent = new HonorsStudent("STU-S0002", "Honors Scale", 18, "honors@school.edu",
+                    "555-0100", "2024-09-01");
+            studentManager.addStudent(regular, false);
+            studentManager.addStudent(honorsStudent, false);
+            Subject math = new CoreSubject("Mathematics", "MATH101");
+            gradeManager.addGrade(new Grade(regular.getStudentId(), math, 85));
+            gradeManager.addGrade(new Grade(honorsStudent.getStudentId(), math, 85));
+
+            assertSame(honors, honorsStudent.getGradingScale());
+            assertSame(GradingScale.STANDARD, regular.getGradingScale());
+            assertEquals(3.0, regular.getGpa(), 1e-9);
+            assertEquals(3.0, honorsStudent.getGpa(), 1e-9);
+            assertEquals(3.0, calculator.calculateGPA(honorsStudent.getStudentId()), 1e-9);
+            assertEquals("P", honorsStudent.getGradingScale().letter(85));
+
+            gradeManager.addGrade(new Grade(regular.getStudentId(), math, 95));
+            gradeManager.addGrade(new Grade(honorsStudent.getStudentId(), math, 95));
+            assertEquals((3.0 + 4.0) / 2, regular.getGpa(), 1e-9); // B and A on the standard scale
+            assertEquals((3.0 + 4.0) / 2, honorsStudent.getGpa(), 1e-9); // P and H
+            assertEquals(honorsStudent.getGpa(), calculator.calculateGPA(honorsStudent.getStudentId(), false), 1e-9);
+            assertEquals("H", honorsStudent.getGradingScale().letter(honorsStudent.getAverageGrade()));
+        }
+
+        @Test
+        @DisplayName("Semester, weighted GPA and letters use a student's scale with 0.1 cutoffs")
+        void testTenthCutoffScaleThroughEveryPath() {
+            GradingScale honors = GradingScale.builder("Honors")
+                    .band(89.5, "H", 4.0)
+                    .band(0, "P", 2.0)
+                    .build();
+            assertFalse(honors.hasWholePercentCutoffs());
+            assertTrue(GradingScale.STANDARD.hasWholePercentCutoffs());
+            GradingScale.configure("Honors", honors);
+            try {
+                StudentManager studentManager = new StudentManager();
+                GradeManager gradeManager = new GradeManager(studentManager);
+                GPACalculator calculator = new GPACalculator(studentManager, gradeManager);
+                Student student = new HonorsStudent("STU-S0003", "Tenths Scale", 18, "tenths@school.edu",
+                        "555-0100", "2024-09-01");
+                studentManager.addStudent(student, false);
+                Subject math = new CoreSubject("Mathematics", "MATH101");
+                Grade grade = new Grade(student.getStudentId(), math, 89.7); // floor bin 89 would read as P
+                gradeManager.addGrade(grade);
+
+                assertEquals("H", grade.getLetterGrade(student.getGradingScale()));
+                assertSame(honors, studentManager.getGradingScale(student.getStudentId()));
+                Map<String, Double> semesters = calculator.calculateSemesterGPAs(student.getStudentId());
+                assertEquals(1, semesters.size());
+                assertEquals(4.0, semesters.values().iterator().next(), 1e-9);
+                assertEquals(4.0, calculator.calculateWeightedGPA(student.getStudentId(), Map.of()), 1e-9);
+            } finally {
+                GradingScale.configure("Honors", null);
+            }
+        }
+    }
+}
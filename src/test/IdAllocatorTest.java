@@ -0,0 +1,221 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import utils.ValidationUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ID Allocator Test Suite")
+public class IdAllocatorTest {
+
+    private Path tempDir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("id-allocator-test");
+        tempDir.toFile().deleteOnExit();
+    }
+
+    @Nested
+    @DisplayName("Formats")
+    class FormatTests {
+
+        @Test
+        @DisplayName("IDs widen past the minimum width instead of running out")
+        void testVariableWidth() {
+            IdAllocator allocator = new IdAllocator("STU", 3);
+            assertEquals("STU001", allocator.format(1));
+            assertEquals("STU999", allocator.format(999));
+            assertEquals("STU1000", allocator.format(1000));
+            assertEquals("STU1234567", allocator.format(1_234_567));
+        }
+
+        @Test
+        @DisplayName("parse is the inverse of format and rejects non-canonical IDs")
+        void testParse() {
+            IdAllocator allocator = new IdAllocator("GRD", 3);
+            for (long ordinal : new long[] { 1, 42, 999, 1000, 987_654_321L }) {
+                assertEquals(ordinal, allocator.parse(allocator.format(ordinal)));
+            }
+            assertEquals(-1, allocator.parse("GRD01"));
+            assertEquals(-1, allocator.parse("GRD0001"));
+            assertEquals(-1, allocator.parse("GRD-B1-7"));
+            assertEquals(-1, allocator.parse("STU001"));
+            assertEquals(-1, allocator.parse(null));
+        }
+
+        @Test
+        @DisplayName("Students past STU999 are accepted by validation")
+        void testValidationAcceptsWideIds() {
+            IdAllocator.STUDENTS.observe(1_000);
+            Student student = new RegularStudent("Wide Id", 18, "wide@school.edu", "555-0505", "2024-09-01");
+
+            assertTrue(student.getStudentId().length() > 6, student.getStudentId());
+            assertEquals(student.getOrdinal(), IdAllocator.STUDENTS.parse(student.getStudentId()));
+            assertTrue(ValidationUtils.validateStudentId(student.getStudentId()).isValid());
+        }
+
+        @Test
+        @DisplayName("Explicit grade IDs raise the high-water mark")
+        void testObservedGradeIds() {
+            long ahead = IdAllocator.GRADES.getHighWaterMark() + 500;
+            Grade imported = new Grade(IdAllocator.GRADES.format(ahead), "STU001", new CoreSubject("Mathematics", "MAT101"), 80);
+            Grade generated = new Grade("STU001", new CoreSubject("Mathematics", "MAT101"), 90);
+
+            assertEquals(ahead, imported.getGradeOrdinal());
+            assertEquals(ahead + 1, generated.getGradeOrdinal());
+            assertEquals(-1, new Grade("LEGACY-7", "STU001", new CoreSubject("Mathematics", "MAT101"), 70).getGradeOrdinal());
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrency")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("Concurrent allocation never hands out duplicates")
+        void testNoDuplicates() throws Exception {
+            IdAllocator allocator = new IdAllocator("T", 3);
+            int threads = 8;
+            int perThread = 50_000;
+            Set<Long> seen = ConcurrentHashMap.newKeySet();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean useBlocks = t % 2 == 0;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    if (useBlocks) {
+                        for (int i = 0; i < perThread; i += 1_000) {
+                            IdAllocator.Block block = allocator.reserve(1_000);
+                            while (block.hasNext()) {
+                                assertTrue(seen.add(block.nextOrdinal()));
+                            }
+                        }
+                    } else {
+                        for (int i = 0; i < perThread; i++) {
+                            assertTrue(seen.add(allocator.nextOrdinal()));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+
+            assertEquals(threads * perThread, seen.size());
+            assertEquals(threads * perThread, allocator.getHighWaterMark());
+        }
+
+        @Test
+        @DisplayName("Allocation throughput under contention")
+        void testThroughput() throws Exception {
+            int threads = 8;
+            int perThread = 2_000_000;
+
+            IdAllocator atomic = new IdAllocator("A", 3);
+            double atomicRate = measure(threads, perThread, () -> {
+                for (int i = 0; i < perThread; i++) {
+                    atomic.nextOrdinal();
+                }
+            });
+
+            IdAllocator blocked = new IdAllocator("B", 3);
+            double blockRate = measure(threads, perThread, () -> {
+                IdAllocator.Block block = blocked.reserve(4_096);
+                for (int i = 0; i < perThread; i++) {
+                    if (!block.hasNext()) {
+                        block = blocked.reserve(4_096);
+                    }
+                    block.nextOrdinal();
+                }
+            });
+
+            System.out.println("\n=== ID ALLOCATION (" + threads + " threads x " + perThread + ") ===");
+            System.out.printf("Shared atomic counter: %,15.0f ids/sec%n", atomicRate);
+            System.out.printf("Per-thread blocks:     %,15.0f ids/sec%n", blockRate);
+
+            assertEquals((long) threads * perThread, atomic.getHighWaterMark());
+            assertTrue(atomicRate > 1_000_000, "Should sustain millions of allocations per second");
+            assertTrue(blockRate > 1_000_000, "Should sustain millions of allocations per second");
+        }
+
+        private double measure(int threads, int perThread, Runnable work) throws Exception {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    work.run();
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            long elapsed = System.nanoTime() - begin;
+            pool.shutdown();
+            return (double) threads * perThread / (elapsed / 1e9);
+        }
+    }
+
+    @Nested
+    @DisplayName("Persistence")
+    class PersistenceTests {
+
+        @Test
+        @DisplayName("High-water marks survive a restart")
+        void testSaveAndLoad() throws IOException {
+            Path file = tempDir.resolve("ids.properties");
+            IdAllocator students = new IdAllocator("STU", 3);
+            IdAllocator grades = new IdAllocator("GRD", 3);
+            students.reserve(1_234);
+            grades.observe(98_765);
+            IdAllocator.save(file, students, grades);
+
+            IdAllocator restartedStudents = new IdAllocator("STU", 3);
+            IdAllocator restartedGrades = new IdAllocator("GRD", 3);
+            IdAllocator.load(file, restartedStudents, restartedGrades);
+
+            assertEquals("STU1235", restartedStudents.nextId());
+            assertEquals("GRD98766", restartedGrades.nextId());
+        }
+
+        @Test
+        @DisplayName("Loading never lowers the mark; a missing file is a first start")
+        void testLoadEdgeCases() throws IOException {
+            IdAllocator allocator = new IdAllocator("STU", 3);
+            IdAllocator.load(tempDir.resolve("missing.properties"), allocator);
+            assertEquals(0, allocator.getHighWaterMark());
+
+            Path file = tempDir.resolve("old.properties");
+            IdAllocator old = new IdAllocator("STU", 3);
+            old.observe(10);
+            IdAllocator.save(file, old);
+
+            allocator.observe(50);
+            IdAllocator.load(file, allocator);
+            assertEquals(50, allocator.getHighWaterMark());
+
+            Files.writeString(file, "STU=not-a-number\n");
+            assertThrows(IOException.class, () -> IdAllocator.load(file, allocator));
+        }
+    }
+}
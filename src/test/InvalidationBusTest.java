@@ -0,0 +1,186 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import services.BoundedCache;
+import services.CacheManager;
+import services.InvalidationBus;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Invalidation Bus Test Suite")
+public class InvalidationBusTest {
+    private final List<InvalidationBus> buses = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        for (InvalidationBus bus : buses) {
+            bus.close();
+        }
+    }
+
+    // One application instance: its own cache and bus on a free loopback port
+    private final class Node {
+        final CacheManager cacheManager = new CacheManager(1 << 20, BoundedCache.Policy.W_TINYLFU);
+        final InvalidationBus bus;
+
+        Node(int historySize) throws IOException {
+            bus = new InvalidationBus(cacheManager, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    historySize, 50);
+            buses.add(bus);
+        }
+
+        void cacheAverages(int count) {
+            for (int i = 0; i < count; i++) {
+                cacheManager.cacheStudentAverage(id(i), 80.0 + i);
+            }
+        }
+
+        boolean cached(int i) {
+            return cacheManager.getStudentAverage(id(i)) != null;
+        }
+    }
+
+    private static String id(int i) {
+        return String.format("STU-B%03d", i);
+    }
+
+    private static void connect(Node... nodes) {
+        for (Node from : nodes) {
+            for (Node to : nodes) {
+                if (from != to) from.bus.addPeer(to.bus.getLocalAddress());
+            }
+        }
+    }
+
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail(message);
+            Thread.sleep(10);
+        }
+    }
+
+    @Nested
+    @DisplayName("Broadcast")
+    class BroadcastTests {
+
+        @Test
+        @DisplayName("A grade recorded on one node invalidates that student on the others")
+        void testGradeChangeReachesPeers() throws Exception {
+            Node a = new Node(InvalidationBus.DEFAULT_HISTORY);
+            Node b = new Node(InvalidationBus.DEFAULT_HISTORY);
+            Node c = new Node(InvalidationBus.DEFAULT_HISTORY);
+            connect(a, b, c);
+            b.cacheAverages(3);
+            c.cacheAverages(3);
+
+            StudentManager studentManager = new StudentManager();
+            GradeManager gradeManager = new GradeManager(studentManager);
+            studentManager.addStudent(new RegularStudent(id(1), "Bus Student", 18, "bus@school.edu",
+                    "555-0100", "2024-09-01"), false);
+            a.bus.attachTo(studentManager.getChangeFeed());
+            gradeManager.addGrade(new Grade(id(1), new CoreSubject("Mathematics", "MATH101"), 91));
+
+            await(() -> !b.cached(1) && !c.cached(1), "peers still cache the changed student");
+            assertTrue(b.cached(0) && b.cached(2), "other students stay cached");
+            assertTrue(c.cached(0) && c.cached(2));
+            assertFalse(a.bus.getPeers().contains(a.bus.getLocalAddress()));
+        }
+
+        @Test
+        @DisplayName("Invalidations are batched into few datagrams and repeats are coalesced")
+        void testBatching() throws Exception {
+            Node a = new Node(InvalidationBus.DEFAULT_HISTORY);
+            Node b = new Node(InvalidationBus.DEFAULT_HISTORY);
+            connect(a, b);
+            int count = 1_000;
+            b.cacheAverages(count);
+            for (int i = 0; i < count; i++) {
+                a.bus.publish(InvalidationBus.Scope.GRADE_DATA, id(i));
+                a.bus.publish(InvalidationBus.Scope.GRADE_DATA, id(i)); // still queued: coalesced
+            }
+            a.bus.flush();
+            long sequences = a.bus.getLastSequence();
+            await(() -> b.bus.getReceivedInvalidationCount() >= sequences, "not every invalidation arrived");
+            assertEquals(2 * count, sequences + a.bus.getCoalescedCount());
+            assertTrue(a.bus.getCoalescedCount() > count / 2);
+            assertEquals(0, b.cacheManager.size());
+            System.out.printf("%d invalidations in %d datagrams (%d coalesced)%n", a.bus.getSentInvalidationCount(),
+                    a.bus.getSentDatagramCount(), a.bus.getCoalescedCount());
+            assertTrue(a.bus.getSentDatagramCount() < count / 10, "not batched: " + a.bus.getSentDatagramCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Resynchronization")
+    class ResyncTests {
+
+        @Test
+        @DisplayName("A node that missed invalidations gets them retransmitted")
+        void testRetransmit() throws Exception {
+            Node a = new Node(InvalidationBus.DEFAULT_HISTORY);
+            Node b = new Node(InvalidationBus.DEFAULT_HISTORY);
+            connect(a, b);
+            b.cacheAverages(10);
+            a.bus.publish(InvalidationBus.Scope.GRADE_DATA, id(0));
+            await(() -> !b.cached(0), "first invalidation not received");
+
+            // B is unreachable while A publishes 1-5
+            a.bus.removePeer(b.bus.getLocalAddress());
+            for (int i = 1; i <= 5; i++) {
+                a.bus.publish(InvalidationBus.Scope.GRADE_DATA, id(i));
+            }
+            a.bus.flush();
+            assertTrue(b.cached(3));
+
+            // The next heartbeat shows B the gap; A resends from its history
+            a.bus.addPeer(b.bus.getLocalAddress());
+            await(() -> !b.cached(1) && !b.cached(5), "missed invalidations not resent");
+            assertTrue(b.bus.getResyncRequestCount() >= 1);
+            assertTrue(a.bus.getRetransmittedCount() >= 5);
+            assertEquals(0, b.bus.getResetCount());
+            for (int i = 6; i < 10; i++) {
+                assertTrue(b.cached(i), "student " + i + " was never invalidated");
+            }
+        }
+
+        @Test
+        @DisplayName("A node further behind than the history clears its caches")
+        void testReset() throws Exception {
+            Node a = new Node(4);
+            Node b = new Node(4);
+            connect(a, b);
+            b.cacheAverages(20);
+            a.bus.publish(InvalidationBus.Scope.GRADE_DATA, id(0));
+            await(() -> !b.cached(0), "first invalidation not received");
+
+            a.bus.removePeer(b.bus.getLocalAddress());
+            for (int i = 1; i <= 10; i++) {
+                a.bus.publish(InvalidationBus.Scope.GRADE_DATA, id(i));
+            }
+            a.bus.flush();
+            a.bus.addPeer(b.bus.getLocalAddress());
+            await(() -> b.bus.getResetCount() == 1, "no reset");
+            assertEquals(0, b.cacheManager.size());
+
+            // Back in step: the next invalidation is applied without another resync
+            long requests = b.bus.getResyncRequestCount();
+            b.cacheAverages(20);
+            a.bus.publish(InvalidationBus.Scope.STUDENT, id(15));
+            await(() -> !b.cached(15), "invalidation after the reset not received");
+            assertTrue(b.cached(14));
+            assertEquals(requests, b.bus.getResyncRequestCount());
+        }
+    }
+}
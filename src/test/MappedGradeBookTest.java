@@ -0,0 +1,417 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import services.FileIOService;
+import services.GradeBookStore;
+import services.MappedGradeBook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Memory-Mapped Grade Book Image Test Suite")
+public class MappedGradeBookTest {
+    private static final Subject[] SUBJECTS = {
+            new CoreSubject("Mathematics", "MAT101"),
+            new CoreSubject("English", "ENG101"),
+            new ElectiveSubject("Art", "ART101"),
+            new ElectiveSubject("Music", "MUS101")
+    };
+
+    private Path tempDir;
+    private StudentManager studentManager;
+    private GradeManager gradeManager;
+    private List<String> studentIds;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("mapped-gradebook-test");
+        tempDir.toFile().deleteOnExit();
+        studentManager = new StudentManager();
+        gradeManager = new GradeManager(studentManager);
+        studentIds = new ArrayList<>();
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private void seed(int studentCount, int gradeCount, long seed) {
+        Random random = new Random(seed);
+        runQuietly(() -> {
+            for (int i = 0; i < studentCount; i++) {
+                Student student = i % 4 == 0
+                        ? new HonorsStudent("Mapped Ünïcode " + i, 19, "mapped" + i + "@school.edu", "555-0909", "2023-09-01")
+                        : new RegularStudent("Mapped " + i, 18, "mapped" + i + "@school.edu", "555-0909", "2024-09-01");
+                studentManager.addStudent(student, false);
+                studentIds.add(student.getStudentId());
+            }
+            List<Grade> batch = new ArrayList<>(gradeCount);
+            for (int i = 0; i < gradeCount; i++) {
+                batch.add(new Grade(studentIds.get(random.nextInt(studentIds.size())),
+                        SUBJECTS[random.nextInt(SUBJECTS.length)], 40 + random.nextInt(61) + 0.25));
+            }
+            gradeManager.addGrades(batch);
+        });
+    }
+
+    private Path writeImage() throws IOException {
+        Path file = tempDir.resolve("gradebook.img");
+        MappedGradeBook.write(file, gradeManager.snapshot(), 42);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    @Nested
+    @DisplayName("Round Trip")
+    class RoundTripTests {
+
+        @Test
+        @DisplayName("Students, grades, IDs, timestamps and values survive write + loadInto")
+        void testLoadInto() throws IOException {
+            seed(40, 2_000, 1);
+            Path file = writeImage();
+
+            MappedGradeBook image = MappedGradeBook.open(file);
+            assertEquals(42, image.getLsn());
+            assertEquals(40, image.getStudentCount());
+            assertEquals(2_000, image.getGradeCount());
+
+            StudentManager students = new StudentManager();
+            GradeManager grades = new GradeManager(students);
+            runQuietly(() -> image.loadInto(students, grades, null));
+
+            assertEquals(40, students.getStudentCount());
+            assertEquals(2_000, grades.getTotalGradeCount());
+            for (String id : studentIds) {
+                Student original = studentManager.findStudent(id);
+                Student restored = students.findStudent(id);
+                assertEquals(original.getName(), restored.getName());
+                assertEquals(original.getStudentType(), restored.getStudentType());
+                assertEquals(original.getEnrollmentDate(), restored.getEnrollmentDate());
+                assertEquals(gradeManager.calculateOverallAverage(id), grades.calculateOverallAverage(id), 1e-9);
+                assertEquals(original.getGpa(), restored.getGpa(), 1e-9);
+
+                List<Grade> before = gradeManager.getGradesByStudent(id);
+                List<Grade> after = grades.getGradesByStudent(id);
+                assertEquals(before.size(), after.size());
+                for (int i = 0; i < before.size(); i++) {
+                    assertEquals(before.get(i).getGradeId(), after.get(i).getGradeId());
+                    assertEquals(before.get(i).getTimestamp(), after.get(i).getTimestamp());
+                    assertSame(before.get(i).getSubject(), after.get(i).getSubject());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Values are written as of the snapshot, not as corrected later")
+        void testSnapshotValues() throws IOException {
+            seed(5, 50, 2);
+            String studentId = studentIds.get(0);
+            ModelSnapshot snapshot = gradeManager.snapshot();
+            double average = snapshot.calculateOverallAverage(studentId);
+            runQuietly(() -> gradeManager.viewGradesByStudent(studentId).get(0).recordGrade(0));
+
+            Path file = tempDir.resolve("pinned.img");
+            MappedGradeBook.write(file, snapshot, 7);
+            assertEquals(average, MappedGradeBook.open(file).calculateOverallAverage(studentId), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Grades of unregistered student IDs are kept in detached rows")
+        void testDetachedRows() throws IOException {
+            seed(3, 30, 3);
+            runQuietly(() -> gradeManager.addGrades(List.of(
+                    new Grade("EXT-1", SUBJECTS[0], 70), new Grade("EXT-1", SUBJECTS[1], 90))));
+            MappedGradeBook image = MappedGradeBook.open(writeImage());
+
+            assertEquals(3, image.getStudentCount());
+            assertEquals(4, image.getRowCount());
+            assertEquals(32, image.getGradeCount());
+            assertNull(image.findStudent("EXT-1"));
+            assertEquals(2, image.getGradesByStudent("EXT-1").size());
+            assertEquals(80.0, image.calculateOverallAverage("EXT-1"), 1e-9);
+
+            StudentManager students = new StudentManager();
+            GradeManager grades = new GradeManager(students);
+            runQuietly(() -> image.loadInto(students, grades, null));
+            assertEquals(3, students.getStudentCount());
+            assertEquals(32, grades.getTotalGradeCount());
+        }
+
+        @Test
+        @DisplayName("Raw writer: non-standard grade IDs and properties round-trip")
+        void testRawWriter() throws IOException {
+            Path file = tempDir.resolve("raw.img");
+            try (MappedGradeBook.Writer writer = new MappedGradeBook.Writer(file, 1, 2, 5)) {
+                writer.setProperty("source", "unit test");
+                writer.addStudent("STU900", "Honors", "Raw Writer", 20, "raw@school.edu", "555-0000",
+                        LocalDate.of(2022, 1, 31), 2);
+                writer.addGrade("LEGACY-7", SUBJECTS[2], 88.5, java.time.LocalDateTime.of(2024, 5, 1, 10, 30, 0, 123_456_789));
+                writer.addGrade(123_456L, SUBJECTS[3], 91.0, 1_700_000_000L, 0);
+                writer.finish();
+            }
+            MappedGradeBook image = MappedGradeBook.open(file);
+            image.verifyChecksum();
+            assertEquals("unit test", image.getProperty("source"));
+            Student student = image.findStudent("STU900");
+            assertEquals("Honors", student.getStudentType());
+            assertEquals(LocalDate.of(2022, 1, 31), student.getEnrollmentDate());
+            List<Grade> grades = image.getGradesByStudent("STU900");
+            assertEquals("LEGACY-7", grades.get(0).getGradeId());
+            assertEquals(123_456_789, grades.get(0).getTimestamp().getNano());
+            assertEquals(IdAllocator.GRADES.format(123_456L), grades.get(1).getGradeId());
+            assertEquals(91.0, grades.get(1).getGrade());
+        }
+
+        @Test
+        @DisplayName("The writer rejects counts that do not match what was announced")
+        void testWriterCounts() throws IOException {
+            Path file = tempDir.resolve("short.img");
+            try (MappedGradeBook.Writer writer = new MappedGradeBook.Writer(file, 2, 1, 0)) {
+                writer.addStudent("STU1", "Regular", "A", 18, "a@school.edu", "555", LocalDate.now(), 1);
+                assertThrows(IllegalStateException.class, () ->
+                        writer.addStudent("STU2", "Regular", "B", 18, "b@school.edu", "555", LocalDate.now(), 0));
+                writer.addGrade(1L, SUBJECTS[0], 50, 0, 0);
+                assertThrows(IllegalStateException.class, writer::finish);
+            }
+            assertThrows(IOException.class, () -> MappedGradeBook.open(file)); // header never written
+        }
+    }
+
+    @Nested
+    @DisplayName("Cold Start")
+    class ColdStartTests {
+
+        @Test
+        @DisplayName("findStudent and getGradesByStudent are served from the mapping")
+        void testLookupsBeforeRebuild() throws IOException {
+            seed(200, 5_000, 4);
+            MappedGradeBook image = MappedGradeBook.open(writeImage());
+
+            for (String id : studentIds) {
+                Student student = image.findStudent(id);
+                assertNotNull(student, id);
+                assertEquals(studentManager.findStudent(id).getEmail(), student.getEmail());
+                List<Grade> grades = image.getGradesByStudent(id);
+                assertEquals(gradeManager.getGradesByStudent(id).size(), grades.size());
+                assertEquals(gradeManager.calculateOverallAverage(id), image.calculateOverallAverage(id), 1e-9);
+            }
+            assertNull(image.findStudent("STU999999"));
+            assertTrue(image.getGradesByStudent("nobody").isEmpty());
+        }
+
+        @Test
+        @DisplayName("GradeBookStore checkpoints are images that can be queried before recovery")
+        void testStoreSnapshotImage() throws IOException {
+            Path dir = tempDir.resolve("store");
+            GradeBookStore store = new GradeBookStore(dir, 256 * 1024, 0, false);
+            store.recover(studentManager, gradeManager);
+            seed(30, 1_000, 5);
+            store.close();
+
+            GradeBookStore reopened = new GradeBookStore(dir, 256 * 1024, 0, false);
+            MappedGradeBook image = reopened.openSnapshotImage();
+            assertNotNull(image);
+            assertEquals(30, image.getStudentCount());
+            String id = studentIds.get(3);
+            assertEquals(gradeManager.calculateOverallAverage(id), image.calculateOverallAverage(id), 1e-9);
+
+            StudentManager students = new StudentManager();
+            GradeManager grades = new GradeManager(students);
+            GradeBookStore.RecoveryReport report = reopened.recover(students, grades);
+            assertEquals(1_000, report.getSnapshotGrades());
+            assertEquals(0, report.getReplayedRecords());
+            assertEquals(1_000, grades.getTotalGradeCount());
+            reopened.close();
+        }
+    }
+
+    @Nested
+    @DisplayName("Integrity")
+    class IntegrityTests {
+
+        @Test
+        @DisplayName("A flipped byte fails the checksum; a truncated file fails open")
+        void testCorruption() throws IOException {
+            seed(20, 400, 6);
+            Path file = writeImage();
+            long length = Files.size(file);
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.seek(length / 2);
+                int b = raf.read();
+                raf.seek(length / 2);
+                raf.write(b ^ 0x40);
+            }
+            MappedGradeBook image = MappedGradeBook.open(file);
+            assertThrows(IOException.class, image::verifyChecksum);
+
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(length - 10);
+            }
+            assertThrows(IOException.class, () -> MappedGradeBook.open(file));
+        }
+
+        @Test
+        @DisplayName("Files in other formats are rejected")
+        void testWrongMagic() throws IOException {
+            Path file = tempDir.resolve("other.dat");
+            Files.write(file, new byte[256]);
+            assertFalse(MappedGradeBook.isImage(file));
+            assertThrows(IOException.class, () -> MappedGradeBook.open(file));
+        }
+    }
+
+    @Nested
+    @DisplayName("Binary Export")
+    class BinaryExportTests {
+
+        @Test
+        @DisplayName("exportToBinary writes an image that importFromBinary reads back")
+        void testExportImport() throws Exception {
+            seed(2, 25, 7);
+            String studentId = studentIds.get(0);
+            Student student = studentManager.findStudent(studentId);
+            List<Grade> grades = gradeManager.getGradesByStudent(studentId);
+            FileIOService io = new FileIOService();
+            String base = "mapped_export_test_" + System.nanoTime();
+
+            String path = io.exportToBinary(student, grades, base, "detailed");
+            Path file = Paths.get(path);
+            try {
+                assertTrue(MappedGradeBook.isImage(file));
+                MappedGradeBook image = MappedGradeBook.open(file);
+                assertEquals("detailed", image.getProperty("reportType"));
+                assertEquals(grades.size(), image.getGradesByStudent(studentId).size());
+
+                List<List<Grade>> imported = new ArrayList<>(1);
+                runQuietly(() -> {
+                    try {
+                        imported.add(io.importFromBinary(base));
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                List<Grade> restored = imported.get(0);
+                assertEquals(grades.size(), restored.size());
+                for (int i = 0; i < grades.size(); i++) {
+                    assertEquals(grades.get(i).getGrade(), restored.get(i).getGrade());
+                    assertEquals(studentId, restored.get(i).getStudentId());
+                    assertFalse(grades.get(i).getGradeId().equals(restored.get(i).getGradeId()));
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Performance")
+    class PerformanceTests {
+
+        /**
+         * Defaults keep the suite fast; the 1M / 20M figures come from
+         * -Dmapped.students=1000000 -Dmapped.grades=20000000 (needs about 1 GB of disk).
+         */
+        @Test
+        @DisplayName("Loader benchmark: open + first lookups vs full rebuild")
+        void testLoaderBenchmark() throws IOException {
+            int studentCount = Integer.getInteger("mapped.students", 50_000);
+            int gradeCount = Integer.getInteger("mapped.grades", 1_000_000);
+            Path file = tempDir.resolve("bench.img");
+            file.toFile().deleteOnExit();
+            Random random = new Random(11);
+
+            // Raw writer path: no Student or Grade objects, so any scale fits in the heap
+            long start = System.nanoTime();
+            try (MappedGradeBook.Writer writer = new MappedGradeBook.Writer(file, studentCount, gradeCount, 1)) {
+                long gradeOrdinal = 1;
+                int remaining = gradeCount;
+                for (int s = 0; s < studentCount; s++) {
+                    int own = s == studentCount - 1 ? remaining
+                            : Math.min(remaining, (int) ((long) gradeCount * (s + 1) / studentCount - (long) gradeCount * s / studentCount));
+                    remaining -= own;
+                    writer.addStudent(IdAllocator.STUDENTS.format(10_000_000L + s), s % 5 == 0 ? "Honors" : "Regular",
+                            "Bench Student " + s, 18 + s % 6, "bench" + s + "@school.edu", "555-0100",
+                            LocalDate.of(2020, 9, 1).plusDays(s % 1_000), own);
+                    for (int g = 0; g < own; g++) {
+                        writer.addGrade(gradeOrdinal++, SUBJECTS[random.nextInt(SUBJECTS.length)],
+                                40 + random.nextInt(61), 1_700_000_000L + g, 0);
+                    }
+                }
+                writer.finish();
+            }
+            double writeMillis = (System.nanoTime() - start) / 1_000_000.0;
+            long bytes = Files.size(file);
+
+            start = System.nanoTime();
+            MappedGradeBook image = MappedGradeBook.open(file);
+            double openMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+            int lookups = 10_000;
+            int found = 0;
+            long gradesSeen = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                String id = IdAllocator.STUDENTS.format(10_000_000L + random.nextInt(studentCount));
+                if (image.findStudent(id) != null) found++;
+                gradesSeen += image.getGradesByStudent(id).size();
+            }
+            double lookupMicros = (System.nanoTime() - start) / 1_000.0 / lookups;
+
+            start = System.nanoTime();
+            double total = image.sumAllGrades();
+            double scanMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+            start = System.nanoTime();
+            image.verifyChecksum();
+            double verifyMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+            System.out.printf("%n=== Mapped image: %,d students / %,d grades (%,d MB) ===%n",
+                    studentCount, gradeCount, bytes >> 20);
+            System.out.printf("Write:                 %9.1f ms%n", writeMillis);
+            System.out.printf("Open (map + header):   %9.3f ms%n", openMillis);
+            System.out.printf("findStudent + grades:  %9.2f µs per lookup (random, includes page faults)%n", lookupMicros);
+            System.out.printf("Sequential value scan: %9.1f ms (mean %.2f)%n", scanMillis, total / gradeCount);
+            System.out.printf("Checksum verify:       %9.1f ms%n", verifyMillis);
+
+            assertEquals(lookups, found);
+            assertTrue(gradesSeen > 0);
+            assertEquals(gradeCount, image.getGradeCount());
+            assertTrue(openMillis < 1_000, "open() must not depend on the data size");
+
+            // Full rebuild only where it fits in the heap; it is what the mapping lets queries skip
+            if ((long) gradeCount * 600 < Runtime.getRuntime().maxMemory() / 2) {
+                StudentManager students = new StudentManager();
+                GradeManager grades = new GradeManager(students);
+                start = System.nanoTime();
+                runQuietly(() -> image.loadInto(students, grades, null));
+                double loadMillis = (System.nanoTime() - start) / 1_000_000.0;
+                System.out.printf("Full loadInto rebuild: %9.1f ms (%.0fx the time to first lookup)%n",
+                        loadMillis, loadMillis / (openMillis + lookupMicros / 1_000));
+                assertEquals(gradeCount, grades.getTotalGradeCount());
+            } else {
+                System.out.println("Full loadInto rebuild: skipped (does not fit in this heap)");
+            }
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import utils.MemoryEstimator;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Memory Estimator Test Suite")
+public class MemoryEstimatorTest {
+
+    @Nested
+    @DisplayName("Object Layout")
+    class LayoutTests {
+
+        @Test
+        @DisplayName("Sizes are 8-byte aligned and include the header")
+        void testShallowSizes() {
+            assertEquals(16, MemoryEstimator.align(9));
+            assertEquals(16, MemoryEstimator.align(16));
+            for (Class<?> type : new Class<?>[] { Object.class, RegularStudent.class, Grade.class, Double.class }) {
+                long size = MemoryEstimator.shallowSizeOf(type);
+                assertEquals(0, size % 8, type.getSimpleName());
+                assertTrue(size >= MemoryEstimator.OBJECT_HEADER, type.getSimpleName());
+            }
+            assertEquals(MemoryEstimator.sizeOfBoxedDouble(), MemoryEstimator.shallowSizeOf(Double.class));
+            // Subclass fields add to the superclass's
+            assertTrue(MemoryEstimator.shallowSizeOf(HonorsStudent.class)
+                    >= MemoryEstimator.shallowSizeOf(RegularStudent.class));
+        }
+
+        @Test
+        @DisplayName("Latin-1 strings take a byte per char, others two")
+        void testStringCoder() {
+            long empty = MemoryEstimator.sizeOf("");
+            assertEquals(empty + 64, MemoryEstimator.sizeOf("a".repeat(64)));
+            assertEquals(empty + 128, MemoryEstimator.sizeOf("€".repeat(64)));
+            assertEquals(0, MemoryEstimator.sizeOf((String) null));
+        }
+
+        @Test
+        @DisplayName("Container copies count their entries but not shared keys unless asked")
+        void testContainers() {
+            Map<String, Double> averages = new HashMap<>();
+            for (int i = 0; i < 10; i++) {
+                averages.put("Subject " + i, 70.0 + i);
+            }
+            long withoutKeys = MemoryEstimator.sizeOfDoubleMap(averages, false);
+            long withKeys = MemoryEstimator.sizeOfDoubleMap(averages, true);
+            assertTrue(withoutKeys > 10 * MemoryEstimator.sizeOfBoxedDouble());
+            assertEquals(withoutKeys + 10 * MemoryEstimator.sizeOf("Subject 0"), withKeys);
+            assertTrue(MemoryEstimator.sizeOfGradeList(new ArrayList<>(), false) > 0);
+            assertEquals("512 B", MemoryEstimator.formatBytes(512));
+            assertEquals("1.5 KB", MemoryEstimator.formatBytes(1536));
+        }
+    }
+
+    @Nested
+    @DisplayName("Heap Agreement")
+    class HeapTests {
+
+        @Test
+        @DisplayName("Estimated student size agrees with the measured heap")
+        void testStudentsAgainstHeap() {
+            int count = 20_000;
+            long before = usedHeap();
+            List<Student> students = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                students.add(new RegularStudent(String.format("STU-H%06d", i), "Measured Student " + i, 18,
+                        "measured" + i + "@school.edu", "555-0" + (i % 1000), "2024-09-01"));
+            }
+            long measured = usedHeap() - before;
+
+            long estimated = MemoryEstimator.referenceArraySize(count);
+            for (Student student : students) {
+                estimated += MemoryEstimator.sizeOf(student);
+            }
+            double ratio = (double) estimated / measured;
+            System.out.printf("%n=== STUDENT MEMORY: %,d students ===%n", count);
+            System.out.printf("Estimated: %s, measured: %s (%.2fx), %d bytes per student%n",
+                    MemoryEstimator.formatBytes(estimated), MemoryEstimator.formatBytes(measured), ratio,
+                    MemoryEstimator.sizeOf(students.get(0)));
+            assertTrue(ratio > 0.75 && ratio < 1.25, "estimate off by " + ratio);
+        }
+
+        private long usedHeap() {
+            Runtime runtime = Runtime.getRuntime();
+            long previous = Long.MAX_VALUE;
+            for (int i = 0; i < 10; i++) {
+                runtime.gc();
+                long used = runtime.totalMemory() - runtime.freeMemory();
+                if (Math.abs(previous - used) < 256 * 1024) return used;
+                previous = used;
+            }
+            return previous;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package test;
+
+import interfaces.MemoryPressureListener;
+import models.RegularStudent;
+import models.Student;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import services.BoundedCache;
+import services.CacheManager;
+import services.CacheRegion;
+import services.MemoryPressureMonitor;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Memory Pressure Test Suite")
+public class MemoryPressureTest {
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    @Nested
+    @DisplayName("Cache Shedding")
+    class SheddingTests {
+
+        @Test
+        @DisplayName("Pressure sheds LOW regions first and the student cache last; relief restores in reverse")
+        void testShedOrder() {
+            long budget = 256 * 1024;
+            CacheManager cacheManager = new CacheManager(budget, BoundedCache.Policy.W_TINYLFU);
+            CacheRegion<String, String> patterns = cacheManager.createRegion("Patterns",
+                    CacheRegion.Spec.<String, String>ofSize(800).withPriority(CacheRegion.Priority.LOW));
+            CacheRegion<String, Double> gpas = cacheManager.createRegion("GPA",
+                    CacheRegion.Spec.<String, Double>ofSize(800).keyedByStudent());
+            List<Student> students = new ArrayList<>();
+            for (int i = 0; i < 800; i++) {
+                patterns.put("pattern" + i, "p" + i);
+                gpas.put("STU" + i, 3.0);
+                students.add(new RegularStudent("Pressured " + i, 18, "pressured" + i + "@school.edu",
+                        "555-0000", "2024-09-01"));
+            }
+            runQuietly(() -> cacheManager.warmCache(students));
+            long studentBytes = cacheManager.getTotalMemoryBytes();
+
+            // Three steps take the LOW region to an eighth; the others are untouched
+            for (int step = 1; step <= 3; step++) {
+                cacheManager.onMemoryPressure("Old Gen", 90, 100);
+                assertEquals(800 >> step, patterns.getMaximumWeight());
+                assertTrue(patterns.size() <= 800 >> step);
+            }
+            assertEquals(800, gpas.getMaximumWeight());
+            assertEquals(budget, cacheManager.getMaximumBytes());
+            assertTrue(cacheManager.isShedding());
+
+            cacheManager.onMemoryPressure("Old Gen", 90, 100); // NORMAL next
+            assertEquals(400, gpas.getMaximumWeight());
+            for (int step = 0; step < 3; step++) {
+                cacheManager.onMemoryPressure("Old Gen", 90, 100);
+            }
+            assertEquals(budget / 2, cacheManager.getMaximumBytes()); // HIGH last
+            assertEquals(100, patterns.getMaximumWeight(), "LOW stays at its floor");
+            assertTrue(cacheManager.getTotalMemoryBytes() <= budget / 2);
+            assertTrue(cacheManager.getReclaimedBytes() >= studentBytes - budget / 2);
+            assertTrue(cacheManager.getShedEntryCount() >= 700 + 700);
+            assertEquals(7, cacheManager.getPressureEventCount());
+
+            // Relief doubles the highest tier first
+            cacheManager.onMemoryRelief("Old Gen", 50, 100);
+            assertEquals(budget, cacheManager.getMaximumBytes());
+            assertEquals(100, gpas.getMaximumWeight());
+            for (int step = 0; step < 10 && cacheManager.isShedding(); step++) {
+                cacheManager.onMemoryRelief("Old Gen", 50, 100);
+            }
+            assertFalse(cacheManager.isShedding());
+            assertEquals(800, gpas.getMaximumWeight());
+            assertEquals(800, patterns.getMaximumWeight());
+            runQuietly(cacheManager::displayCacheStatistics);
+        }
+    }
+
+    @Nested
+    @DisplayName("JVM Notifications")
+    class MonitorTests {
+
+        @Test
+        @DisplayName("A collection above the watermark reports pressure; one below it reports relief")
+        void testNotifications() throws Exception {
+            MemoryPressureMonitor monitor = MemoryPressureMonitor.getInstance();
+            assertThrows(IllegalArgumentException.class, () -> monitor.setWatermarks(0.5, 0.6));
+            assertThrows(IllegalArgumentException.class, () -> monitor.setWatermarks(1.5, 0.6));
+            if (!monitor.isSupported()) {
+                System.out.println("Memory pool notifications not supported: " + monitor.getPoolName());
+                return;
+            }
+
+            CountDownLatch pressured = new CountDownLatch(1);
+            CountDownLatch relieved = new CountDownLatch(1);
+            MemoryPressureListener listener = new MemoryPressureListener() {
+                @Override
+                public void onMemoryPressure(String poolName, long usedBytes, long maxBytes) {
+                    pressured.countDown();
+                }
+
+                @Override
+                public void onMemoryRelief(String poolName, long usedBytes, long maxBytes) {
+                    relieved.countDown();
+                }
+            };
+            long pressureBefore = monitor.getPressureEventCount();
+            monitor.addListener(listener);
+            try {
+                Thread.sleep(1_100); // past any earlier report's cooldown
+                monitor.setWatermarks(1e-6, 5e-7); // any live data in the old generation is "pressure"
+                for (int i = 0; i < 20 && pressured.getCount() > 0; i++) {
+                    System.gc();
+                    pressured.await(500, TimeUnit.MILLISECONDS);
+                }
+                assertEquals(0, pressured.getCount(), "no pressure report from " + monitor.getPoolName());
+                assertTrue(monitor.getPressureEventCount() > pressureBefore);
+                assertTrue(monitor.isUnderPressure());
+
+                monitor.setWatermarks(MemoryPressureMonitor.DEFAULT_HIGH_WATERMARK,
+                        MemoryPressureMonitor.DEFAULT_LOW_WATERMARK);
+                Thread.sleep(1_100);
+                for (int i = 0; i < 20 && relieved.getCount() > 0; i++) {
+                    System.gc();
+                    relieved.await(500, TimeUnit.MILLISECONDS);
+                }
+                assertEquals(0, relieved.getCount(), "no relief report");
+                assertFalse(monitor.isUnderPressure());
+                List<MemoryPressureMonitor.Event> events = monitor.getRecentEvents();
+                assertEquals(MemoryPressureMonitor.Event.Kind.RELIEF, events.get(events.size() - 1).getKind());
+                System.out.println("Recent pressure events: " + events);
+            } finally {
+                monitor.removeListener(listener);
+                monitor.setWatermarks(MemoryPressureMonitor.DEFAULT_HIGH_WATERMARK,
+                        MemoryPressureMonitor.DEFAULT_LOW_WATERMARK);
+                CacheManager shared = CacheManager.getInstance(); // shed along with the test's listener
+                for (int i = 0; i < 20 && shared.isShedding(); i++) {
+                    shared.onMemoryRelief(monitor.getPoolName(), 0, 1);
+                }
+            }
+        }
+    }
+}
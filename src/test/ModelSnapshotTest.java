@@ -0,0 +1,345 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import services.ReportGenerator;
+
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Model Snapshot (MVCC) Test Suite")
+public class ModelSnapshotTest {
+    private static final Subject[] SUBJECTS = {
+            new CoreSubject("Mathematics", "MAT101"),
+            new CoreSubject("English", "ENG101"),
+            new ElectiveSubject("Art", "ART101")
+    };
+
+    private StudentManager studentManager;
+    private GradeManager gradeManager;
+    private List<String> studentIds;
+
+    @BeforeEach
+    public void setUp() {
+        studentManager = new StudentManager();
+        gradeManager = new GradeManager(studentManager);
+        studentIds = new ArrayList<>();
+        seed(studentManager, gradeManager, 50, 2_000);
+    }
+
+    private void seed(StudentManager students, GradeManager grades, int studentCount, int gradeCount) {
+        runQuietly(() -> {
+            for (int i = 0; i < studentCount; i++) {
+                Student student = new RegularStudent("Snap " + i, 18, "snap" + i + "@school.edu", "555-0707", "2024-09-01");
+                students.addStudent(student);
+                studentIds.add(student.getStudentId());
+            }
+            grades.addGrades(generateGrades(gradeCount, 1));
+        });
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private List<Grade> generateGrades(int count, long seed) {
+        Random random = new Random(seed);
+        List<Grade> grades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            grades.add(new Grade(studentIds.get(random.nextInt(studentIds.size())),
+                    SUBJECTS[random.nextInt(SUBJECTS.length)], 40 + random.nextInt(61)));
+        }
+        return grades;
+    }
+
+    private static double sum(ModelSnapshot snapshot) {
+        double[] total = new double[1];
+        snapshot.forEachGrade((grade, value) -> total[0] += value);
+        return total[0];
+    }
+
+    @Nested
+    @DisplayName("Isolation")
+    class IsolationTests {
+
+        @Test
+        @DisplayName("Later grades and students do not show up in a pinned snapshot")
+        void testAddsAreInvisible() {
+            String studentId = studentIds.get(0);
+            ModelSnapshot snapshot = gradeManager.snapshot();
+            int grades = snapshot.getGradeCount();
+            int ownGrades = snapshot.getGradesByStudent(studentId).size();
+            double average = snapshot.calculateOverallAverage(studentId);
+            double total = sum(snapshot);
+
+            runQuietly(() -> {
+                gradeManager.addGrades(List.of(new Grade(studentId, SUBJECTS[0], 0), new Grade(studentId, SUBJECTS[2], 0)));
+                studentManager.addStudent(new RegularStudent("Late", 18, "late@school.edu", "555-0707", "2024-09-01"));
+            });
+            String lateId = studentManager.viewStudents().get(studentManager.getStudentCount() - 1).getStudentId();
+
+            assertEquals(grades, snapshot.getGradeCount());
+            assertEquals(ownGrades, snapshot.getGradesByStudent(studentId).size());
+            assertEquals(average, snapshot.calculateOverallAverage(studentId), 1e-9);
+            assertEquals(total, sum(snapshot), 1e-9);
+            assertNull(snapshot.findStudent(lateId));
+            assertNotNull(snapshot.findStudent(studentId));
+
+            ModelSnapshot next = gradeManager.snapshot();
+            assertEquals(grades + 2, next.getGradeCount());
+            assertNotNull(next.findStudent(lateId));
+            assertTrue(next.getVersion() > snapshot.getVersion());
+        }
+
+        @Test
+        @DisplayName("Corrections after the pin are ignored; each correction is a new version")
+        void testCorrectionsAreInvisible() {
+            String studentId = studentIds.get(1);
+            ModelSnapshot before = gradeManager.snapshot();
+            Grade grade = before.getGradesByStudent(studentId).get(0);
+            double original = before.valueOf(grade);
+            double average = before.calculateOverallAverage(studentId);
+
+            runQuietly(() -> grade.recordGrade(original == 100 ? 99 : 100));
+            ModelSnapshot middle = gradeManager.snapshot();
+            runQuietly(() -> grade.recordGrade(1));
+
+            assertEquals(original, before.valueOf(grade));
+            assertEquals(average, before.calculateOverallAverage(studentId), 1e-9);
+            assertEquals(original == 100 ? 99 : 100, middle.valueOf(grade));
+            assertEquals(1, gradeManager.snapshot().valueOf(grade));
+            assertEquals(1, grade.getGrade());
+            assertEquals(before.getVersion() + 1, middle.getVersion());
+            assertEquals(before.getGradeCount(), middle.getGradeCount());
+        }
+
+        @Test
+        @DisplayName("Corrections keep old values only while an open snapshot can read them")
+        void testRevisionsArePruned() throws Exception {
+            Grade grade = gradeManager.getGradesByStudent(studentIds.get(3)).get(0);
+            double original = grade.getGrade();
+            runQuietly(() -> {
+                grade.recordGrade(original == 100 ? 99 : 100);
+                grade.recordGrade(original);
+            });
+            assertEquals(0, revisionCount(grade)); // nothing pinned
+
+            assertEquals(0, gradeManager.getOpenSnapshotCount());
+            try (ModelSnapshot pinned = gradeManager.snapshot()) {
+                assertEquals(1, gradeManager.getOpenSnapshotCount());
+                runQuietly(() -> {
+                    grade.recordGrade(11);
+                    grade.recordGrade(12);
+                    grade.recordGrade(13);
+                });
+                assertEquals(original, pinned.valueOf(grade));
+                assertEquals(3, revisionCount(grade)); // superseded after the pin
+            }
+            assertEquals(0, gradeManager.getOpenSnapshotCount());
+            runQuietly(() -> grade.recordGrade(14));
+            assertEquals(0, revisionCount(grade));
+            assertEquals(14, gradeManager.snapshot().valueOf(grade));
+        }
+
+        private int revisionCount(Grade grade) throws Exception {
+            Field head = Grade.class.getDeclaredField("revisions");
+            head.setAccessible(true);
+            int count = 0;
+            for (Object revision = head.get(grade); revision != null; count++) {
+                Field previous = revision.getClass().getDeclaredField("previous");
+                previous.setAccessible(true);
+                revision = previous.get(revision);
+            }
+            return count;
+        }
+
+        @Test
+        @DisplayName("Snapshot aggregates match the live model when nothing has changed")
+        void testAggregatesMatchLiveModel() {
+            ModelSnapshot snapshot = gradeManager.snapshot();
+            String studentId = studentIds.get(2);
+
+            assertEquals(gradeManager.getTotalGradeCount(), snapshot.getGradeCount());
+            assertEquals(studentManager.getStudentCount(), snapshot.getStudentCount());
+            assertEquals(gradeManager.calculateOverallAverage(studentId), snapshot.calculateOverallAverage(studentId), 1e-9);
+            assertEquals(gradeManager.calculateCoreAverage(studentId), snapshot.calculateCoreAverage(studentId), 1e-9);
+            assertEquals(gradeManager.getClassStatistics().getMean(), snapshot.getClassStatistics().getMean(), 1e-9);
+            assertTrue(snapshot.stamp().startsWith("Data version v" + snapshot.getVersion()));
+        }
+
+        @Test
+        @DisplayName("Columnar mode snapshots are materialized and isolated too")
+        void testColumnarMode() {
+            StudentManager students = new StudentManager();
+            GradeManager columnar = new GradeManager(students, true);
+            studentIds.clear();
+            seed(students, columnar, 20, 500);
+
+            ModelSnapshot snapshot = columnar.snapshot();
+            String studentId = studentIds.get(0);
+            int ownGrades = snapshot.getGradesByStudent(studentId).size();
+            double total = sum(snapshot);
+
+            runQuietly(() -> columnar.addGrades(List.of(new Grade(studentId, SUBJECTS[1], 0))));
+
+            assertEquals(500, snapshot.getGradeCount());
+            assertEquals(ownGrades, snapshot.getGradesByStudent(studentId).size());
+            assertEquals(total, sum(snapshot), 1e-9);
+            assertEquals(501, columnar.snapshot().getGradeCount());
+        }
+
+        @Test
+        @DisplayName("Columnar snapshots materialize on first read and keep the pinned values")
+        void testColumnarLazyPin() {
+            StudentManager students = new StudentManager();
+            GradeManager columnar = new GradeManager(students, true);
+            studentIds.clear();
+            seed(students, columnar, 20, 500);
+            String studentId = studentIds.get(0);
+            double average = columnar.calculateOverallAverage(studentId);
+            double classTotal = columnar.getClassStatistics().getMean() * 500;
+
+            ModelSnapshot snapshot = columnar.snapshot(); // nothing read yet
+            Grade live = columnar.getGradesByStudent(studentId).get(0);
+            double original = live.getGrade();
+            runQuietly(() -> {
+                live.recordGrade(original == 100 ? 99 : 100);
+                live.recordGrade(1);
+                columnar.addGrades(List.of(new Grade(studentId, SUBJECTS[1], 0)));
+            });
+
+            assertEquals(500, snapshot.getGradeCount());
+            assertEquals(average, snapshot.calculateOverallAverage(studentId), 1e-9);
+            assertEquals(classTotal, sum(snapshot), 1e-6);
+            Grade pinned = snapshot.getGradesByStudent(studentId).get(0);
+            assertEquals(original, snapshot.valueOf(pinned), 1e-9);
+            assertEquals(1, pinned.getGrade(), 1e-9);
+            assertEquals(1, columnar.snapshot().valueOf(columnar.snapshot().getGradesByStudent(studentId).get(0)), 1e-9);
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrency")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("Pinning while writers run gives stable, self-consistent snapshots")
+        void testPinWhileWriting() throws Exception {
+            AtomicBoolean running = new AtomicBoolean(true);
+            ExecutorService pool = Executors.newFixedThreadPool(3);
+            Future<?> adder = pool.submit(() -> {
+                for (int round = 0; round < 20; round++) {
+                    gradeManager.addGrades(generateGrades(250, 100 + round));
+                }
+                return null;
+            });
+            Future<?> corrector = pool.submit(() -> {
+                Random random = new Random(7);
+                List<Grade> existing = gradeManager.viewAllGrades();
+                while (running.get()) {
+                    existing.get(random.nextInt(existing.size())).recordGrade(random.nextInt(101));
+                }
+                return null;
+            });
+            Future<?> reader = pool.submit(() -> {
+                long lastVersion = -1;
+                int pins = 0;
+                while (running.get() || pins < 10) {
+                    ModelSnapshot snapshot = gradeManager.snapshot();
+                    assertTrue(snapshot.getVersion() >= lastVersion);
+                    lastVersion = snapshot.getVersion();
+                    double first = sum(snapshot);
+                    int perStudent = 0;
+                    for (String studentId : studentIds) {
+                        perStudent += snapshot.getGradesByStudent(studentId).size();
+                    }
+                    assertEquals(snapshot.getGradeCount(), perStudent);
+                    assertEquals(first, sum(snapshot), 1e-6, "A pinned snapshot must not drift");
+                    pins++;
+                }
+                return null;
+            });
+
+            runQuietly(() -> {
+                try {
+                    adder.get(60, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            running.set(false);
+            corrector.get(60, TimeUnit.SECONDS);
+            reader.get(60, TimeUnit.SECONDS);
+            pool.shutdown();
+
+            assertEquals(7_000, gradeManager.snapshot().getGradeCount());
+        }
+
+        @Test
+        @DisplayName("Pinning cost does not grow with the data set")
+        void testPinIsConstantTime() {
+            runQuietly(() -> gradeManager.addGrades(generateGrades(50_000, 2)));
+            for (int i = 0; i < 10_000; i++) {
+                gradeManager.snapshot(); // warm up
+            }
+            int pins = 100_000;
+            long start = System.nanoTime();
+            for (int i = 0; i < pins; i++) {
+                gradeManager.snapshot();
+            }
+            double nanosPerPin = (System.nanoTime() - start) / (double) pins;
+            System.out.printf("%nSnapshot pin over %,d grades: %.0f ns%n", gradeManager.getTotalGradeCount(), nanosPerPin);
+
+            assertTrue(nanosPerPin < 50_000, "Pinning should not copy the grade set");
+        }
+    }
+
+    @Nested
+    @DisplayName("Report Stamping")
+    class StampingTests {
+
+        @Test
+        @DisplayName("Exports carry the data version they were produced from")
+        void testReportsAreStamped() throws Exception {
+            ReportGenerator generator = new ReportGenerator(studentManager, gradeManager);
+            ModelSnapshot snapshot = generator.snapshot();
+            String studentId = studentIds.get(3);
+            String filename = "snapshot_stamp_" + System.nanoTime();
+
+            runQuietly(() -> gradeManager.addGrades(List.of(new Grade(studentId, SUBJECTS[0], 0))));
+            runQuietly(() -> {
+                try {
+                    generator.exportToCSV(snapshot, studentId, filename);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            Path csv = Path.of("reports", "csv", filename + ".csv");
+            try {
+                String content = Files.readString(csv);
+                assertTrue(content.contains(snapshot.stamp()), content);
+                assertFalse(content.contains(",0.0,"), "Grade added after the pin must not be exported");
+            } finally {
+                Files.deleteIfExists(csv);
+            }
+        }
+    }
+}
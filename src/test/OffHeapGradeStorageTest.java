@@ -0,0 +1,280 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Off-Heap Grade Storage Test Suite")
+public class OffHeapGradeStorageTest {
+    private static final Subject[] SUBJECTS = {
+            new CoreSubject("Mathematics", "MAT101"),
+            new CoreSubject("English", "ENG101"),
+            new CoreSubject("Science", "SCI101"),
+            new ElectiveSubject("Art", "ART101"),
+            new ElectiveSubject("Music", "MUS101")
+    };
+
+    private GradeManager objectManager;
+    private GradeManager offHeapManager;
+    private List<String> studentIds;
+
+    @BeforeEach
+    public void setUp() {
+        StudentManager objectStudents = new StudentManager();
+        StudentManager offHeapStudents = new StudentManager();
+        objectManager = new GradeManager(objectStudents);
+        offHeapManager = new GradeManager(offHeapStudents, GradeManager.Storage.OFF_HEAP);
+        studentIds = new ArrayList<>();
+
+        runQuietly(() -> {
+            for (int i = 0; i < 25; i++) {
+                Student student = new RegularStudent("OffHeap " + i, 18, "offheap" + i + "@school.edu",
+                        "555-0000", "2024-09-01");
+                objectStudents.addStudent(student, false);
+                offHeapStudents.addStudent(student, false);
+                studentIds.add(student.getStudentId());
+            }
+        });
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private void loadBoth(int gradeCount) {
+        Random random = new Random(42);
+        List<Grade> grades = new ArrayList<>(gradeCount);
+        for (int i = 0; i < gradeCount; i++) {
+            grades.add(new Grade(studentIds.get(random.nextInt(studentIds.size())),
+                    SUBJECTS[random.nextInt(SUBJECTS.length)], 40 + random.nextInt(61)));
+        }
+        runQuietly(() -> {
+            objectManager.addGrades(grades);
+            offHeapManager.addGrades(grades);
+        });
+    }
+
+    private static List<String> ids(List<Grade> grades) {
+        return grades.stream().map(Grade::getGradeId).sorted().collect(Collectors.toList());
+    }
+
+    @Nested
+    @DisplayName("Query Parity")
+    class QueryParityTests {
+
+        @Test
+        @DisplayName("Every query returns what object mode returns")
+        void testQueriesMatch() {
+            loadBoth(3_000);
+            assertTrue(offHeapManager.isOffHeap());
+            assertTrue(offHeapManager.isColumnar());
+            assertFalse(objectManager.isOffHeap());
+
+            assertEquals(objectManager.getTotalGradeCount(), offHeapManager.getTotalGradeCount());
+            assertEquals(objectManager.calculateClassAverage(), offHeapManager.calculateClassAverage(), 1e-4);
+            assertEquals(objectManager.getUniqueCourses(), offHeapManager.getUniqueCourses());
+            Map<String, Double> objectSubjects = objectManager.calculateAverageBySubject();
+            Map<String, Double> offHeapSubjects = offHeapManager.calculateAverageBySubject();
+            for (String subject : objectSubjects.keySet()) {
+                assertEquals(objectSubjects.get(subject), offHeapSubjects.get(subject), 1e-4, subject);
+                assertEquals(ids(objectManager.getGradesBySubject(subject)), ids(offHeapManager.getGradesBySubject(subject)));
+            }
+            for (String studentId : studentIds) {
+                assertEquals(objectManager.calculateOverallAverage(studentId), offHeapManager.calculateOverallAverage(studentId), 1e-4);
+                assertEquals(objectManager.calculateCoreAverage(studentId), offHeapManager.calculateCoreAverage(studentId), 1e-4);
+                assertEquals(objectManager.calculateElectiveAverage(studentId), offHeapManager.calculateElectiveAverage(studentId), 1e-4);
+                assertEquals(ids(objectManager.getGradesByStudent(studentId)), ids(offHeapManager.getGradesByStudent(studentId)));
+                assertEquals(objectManager.getGradeCountForStudent(studentId), offHeapManager.getGradeCountForStudent(studentId));
+            }
+            String today = LocalDate.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+            assertEquals(ids(objectManager.getGradesByDateRange(today, today)), ids(offHeapManager.getGradesByDateRange(today, today)));
+            assertEquals(objectManager.snapshot().getGradeCount(), offHeapManager.snapshot().getGradeCount());
+        }
+
+        @Test
+        @DisplayName("Corrections on materialized grades are written back to direct memory")
+        void testCorrectionWriteBack() {
+            loadBoth(200);
+            String studentId = studentIds.get(0);
+            Grade grade = offHeapManager.getGradesByStudent(studentId).get(0);
+            runQuietly(() -> grade.recordGrade(12.5));
+
+            assertEquals(12.5, offHeapManager.getGradesByStudent(studentId).get(0).getGrade(), 1e-6);
+            List<Grade> objectGrades = objectManager.getGradesByStudent(studentId);
+            double expected = (objectManager.calculateOverallAverage(studentId) * objectGrades.size()
+                    - objectGrades.get(0).getGrade() + 12.5) / objectGrades.size();
+            assertEquals(expected, offHeapManager.calculateOverallAverage(studentId), 1e-4);
+        }
+    }
+
+    @Nested
+    @DisplayName("Store")
+    class StoreTests {
+
+        @Test
+        @DisplayName("Rows across chunk boundaries read back intact; the heap keeps only the row index")
+        void testChunkBoundaries() {
+            ColumnarGradeStore store = ColumnarGradeStore.offHeap();
+            int rows = 150_000; // three 64K-row chunks
+            long start = LocalDateTime.of(2024, 1, 1, 8, 0).atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+            for (int row = 0; row < rows; row++) {
+                store.append(IdAllocator.GRADES.format(5_000_000L + row), "STU" + (row % 100),
+                        SUBJECTS[row % SUBJECTS.length], row % 101, start + row * 1_000L);
+            }
+            assertTrue(store.isOffHeap());
+            assertEquals(rows, store.size());
+            for (int row : new int[] { 0, 65_535, 65_536, 131_071, 131_072, rows - 1 }) {
+                assertEquals(row % 101, store.getValue(row), 1e-6);
+                Grade grade = store.materialize(row);
+                assertEquals(IdAllocator.GRADES.format(5_000_000L + row), grade.getGradeId());
+                assertEquals("STU" + (row % 100), grade.getStudentId());
+                assertSame(SubjectRegistry.getInstance().intern(SUBJECTS[row % SUBJECTS.length]), grade.getSubject());
+            }
+            assertEquals(1_500, store.countForStudent("STU7"));
+            assertEquals(30_000, store.valuesForSubject("Art").length);
+            assertEquals(11, store.gradesBetween(start + 65_530_000L, start + 65_540_000L).size());
+
+            assertTrue(store.offHeapBytes() >= rows * 22L);
+            assertTrue(store.heapColumnBytes() < store.offHeapBytes() / 3,
+                    "Only the row index should be on the heap: " + store.heapColumnBytes());
+            assertEquals(0, new ColumnarGradeStore().offHeapBytes());
+        }
+    }
+
+    @Nested
+    @DisplayName("Performance")
+    class PerformanceTests {
+
+        /**
+         * Defaults keep the suite fast. The 50M figures come from
+         * -Doffheap.grades=50000000 -Xmx3g -XX:MaxDirectMemorySize=2g.
+         */
+        @Test
+        @DisplayName("Heap size, GC pauses and scan throughput: heap columns vs off-heap columns")
+        void testLayoutComparison() {
+            int gradeCount = Integer.getInteger("offheap.grades", 1_000_000);
+            int studentCount = Math.max(1_000, gradeCount / 50);
+
+            Result heap = measure(new ColumnarGradeStore(), gradeCount, studentCount);
+            Result offHeap = measure(ColumnarGradeStore.offHeap(), gradeCount, studentCount);
+
+            System.out.printf("%n=== GRADE STORAGE: %,d grades, %,d students ===%n", gradeCount, studentCount);
+            System.out.println("Layout     | Heap retained | Off-heap   | Load GC ms (count) | Full GC pause | Subject scan        | Student lookups");
+            heap.print("Heap");
+            offHeap.print("Off-heap");
+
+            // Retained heap depends on what the collector left behind; it is reported, not asserted.
+            // The column accounting is exact.
+            assertEquals(heap.scanChecksum, offHeap.scanChecksum, 1e-6 * gradeCount);
+            assertEquals(0, heap.offHeapBytes);
+            assertTrue(offHeap.offHeapBytes >= gradeCount * 22L, "Off-heap columns: " + offHeap.offHeapBytes);
+            assertTrue(offHeap.heapColumnBytes < heap.heapColumnBytes / 3,
+                    "Off-heap columns should leave only the row index on the heap: "
+                            + offHeap.heapColumnBytes + " vs " + heap.heapColumnBytes);
+        }
+
+        private Result measure(ColumnarGradeStore store, int gradeCount, int studentCount) {
+            Result result = new Result();
+            long baseline = usedHeap();
+            long[] gcBefore = gcTotals();
+            Random random = new Random(3);
+            long epochMillis = LocalDateTime.of(2020, 1, 1, 0, 0).atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+            String[] students = new String[studentCount];
+            for (int i = 0; i < studentCount; i++) {
+                students[i] = IdAllocator.STUDENTS.format(20_000_000L + i);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < gradeCount; i++) {
+                store.append(IdAllocator.GRADES.format(100_000_000L + i), students[random.nextInt(studentCount)],
+                        SUBJECTS[random.nextInt(SUBJECTS.length)], 40 + random.nextInt(61), epochMillis + i * 60_000L);
+            }
+            result.loadMillis = (System.nanoTime() - start) / 1_000_000.0;
+            long[] gcAfter = gcTotals();
+            result.loadGcCount = gcAfter[0] - gcBefore[0];
+            result.loadGcMillis = gcAfter[1] - gcBefore[1];
+
+            start = System.nanoTime();
+            System.gc(); // a full collection has to trace (and may move) everything still live
+            result.fullGcMillis = (System.nanoTime() - start) / 1_000_000.0;
+            result.heapBytes = usedHeap() - baseline;
+            result.offHeapBytes = store.offHeapBytes();
+            result.heapColumnBytes = store.heapColumnBytes();
+
+            store.valuesForSubject("Art"); // warm-up
+            start = System.nanoTime();
+            int scans = 5;
+            for (int i = 0; i < scans; i++) {
+                for (double value : store.valuesForSubject("Mathematics")) {
+                    result.scanChecksum += value;
+                }
+            }
+            result.scanRowsPerSecond = (double) gradeCount * scans / ((System.nanoTime() - start) / 1e9);
+
+            start = System.nanoTime();
+            int lookups = 100_000;
+            for (int i = 0; i < lookups; i++) {
+                result.lookupChecksum += store.valuesForStudent(students[random.nextInt(studentCount)]).length;
+            }
+            result.lookupsPerSecond = lookups / ((System.nanoTime() - start) / 1e9);
+            return result;
+        }
+
+        private long[] gcTotals() {
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+                millis += Math.max(0, gc.getCollectionTime());
+            }
+            return new long[] { count, millis };
+        }
+
+        private long usedHeap() {
+            Runtime runtime = Runtime.getRuntime();
+            for (int i = 0; i < 3; i++) {
+                runtime.gc();
+            }
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+
+    private static class Result {
+        double loadMillis;
+        long loadGcCount;
+        long loadGcMillis;
+        double fullGcMillis;
+        long heapBytes;
+        long offHeapBytes;
+        long heapColumnBytes;
+        double scanRowsPerSecond;
+        double scanChecksum;
+        double lookupsPerSecond;
+        long lookupChecksum;
+
+        void print(String layout) {
+            System.out.printf("%-10s | %9.1f MB  | %7.1f MB | %8d (%5d)     | %9.1f ms  | %8.1f M rows/s   | %,.0f /s%n",
+                    layout, heapBytes / 1048576.0, offHeapBytes / 1048576.0, loadGcMillis, loadGcCount,
+                    fullGcMillis, scanRowsPerSecond / 1e6, lookupsPerSecond);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Zero-Copy Read Views Test Suite")
+public class ReadViewsTest {
+    private static final Subject[] SUBJECTS = {
+            new CoreSubject("Mathematics", "MAT101"),
+            new CoreSubject("English", "ENG101"),
+            new ElectiveSubject("Art", "ART101")
+    };
+
+    private StudentManager studentManager;
+    private GradeManager gradeManager;
+    private List<String> studentIds;
+
+    @BeforeEach
+    public void setUp() {
+        studentManager = new StudentManager();
+        gradeManager = new GradeManager(studentManager);
+        studentIds = new ArrayList<>();
+        runQuietly(() -> {
+            for (int i = 0; i < 200; i++) {
+                Student student = i % 4 == 0
+                        ? new HonorsStudent("View " + i, 19, "view" + i + "@school.edu", "555-0606", "2024-09-01")
+                        : new RegularStudent("View " + i, 18, "view" + i + "@school.edu", "555-0606", "2024-09-01");
+                studentManager.addStudent(student);
+                studentIds.add(student.getStudentId());
+            }
+            gradeManager.addGrades(generateGrades(20_000, 1));
+        });
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private List<Grade> generateGrades(int count, long seed) {
+        Random random = new Random(seed);
+        List<Grade> grades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            grades.add(new Grade("GRD-V" + seed + "-" + i, studentIds.get(random.nextInt(studentIds.size())),
+                    SUBJECTS[random.nextInt(SUBJECTS.length)], 40 + random.nextInt(61)));
+        }
+        return grades;
+    }
+
+    @Nested
+    @DisplayName("View Semantics")
+    class SemanticsTests {
+
+        @Test
+        @DisplayName("Views match the copying getters and are read-only")
+        void testViewsMatchCopies() {
+            assertEquals(studentManager.getStudents(), studentManager.viewStudents());
+            assertEquals(studentManager.getStudentsByType("Honors"), studentManager.viewStudentsByType("Honors"));
+            String studentId = studentIds.get(7);
+            assertEquals(gradeManager.getGradesByStudent(studentId), gradeManager.viewGradesByStudent(studentId));
+            assertEquals(new HashSet<>(gradeManager.getGradesByStudent("all")), new HashSet<>(gradeManager.viewAllGrades()));
+            assertEquals(gradeManager.getGradesBySubject("Art").size(), gradeManager.viewGradesBySubject("Art").size());
+
+            assertThrows(UnsupportedOperationException.class, () -> studentManager.viewStudents().add(null));
+            assertThrows(UnsupportedOperationException.class, () -> gradeManager.viewAllGrades().remove(0));
+            assertThrows(UnsupportedOperationException.class, () -> gradeManager.viewGradesBySubject("Art").clear());
+            assertTrue(gradeManager.viewGradesByStudent("STU-NONE").isEmpty());
+        }
+
+        @Test
+        @DisplayName("A view is a snapshot; later grades are not included")
+        void testSnapshot() {
+            String studentId = studentIds.get(0);
+            List<Grade> before = gradeManager.viewGradesByStudent(studentId);
+            int size = before.size();
+
+            gradeManager.addGrades(List.of(new Grade(studentId, SUBJECTS[0], 77)));
+
+            assertEquals(size, before.size());
+            assertEquals(size + 1, gradeManager.viewGradesByStudent(studentId).size());
+        }
+
+        @Test
+        @DisplayName("Visitors and streams see every grade")
+        void testVisitorsAndStreams() {
+            AtomicLong visited = new AtomicLong();
+            gradeManager.forEachGrade(g -> visited.incrementAndGet());
+            AtomicLong students = new AtomicLong();
+            studentManager.forEachStudent(s -> students.incrementAndGet());
+
+            double expected = gradeManager.getGradesByStudent("all").stream().mapToDouble(Grade::getGrade).sum();
+
+            assertEquals(gradeManager.getTotalGradeCount(), visited.get());
+            assertEquals(studentManager.getStudentCount(), students.get());
+            assertEquals(expected, gradeManager.gradeStream().mapToDouble(Grade::getGrade).sum(), 0.001);
+            assertEquals(expected, gradeManager.parallelGradeStream().mapToDouble(Grade::getGrade).sum(), 0.001);
+        }
+
+        @Test
+        @DisplayName("Spliterator splits by grade count, even inside one student")
+        void testBalancedSplit() {
+            StudentManager single = new StudentManager();
+            GradeManager oneStudent = new GradeManager(single);
+            runQuietly(() -> {
+                Student student = new RegularStudent("Only One", 18, "only.one@school.edu", "555-0606", "2024-09-01");
+                single.addStudent(student);
+                List<Grade> grades = new ArrayList<>();
+                for (int i = 0; i < 1_000; i++) {
+                    grades.add(new Grade(student.getStudentId(), SUBJECTS[i % SUBJECTS.length], i % 101));
+                }
+                oneStudent.addGrades(grades);
+            });
+
+            Spliterator<Grade> right = oneStudent.gradeSpliterator();
+            Spliterator<Grade> left = right.trySplit();
+            assertNotNull(left);
+            assertEquals(500, left.estimateSize());
+            assertEquals(500, right.estimateSize());
+            assertTrue(right.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+
+            Spliterator<Grade> all = gradeManager.gradeSpliterator();
+            long total = all.estimateSize();
+            Spliterator<Grade> half = all.trySplit();
+            assertEquals(total, half.estimateSize() + all.estimateSize());
+            assertTrue(Math.abs(half.estimateSize() - all.estimateSize()) <= 1);
+        }
+
+        @Test
+        @DisplayName("Reading views while writers append never fails")
+        void testConcurrentReadsAndWrites() throws Exception {
+            AtomicBoolean running = new AtomicBoolean(true);
+            ExecutorService pool = Executors.newFixedThreadPool(3);
+            Future<?> writer = pool.submit(() -> {
+                for (int round = 0; round < 20; round++) {
+                    gradeManager.addGrades(generateGrades(500, 100 + round));
+                }
+                running.set(false);
+                return null;
+            });
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(pool.submit(() -> {
+                    while (running.get()) {
+                        List<Grade> view = gradeManager.viewAllGrades();
+                        assertEquals(view.size(), view.stream().count());
+                        gradeManager.parallelGradeStream().mapToDouble(Grade::getGrade).sum();
+                        for (Student student : studentManager.viewStudents()) {
+                            gradeManager.viewGradesByStudent(student.getStudentId()).forEach(Objects::requireNonNull);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+
+            assertEquals(30_000, gradeManager.viewAllGrades().size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Allocation")
+    class AllocationTests {
+
+        @Test
+        @DisplayName("Bytes allocated per query: copies vs views")
+        void testAllocationPerQuery() {
+            String studentId = studentIds.get(3);
+            long copyAll = allocatedPerCall(() -> gradeManager.getGradesByStudent("all").stream().mapToDouble(Grade::getGrade).sum());
+            long viewAll = allocatedPerCall(() -> gradeManager.gradeStream().mapToDouble(Grade::getGrade).sum());
+            long copyStudents = allocatedPerCall(() -> studentManager.getStudents().size());
+            long viewStudents = allocatedPerCall(() -> studentManager.viewStudents().size());
+            long copyOne = allocatedPerCall(() -> gradeManager.getGradesByStudent(studentId).size());
+            long viewOne = allocatedPerCall(() -> gradeManager.viewGradesByStudent(studentId).size());
+
+            System.out.println("\n=== ALLOCATION PER QUERY (200 students, 20,000 grades) ===");
+            System.out.printf("All grades -> stream sum: copy %,10d B | view %,8d B%n", copyAll, viewAll);
+            System.out.printf("All students:             copy %,10d B | view %,8d B%n", copyStudents, viewStudents);
+            System.out.printf("One student's grades:     copy %,10d B | view %,8d B%n", copyOne, viewOne);
+
+            if (copyAll >= 0) { // -1 when the JVM cannot report per-thread allocation
+                assertTrue(viewAll * 10 < copyAll, "View stream should allocate far less than a full copy");
+                assertTrue(viewStudents < copyStudents);
+                assertTrue(viewOne < copyOne);
+            }
+        }
+
+        private long allocatedPerCall(Supplier<Object> query) {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!(bean instanceof com.sun.management.ThreadMXBean)) return -1;
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            long threadId = Thread.currentThread().getId();
+            for (int i = 0; i < 200; i++) {
+                query.get(); // warm up
+            }
+            int calls = 100;
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < calls; i++) {
+                query.get();
+            }
+            return (threads.getThreadAllocatedBytes(threadId) - before) / calls;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import services.StatisticsCalculator;
+import services.StreamProcessor;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Sharded Grade Manager Test Suite")
+public class ShardedGradeManagerTest {
+    private static final Subject[] SUBJECTS = {
+            new CoreSubject("Mathematics", "MAT101"),
+            new CoreSubject("English", "ENG101"),
+            new CoreSubject("Science", "SCI101"),
+            new ElectiveSubject("Art", "ART101"),
+            new ElectiveSubject("Music", "MUS101")
+    };
+
+    private StudentManager plainStudents;
+    private StudentManager shardedStudents;
+    private GradeManager plainManager;
+    private ShardedGradeManager shardedManager;
+    private List<String> studentIds;
+
+    @BeforeEach
+    public void setUp() {
+        plainStudents = new StudentManager();
+        shardedStudents = new StudentManager();
+        plainManager = new GradeManager(plainStudents);
+        shardedManager = new ShardedGradeManager(shardedStudents, 4);
+        studentIds = new ArrayList<>();
+
+        runQuietly(() -> {
+            for (int i = 0; i < 60; i++) {
+                Student student = i % 5 == 0
+                        ? new HonorsStudent("Shard " + i, 18, "shard" + i + "@school.edu", "555-0000", "2024-09-01")
+                        : new RegularStudent("Shard " + i, 18, "shard" + i + "@school.edu", "555-0000", "2024-09-01");
+                plainStudents.addStudent(student, false);
+                shardedStudents.addStudent(student, false);
+                studentIds.add(student.getStudentId());
+            }
+        });
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    // Each manager gets its own Grade objects (a grade commits into one manager's version history)
+    private List<Grade> grades(int count, long seed) {
+        Random random = new Random(seed);
+        List<Grade> grades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            grades.add(new Grade(studentIds.get(random.nextInt(studentIds.size())),
+                    SUBJECTS[random.nextInt(SUBJECTS.length)], 40 + random.nextInt(61)));
+        }
+        return grades;
+    }
+
+    private void loadBoth(int gradeCount) {
+        List<Grade> plainGrades = grades(gradeCount, 42);
+        List<Grade> shardedGrades = grades(gradeCount, 42);
+        runQuietly(() -> {
+            plainManager.addGrades(plainGrades);
+            shardedManager.addGrades(shardedGrades);
+        });
+    }
+
+    private static List<Double> values(Collection<Grade> grades) {
+        return grades.stream().map(Grade::getGrade).sorted().collect(Collectors.toList());
+    }
+
+    @Nested
+    @DisplayName("Query Parity")
+    class QueryParityTests {
+
+        @Test
+        @DisplayName("Routed and scatter-gather queries return what one GradeManager returns")
+        void testQueriesMatch() {
+            loadBoth(4_000);
+
+            assertEquals(4, shardedManager.getPartitionCount());
+            assertEquals(plainManager.getTotalGradeCount(), shardedManager.getTotalGradeCount());
+            assertEquals(plainManager.calculateClassAverage(), shardedManager.calculateClassAverage(), 1e-9);
+            RunningGradeStats plainClass = plainManager.getClassStatistics();
+            RunningGradeStats shardedClass = shardedManager.getClassStatistics();
+            assertEquals(plainClass.getCount(), shardedClass.getCount());
+            assertEquals(plainClass.getStandardDeviation(), shardedClass.getStandardDeviation(), 1e-9);
+            assertEquals(plainManager.getUniqueCourses(), shardedManager.getUniqueCourses());
+
+            Map<String, Double> plainSubjects = plainManager.calculateAverageBySubject();
+            Map<String, Double> shardedSubjects = shardedManager.calculateAverageBySubject();
+            assertEquals(plainSubjects.keySet(), shardedSubjects.keySet());
+            for (String subject : plainSubjects.keySet()) {
+                assertEquals(plainSubjects.get(subject), shardedSubjects.get(subject), 1e-9, subject);
+                assertEquals(plainManager.getSubjectStatistics(subject).getCount(),
+                        shardedManager.getSubjectStatistics(subject).getCount());
+                assertEquals(values(plainManager.getGradesBySubject(subject)), values(shardedManager.getGradesBySubject(subject)));
+                assertEquals(values(plainManager.viewGradesBySubject(subject)), values(shardedManager.viewGradesBySubject(subject)));
+            }
+
+            for (String studentId : studentIds) {
+                assertEquals(plainManager.calculateOverallAverage(studentId), shardedManager.calculateOverallAverage(studentId), 1e-9);
+                assertEquals(plainManager.calculateCoreAverage(studentId), shardedManager.calculateCoreAverage(studentId), 1e-9);
+                assertEquals(plainManager.calculateStandardDeviation(studentId), shardedManager.calculateStandardDeviation(studentId), 1e-9);
+                assertEquals(plainManager.getGradeCountForStudent(studentId), shardedManager.getGradeCountForStudent(studentId));
+                assertEquals(values(plainManager.viewGradesByStudent(studentId)), values(shardedManager.viewGradesByStudent(studentId)));
+                assertEquals(plainStudents.findStudent(studentId).getGpa(), shardedStudents.findStudent(studentId).getGpa(), 1e-9);
+            }
+
+            assertEquals(values(plainManager.viewAllGrades()), values(shardedManager.viewAllGrades()));
+            assertEquals(plainManager.getTotalGradeCount(), shardedManager.gradeStream().count());
+            assertEquals(plainManager.getTotalGradeCount(), shardedManager.parallelGradeStream().count());
+            assertEquals(plainManager.getTotalGradeCount(), shardedManager.getGradesByStudent("all").size());
+
+            String today = LocalDate.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+            assertEquals(values(plainManager.getGradesByDateRange(today, today)),
+                    values(shardedManager.getGradesByDateRange(today, today)));
+            List<GradeTimeIndex.TimeRollup> plainMonths = plainManager.getRollups(GradeTimeIndex.Granularity.MONTH);
+            List<GradeTimeIndex.TimeRollup> shardedMonths = shardedManager.getRollups(GradeTimeIndex.Granularity.MONTH);
+            assertEquals(plainMonths.size(), shardedMonths.size());
+            for (int i = 0; i < plainMonths.size(); i++) {
+                assertEquals(plainMonths.get(i).getStart(), shardedMonths.get(i).getStart());
+                assertEquals(plainMonths.get(i).getCount(), shardedMonths.get(i).getCount());
+                assertEquals(plainMonths.get(i).getSum(), shardedMonths.get(i).getSum(), 1e-6);
+                assertEquals(plainMonths.get(i).countBetween(90, 100), shardedMonths.get(i).countBetween(90, 100));
+            }
+            LocalDate now = LocalDate.now();
+            assertEquals(plainManager.summarizeDateRange(now, now).getCount(),
+                    shardedManager.summarizeDateRange(now, now).getCount());
+        }
+
+        @Test
+        @DisplayName("Service reports merge partial aggregates into the single-manager result")
+        void testServiceReports() {
+            loadBoth(3_000);
+
+            Map<String, Object> plainAnalysis = new StreamProcessor(plainStudents, plainManager).analyzeGradeDistribution();
+            Map<String, Object> shardedAnalysis = new StreamProcessor(shardedStudents, shardedManager).analyzeGradeDistribution();
+            assertEquals(plainAnalysis.get("totalGrades"), shardedAnalysis.get("totalGrades"));
+            assertEquals(plainAnalysis.get("min"), shardedAnalysis.get("min"));
+            assertEquals(plainAnalysis.get("max"), shardedAnalysis.get("max"));
+            assertEquals((double) plainAnalysis.get("average"), (double) shardedAnalysis.get("average"), 1e-9);
+            assertEquals(plainAnalysis.get("distribution"), shardedAnalysis.get("distribution"));
+            @SuppressWarnings("unchecked")
+            Map<String, Double> plainSubjects = (Map<String, Double>) plainAnalysis.get("subjectAverages");
+            @SuppressWarnings("unchecked")
+            Map<String, Double> shardedSubjects = (Map<String, Double>) shardedAnalysis.get("subjectAverages");
+            plainSubjects.forEach((subject, average) -> assertEquals(average, shardedSubjects.get(subject), 1e-9, subject));
+            assertEquals(plainManager.calculateAverageBySubject().keySet(),
+                    new StreamProcessor(shardedStudents, shardedManager).calculateAverageBySubject().keySet());
+
+            Map<String, Object> plainStats = new StatisticsCalculator(plainStudents, plainManager).getRealTimeStatistics();
+            Map<String, Object> shardedStats = new StatisticsCalculator(shardedStudents, shardedManager).getRealTimeStatistics();
+            assertEquals(3_000, shardedStats.get("totalGrades"));
+            assertEquals(plainStats.get("totalGrades"), shardedStats.get("totalGrades"));
+            assertEquals(plainStats.get("gradeDistribution"), shardedStats.get("gradeDistribution"));
+            assertEquals((double) plainStats.get("averageGrade"), (double) shardedStats.get("averageGrade"), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Columnar partitions answer the same queries")
+        void testColumnarPartitions() {
+            ShardedGradeManager columnar = new ShardedGradeManager(new StudentManager(), 3, GradeManager.Storage.COLUMNAR);
+            List<Grade> columnarGrades = grades(2_000, 42);
+            runQuietly(() -> columnar.addGrades(columnarGrades));
+            loadBoth(2_000);
+
+            assertTrue(columnar.isColumnar());
+            assertEquals(plainManager.getTotalGradeCount(), columnar.getTotalGradeCount());
+            assertEquals(plainManager.calculateClassAverage(), columnar.calculateClassAverage(), 1e-4);
+            assertEquals(values(plainManager.viewAllGrades()), values(columnar.viewAllGrades()));
+            for (String studentId : studentIds) {
+                assertEquals(plainManager.getGradeCountForStudent(studentId), columnar.getGradeCountForStudent(studentId));
+            }
+            ModelSnapshot snapshot = columnar.snapshot();
+            assertEquals(2_000, snapshot.getGradeCount());
+            assertEquals(2_000, columnar.getDataVersion());
+        }
+    }
+
+    @Nested
+    @DisplayName("Partitioning")
+    class PartitioningTests {
+
+        @Test
+        @DisplayName("Students spread over every partition and always route to the same one")
+        void testPlacement() {
+            int[] perPartition = new int[shardedManager.getPartitionCount()];
+            for (String studentId : studentIds) {
+                int partition = shardedManager.partitionOf(studentId);
+                assertEquals(partition, shardedManager.partitionOf(new String(studentId)));
+                perPartition[partition]++;
+            }
+            for (int count : perPartition) {
+                assertTrue(count > 0, "Every partition should own students: " + Arrays.toString(perPartition));
+            }
+            assertEquals(1, new ShardedGradeManager(new StudentManager(), 1).getPartitionCount());
+            assertThrows(IllegalArgumentException.class, () -> new ShardedGradeManager(new StudentManager(), 0));
+        }
+
+        @Test
+        @DisplayName("Snapshots pin one version across partitions")
+        void testSnapshotAcrossPartitions() {
+            loadBoth(1_000);
+            assertEquals(1_000, shardedManager.getDataVersion());
+
+            ModelSnapshot snapshot = shardedManager.snapshot();
+            String studentId = studentIds.get(7);
+            int pinnedCount = snapshot.getGradesByStudent(studentId).size();
+            Grade corrected = shardedManager.viewGradesByStudent(studentId).get(0);
+            double pinnedValue = corrected.getGrade();
+
+            List<Grade> more = grades(500, 7);
+            runQuietly(() -> {
+                shardedManager.addGrades(more);
+                corrected.recordGrade(pinnedValue == 50 ? 51 : 50);
+            });
+
+            assertEquals(1_501, shardedManager.getDataVersion());
+            assertEquals(1_000, snapshot.getGradeCount());
+            assertEquals(pinnedCount, snapshot.getGradesByStudent(studentId).size());
+            assertEquals(pinnedValue, snapshot.valueOf(corrected), 1e-9);
+            assertEquals(1_500, shardedManager.snapshot().getGradeCount());
+        }
+
+        @Test
+        @DisplayName("Writers on different partitions run concurrently without losing grades")
+        void testConcurrentWriters() throws Exception {
+            int threads = 4;
+            int perThread = 2_000;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                List<Grade> batch = grades(perThread, 100 + t);
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < batch.size(); i += 100) {
+                        shardedManager.addGrades(batch.subList(i, i + 100));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+
+            int total = threads * perThread;
+            assertEquals(total, shardedManager.getTotalGradeCount());
+            assertEquals(total, shardedManager.getClassStatistics().getCount());
+            assertEquals(total, shardedManager.getDataVersion());
+            assertEquals(total, shardedManager.snapshot().getGradeCount());
+            long perStudent = studentIds.stream().mapToLong(shardedManager::getGradeCountForStudent).sum();
+            assertEquals(total, perStudent);
+        }
+    }
+
+    @Nested
+    @DisplayName("Performance")
+    class PerformanceTests {
+
+        /**
+         * Defaults keep the suite fast; pass -Dsharded.grades / -Dsharded.threads for larger runs.
+         * Write throughput only scales with partitions when there are cores to run them on.
+         */
+        @Test
+        @DisplayName("Write throughput and class-wide query latency by partition count")
+        void testPartitionScaling() {
+            int gradeCount = Integer.getInteger("sharded.grades", 200_000);
+            int threads = Integer.getInteger("sharded.threads", Math.max(2, Runtime.getRuntime().availableProcessors()));
+            int cores = Runtime.getRuntime().availableProcessors();
+
+            System.out.printf("%n=== SHARDED GRADE MANAGER: %,d grades, %d writer threads, %d cores ===%n",
+                    gradeCount, threads, cores);
+            System.out.println("Partitions | Writes/s     | Class stats | Subject avgs | Distribution report");
+            measure(2, gradeCount / 2, threads); // JIT warm-up, so the first row is not penalized
+            Double baseline = null;
+            for (int partitions : new int[] { 1, 2, 4, 8 }) {
+                double[] result = measure(partitions, gradeCount, threads);
+                if (baseline == null) baseline = result[4];
+                assertEquals(baseline, result[4], 1e-6 * gradeCount, "Sums should not depend on partitioning");
+                System.out.printf("%10d | %,12.0f | %8.3f ms | %9.3f ms | %10.1f ms%n",
+                        partitions, result[0], result[1], result[2], result[3]);
+            }
+        }
+
+        // { writes/s, class stats ms, subject averages ms, distribution ms, checksum }
+        private double[] measure(int partitions, int gradeCount, int threads) {
+            StudentManager students = new StudentManager();
+            ShardedGradeManager manager = new ShardedGradeManager(students, partitions);
+            List<List<Grade>> batches = new ArrayList<>();
+            Random random = new Random(11);
+            int perThread = gradeCount / threads;
+            for (int t = 0; t < threads; t++) {
+                List<Grade> batch = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    batch.add(new Grade(IdAllocator.STUDENTS.format(30_000_000L + random.nextInt(5_000)),
+                            SUBJECTS[random.nextInt(SUBJECTS.length)], 40 + random.nextInt(61)));
+                }
+                batches.add(batch);
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Grade> batch : batches) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < batch.size(); i += 500) {
+                        manager.addGrades(batch.subList(i, Math.min(batch.size(), i + 500)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                assertDoesNotThrow(() -> future.get());
+            }
+            double writesPerSecond = perThread * threads / ((System.nanoTime() - start) / 1e9);
+            pool.shutdown();
+
+            double[] result = new double[5];
+            result[0] = writesPerSecond;
+            result[1] = timeMillis(() -> manager.getClassStatistics(), 200);
+            result[2] = timeMillis(() -> manager.calculateAverageBySubject(), 200);
+            StreamProcessor processor = new StreamProcessor(students, manager);
+            result[3] = timeMillis(processor::analyzeGradeDistribution, 5);
+            result[4] = manager.getClassStatistics().getSum();
+            return result;
+        }
+
+        private double timeMillis(Runnable query, int repetitions) {
+            query.run(); // warm-up
+            long start = System.nanoTime();
+            for (int i = 0; i < repetitions; i++) {
+                query.run();
+            }
+            return (System.nanoTime() - start) / 1e6 / repetitions;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package test;
+
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Subject Registry Test Suite")
+public class SubjectRegistryTest {
+    private SubjectRegistry registry;
+    private Subject[] subjects;
+
+    @BeforeEach
+    public void setUp() {
+        registry = SubjectRegistry.getInstance();
+        subjects = new Subject[] {
+                registry.core("Mathematics", "MAT101"),
+                registry.core("English", "ENG101"),
+                registry.core("Science", "SCI101"),
+                registry.elective("Art", "ART101"),
+                registry.elective("Music", "MUS101")
+        };
+    }
+
+    private static void runQuietly(Runnable action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private List<Grade> generateGrades(int count, long seed) {
+        Random random = new Random(seed);
+        List<Grade> grades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            grades.add(new Grade("GRD-S" + seed + "-" + i, "STU" + (i % 100),
+                    subjects[random.nextInt(subjects.length)], 40 + random.nextInt(61)));
+        }
+        return grades;
+    }
+
+    @Nested
+    @DisplayName("Interning")
+    class InterningTests {
+
+        @Test
+        @DisplayName("Equal subjects share one instance and id")
+        void testSameInstance() {
+            Subject math = registry.core("Mathematics", "MAT101");
+            Grade grade = new Grade("STU001", new CoreSubject("Mathematics", "MAT101"), 80);
+
+            assertSame(subjects[0], math);
+            assertSame(subjects[0], grade.getSubject());
+            assertSame(subjects[0], registry.intern(new CoreSubject("Mathematics", "MAT101")));
+            assertSame(subjects[0], registry.get(subjects[0].getSubjectId()));
+        }
+
+        @Test
+        @DisplayName("Ids are dense and distinct per (type, code, name)")
+        void testDenseIds() {
+            Set<Integer> ids = new HashSet<>();
+            for (Subject subject : subjects) {
+                assertTrue(subject.getSubjectId() >= 0 && subject.getSubjectId() < registry.size());
+                ids.add(subject.getSubjectId());
+            }
+            assertEquals(subjects.length, ids.size());
+
+            Subject electiveMath = registry.elective("Mathematics", "MAT101");
+            assertNotSame(subjects[0], electiveMath);
+            assertTrue(Arrays.stream(registry.idsForName("Mathematics")).anyMatch(id -> id == electiveMath.getSubjectId()));
+            assertEquals(0, registry.idsForName("No Such Subject").length);
+        }
+
+        @Test
+        @DisplayName("Lookups racing registrations that grow the table always find the subject")
+        void testGetWhileGrowing() throws Exception {
+            AtomicBoolean done = new AtomicBoolean();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        int last = registry.size() - 1;
+                        assertNotNull(registry.get(last), "id " + last);
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            reader.start();
+            try {
+                for (int i = 0; i < 5_000; i++) {
+                    registry.elective("Growth " + i, "GRW" + i);
+                }
+            } finally {
+                done.set(true);
+                reader.join();
+            }
+            assertNull(failure.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("Id-Indexed Aggregation")
+    class AggregationTests {
+
+        @Test
+        @DisplayName("averagingByName matches groupingBy on subject name")
+        void testCollectorMatchesGroupingBy() {
+            List<Grade> grades = generateGrades(5_000, 1);
+
+            Map<String, Double> expected = grades.stream()
+                    .collect(Collectors.groupingBy(g -> g.getSubject().getSubjectName(),
+                            Collectors.averagingDouble(Grade::getGrade)));
+            Map<String, Double> sequential = grades.stream().collect(SubjectAccumulator.averagingByName());
+            Map<String, Double> parallel = grades.parallelStream().collect(SubjectAccumulator.averagingByName());
+
+            assertEquals(expected.keySet(), sequential.keySet());
+            assertEquals(expected.keySet(), parallel.keySet());
+            for (String name : expected.keySet()) {
+                assertEquals(expected.get(name), sequential.get(name), 0.0001);
+                assertEquals(expected.get(name), parallel.get(name), 0.0001);
+            }
+        }
+
+        @Test
+        @DisplayName("GradeManager subject queries resolve through the registry")
+        void testGradeManagerBySubject() {
+            StudentManager studentManager = new StudentManager();
+            GradeManager gradeManager = new GradeManager(studentManager);
+            List<Grade> grades = generateGrades(1_000, 2);
+            runQuietly(() -> gradeManager.addGrades(grades));
+
+            Map<String, Double> expected = grades.stream().collect(SubjectAccumulator.averagingByName());
+            Map<String, Double> actual = gradeManager.calculateAverageBySubject();
+            for (Map.Entry<String, Double> entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), actual.get(entry.getKey()), 0.0001);
+                assertEquals(entry.getValue(), gradeManager.getSubjectStatistics(entry.getKey()).getMean(), 0.0001);
+            }
+        }
+
+        @Test
+        @DisplayName("Array-indexed vs string-hash grouping")
+        void testGroupingPerformance() {
+            List<Grade> grades = generateGrades(200_000, 3);
+            for (int warmup = 0; warmup < 3; warmup++) {
+                grades.stream().collect(Collectors.groupingBy(g -> g.getSubject().getSubjectName(),
+                        Collectors.averagingDouble(Grade::getGrade)));
+                grades.stream().collect(SubjectAccumulator.averagingByName());
+            }
+
+            long start = System.nanoTime();
+            Map<String, Double> hashed = grades.stream()
+                    .collect(Collectors.groupingBy(g -> g.getSubject().getSubjectName(),
+                            Collectors.averagingDouble(Grade::getGrade)));
+            long hashNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Map<String, Double> indexed = grades.stream().collect(SubjectAccumulator.averagingByName());
+            long indexNanos = System.nanoTime() - start;
+
+            System.out.println("\n=== SUBJECT GROUPING (" + grades.size() + " grades) ===");
+            System.out.printf("groupingBy(subjectName): %8.2f ms%n", hashNanos / 1_000_000.0);
+            System.out.printf("SubjectAccumulator:      %8.2f ms%n", indexNanos / 1_000_000.0);
+
+            assertEquals(hashed.keySet(), indexed.keySet());
+        }
+    }
+
+    @Nested
+    @DisplayName("Memory Footprint")
+    class MemoryTests {
+
+        @Test
+        @DisplayName("Shared subjects vs one Subject per grade")
+        void testSharedSubjectFootprint() {
+            int count = 100_000;
+            List<Subject> perRow = new ArrayList<>(count);
+            List<Subject> shared = new ArrayList<>(count);
+
+            long before = usedMemory();
+            for (int i = 0; i < count; i++) {
+                // What every import used to do: a fresh Subject (and strings) per row
+                perRow.add(new CoreSubject(new String("Mathematics"), new String("MAT101")));
+            }
+            long perRowBytes = usedMemory() - before;
+
+            before = usedMemory();
+            for (int i = 0; i < count; i++) {
+                shared.add(registry.core("Mathematics", "MAT101"));
+            }
+            long sharedBytes = usedMemory() - before;
+
+            System.out.println("\n=== SUBJECT FOOTPRINT (" + count + " grades) ===");
+            System.out.printf("Subject per grade: ~%,d bytes (%.1f bytes/grade)%n", perRowBytes, perRowBytes / (double) count);
+            System.out.printf("Interned subject:  ~%,d bytes (%.1f bytes/grade)%n", sharedBytes, sharedBytes / (double) count);
+
+            assertEquals(1, identityCount(shared));
+            assertEquals(count, identityCount(perRow));
+        }
+
+        private int identityCount(List<Subject> list) {
+            Set<Subject> identities = Collections.newSetFromMap(new IdentityHashMap<>());
+            identities.addAll(list);
+            return identities.size();
+        }
+
+        private long usedMemory() {
+            Runtime runtime = Runtime.getRuntime();
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+            }
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
@@ -33,7 +33,7 @@ public class ValidationUtilsTest {
     class StudentIdValidationTests {
 
         @ParameterizedTest
-        @ValueSource(strings = { "STU001", "STU042", "STU999", "STU123" })
+        @ValueSource(strings = { "STU001", "STU042", "STU999", "STU123", "STU1000", "STU123456" })
         @DisplayName("Valid Student IDs")
         void testValidStudentIds(String studentId) {
             ValidationResult result = ValidationUtils.validateStudentId(studentId);
@@ -0,0 +1,204 @@
+package utils;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import models.Grade;
+import models.Student;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retained-size estimates for the objects the managers and caches hold, for capacity
+ * planning and byte-bounded caches.
+ *
+ * Sizes follow the HotSpot object layout: a 12-byte header and 4-byte references with
+ * compressed oops (16 and 8 without), fields packed by size, every object rounded up to
+ * 8 bytes. Shallow sizes are derived from each class's declared instance fields, strings
+ * from their length and coder (compact strings: 1 byte per Latin-1 char, else 2).
+ *
+ * "Retained" means what dropping the object would free. Methods that take a container
+ * (lists, maps) count the container and its entries but not objects shared with the
+ * managers (the Grade instances in a cached grade list, subject-name keys), unless asked.
+ */
+public final class MemoryEstimator {
+    public static final boolean COMPRESSED_OOPS = detectCompressedOops();
+    public static final int OBJECT_HEADER = COMPRESSED_OOPS ? 12 : 16;
+    public static final int REFERENCE_SIZE = COMPRESSED_OOPS ? 4 : 8;
+    public static final int ARRAY_HEADER = COMPRESSED_OOPS ? 16 : 20;
+
+    private static final ClassValue<Long> SHALLOW_SIZES = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long size = OBJECT_HEADER;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        size += fieldSize(field.getType());
+                    }
+                }
+            }
+            return align(size);
+        }
+    };
+
+    // Fixed shapes (java.util internals are not reflected on)
+    private static final long HASH_MAP = align(OBJECT_HEADER + 4L * 4 + 4L * REFERENCE_SIZE);
+    private static final long HASH_MAP_NODE = align(OBJECT_HEADER + 4 + 3L * REFERENCE_SIZE);
+    private static final long ARRAY_LIST = align(OBJECT_HEADER + 4 + 4 + REFERENCE_SIZE);
+    private static final long BOXED_DOUBLE = align(OBJECT_HEADER + 8);
+    private static final long STRING = align(OBJECT_HEADER + 4 + 1 + 1 + REFERENCE_SIZE);
+
+    private MemoryEstimator() {
+    }
+
+    private static boolean detectCompressedOops() {
+        try {
+            HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            if (bean != null) {
+                return Boolean.parseBoolean(bean.getVMOption("UseCompressedOops").getValue());
+            }
+        } catch (RuntimeException | LinkageError e) {
+            // Not HotSpot: fall through to the heap-size rule
+        }
+        return Runtime.getRuntime().maxMemory() < 32L * 1024 * 1024 * 1024;
+    }
+
+    private static long fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        if (type == byte.class || type == boolean.class) return 1;
+        return REFERENCE_SIZE;
+    }
+
+    public static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * Header plus declared instance fields of the class and its superclasses.
+     * Time Complexity: O(1) after the first call per class
+     */
+    public static long shallowSizeOf(Class<?> type) {
+        return SHALLOW_SIZES.get(type);
+    }
+
+    public static long arraySize(int length, int elementBytes) {
+        return align(ARRAY_HEADER + (long) length * elementBytes);
+    }
+
+    public static long referenceArraySize(int length) {
+        return arraySize(length, REFERENCE_SIZE);
+    }
+
+    /**
+     * String object plus its byte[] value.
+     * Time Complexity: O(length) to find the coder
+     */
+    public static long sizeOf(String s) {
+        if (s == null) return 0;
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++) {
+            latin1 = s.charAt(i) < 256;
+        }
+        return STRING + arraySize(s.length(), latin1 ? 1 : 2);
+    }
+
+    public static long sizeOf(LocalDate date) {
+        return date == null ? 0 : shallowSizeOf(LocalDate.class);
+    }
+
+    public static long sizeOf(LocalDateTime dateTime) {
+        return dateTime == null ? 0
+                : shallowSizeOf(LocalDateTime.class) + shallowSizeOf(LocalDate.class) + shallowSizeOf(LocalTime.class);
+    }
+
+    /**
+     * The student object with its strings and enrollment date.
+     */
+    public static long sizeOf(Student student) {
+        if (student == null) return 0;
+        return shallowSizeOf(student.getClass())
+                + sizeOf(student.getStudentId())
+                + sizeOf(student.getName())
+                + sizeOf(student.getEmail())
+                + sizeOf(student.getPhone())
+                + sizeOf(student.getEnrollmentDate());
+    }
+
+    /**
+     * The grade object with its own strings and times (the subject is shared via the registry).
+     */
+    public static long sizeOf(Grade grade) {
+        if (grade == null) return 0;
+        return shallowSizeOf(grade.getClass())
+                + sizeOf(grade.getGradeId())
+                + sizeOf(grade.getStudentId())
+                + sizeOf(grade.getDate())
+                + sizeOf(grade.getTimestamp())
+                + shallowSizeOf(LocalDate.class); // recordedDay
+    }
+
+    /**
+     * An ArrayList copy of the grades; with includeGrades, the Grade objects as well.
+     * Time Complexity: O(1), or O(n) with includeGrades
+     */
+    public static long sizeOfGradeList(List<Grade> grades, boolean includeGrades) {
+        if (grades == null) return 0;
+        long size = ARRAY_LIST + referenceArraySize(grades.size());
+        if (includeGrades) {
+            for (Grade grade : grades) {
+                size += sizeOf(grade);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * A HashMap copy with boxed Double values; with includeKeys, the key strings as well.
+     * Time Complexity: O(1), or O(n) with includeKeys
+     */
+    public static long sizeOfDoubleMap(Map<String, Double> map, boolean includeKeys) {
+        if (map == null) return 0;
+        int size = map.size();
+        long bytes = HASH_MAP + (long) size * (HASH_MAP_NODE + BOXED_DOUBLE);
+        if (size > 0) {
+            bytes += referenceArraySize(tableSize(size));
+        }
+        if (includeKeys) {
+            for (String key : map.keySet()) {
+                bytes += sizeOf(key);
+            }
+        }
+        return bytes;
+    }
+
+    public static long sizeOfBoxedDouble() {
+        return BOXED_DOUBLE;
+    }
+
+    /**
+     * Per-entry cost of a HashMap/ConcurrentHashMap: its node plus its share of the table.
+     */
+    public static long hashEntryOverhead() {
+        return HASH_MAP_NODE + (long) Math.ceil(REFERENCE_SIZE / 0.75);
+    }
+
+    // Table length a HashMap copy constructor picks for this many entries
+    private static int tableSize(int entries) {
+        int needed = (int) Math.ceil(entries / 0.75);
+        return Math.max(16, Integer.highestOneBit(Math.max(1, needed - 1)) << 1);
+    }
+
+    public static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -1,5 +1,7 @@
 package utils;
 
+import models.IdAllocator;
+
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import java.time.LocalDate;
@@ -8,7 +10,7 @@ import java.time.format.DateTimeParseException;
 
 public class ValidationUtils {
     // Compile patterns once for performance (as per PDF requirement)
-    public static final Pattern STUDENT_ID = Pattern.compile("^STU\\d{3}$");
+    public static final Pattern STUDENT_ID = IdAllocator.STUDENTS.getPattern(); // STU001 ... STU999, STU1000 ...
     public static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
     public static final Pattern PHONE = Pattern.compile(
             "^(\\(\\d{3}\\)\\s\\d{3}-\\d{4}|" +      // (123) 456-7890
@@ -33,8 +35,8 @@ public class ValidationUtils {
         boolean valid = STUDENT_ID.matcher(studentId).matches();
         return valid ?
                 ValidationResult.success() :
-                ValidationResult.failure("Invalid Student ID format. Expected: STU### (STU followed by exactly 3 digits)",
-                        "STU001, STU042, STU999");
+                ValidationResult.failure("Invalid Student ID format. Expected: " + IdAllocator.STUDENTS.describeFormat(),
+                        "STU001, STU042, STU1234");
     }
 
     public static ValidationResult validateEmail(String email) {